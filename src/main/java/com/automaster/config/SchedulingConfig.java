@@ -0,0 +1,12 @@
+package com.automaster.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * 定时任务配置：开启 @Scheduled（仪表盘对账等后台任务）
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -2,10 +2,18 @@ package com.automaster.controller;
 
 import com.automaster.dto.ErrorResponse;
 import com.automaster.entity.Car;
+import com.automaster.entity.CarStatus;
+import com.automaster.entity.CarStatusTransition;
 import com.automaster.entity.Transaction;
+import com.automaster.event.CarChangedEvent;
+import com.automaster.event.TransactionChangedEvent;
+import com.automaster.exception.CarStatusConflictException;
 import com.automaster.repository.CarRepository;
 import com.automaster.repository.TransactionRepository;
+import com.automaster.service.CarStatusService;
+import com.automaster.service.support.JsonArrayStreamer;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -15,13 +23,16 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 @Slf4j
@@ -32,11 +43,19 @@ public class CarController {
 
     private final CarRepository carRepository;
     private final TransactionRepository transactionRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JsonArrayStreamer jsonArrayStreamer;
+    private final CarStatusService carStatusService;
 
     @Autowired
-    public CarController(CarRepository carRepository, TransactionRepository transactionRepository) {
+    public CarController(CarRepository carRepository, TransactionRepository transactionRepository,
+                         ApplicationEventPublisher eventPublisher, JsonArrayStreamer jsonArrayStreamer,
+                         CarStatusService carStatusService) {
         this.carRepository = carRepository;
         this.transactionRepository = transactionRepository;
+        this.eventPublisher = eventPublisher;
+        this.jsonArrayStreamer = jsonArrayStreamer;
+        this.carStatusService = carStatusService;
     }
 
     /**
@@ -45,7 +64,7 @@ public class CarController {
     @GetMapping
     @Operation(
             summary = "查询所有车辆",
-            description = "获取数据库中所有车辆信息，包含完整的车辆属性",
+            description = "获取数据库中所有车辆信息，包含完整的车辆属性；stream=true 时按批次流式输出，内存占用与车辆总数无关",
             responses = {
                     @ApiResponse(responseCode = "200", description = "查询成功，返回车辆列表",
                             content = @Content(schema = @Schema(implementation = Car.class))),
@@ -53,7 +72,14 @@ public class CarController {
                     @ApiResponse(responseCode = "500", description = "服务器内部错误", content = @Content)
             }
     )
-    public ResponseEntity<List<Car>> getAll() {
+    public ResponseEntity<?> getAll(
+            @Parameter(description = "是否流式输出（边读边写，适合大数据量，无数据时返回空数组）")
+            @RequestParam(defaultValue = "false") boolean stream
+    ) {
+        if (stream) {
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+                    .body(jsonArrayStreamer.jsonArray(carRepository::streamAll, null));
+        }
         List<Car> cars = carRepository.findAll();
         return cars.isEmpty() ? ResponseEntity.noContent().build() : ResponseEntity.ok(cars);
     }
@@ -135,6 +161,7 @@ public class CarController {
         }
         // 5. 正常保存
         Car savedCar = carRepository.save(car);
+        eventPublisher.publishEvent(CarChangedEvent.created(savedCar));
         return ResponseEntity.status(HttpStatus.CREATED).body(savedCar);
     }
 
@@ -142,9 +169,11 @@ public class CarController {
      * 修改车辆信息
      */
     @PutMapping("/{id}")
+    @Transactional
     @Operation(
             summary = "修改车辆信息",
-            description = "根据车辆ID更新车辆信息，包含VIN唯一性校验（排除自身）、预定状态客户/定金必填校验",
+            description = "根据车辆ID更新车辆信息，包含VIN唯一性校验（排除自身）、预定状态客户/定金必填校验；"
+                    + "已售状态只能通过交易流转修改",
             parameters = {
                     @Parameter(name = "id", description = "车辆ID（UUID）", required = true,
                             example = "123e4567-e89b-12d3-a456-426614174000", schema = @Schema(type = "string"))
@@ -168,6 +197,9 @@ public class CarController {
                     @ApiResponse(responseCode = "404", description = "车辆ID不存在",
                             content = @Content(schema = @Schema(implementation = ErrorResponse.class),
                                     examples = @ExampleObject(value = "{\"code\":\"CAR_NOT_FOUND\",\"message\":\"车辆ID不存在\"}"))),
+                    @ApiResponse(responseCode = "409", description = "改为/改出已售状态，或车辆状态已被其他操作修改",
+                            content = @Content(schema = @Schema(implementation = ErrorResponse.class),
+                                    examples = @ExampleObject(value = "{\"code\":\"STATUS_CHANGE_NOT_ALLOWED\",\"message\":\"已售车辆的状态只能通过交易流转修改\"}"))),
                     @ApiResponse(responseCode = "500", description = "服务器内部错误", content = @Content)
             }
     )
@@ -177,8 +209,9 @@ public class CarController {
             @Parameter(description = "新的车辆信息", required = true)
             @RequestBody Car car
     ) {
-        // 1. 校验车辆是否存在
-        if (!carRepository.existsById(id)) {
+        // 1. 校验车辆是否存在（同时保留修改前快照，用于仪表盘增量统计）
+        Optional<Car> currentCar = carRepository.findById(id);
+        if (currentCar.isEmpty()) {
             Map<String, String> error = new HashMap<>();
             error.put("code", "CAR_NOT_FOUND");
             error.put("message", "车辆ID不存在");
@@ -194,8 +227,19 @@ public class CarController {
             return ResponseEntity.badRequest().body(error);
         }
 
-        // 3. 预定状态校验
-        if ("PENDING".equals(car.getStatus())) {
+        // 3. 状态校验：未提交状态时保留原状态；改为或改出已售须通过交易流转（销售、完成预定、变回在售）
+        Car current = currentCar.get();
+        String status = car.getStatus() != null ? car.getStatus() : current.getStatus();
+        String sold = CarStatus.SOLD.name();
+        if (!Objects.equals(status, current.getStatus()) && (sold.equals(status) || sold.equals(current.getStatus()))) {
+            Map<String, String> error = new HashMap<>();
+            error.put("code", "STATUS_CHANGE_NOT_ALLOWED");
+            error.put("message", "已售车辆的状态只能通过交易流转修改");
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+        }
+
+        // 4. 预定状态校验
+        if ("PENDING".equals(status)) {
             if (car.getCustomerId() == null || car.getCustomerId().trim().isEmpty()) {
                 Map<String, String> error = new HashMap<>();
                 error.put("code", "CUSTOMER_REQUIRED");
@@ -210,10 +254,16 @@ public class CarController {
             }
         }
 
-        // 4. 正常更新
+        // 5. 条件更新：状态和预定信息须与读取时一致，避免覆盖期间并发完成的状态流转（冲突时返回409）
+        Car before = CarChangedEvent.snapshot(current);
         car.setId(id);
-        Car updatedCar = carRepository.save(car);
-        return ResponseEntity.ok(updatedCar);
+        car.setStatus(status);
+        car.setDateAdded(current.getDateAdded());
+        if (carRepository.compareAndUpdate(car, before.getStatus(), before.getCustomerId(), before.getDeposit()) == 0) {
+            throw new CarStatusConflictException(id);
+        }
+        eventPublisher.publishEvent(CarChangedEvent.updated(before, car));
+        return ResponseEntity.ok(car);
     }
 
     /**
@@ -237,10 +287,13 @@ public class CarController {
             @Parameter(description = "车辆ID", required = true)
             @PathVariable String id
     ) {
-        if (!carRepository.existsById(id)) {
+        Optional<Car> car = carRepository.findById(id);
+        if (car.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
+        Car before = CarChangedEvent.snapshot(car.get());
         carRepository.deleteById(id);
+        eventPublisher.publishEvent(CarChangedEvent.deleted(before));
         return ResponseEntity.noContent().build();
     }
 
@@ -335,6 +388,7 @@ public class CarController {
                     @ApiResponse(responseCode = "200", description = "操作成功", content = @Content),
                     @ApiResponse(responseCode = "400", description = "车辆状态不是预定或参数错误", content = @Content),
                     @ApiResponse(responseCode = "404", description = "车辆不存在", content = @Content),
+                    @ApiResponse(responseCode = "409", description = "车辆状态已被其他操作修改", content = @Content),
                     @ApiResponse(responseCode = "500", description = "服务器内部错误", content = @Content)
             }
     )
@@ -359,35 +413,41 @@ public class CarController {
             if (finalPrice == null || finalPrice <= 0) {
                 return ResponseEntity.badRequest().body(Map.of("message", "请输入有效的最终成交价"));
             }
-            // 更新车辆状态为已售，并清空预定信息
-            car.setStatus("SOLD");
-            car.setCustomerId(null);  // 清空客户关联
-            car.setDeposit(0);        // 清空定金
-            carRepository.save(car);
-            
+            // 条件更新车辆状态为已售，并清空预定信息（先取出预定客户和定金写入交易记录）
+            String customerId = car.getCustomerId();
+            Integer deposit = car.getDeposit();
+            Car sold = carStatusService.transition(car, CarStatusTransition.COMPLETE_RESERVATION);
+
             // 创建交易记录
             Transaction transaction = new Transaction();
-            transaction.setCarId(car.getId());
-            transaction.setCustomerId(car.getCustomerId());
+            transaction.setCarId(sold.getId());
+            transaction.setCustomerId(customerId);
             transaction.setPrice(finalPrice);
             transaction.setDate(new java.util.Date());
             transaction.setType("Sale");
             transaction.setStatus("COMPLETED");
-            transaction.setDeposit(car.getDeposit());
+            transaction.setDeposit(deposit);
             transaction.setFinalPrice(finalPrice);
             transaction.setHandledByUserId(handledByUserId);
             transactionRepository.save(transaction);
+            eventPublisher.publishEvent(TransactionChangedEvent.created(transaction, sold));
 
             // 返回成功信息
             Map<String, Object> result = new HashMap<>();
             result.put("message", "预定订单已完成销售");
             result.put("transactionId", transaction.getId());
-            result.put("carId", car.getId());
-            result.put("customerId", car.getCustomerId());
+            result.put("carId", sold.getId());
+            result.put("customerId", customerId);
             result.put("finalPrice", finalPrice);
 
             return ResponseEntity.ok(result);
+        } catch (CarStatusConflictException e) {
+            // 内层条件更新失败已将共享事务标记为只能回滚，不能在此返回后提交（会抛 UnexpectedRollbackException）；
+            // 抛出后由事务拦截器回滚，GlobalExceptionHandler 返回 409 CAR_STATUS_CONFLICT
+            throw e;
         } catch (Exception e) {
+            // 异常已被捕获，需显式回滚，避免车辆已售出但交易记录未写入
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
             return ResponseEntity.status(500).body(Map.of("message", "操作失败：" + e.getMessage()));
         }
     }
@@ -404,6 +464,7 @@ public class CarController {
                     @ApiResponse(responseCode = "200", description = "操作成功", content = @Content),
                     @ApiResponse(responseCode = "400", description = "车辆状态不是预定", content = @Content),
                     @ApiResponse(responseCode = "404", description = "车辆不存在", content = @Content),
+                    @ApiResponse(responseCode = "409", description = "车辆状态已被其他操作修改", content = @Content),
                     @ApiResponse(responseCode = "500", description = "服务器内部错误", content = @Content)
             }
     )
@@ -420,14 +481,12 @@ public class CarController {
                 return ResponseEntity.badRequest().body("只有预定状态的车辆才能变回在售");
             }
 
-            // 变回在售状态，删除客户和定金信息
-            car.setStatus("AVAILABLE");
-            car.setCustomerId(null);
-            car.setDeposit(null);
-
-            carRepository.save(car);
+            // 条件更新为在售状态，删除客户和定金信息
+            carStatusService.transition(car, CarStatusTransition.BACK_TO_SALE);
 
             return ResponseEntity.ok("车辆已变回在售状态");
+        } catch (CarStatusConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(500).body("操作失败：" + e.getMessage());
         }
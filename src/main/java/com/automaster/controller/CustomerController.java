@@ -2,6 +2,7 @@ package com.automaster.controller;
 
 import com.automaster.entity.Customer;
 import com.automaster.service.CustomerService;
+import com.automaster.service.support.JsonArrayStreamer;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -10,6 +11,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -25,10 +27,12 @@ import java.util.Optional;
 public class CustomerController {
 
     private final CustomerService customerService;
+    private final JsonArrayStreamer jsonArrayStreamer;
 
     @Autowired
-    public CustomerController(CustomerService customerService) {
+    public CustomerController(CustomerService customerService, JsonArrayStreamer jsonArrayStreamer) {
         this.customerService = customerService;
+        this.jsonArrayStreamer = jsonArrayStreamer;
     }
 
     /**
@@ -37,7 +41,7 @@ public class CustomerController {
     @GetMapping
     @Operation(
             summary = "查询所有客户",
-            description = "获取数据库中所有客户信息，按录入时间倒序排列",
+            description = "获取数据库中所有客户信息，按录入时间倒序排列；stream=true 时按批次流式输出，内存占用与客户总数无关",
             responses = {
                     @ApiResponse(responseCode = "200", description = "查询成功，返回客户列表",
                             content = @Content(schema = @Schema(implementation = Customer.class))),
@@ -45,7 +49,14 @@ public class CustomerController {
                     @ApiResponse(responseCode = "500", description = "服务器内部错误", content = @Content)
             }
     )
-    public ResponseEntity<List<Customer>> getAll() {
+    public ResponseEntity<?> getAll(
+            @Parameter(description = "是否流式输出（边读边写，适合大数据量，无数据时返回空数组）")
+            @RequestParam(defaultValue = "false") boolean stream
+    ) {
+        if (stream) {
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+                    .body(jsonArrayStreamer.jsonArray(customerService::streamAllCustomers, null));
+        }
         List<Customer> customers = customerService.getAllCustomers();
         return customers.isEmpty() ? ResponseEntity.noContent().build() : ResponseEntity.ok(customers);
     }
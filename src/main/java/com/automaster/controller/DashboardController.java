@@ -1,20 +1,40 @@
 package com.automaster.controller;
 
+import com.automaster.dto.CacheStats;
 import com.automaster.dto.DashboardStats;
+import com.automaster.dto.InventoryAgingReport;
+import com.automaster.dto.LeaderboardMetric;
+import com.automaster.dto.OutboxStats;
+import com.automaster.dto.RangeSummary;
+import com.automaster.dto.TrendGranularity;
 import com.automaster.service.DashboardService;
+import com.automaster.service.impl.CachingDashboardService;
+import com.automaster.service.support.DashboardStatsAccumulator;
+import com.automaster.service.support.InventoryAgingIndex;
+import com.automaster.service.support.OutboxDispatcher;
+import com.automaster.service.support.RevenueRangeIndex;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j; // 新增日志注解
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+
 @Slf4j // 启用日志，需确保项目引入lombok依赖
 @RestController
 @RequestMapping("/api/dashboard")
@@ -22,10 +42,25 @@ import org.springframework.web.bind.annotation.RestController;
 public class DashboardController {
 
     private final DashboardService dashboardService;
+    private final DashboardStatsAccumulator statsAccumulator;
+    private final RevenueRangeIndex revenueRangeIndex;
+    private final CachingDashboardService dashboardCache;
+    private final InventoryAgingIndex inventoryAgingIndex;
+    private final OutboxDispatcher outboxDispatcher;
 
     @Autowired
-    public DashboardController(DashboardService dashboardService) {
+    public DashboardController(DashboardService dashboardService,
+                               DashboardStatsAccumulator statsAccumulator,
+                               RevenueRangeIndex revenueRangeIndex,
+                               CachingDashboardService dashboardCache,
+                               InventoryAgingIndex inventoryAgingIndex,
+                               OutboxDispatcher outboxDispatcher) {
         this.dashboardService = dashboardService;
+        this.statsAccumulator = statsAccumulator;
+        this.revenueRangeIndex = revenueRangeIndex;
+        this.dashboardCache = dashboardCache;
+        this.inventoryAgingIndex = inventoryAgingIndex;
+        this.outboxDispatcher = outboxDispatcher;
     }
 
     /**
@@ -52,7 +87,9 @@ public class DashboardController {
     )
     public ResponseEntity<DashboardStats> getDashboardStats() {
         try {
-            DashboardStats stats = dashboardService.getDashboardStats();
+            // 优先读取内存计数器；启动初始化完成前回退到数据库聚合
+            DashboardStats stats = statsAccumulator.snapshot()
+                    .orElseGet(dashboardService::getDashboardStats);
             return ResponseEntity.ok(stats);
         } catch (Exception e) {
             // 核心修改：打印异常栈，定位具体错误
@@ -63,20 +100,34 @@ public class DashboardController {
     }
 
     /**
-     * 获取近半年销售趋势数据
-     * 
-     * @return 每月销售额列表
+     * 获取销售趋势数据（默认近6个月按月统计）
+     *
+     * @param granularity 统计粒度（DAY/WEEK/MONTH/QUARTER）
+     * @param periods     统计周期数
+     * @param timezone    时区ID（如 Asia/Shanghai）
+     * @return 每个周期的销售额列表
      */
     @GetMapping("/sales-trend")
     @Operation(
-            summary = "获取近半年销售趋势",
-            description = "返回近6个月每月的销售额统计数据",
+            summary = "获取销售趋势",
+            description = "按日/周/月/季度统计最近N个周期的销售额，默认返回近6个月每月的销售额统计数据",
+            parameters = {
+                    @Parameter(name = "granularity", description = "统计粒度", example = "MONTH",
+                            schema = @Schema(type = "string", allowableValues = {"DAY", "WEEK", "MONTH", "QUARTER"})),
+                    @Parameter(name = "periods", description = "统计周期数（1~366）", example = "6"),
+                    @Parameter(name = "timezone", description = "时区ID，默认服务器时区", example = "Asia/Shanghai")
+            },
             responses = {
                     @ApiResponse(
                             responseCode = "200",
                             description = "查询成功",
                             content = @Content
                     ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "参数错误（粒度/周期数/时区不合法）",
+                            content = @Content
+                    ),
                     @ApiResponse(
                             responseCode = "500",
                             description = "服务器内部错误",
@@ -84,12 +135,253 @@ public class DashboardController {
                     )
             }
     )
-    public ResponseEntity<?> getSalesTrend() {
+    public ResponseEntity<?> getSalesTrend(
+            @RequestParam(defaultValue = "MONTH") String granularity,
+            @RequestParam(defaultValue = "6") Integer periods,
+            @RequestParam(required = false) String timezone
+    ) {
+        TrendGranularity trendGranularity;
+        ZoneId zoneId;
+        try {
+            trendGranularity = TrendGranularity.valueOf(granularity.trim().toUpperCase());
+            zoneId = (timezone == null || timezone.trim().isEmpty()) ? ZoneId.systemDefault() : ZoneId.of(timezone.trim());
+        } catch (IllegalArgumentException | DateTimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("code", "PARAM_ERROR", "message", "统计粒度或时区参数不合法"));
+        }
+
         try {
-            return ResponseEntity.ok(dashboardService.getSalesTrend());
+            return ResponseEntity.ok(dashboardService.getSalesTrend(trendGranularity, periods, zoneId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("code", "PARAM_ERROR", "message", e.getMessage()));
         } catch (Exception e) {
             log.error("获取销售趋势数据失败：", e);
             return ResponseEntity.internalServerError().build();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 查询任意日期区间的已完成销售额、利润与订单数
+     *
+     * @param from 开始日期（yyyy-MM-dd，包含）
+     * @param to   结束日期（yyyy-MM-dd，包含）
+     * @return 区间统计
+     */
+    @GetMapping("/range")
+    @Operation(
+            summary = "查询日期区间营收",
+            description = "基于内存区间索引返回 [from, to] 内已完成销售的销售额、利润和订单数",
+            parameters = {
+                    @Parameter(name = "from", description = "开始日期（包含）", example = "2025-01-01", required = true),
+                    @Parameter(name = "to", description = "结束日期（包含）", example = "2025-03-31", required = true)
+            },
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "查询成功",
+                            content = @Content(schema = @Schema(implementation = RangeSummary.class))
+                    ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "参数错误（日期格式不正确或开始日期晚于结束日期）",
+                            content = @Content
+                    ),
+                    @ApiResponse(
+                            responseCode = "503",
+                            description = "索引构建中，请稍后重试",
+                            content = @Content
+                    )
+            }
+    )
+    public ResponseEntity<?> getRangeSummary(@RequestParam String from, @RequestParam String to) {
+        LocalDate fromDate;
+        LocalDate toDate;
+        try {
+            fromDate = LocalDate.parse(from.trim());
+            toDate = LocalDate.parse(to.trim());
+        } catch (DateTimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("code", "PARAM_ERROR", "message", "日期格式应为yyyy-MM-dd"));
+        }
+        if (fromDate.isAfter(toDate)) {
+            return ResponseEntity.badRequest().body(Map.of("code", "PARAM_ERROR", "message", "开始日期不能晚于结束日期"));
+        }
+
+        if (!revenueRangeIndex.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("code", "INDEX_NOT_READY", "message", "区间营收索引构建中，请稍后重试"));
+        }
+        try {
+            return ResponseEntity.ok(revenueRangeIndex.query(fromDate, toDate));
+        } catch (Exception e) {
+            log.error("查询区间营收失败：", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * 获取销售人员业绩排行榜
+     *
+     * @param from     开始日期（yyyy-MM-dd，包含，默认本月1日）
+     * @param to       结束日期（yyyy-MM-dd，包含，默认今天）
+     * @param metric   排序指标（REVENUE/PROFIT/DEALS）
+     * @param limit    返回条数
+     * @param timezone 时区ID（如 Asia/Shanghai）
+     * @return 排行列表
+     */
+    @GetMapping("/leaderboard")
+    @Operation(
+            summary = "获取销售排行榜",
+            description = "按经手人统计日期区间内已完成销售的销售额、利润和成交单数，返回前N名",
+            parameters = {
+                    @Parameter(name = "from", description = "开始日期（包含），默认本月1日", example = "2025-01-01"),
+                    @Parameter(name = "to", description = "结束日期（包含），默认今天", example = "2025-01-31"),
+                    @Parameter(name = "metric", description = "排序指标", example = "REVENUE",
+                            schema = @Schema(type = "string", allowableValues = {"REVENUE", "PROFIT", "DEALS"})),
+                    @Parameter(name = "limit", description = "返回条数（1~100）", example = "10"),
+                    @Parameter(name = "timezone", description = "时区ID，默认服务器时区", example = "Asia/Shanghai")
+            },
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "查询成功",
+                            content = @Content
+                    ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "参数错误（日期/排序指标/条数/时区不合法）",
+                            content = @Content
+                    ),
+                    @ApiResponse(
+                            responseCode = "500",
+                            description = "服务器内部错误",
+                            content = @Content
+                    )
+            }
+    )
+    public ResponseEntity<?> getLeaderboard(
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(defaultValue = "REVENUE") String metric,
+            @RequestParam(defaultValue = "10") Integer limit,
+            @RequestParam(required = false) String timezone
+    ) {
+        LeaderboardMetric leaderboardMetric;
+        ZoneId zoneId;
+        LocalDate fromDate;
+        LocalDate toDate;
+        try {
+            leaderboardMetric = LeaderboardMetric.valueOf(metric.trim().toUpperCase());
+            zoneId = (timezone == null || timezone.trim().isEmpty()) ? ZoneId.systemDefault() : ZoneId.of(timezone.trim());
+            toDate = (to == null || to.trim().isEmpty()) ? LocalDate.now(zoneId) : LocalDate.parse(to.trim());
+            fromDate = (from == null || from.trim().isEmpty()) ? toDate.withDayOfMonth(1) : LocalDate.parse(from.trim());
+        } catch (IllegalArgumentException | DateTimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("code", "PARAM_ERROR", "message", "日期、排序指标或时区参数不合法"));
+        }
+
+        try {
+            return ResponseEntity.ok(dashboardService.getLeaderboard(fromDate, toDate, leaderboardMetric, limit, zoneId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("code", "PARAM_ERROR", "message", e.getMessage()));
+        } catch (Exception e) {
+            log.error("获取销售排行榜失败：", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * 获取在库车辆库龄报告（在售 + 预定）
+     *
+     * @param oldest 每个品牌返回的最老车辆数
+     * @param make   只返回指定品牌的最老车辆
+     * @return 库龄直方图、各分段占用资金及各品牌最老车辆
+     */
+    @GetMapping("/inventory-aging")
+    @Operation(
+            summary = "获取库存库龄报告",
+            description = "按库龄分段统计在售和预定车辆的数量、占用资金（成本价）和标价，并返回各品牌库龄最长的N辆车",
+            parameters = {
+                    @Parameter(name = "oldest", description = "每个品牌返回的最老车辆数（0~50）", example = "5"),
+                    @Parameter(name = "make", description = "只返回该品牌的最老车辆，默认全部品牌", example = "丰田")
+            },
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "查询成功",
+                            content = @Content(schema = @Schema(implementation = InventoryAgingReport.class))
+                    ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "参数错误",
+                            content = @Content
+                    ),
+                    @ApiResponse(
+                            responseCode = "503",
+                            description = "索引构建中，请稍后重试",
+                            content = @Content
+                    )
+            }
+    )
+    public ResponseEntity<?> getInventoryAging(
+            @RequestParam(defaultValue = "5") Integer oldest,
+            @RequestParam(required = false) String make
+    ) {
+        if (!inventoryAgingIndex.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("code", "INDEX_NOT_READY", "message", "库龄索引构建中，请稍后重试"));
+        }
+        try {
+            return ResponseEntity.ok(inventoryAgingIndex.report(oldest, make));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("code", "PARAM_ERROR", "message", e.getMessage()));
+        } catch (Exception e) {
+            log.error("获取库龄报告失败：", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * 获取仪表盘缓存命中统计
+     *
+     * @return 命中/未命中/合并次数
+     */
+    @GetMapping("/cache-stats")
+    @Operation(
+            summary = "获取仪表盘缓存统计",
+            description = "返回仪表盘统计与销售趋势缓存的命中、未命中、并发合并次数",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "查询成功",
+                            content = @Content(schema = @Schema(implementation = CacheStats.class))
+                    )
+            }
+    )
+    public ResponseEntity<CacheStats> getCacheStats() {
+        return ResponseEntity.ok(dashboardCache.getCacheStats());
+    }
+
+    /**
+     * 获取发件箱投递统计
+     *
+     * @return 每个投影处理器的积压、延迟、投递与重试次数
+     */
+    @GetMapping("/outbox-stats")
+    @Operation(
+            summary = "获取发件箱投递统计",
+            description = "返回每个投影处理器的待投递/已停止投递事件数、积压延迟、最近一批投递延迟及投递、重试次数",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "查询成功",
+                            content = @Content(schema = @Schema(implementation = OutboxStats.class))
+                    )
+            }
+    )
+    public ResponseEntity<List<OutboxStats>> getOutboxStats() {
+        try {
+            return ResponseEntity.ok(outboxDispatcher.getStats());
+        } catch (Exception e) {
+            log.error("获取发件箱投递统计失败：", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+}
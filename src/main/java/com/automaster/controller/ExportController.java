@@ -1,29 +1,51 @@
 package com.automaster.controller;
 
+import com.automaster.dto.ExportJobStatus;
 import com.automaster.entity.Transaction;
 import com.automaster.entity.Car;
 import com.automaster.entity.Customer;
-import com.automaster.repository.TransactionRepository;
-import com.automaster.repository.CarRepository;
-import com.automaster.repository.CustomerRepository;
+import com.automaster.repository.InventorySpecifications;
+import com.automaster.repository.SpecificationCursorRepository;
+import com.automaster.repository.TransactionFilter;
+import com.automaster.service.support.ExportColumn;
+import com.automaster.service.support.ExportFormat;
+import com.automaster.service.support.ExportJob;
+import com.automaster.service.support.ExportJobManager;
+import com.automaster.service.support.ExportTask;
+import com.automaster.service.support.FileRangeSender;
+import com.automaster.service.support.StreamingExporter;
+import com.automaster.service.support.TransactionEnricher;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import jakarta.servlet.http.HttpServletResponse;
-import java.io.ByteArrayOutputStream;
-import java.text.SimpleDateFormat;
+import java.io.IOException;
+import java.net.URI;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.LongConsumer;
+import java.util.function.LongSupplier;
 
 /**
  * 导出控制器
- * 提供订单导出 Excel 功能
+ * 提供交易订单、车辆库存、客户导出功能，支持 xlsx、csv、csv.gz 格式（流式写出，内存占用与导出行数无关）；
+ * 大数据量可提交异步导出任务，后台写入磁盘文件，完成后下载（支持断点续传）
  */
 @RestController
 @RequestMapping("/api/export")
@@ -31,21 +53,85 @@ import java.util.List;
 @CrossOrigin(origins = "*")
 public class ExportController {
 
+    /** 交易订单导出列 */
+    private static final List<ExportColumn<Transaction>> TRANSACTION_COLUMNS = List.of(
+            ExportColumn.of("订单号", Transaction::getId),
+            ExportColumn.of("订单状态", t -> "PENDING".equals(t.getStatus()) ? "预定中" : "已完成"),
+            ExportColumn.of("车辆信息", t -> {
+                Car car = t.getCar();
+                return car != null ? car.getYear() + " " + car.getMake() + " " + car.getModel() : "未知";
+            }),
+            ExportColumn.of("客户姓名", t -> {
+                Customer customer = t.getCustomer();
+                return customer != null ? customer.getName() : "未知";
+            }),
+            ExportColumn.of("客户电话", t -> {
+                Customer customer = t.getCustomer();
+                return customer != null ? customer.getPhone() : "未知";
+            }),
+            ExportColumn.of("定金", t -> t.getDeposit() != null ? t.getDeposit() : 0),
+            ExportColumn.of("成交价", t -> t.getFinalPrice() != null ? t.getFinalPrice() : t.getPrice()),
+            ExportColumn.of("交易日期", Transaction::getDate),
+            ExportColumn.of("操作人", Transaction::getHandledByUserId)
+    );
+
+    /** 车辆导出列（状态按原始编码导出，便于对账） */
+    private static final List<ExportColumn<Car>> CAR_COLUMNS = List.of(
+            ExportColumn.of("车辆ID", Car::getId),
+            ExportColumn.of("VIN码", Car::getVin),
+            ExportColumn.of("品牌", Car::getMake),
+            ExportColumn.of("型号", Car::getModel),
+            ExportColumn.of("年份", Car::getYear),
+            ExportColumn.of("颜色", Car::getColor),
+            ExportColumn.of("里程", Car::getMileage),
+            ExportColumn.of("售价", Car::getPrice),
+            ExportColumn.of("成本价", Car::getCostPrice),
+            ExportColumn.of("定金", Car::getDeposit),
+            ExportColumn.of("状态", Car::getStatus),
+            ExportColumn.of("关联客户ID", Car::getCustomerId),
+            ExportColumn.of("入库日期", Car::getDateAdded)
+    );
+
+    /** 客户导出列 */
+    private static final List<ExportColumn<Customer>> CUSTOMER_COLUMNS = List.of(
+            ExportColumn.of("客户ID", Customer::getId),
+            ExportColumn.of("姓名", Customer::getName),
+            ExportColumn.of("电话", Customer::getPhone),
+            ExportColumn.of("类型", Customer::getType),
+            ExportColumn.of("其他联系方式", Customer::getContactInfo),
+            ExportColumn.of("来源", Customer::getSource),
+            ExportColumn.of("状态", Customer::getStatus),
+            ExportColumn.of("备注", Customer::getNotes),
+            ExportColumn.of("录入日期", Customer::getDateAdded)
+    );
+
+    /** 车辆、客户导出排序（走 idx_date_added） */
+    private static final Sort BY_DATE_ADDED_DESC = Sort.by(Sort.Order.desc("dateAdded"), Sort.Order.desc("id"));
+
+    @Autowired
+    private SpecificationCursorRepository cursorRepository;
+
+    @Autowired
+    private TransactionEnricher transactionEnricher;
+
     @Autowired
-    private TransactionRepository transactionRepository;
+    private StreamingExporter streamingExporter;
 
     @Autowired
-    private CarRepository carRepository;
+    private ExportJobManager exportJobManager;
 
     @Autowired
-    private CustomerRepository customerRepository;
+    private FileRangeSender fileRangeSender;
 
     /**
-     * 导出交易订单为 Excel（支持筛选条件）
+     * 导出交易订单（支持筛选条件）
+     * 边从数据库游标读取边写出，每批订单写出前批量关联车辆和客户信息
      */
     @GetMapping("/transactions")
-    @Operation(summary = "导出交易订单", description = "导出交易订单到 Excel 文件，支持筛选条件")
-    public ResponseEntity<byte[]> exportTransactions(
+    @Operation(summary = "导出交易订单",
+            description = "导出交易订单到 xlsx / csv / csv.gz 文件，支持筛选条件；流式写出，适合大数据量")
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
+            @Parameter(description = "导出格式：xlsx（默认）、csv、csv.gz") @RequestParam(required = false) String format,
             @RequestParam(required = false) String status,
             @RequestParam(required = false) String orderId,
             @RequestParam(required = false) String carName,
@@ -54,179 +140,236 @@ public class ExportController {
             @RequestParam(required = false) String startDate,
             @RequestParam(required = false) String endDate
     ) {
-        try {
-            // 查询交易记录（应用筛选条件）
-            List<Transaction> transactions = transactionRepository.findAll();
-            
-            // 关联车辆和客户信息
-            transactions.forEach(t -> {
-                carRepository.findById(t.getCarId()).ifPresent(t::setCar);
-                customerRepository.findById(t.getCustomerId()).ifPresent(t::setCustomer);
-            });
-            
-            // 应用筛选条件
-            transactions = transactions.stream()
-                .filter(t -> {
-                    // 状态筛选
-                    if (status != null && !status.isEmpty() && !status.equals(t.getStatus())) {
-                        return false;
-                    }
-                    
-                    // 订单号筛选
-                    if (orderId != null && !orderId.isEmpty() && !t.getId().toLowerCase().contains(orderId.toLowerCase())) {
-                        return false;
-                    }
-                    
-                    // 车辆名称筛选
-                    if (carName != null && !carName.isEmpty()) {
-                        if (t.getCar() == null) return false;
-                        String fullCarName = t.getCar().getYear() + " " + t.getCar().getMake() + " " + t.getCar().getModel();
-                        if (!fullCarName.toLowerCase().contains(carName.toLowerCase())) {
-                            return false;
-                        }
-                    }
-                    
-                    // 客户信息筛选
-                    if (customerInfo != null && !customerInfo.isEmpty()) {
-                        if (t.getCustomer() == null) return false;
-                        String fullCustomerInfo = t.getCustomer().getName() + " " + t.getCustomer().getPhone();
-                        if (!fullCustomerInfo.toLowerCase().contains(customerInfo.toLowerCase())) {
-                            return false;
-                        }
-                    }
-                    
-                    // 价格筛选
-                    if (price != null) {
-                        boolean matchPrice = false;
-                        if ("PENDING".equals(t.getStatus())) {
-                            matchPrice = (t.getDeposit() != null && t.getDeposit().equals(price)) ||
-                                       (t.getPrice() != null && t.getPrice().equals(price));
-                        } else {
-                            matchPrice = (t.getFinalPrice() != null && t.getFinalPrice().equals(price)) ||
-                                       (t.getPrice() != null && t.getPrice().equals(price));
-                        }
-                        if (!matchPrice) return false;
-                    }
-                    
-                    // 日期范围筛选
-                    if (startDate != null && !startDate.isEmpty()) {
-                        try {
-                            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
-                            java.util.Date txDate = t.getDate();
-                            java.util.Date start = sdf.parse(startDate);
-                            if (txDate.before(start)) return false;
-                        } catch (Exception e) {
-                            // 忽略解析错误
-                        }
-                    }
-                    
-                    if (endDate != null && !endDate.isEmpty()) {
-                        try {
-                            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
-                            java.util.Date txDate = t.getDate();
-                            java.util.Date end = sdf.parse(endDate);
-                            java.util.Calendar cal = java.util.Calendar.getInstance();
-                            cal.setTime(end);
-                            cal.set(java.util.Calendar.HOUR_OF_DAY, 23);
-                            cal.set(java.util.Calendar.MINUTE, 59);
-                            cal.set(java.util.Calendar.SECOND, 59);
-                            end = cal.getTime();
-                            if (txDate.after(end)) return false;
-                        } catch (Exception e) {
-                            // 忽略解析错误
-                        }
-                    }
-                    
-                    return true;
-                })
-                .toList();
-
-            // 创建工作簿
-            Workbook workbook = new XSSFWorkbook();
-            Sheet sheet = workbook.createSheet("交易订单");
-
-            // 创建标题行样式
-            CellStyle headerStyle = workbook.createCellStyle();
-            Font headerFont = workbook.createFont();
-            headerFont.setBold(true);
-            headerFont.setFontHeightInPoints((short) 12);
-            headerStyle.setFont(headerFont);
-            headerStyle.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
-            headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-            headerStyle.setBorderBottom(BorderStyle.THIN);
-            headerStyle.setBorderTop(BorderStyle.THIN);
-            headerStyle.setBorderLeft(BorderStyle.THIN);
-            headerStyle.setBorderRight(BorderStyle.THIN);
-
-            // 创建标题行
-            Row headerRow = sheet.createRow(0);
-            String[] headers = {"订单号", "订单状态", "车辆信息", "客户姓名", "客户电话", "定金", "成交价", "交易日期", "操作人"};
-            for (int i = 0; i < headers.length; i++) {
-                Cell cell = headerRow.createCell(i);
-                cell.setCellValue(headers[i]);
-                cell.setCellStyle(headerStyle);
-            }
-
-            // 创建数据行
-            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-            int rowNum = 1;
-            for (Transaction transaction : transactions) {
-                Row row = sheet.createRow(rowNum++);
-
-                // 订单号
-                row.createCell(0).setCellValue(transaction.getId());
-
-                // 订单状态
-                String statusText = "PENDING".equals(transaction.getStatus()) ? "预定中" : "已完成";
-                row.createCell(1).setCellValue(statusText);
+        ExportFormat exportFormat = ExportFormat.of(format);
+        // 筛选条件解析一次，在数据库执行
+        TransactionFilter filter = TransactionFilter.of(status, orderId, carName, customerInfo, price, startDate, endDate);
+        return download(exportFormat, "transactions", transactions(exportFormat, filter, null));
+    }
 
-                // 车辆信息
-                Car car = carRepository.findById(transaction.getCarId()).orElse(null);
-                String carInfo = car != null ? car.getYear() + " " + car.getMake() + " " + car.getModel() : "未知";
-                row.createCell(2).setCellValue(carInfo);
+    /**
+     * 提交交易订单异步导出任务（筛选条件与同步导出一致）
+     */
+    @PostMapping("/jobs/transactions")
+    @Operation(
+            summary = "提交交易订单导出任务",
+            description = "按当前筛选条件提交后台导出任务，立即返回任务ID；通过任务状态接口查询进度，完成后下载文件",
+            responses = {
+                    @ApiResponse(responseCode = "202", description = "已提交",
+                            content = @Content(schema = @Schema(implementation = ExportJobStatus.class))),
+                    @ApiResponse(responseCode = "503", description = "导出任务排队已满", content = @Content)
+            }
+    )
+    public ResponseEntity<?> submitTransactionExport(
+            @Parameter(description = "导出格式：xlsx（默认）、csv、csv.gz") @RequestParam(required = false) String format,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String orderId,
+            @RequestParam(required = false) String carName,
+            @RequestParam(required = false) String customerInfo,
+            @RequestParam(required = false) Integer price,
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate
+    ) {
+        ExportFormat exportFormat = ExportFormat.of(format);
+        TransactionFilter filter = TransactionFilter.of(status, orderId, carName, customerInfo, price, startDate, endDate);
+        return submitJob("transactions", exportFormat,
+                () -> cursorRepository.count(Transaction.class, filter.toSpecification()),
+                (out, progress) -> transactions(exportFormat, filter, progress).writeTo(out));
+    }
 
-                // 客户信息
-                Customer customer = customerRepository.findById(transaction.getCustomerId()).orElse(null);
-                row.createCell(3).setCellValue(customer != null ? customer.getName() : "未知");
-                row.createCell(4).setCellValue(customer != null ? customer.getPhone() : "未知");
+    /**
+     * 导出车辆库存（库存盘点使用，替代拉取 /api/cars 全量列表）
+     */
+    @GetMapping("/cars")
+    @Operation(summary = "导出车辆库存",
+            description = "导出车辆到 xlsx / csv / csv.gz 文件，可按状态、品牌、入库日期筛选；流式写出，适合大数据量")
+    public ResponseEntity<StreamingResponseBody> exportCars(
+            @Parameter(description = "导出格式：xlsx（默认）、csv、csv.gz") @RequestParam(required = false) String format,
+            @Parameter(description = "车辆状态（AVAILABLE / PENDING / SOLD 等）") @RequestParam(required = false) String status,
+            @Parameter(description = "品牌（精确匹配）") @RequestParam(required = false) String make,
+            @Parameter(description = "入库开始日期（yyyy-MM-dd）") @RequestParam(required = false) String startDate,
+            @Parameter(description = "入库结束日期（yyyy-MM-dd，包含当天）") @RequestParam(required = false) String endDate
+    ) {
+        ExportFormat exportFormat = ExportFormat.of(format);
+        Specification<Car> spec = InventorySpecifications.cars(status, make, startDate, endDate);
+        return download(exportFormat, "cars", cars(exportFormat, spec, null));
+    }
 
-                // 定金
-                row.createCell(5).setCellValue(transaction.getDeposit() != null ? transaction.getDeposit() : 0);
+    /**
+     * 提交车辆库存异步导出任务（筛选条件与同步导出一致）
+     */
+    @PostMapping("/jobs/cars")
+    @Operation(
+            summary = "提交车辆库存导出任务",
+            description = "按当前筛选条件提交后台导出任务，立即返回任务ID；通过任务状态接口查询进度，完成后下载文件",
+            responses = {
+                    @ApiResponse(responseCode = "202", description = "已提交",
+                            content = @Content(schema = @Schema(implementation = ExportJobStatus.class))),
+                    @ApiResponse(responseCode = "503", description = "导出任务排队已满", content = @Content)
+            }
+    )
+    public ResponseEntity<?> submitCarExport(
+            @Parameter(description = "导出格式：xlsx（默认）、csv、csv.gz") @RequestParam(required = false) String format,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String make,
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate
+    ) {
+        ExportFormat exportFormat = ExportFormat.of(format);
+        Specification<Car> spec = InventorySpecifications.cars(status, make, startDate, endDate);
+        return submitJob("cars", exportFormat, () -> cursorRepository.count(Car.class, spec),
+                (out, progress) -> cars(exportFormat, spec, progress).writeTo(out));
+    }
 
-                // 成交价
-                row.createCell(6).setCellValue(transaction.getFinalPrice() != null ? transaction.getFinalPrice() : transaction.getPrice());
+    /**
+     * 导出客户
+     */
+    @GetMapping("/customers")
+    @Operation(summary = "导出客户",
+            description = "导出客户到 xlsx / csv / csv.gz 文件，可按状态、类型、录入日期筛选；流式写出，适合大数据量")
+    public ResponseEntity<StreamingResponseBody> exportCustomers(
+            @Parameter(description = "导出格式：xlsx（默认）、csv、csv.gz") @RequestParam(required = false) String format,
+            @Parameter(description = "客户状态（ACTIVE / BLACKLIST）") @RequestParam(required = false) String status,
+            @Parameter(description = "客户类型（Buyer / Seller）") @RequestParam(required = false) String type,
+            @Parameter(description = "录入开始日期（yyyy-MM-dd）") @RequestParam(required = false) String startDate,
+            @Parameter(description = "录入结束日期（yyyy-MM-dd，包含当天）") @RequestParam(required = false) String endDate
+    ) {
+        ExportFormat exportFormat = ExportFormat.of(format);
+        Specification<Customer> spec = InventorySpecifications.customers(status, type, startDate, endDate);
+        return download(exportFormat, "customers", customers(exportFormat, spec, null));
+    }
 
-                // 交易日期
-                row.createCell(7).setCellValue(transaction.getDate() != null ? sdf.format(transaction.getDate()) : "");
+    /**
+     * 提交客户异步导出任务（筛选条件与同步导出一致）
+     */
+    @PostMapping("/jobs/customers")
+    @Operation(
+            summary = "提交客户导出任务",
+            description = "按当前筛选条件提交后台导出任务，立即返回任务ID；通过任务状态接口查询进度，完成后下载文件",
+            responses = {
+                    @ApiResponse(responseCode = "202", description = "已提交",
+                            content = @Content(schema = @Schema(implementation = ExportJobStatus.class))),
+                    @ApiResponse(responseCode = "503", description = "导出任务排队已满", content = @Content)
+            }
+    )
+    public ResponseEntity<?> submitCustomerExport(
+            @Parameter(description = "导出格式：xlsx（默认）、csv、csv.gz") @RequestParam(required = false) String format,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate
+    ) {
+        ExportFormat exportFormat = ExportFormat.of(format);
+        Specification<Customer> spec = InventorySpecifications.customers(status, type, startDate, endDate);
+        return submitJob("customers", exportFormat, () -> cursorRepository.count(Customer.class, spec),
+                (out, progress) -> customers(exportFormat, spec, progress).writeTo(out));
+    }
 
-                // 操作人
-                row.createCell(8).setCellValue(transaction.getHandledByUserId() != null ? transaction.getHandledByUserId() : "");
+    /**
+     * 查询导出任务状态与进度
+     */
+    @GetMapping("/jobs/{jobId}")
+    @Operation(
+            summary = "查询导出任务",
+            description = "返回导出任务状态、已写出行数与进度百分比；完成后返回下载地址",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "查询成功",
+                            content = @Content(schema = @Schema(implementation = ExportJobStatus.class))),
+                    @ApiResponse(responseCode = "404", description = "任务不存在或已过期清理", content = @Content)
             }
+    )
+    public ResponseEntity<ExportJobStatus> getExportJob(@PathVariable String jobId) {
+        return exportJobManager.find(jobId)
+                .map(job -> ResponseEntity.ok(job.toStatus(downloadUrl(job))))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
 
-            // 自动调整列宽
-            for (int i = 0; i < headers.length; i++) {
-                sheet.autoSizeColumn(i);
-                // 设置最小宽度
-                sheet.setColumnWidth(i, Math.max(sheet.getColumnWidth(i), 3000));
+    /**
+     * 下载导出文件（支持 Range 断点续传）
+     */
+    @GetMapping("/jobs/{jobId}/file")
+    @Operation(
+            summary = "下载导出文件",
+            description = "下载已完成任务的文件，支持 Range 请求（断点续传、分段下载）",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "完整文件"),
+                    @ApiResponse(responseCode = "206", description = "部分内容"),
+                    @ApiResponse(responseCode = "404", description = "任务不存在或已过期清理", content = @Content),
+                    @ApiResponse(responseCode = "409", description = "任务尚未完成", content = @Content)
             }
+    )
+    public ResponseEntity<?> downloadExportJob(@PathVariable String jobId,
+                                               HttpServletRequest request,
+                                               HttpServletResponse response) throws IOException {
+        Optional<ExportJob> found = exportJobManager.find(jobId);
+        if (found.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        ExportJob job = found.get();
+        if (!job.isCompleted()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("code", "EXPORT_NOT_READY", "message", "导出任务尚未完成，当前状态：" + job.getStatus()));
+        }
+        fileRangeSender.send(job.getFile(), job.getFileName(), MediaType.APPLICATION_OCTET_STREAM, request, response);
+        // 响应已直接写出
+        return null;
+    }
 
-            // 将工作簿写入字节数组
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            workbook.write(outputStream);
-            workbook.close();
+    /**
+     * 同步下载响应：设置文件名与内容类型，响应体边读边写
+     */
+    private static ResponseEntity<StreamingResponseBody> download(ExportFormat format, String prefix,
+                                                                  StreamingResponseBody body) {
+        HttpHeaders responseHeaders = new HttpHeaders();
+        responseHeaders.setContentType(format.getMediaType());
+        responseHeaders.setContentDispositionFormData("attachment", format.fileName(prefix, System.currentTimeMillis()));
+        return ResponseEntity.ok()
+                .headers(responseHeaders)
+                .body(body);
+    }
+
+    /**
+     * 提交异步导出任务，排队已满时返回 503
+     */
+    private ResponseEntity<?> submitJob(String type, ExportFormat format, LongSupplier totalRows, ExportTask task) {
+        try {
+            ExportJob job = exportJobManager.submit(type, format.fileName(type, System.currentTimeMillis()),
+                    totalRows, task);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/export/jobs/" + job.getId()))
+                    .body(job.toStatus(null));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("code", "EXPORT_QUEUE_FULL", "message", "导出任务排队已满，请稍后重试"));
+        }
+    }
+
+    /**
+     * 交易订单导出内容：边从数据库游标读取边写出，每批订单写出前批量关联车辆和客户信息
+     */
+    private StreamingResponseBody transactions(ExportFormat format, TransactionFilter filter, LongConsumer progress) {
+        Sort sort = Sort.by(Sort.Order.desc("date"), Sort.Order.desc("id"));
+        return streamingExporter.export(format, "交易订单", TRANSACTION_COLUMNS,
+                () -> cursorRepository.stream(Transaction.class, filter.toSpecification(), sort),
+                transactionEnricher::enrich, progress);
+    }
 
-            // 设置响应头
-            HttpHeaders responseHeaders = new HttpHeaders();
-            responseHeaders.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-            responseHeaders.setContentDispositionFormData("attachment", "transactions_" + System.currentTimeMillis() + ".xlsx");
+    /**
+     * 车辆导出内容：按入库时间倒序逐行读取，无需关联查询
+     */
+    private StreamingResponseBody cars(ExportFormat format, Specification<Car> spec, LongConsumer progress) {
+        return streamingExporter.export(format, "车辆库存", CAR_COLUMNS,
+                () -> cursorRepository.stream(Car.class, spec, BY_DATE_ADDED_DESC), null, progress);
+    }
 
-            return ResponseEntity.ok()
-                    .headers(responseHeaders)
-                    .body(outputStream.toByteArray());
+    /**
+     * 客户导出内容：按录入时间倒序逐行读取
+     */
+    private StreamingResponseBody customers(ExportFormat format, Specification<Customer> spec, LongConsumer progress) {
+        return streamingExporter.export(format, "客户", CUSTOMER_COLUMNS,
+                () -> cursorRepository.stream(Customer.class, spec, BY_DATE_ADDED_DESC), null, progress);
+    }
 
-        } catch (Exception e) {
-            e.printStackTrace();
-            return ResponseEntity.internalServerError().build();
-        }
+    private static String downloadUrl(ExportJob job) {
+        return "/api/export/jobs/" + job.getId() + "/file";
     }
 }
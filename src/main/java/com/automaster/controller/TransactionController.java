@@ -1,18 +1,31 @@
 package com.automaster.controller;
 
+import com.automaster.dto.BulkCompleteItem;
+import com.automaster.dto.BulkCompleteResult;
+import com.automaster.dto.CursorPage;
 import com.automaster.entity.Transaction;
+import com.automaster.exception.CarStatusConflictException;
 import com.automaster.service.TransactionService;
+import com.automaster.service.support.IdempotencyStore;
+import com.automaster.service.support.JsonArrayStreamer;
+import com.automaster.service.support.TransactionEnricher;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * 交易订单管理控制器
@@ -23,11 +36,24 @@ import java.util.Optional;
 @Tag(name = "交易订单接口", description = "交易订单的新增、查询、删除接口，创建交易自动更新车辆状态为售出")
 public class TransactionController {
 
+    /** 多条件查询每页最大条数 */
+    private static final int MAX_SEARCH_PAGE_SIZE = 200;
+
+    /** 多条件查询允许的排序字段 */
+    private static final Set<String> SEARCH_SORT_FIELDS = Set.of("date", "price", "status", "id");
+
     private final TransactionService transactionService;
+    private final TransactionEnricher transactionEnricher;
+    private final JsonArrayStreamer jsonArrayStreamer;
+    private final IdempotencyStore idempotencyStore;
 
     @Autowired
-    public TransactionController(TransactionService transactionService) {
+    public TransactionController(TransactionService transactionService, TransactionEnricher transactionEnricher,
+                                 JsonArrayStreamer jsonArrayStreamer, IdempotencyStore idempotencyStore) {
         this.transactionService = transactionService;
+        this.transactionEnricher = transactionEnricher;
+        this.jsonArrayStreamer = jsonArrayStreamer;
+        this.idempotencyStore = idempotencyStore;
     }
 
     /**
@@ -36,37 +62,143 @@ public class TransactionController {
     @GetMapping
     @Operation(
             summary = "查询所有交易订单",
-            description = "获取所有交易订单，并关联返回车辆、客户详情（用于前端展示）",
+            description = "获取所有交易订单，并关联返回车辆、客户详情（用于前端展示）；stream=true 时按批次流式输出，内存占用与订单总数无关",
             responses = {
                     @ApiResponse(responseCode = "200", description = "查询成功，返回交易订单列表"),
                     @ApiResponse(responseCode = "204", description = "暂无交易数据")
             }
     )
-    public ResponseEntity<List<Transaction>> getAll() {
+    public ResponseEntity<?> getAll(
+            @Parameter(description = "是否流式输出（边读边写，适合大数据量，无数据时返回空数组）")
+            @RequestParam(defaultValue = "false") boolean stream
+    ) {
+        if (stream) {
+            // 每批交易写出前批量关联车辆/客户信息
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+                    .body(jsonArrayStreamer.jsonArray(transactionService::streamAllTransactions, transactionEnricher::enrich));
+        }
         List<Transaction> transactions = transactionService.getAllTransactions();
         return transactions.isEmpty() ? ResponseEntity.noContent().build() : ResponseEntity.ok(transactions);
     }
 
+    /**
+     * 游标分页查询交易订单（关联车辆/客户信息）
+     */
+    @GetMapping("/page")
+    @Operation(
+            summary = "游标分页查询交易订单",
+            description = "按交易日期倒序分页返回交易订单，翻页时传入上一页返回的 nextCursor，任意深度翻页耗时不变",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "查询成功，返回当前页数据及下一页游标"),
+                    @ApiResponse(responseCode = "400", description = "参数错误（游标不合法或每页条数超出1~200）")
+            }
+    )
+    public ResponseEntity<?> getPage(
+            @Parameter(description = "上一页返回的游标，首页不传")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页条数（1~200），默认20")
+            @RequestParam(defaultValue = "20") Integer size
+    ) {
+        try {
+            CursorPage<Transaction> page = transactionService.getTransactionPage(cursor, size);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("code", "PARAM_ERROR", "message", e.getMessage()));
+        }
+    }
+
+    /**
+     * 多条件分页查询交易订单（筛选、排序、分页均在数据库执行）
+     */
+    @GetMapping("/search")
+    @Operation(
+            summary = "多条件分页查询交易订单",
+            description = "按状态、订单号、车辆名称、客户信息、价格、日期范围组合筛选，支持按日期/价格/状态排序分页；" +
+                    "archived=true 时查询已归档的历史交易（超过保留期限的已完成交易）",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "查询成功，返回当前页数据及总条数"),
+                    @ApiResponse(responseCode = "400", description = "参数错误（页码、每页条数、排序字段或方向不合法）")
+            }
+    )
+    public ResponseEntity<?> search(
+            @Parameter(description = "订单状态") @RequestParam(required = false) String status,
+            @Parameter(description = "订单号（模糊匹配）") @RequestParam(required = false) String orderId,
+            @Parameter(description = "车辆名称，格式：年份 品牌 型号（模糊匹配）") @RequestParam(required = false) String carName,
+            @Parameter(description = "客户姓名或电话（模糊匹配）") @RequestParam(required = false) String customerInfo,
+            @Parameter(description = "价格（匹配成交价/定金/最终价）") @RequestParam(required = false) Integer price,
+            @Parameter(description = "开始日期，格式yyyy-MM-dd") @RequestParam(required = false) String startDate,
+            @Parameter(description = "结束日期，格式yyyy-MM-dd") @RequestParam(required = false) String endDate,
+            @Parameter(description = "页码（从0开始），默认0") @RequestParam(defaultValue = "0") Integer page,
+            @Parameter(description = "每页条数（1~200），默认20") @RequestParam(defaultValue = "20") Integer size,
+            @Parameter(description = "排序字段：date、price、status、id，默认date") @RequestParam(defaultValue = "date") String sortBy,
+            @Parameter(description = "排序方向：ASC、DESC，默认DESC") @RequestParam(defaultValue = "DESC") String direction,
+            @Parameter(description = "是否查询归档数据，默认false（只查询在用数据）") @RequestParam(defaultValue = "false") boolean archived
+    ) {
+        if (page < 0) {
+            return ResponseEntity.badRequest().body(Map.of("code", "PARAM_ERROR", "message", "页码不能小于0"));
+        }
+        if (size < 1 || size > MAX_SEARCH_PAGE_SIZE) {
+            return ResponseEntity.badRequest().body(Map.of("code", "PARAM_ERROR",
+                    "message", "每页条数必须在1~" + MAX_SEARCH_PAGE_SIZE + "之间"));
+        }
+        if (!SEARCH_SORT_FIELDS.contains(sortBy)) {
+            return ResponseEntity.badRequest().body(Map.of("code", "PARAM_ERROR",
+                    "message", "不支持的排序字段：" + sortBy));
+        }
+        Optional<Sort.Direction> sortDirection = Sort.Direction.fromOptionalString(direction);
+        if (sortDirection.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("code", "PARAM_ERROR",
+                    "message", "排序方向只能是ASC或DESC"));
+        }
+        // 追加ID排序，保证相同排序值的记录在翻页时顺序稳定
+        Sort sort = Sort.by(sortDirection.get(), sortBy);
+        if (!"id".equals(sortBy)) {
+            sort = sort.and(Sort.by(sortDirection.get(), "id"));
+        }
+        PageRequest pageRequest = PageRequest.of(page, size, sort);
+        Page<Transaction> result = archived
+                ? transactionService.searchArchivedTransactions(status, orderId, carName, customerInfo,
+                        price, startDate, endDate, pageRequest)
+                : transactionService.searchTransactions(status, orderId, carName, customerInfo,
+                        price, startDate, endDate, pageRequest);
+        return ResponseEntity.ok(result);
+    }
+
     /**
      * 新增交易订单（核心：自动改车辆状态为SOLD）
      */
     @PostMapping
     @Operation(
             summary = "新增交易订单",
-            description = "创建销售订单，自动将关联车辆状态改为SOLD，请求体需包含carId、customerId、price等必填字段",
+            description = "创建销售订单，自动将关联车辆状态改为SOLD，请求体需包含carId、customerId、price等必填字段；" +
+                    "携带 Idempotency-Key 时，同一个键的重试请求直接返回首次的结果，不会重复下单",
             responses = {
                     @ApiResponse(responseCode = "201", description = "创建成功，返回交易订单信息（含关联车辆/客户）"),
                     @ApiResponse(responseCode = "400", description = "参数错误（如车辆已售出/客户不存在）"),
+                    @ApiResponse(responseCode = "409", description = "车辆已被其他订单同时售出"),
+                    @ApiResponse(responseCode = "422", description = "同一个 Idempotency-Key 用于不同的请求参数"),
                     @ApiResponse(responseCode = "404", description = "关联车辆/客户不存在")
             }
     )
     public ResponseEntity<?> add(
+            @Parameter(description = "幂等键（客户端为每次下单生成，如UUID，重试时保持不变）")
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
             @Parameter(description = "交易订单信息，carId、customerId、price为必填项", required = true)
             @RequestBody Transaction transaction
     ) {
+        // 摘要需在下单前计算，下单会回填订单ID等字段
+        String fingerprint = idempotencyKey != null ? idempotencyStore.fingerprint(transaction) : null;
+        return idempotencyStore.execute("POST /api/transactions", idempotencyKey, fingerprint,
+                () -> doAdd(transaction));
+    }
+
+    private ResponseEntity<?> doAdd(Transaction transaction) {
         try {
             Transaction saved = transactionService.saveTransaction(transaction);
             return ResponseEntity.status(HttpStatus.CREATED).body(saved);
+        } catch (CarStatusConflictException e) {
+            // 同一辆车被并发售出
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
         } catch (RuntimeException e) {
             // 业务异常返回400+错误信息
             return ResponseEntity.badRequest().body(e.getMessage());
@@ -106,9 +238,11 @@ public class TransactionController {
     )
     public ResponseEntity<Transaction> getById(
             @Parameter(description = "交易订单ID", required = true)
-            @PathVariable String id
+            @PathVariable String id,
+            @Parameter(description = "未找到时是否查询归档数据，默认false")
+            @RequestParam(defaultValue = "false") boolean includeArchived
     ) {
-        Optional<Transaction> transaction = transactionService.getTransactionById(id);
+        Optional<Transaction> transaction = transactionService.getTransactionById(id, includeArchived);
         return transaction.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
     }
 
@@ -118,24 +252,72 @@ public class TransactionController {
     @PutMapping("/{id}/complete")
     @Operation(
             summary = "完成预定交易",
-            description = "将预定状态的交易转为已完成，填写最终成交价，同时更新车辆状态为Sold",
+            description = "将预定状态的交易转为已完成，填写最终成交价，同时更新车辆状态为Sold；" +
+                    "携带 Idempotency-Key 时，重试请求返回首次的结果，而不是\"交易不是预定状态\"",
             responses = {
                     @ApiResponse(responseCode = "200", description = "完成成功，返回更新后的交易记录"),
                     @ApiResponse(responseCode = "400", description = "业务错误（如交易不是预定状态）"),
-                    @ApiResponse(responseCode = "404", description = "交易记录不存在")
+                    @ApiResponse(responseCode = "404", description = "交易记录不存在"),
+                    @ApiResponse(responseCode = "409", description = "车辆状态已被其他操作修改"),
+                    @ApiResponse(responseCode = "422", description = "同一个 Idempotency-Key 用于不同的请求参数")
             }
     )
     public ResponseEntity<?> completeTransaction(
+            @Parameter(description = "幂等键（客户端为每次操作生成，重试时保持不变）")
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
             @Parameter(description = "交易订单ID", required = true)
             @PathVariable String id,
             @Parameter(description = "最终成交价（元）", required = true)
             @RequestParam Integer finalPrice
     ) {
+        String fingerprint = idempotencyKey != null ? idempotencyStore.fingerprint(finalPrice) : null;
+        return idempotencyStore.execute("PUT /api/transactions/" + id + "/complete", idempotencyKey, fingerprint,
+                () -> doComplete(id, finalPrice));
+    }
+
+    private ResponseEntity<?> doComplete(String id, Integer finalPrice) {
         try {
             Transaction completed = transactionService.completeTransaction(id, finalPrice);
             return ResponseEntity.ok(completed);
+        } catch (CarStatusConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
+
+    /**
+     * 批量完成预定交易（月末结账）
+     */
+    @PutMapping("/complete")
+    @Operation(
+            summary = "批量完成预定交易",
+            description = "一次提交多条（订单ID，最终成交价），在一个事务内批量更新交易和车辆状态；" +
+                    "不合法的项（不存在、不是预定状态、重复提交、车辆状态已被其他操作修改等）跳过并在结果中注明原因，其余项照常完成。" +
+                    "携带 Idempotency-Key 时，重试请求返回首次的结果",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "处理完成，返回逐项结果"),
+                    @ApiResponse(responseCode = "400", description = "参数错误（请求为空或超过500项）"),
+                    @ApiResponse(responseCode = "422", description = "同一个 Idempotency-Key 用于不同的请求参数")
+            }
+    )
+    public ResponseEntity<?> completeTransactions(
+            @Parameter(description = "幂等键（客户端为每次操作生成，重试时保持不变）")
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
+            @Parameter(description = "订单ID与最终成交价列表，最多500项", required = true)
+            @RequestBody List<BulkCompleteItem> items
+    ) {
+        String fingerprint = idempotencyKey != null ? idempotencyStore.fingerprint(items) : null;
+        return idempotencyStore.execute("PUT /api/transactions/complete", idempotencyKey, fingerprint,
+                () -> doCompleteAll(items));
+    }
+
+    private ResponseEntity<?> doCompleteAll(List<BulkCompleteItem> items) {
+        try {
+            BulkCompleteResult result = transactionService.completeTransactions(items);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("code", "PARAM_ERROR", "message", e.getMessage()));
+        }
+    }
 }
@@ -0,0 +1,47 @@
+package com.automaster.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 库龄分段统计 DTO
+ *
+ * @author AutoMaster Team
+ * @since 1.0.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AgingBucket {
+
+    /**
+     * 分段名称，如 "0-30天"、"365天以上"
+     */
+    private String label;
+
+    /**
+     * 最小库龄（天，包含）
+     */
+    private Long minDays;
+
+    /**
+     * 最大库龄（天，包含；最后一段为空）
+     */
+    private Long maxDays;
+
+    /**
+     * 车辆数
+     */
+    private Long carCount = 0L;
+
+    /**
+     * 占用资金（成本价合计，元）
+     */
+    private Long capital = 0L;
+
+    /**
+     * 标价合计（元）
+     */
+    private Long listValue = 0L;
+}
@@ -0,0 +1,52 @@
+package com.automaster.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * 库龄车辆信息 DTO
+ *
+ * @author AutoMaster Team
+ * @since 1.0.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AgingCar {
+
+    private String id;
+
+    private String make;
+
+    private String model;
+
+    private Integer year;
+
+    /**
+     * 车辆状态（AVAILABLE/PENDING）
+     */
+    private String status;
+
+    /**
+     * 售价（元）
+     */
+    private Integer price;
+
+    /**
+     * 成本价（元）
+     */
+    private Integer costPrice;
+
+    /**
+     * 入库时间
+     */
+    private Date dateAdded;
+
+    /**
+     * 库龄（天）
+     */
+    private Long ageDays;
+}
@@ -0,0 +1,27 @@
+package com.automaster.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 批量完成预定交易的请求项
+ *
+ * @author AutoMaster Team
+ * @since 1.0.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkCompleteItem {
+
+    /**
+     * 交易订单ID
+     */
+    private String id;
+
+    /**
+     * 最终成交价（元）
+     */
+    private Integer finalPrice;
+}
@@ -0,0 +1,60 @@
+package com.automaster.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 批量完成预定交易的单项结果
+ *
+ * @author AutoMaster Team
+ * @since 1.0.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkCompleteItemResult {
+
+    /** 成功 */
+    public static final String OK = "OK";
+    /** 参数错误（订单ID为空、成交价为空或为负数） */
+    public static final String INVALID = "INVALID";
+    /** 同一订单在请求中重复出现（只处理第一次） */
+    public static final String DUPLICATE = "DUPLICATE";
+    /** 交易记录不存在 */
+    public static final String NOT_FOUND = "NOT_FOUND";
+    /** 交易不是预定状态 */
+    public static final String NOT_PENDING = "NOT_PENDING";
+    /** 关联车辆当前状态不允许成交 */
+    public static final String CAR_STATUS_INVALID = "CAR_STATUS_INVALID";
+    /** 交易已被其他请求同时修改 */
+    public static final String CONFLICT = "CONFLICT";
+
+    /**
+     * 交易订单ID
+     */
+    private String id;
+
+    /**
+     * 是否完成
+     */
+    private boolean success;
+
+    /**
+     * 结果代码（见本类常量）
+     */
+    private String code;
+
+    /**
+     * 失败原因（成功时为空）
+     */
+    private String message;
+
+    public static BulkCompleteItemResult ok(String id) {
+        return new BulkCompleteItemResult(id, true, OK, null);
+    }
+
+    public static BulkCompleteItemResult failed(String id, String code, String message) {
+        return new BulkCompleteItemResult(id, false, code, message);
+    }
+}
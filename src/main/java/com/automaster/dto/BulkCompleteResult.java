@@ -0,0 +1,40 @@
+package com.automaster.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量完成预定交易的结果（按请求顺序逐项返回）
+ *
+ * @author AutoMaster Team
+ * @since 1.0.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkCompleteResult {
+
+    /**
+     * 请求项数
+     */
+    private int total;
+
+    /**
+     * 完成数
+     */
+    private int succeeded;
+
+    /**
+     * 失败数
+     */
+    private int failed;
+
+    /**
+     * 逐项结果（与请求顺序一致）
+     */
+    private List<BulkCompleteItemResult> results = new ArrayList<>();
+}
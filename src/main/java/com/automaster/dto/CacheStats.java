@@ -0,0 +1,42 @@
+package com.automaster.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 缓存命中统计 DTO
+ *
+ * @author AutoMaster Team
+ * @since 1.0.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStats {
+
+    /**
+     * 缓存名称
+     */
+    private String name;
+
+    /**
+     * 命中次数（直接返回已缓存结果）
+     */
+    private Long hits = 0L;
+
+    /**
+     * 未命中次数（实际执行计算）
+     */
+    private Long misses = 0L;
+
+    /**
+     * 合并次数（等待并共享正在执行的计算）
+     */
+    private Long coalesced = 0L;
+
+    /**
+     * 当前缓存条目数
+     */
+    private Integer size = 0;
+}
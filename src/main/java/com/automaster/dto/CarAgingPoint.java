@@ -0,0 +1,31 @@
+package com.automaster.dto;
+
+import java.util.Date;
+
+/**
+ * 在库车辆库龄投影（库龄索引构建使用，不加载完整车辆实体）
+ *
+ * @author AutoMaster Team
+ * @since 1.0.0
+ */
+public interface CarAgingPoint {
+
+    String getId();
+
+    String getMake();
+
+    String getModel();
+
+    Integer getYear();
+
+    Integer getPrice();
+
+    Integer getCostPrice();
+
+    String getStatus();
+
+    /**
+     * 入库时间
+     */
+    Date getDateAdded();
+}
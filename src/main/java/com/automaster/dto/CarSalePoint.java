@@ -0,0 +1,27 @@
+package com.automaster.dto;
+
+import java.util.Date;
+
+/**
+ * 单辆车的销售日期、金额与状态投影（车辆成本价变更时修正利润统计使用）
+ *
+ * @author AutoMaster Team
+ * @since 1.0.0
+ */
+public interface CarSalePoint {
+
+    /**
+     * 交易日期
+     */
+    Date getDate();
+
+    /**
+     * 成交金额（元）
+     */
+    Integer getPrice();
+
+    /**
+     * 交易状态（直接销售可能为空）
+     */
+    String getStatus();
+}
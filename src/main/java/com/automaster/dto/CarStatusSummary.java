@@ -0,0 +1,25 @@
+package com.automaster.dto;
+
+/**
+ * 车辆按状态聚合的投影（数据库 GROUP BY 结果，不加载实体）
+ *
+ * @author AutoMaster Team
+ * @since 1.0.0
+ */
+public interface CarStatusSummary {
+
+    /**
+     * 车辆状态（AVAILABLE/SOLD/PENDING/MAINTENANCE）
+     */
+    String getStatus();
+
+    /**
+     * 该状态下的车辆数
+     */
+    Long getCarCount();
+
+    /**
+     * 该状态下车辆售价合计（元）
+     */
+    Long getTotalPrice();
+}
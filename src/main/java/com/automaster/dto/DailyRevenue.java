@@ -0,0 +1,22 @@
+package com.automaster.dto;
+
+import java.time.LocalDate;
+
+/**
+ * 单日销售额投影（汇总表按日期合计各品牌）
+ *
+ * @author AutoMaster Team
+ * @since 1.0.0
+ */
+public interface DailyRevenue {
+
+    /**
+     * 销售日期
+     */
+    LocalDate getSalesDate();
+
+    /**
+     * 当日销售额（元）
+     */
+    Long getRevenue();
+}
@@ -4,6 +4,9 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * 仪表盘统计数据 DTO
  *
@@ -69,4 +72,14 @@ public class DashboardStats {
      * 整备中车辆数
      */
     private Integer maintenanceCarsCount = 0;
-}
\ No newline at end of file
+
+    /**
+     * 是否为降级结果（并行模式下部分子查询超时或失败，对应指标按0返回）
+     */
+    private Boolean degraded = false;
+
+    /**
+     * 降级的子查询（inventory/sales/profit/customers）
+     */
+    private List<String> degradedParts = new ArrayList<>();
+}
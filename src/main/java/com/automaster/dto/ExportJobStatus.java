@@ -0,0 +1,80 @@
+package com.automaster.dto;
+
+import lombok.Data;
+
+import java.util.Date;
+
+/**
+ * 导出任务状态 DTO
+ *
+ * @author AutoMaster Team
+ * @since 1.0.0
+ */
+@Data
+public class ExportJobStatus {
+
+    /**
+     * 任务ID
+     */
+    private String jobId;
+
+    /**
+     * 导出类型（如 transactions）
+     */
+    private String type;
+
+    /**
+     * 任务状态：QUEUED-排队中，RUNNING-导出中，COMPLETED-已完成，FAILED-失败
+     */
+    private String status;
+
+    /**
+     * 已写出的行数
+     */
+    private Long rowsWritten;
+
+    /**
+     * 预计总行数（开始导出时统计，统计前为空）
+     */
+    private Long totalRows;
+
+    /**
+     * 进度百分比（0-100，总行数未知时为空）
+     */
+    private Integer progress;
+
+    /**
+     * 下载文件名
+     */
+    private String fileName;
+
+    /**
+     * 文件大小（字节，完成后返回）
+     */
+    private Long fileSize;
+
+    /**
+     * 下载地址（完成后返回）
+     */
+    private String downloadUrl;
+
+    /**
+     * 失败原因
+     */
+    private String error;
+
+    /**
+     * 提交时间
+     */
+    private Date createdAt;
+
+    /**
+     * 开始时间
+     */
+    private Date startedAt;
+
+    /**
+     * 结束时间
+     */
+    private Date finishedAt;
+}
@@ -0,0 +1,44 @@
+package com.automaster.dto;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 库存库龄报告 DTO（在售 + 预定车辆）
+ *
+ * @author AutoMaster Team
+ * @since 1.0.0
+ */
+@Data
+public class InventoryAgingReport {
+
+    /**
+     * 统计日期（库龄按该日期计算）
+     */
+    private LocalDate asOf;
+
+    /**
+     * 在库车辆总数
+     */
+    private Long totalCount = 0L;
+
+    /**
+     * 占用资金合计（成本价，元）
+     */
+    private Long totalCapital = 0L;
+
+    /**
+     * 库龄分段直方图
+     */
+    private List<AgingBucket> buckets = new ArrayList<>();
+
+    /**
+     * 各品牌库龄最长的车辆（按入库时间升序）
+     */
+    private Map<String, List<AgingCar>> oldestByMake = new LinkedHashMap<>();
+}
@@ -0,0 +1,30 @@
+package com.automaster.dto;
+
+/**
+ * 销售排行榜排序指标
+ *
+ * @author AutoMaster Team
+ * @since 1.0.0
+ */
+public enum LeaderboardMetric {
+
+    REVENUE("revenue", "按销售额"), PROFIT("profit", "按利润"), DEALS("dealCount", "按成交单数");
+
+    /** 对应聚合查询中的别名 */
+    private final String alias;
+
+    private final String desc;
+
+    LeaderboardMetric(String alias, String desc) {
+        this.alias = alias;
+        this.desc = desc;
+    }
+
+    public String getAlias() {
+        return alias;
+    }
+
+    public String getDesc() {
+        return desc;
+    }
+}
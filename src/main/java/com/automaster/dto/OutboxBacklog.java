@@ -0,0 +1,27 @@
+package com.automaster.dto;
+
+import java.util.Date;
+
+/**
+ * 发件箱按处理器聚合的积压投影（数据库 GROUP BY 结果，不加载实体）
+ *
+ * @author AutoMaster Team
+ * @since 1.0.0
+ */
+public interface OutboxBacklog {
+
+    /**
+     * 投影处理器名称
+     */
+    String getHandler();
+
+    /**
+     * 事件数
+     */
+    Long getEventCount();
+
+    /**
+     * 最早一条事件的写入时间
+     */
+    Date getOldestCreatedAt();
+}
@@ -0,0 +1,52 @@
+package com.automaster.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 发件箱投递统计 DTO（每个投影处理器一条）
+ *
+ * @author AutoMaster Team
+ * @since 1.0.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxStats {
+
+    /**
+     * 投影处理器名称
+     */
+    private String handler;
+
+    /**
+     * 待投递事件数
+     */
+    private Long pending = 0L;
+
+    /**
+     * 超过最大重试次数、已停止投递的事件数
+     */
+    private Long failed = 0L;
+
+    /**
+     * 积压延迟（毫秒）：最早一条待投递事件已等待的时长，无积压时为0
+     */
+    private Long lagMillis = 0L;
+
+    /**
+     * 最近一批事件从写入到投递完成的延迟（毫秒）
+     */
+    private Long lastDispatchLagMillis = 0L;
+
+    /**
+     * 启动以来投递成功的事件数
+     */
+    private Long dispatched = 0L;
+
+    /**
+     * 启动以来投递失败（等待重试或停止投递）的次数
+     */
+    private Long retries = 0L;
+}
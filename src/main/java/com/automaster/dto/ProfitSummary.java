@@ -0,0 +1,20 @@
+package com.automaster.dto;
+
+/**
+ * 销售利润聚合投影（交易关联车辆成本价，一次查询得出）
+ *
+ * @author AutoMaster Team
+ * @since 1.0.0
+ */
+public interface ProfitSummary {
+
+    /**
+     * 总利润（成交价 - 成本价，数据不完整的交易按0计）
+     */
+    Long getTotalProfit();
+
+    /**
+     * 车辆信息不完整（车辆不存在/成本价或成交价为空）的交易数
+     */
+    Long getIncompleteCount();
+}
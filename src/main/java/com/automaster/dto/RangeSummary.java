@@ -0,0 +1,44 @@
+package com.automaster.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * 日期区间营收统计 DTO
+ *
+ * @author AutoMaster Team
+ * @since 1.0.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RangeSummary {
+
+    /**
+     * 开始日期（包含）
+     */
+    private LocalDate from;
+
+    /**
+     * 结束日期（包含）
+     */
+    private LocalDate to;
+
+    /**
+     * 区间内已完成销售额（元）
+     */
+    private Long revenue = 0L;
+
+    /**
+     * 区间内已完成销售利润（元）
+     */
+    private Long profit = 0L;
+
+    /**
+     * 区间内已完成销售订单数
+     */
+    private Long salesCount = 0L;
+}
@@ -0,0 +1,22 @@
+package com.automaster.dto;
+
+import java.util.Date;
+
+/**
+ * 单笔销售的日期与金额投影（趋势统计使用，不加载交易实体）
+ *
+ * @author AutoMaster Team
+ * @since 1.0.0
+ */
+public interface SalePoint {
+
+    /**
+     * 交易日期
+     */
+    Date getDate();
+
+    /**
+     * 成交金额（元）
+     */
+    Integer getPrice();
+}
@@ -0,0 +1,27 @@
+package com.automaster.dto;
+
+import java.util.Date;
+
+/**
+ * 单笔已完成销售的日期、成交价与车辆成本价投影（区间营收索引构建使用）
+ *
+ * @author AutoMaster Team
+ * @since 1.0.0
+ */
+public interface SaleProfitPoint {
+
+    /**
+     * 交易日期
+     */
+    Date getDate();
+
+    /**
+     * 成交金额（元）
+     */
+    Integer getPrice();
+
+    /**
+     * 车辆成本价（元，车辆不存在时为空）
+     */
+    Integer getCostPrice();
+}
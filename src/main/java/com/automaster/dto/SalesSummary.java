@@ -0,0 +1,20 @@
+package com.automaster.dto;
+
+/**
+ * 销售交易聚合投影（订单数 + 销售额）
+ *
+ * @author AutoMaster Team
+ * @since 1.0.0
+ */
+public interface SalesSummary {
+
+    /**
+     * 销售订单数
+     */
+    Long getSalesCount();
+
+    /**
+     * 销售额合计（元）
+     */
+    Long getTotalRevenue();
+}
@@ -0,0 +1,35 @@
+package com.automaster.dto;
+
+/**
+ * 销售人员业绩排行投影（按经手人分组聚合，一次查询关联用户姓名）
+ *
+ * @author AutoMaster Team
+ * @since 1.0.0
+ */
+public interface SalespersonRanking {
+
+    /**
+     * 经手人用户ID
+     */
+    String getUserId();
+
+    /**
+     * 经手人姓名（用户已删除时为空）
+     */
+    String getUserName();
+
+    /**
+     * 成交单数
+     */
+    Long getDealCount();
+
+    /**
+     * 销售额合计（元）
+     */
+    Long getRevenue();
+
+    /**
+     * 利润合计（元，车辆成本价缺失的交易按0计）
+     */
+    Long getProfit();
+}
@@ -0,0 +1,22 @@
+package com.automaster.dto;
+
+/**
+ * 销售趋势统计粒度
+ *
+ * @author AutoMaster Team
+ * @since 1.0.0
+ */
+public enum TrendGranularity {
+
+    DAY("按日"), WEEK("按周"), MONTH("按月"), QUARTER("按季度");
+
+    private final String desc;
+
+    TrendGranularity(String desc) {
+        this.desc = desc;
+    }
+
+    public String getDesc() {
+        return desc;
+    }
+}
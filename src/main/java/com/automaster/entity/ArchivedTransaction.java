@@ -0,0 +1,82 @@
+package com.automaster.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.util.Date;
+
+/**
+ * 归档交易订单实体类
+ * 对应数据库transactions_archive表：超过保留期限的已完成交易由归档任务从 transactions 表迁入，
+ * 字段与交易订单一致，仅在显式要求查询归档数据时读取
+ */
+@Entity
+@Table(name = "transactions_archive")
+@Data
+public class ArchivedTransaction {
+
+    /** 订单ID（沿用原交易ID） */
+    @Id
+    @Column(name = "id", length = 36)
+    private String id;
+
+    /** 关联车辆ID */
+    @Column(name = "car_id", nullable = false, length = 36)
+    private String carId;
+
+    /** 关联客户ID */
+    @Column(name = "customer_id", nullable = false, length = 36)
+    private String customerId;
+
+    /** 成交金额（元） */
+    @Column(name = "price", nullable = false)
+    private Integer price;
+
+    /** 交易日期 */
+    @Column(name = "date", nullable = false)
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date date;
+
+    /** 交易类型 */
+    @Column(name = "type", nullable = false, length = 20)
+    private String type;
+
+    /** 经手人id */
+    @Column(name = "handled_by_user_id", length = 36)
+    private String handledByUserId;
+
+    /** 交易状态 */
+    @Column(name = "status", length = 20)
+    private String status;
+
+    /** 定金金额（元） */
+    @Column(name = "deposit")
+    private Integer deposit;
+
+    /** 最终成交价（元） */
+    @Column(name = "final_price")
+    private Integer finalPrice;
+
+    /** 归档时间 */
+    @Column(name = "archived_at", nullable = false)
+    private Date archivedAt;
+
+    /**
+     * 转换为交易订单（标记为归档数据，车辆/客户详情由调用方填充）
+     */
+    public Transaction toTransaction() {
+        Transaction t = new Transaction();
+        t.setId(id);
+        t.setCarId(carId);
+        t.setCustomerId(customerId);
+        t.setPrice(price);
+        t.setDate(date);
+        t.setType(type);
+        t.setHandledByUserId(handledByUserId);
+        t.setStatus(status);
+        t.setDeposit(deposit);
+        t.setFinalPrice(finalPrice);
+        t.setArchived(Boolean.TRUE);
+        return t;
+    }
+}
@@ -0,0 +1,31 @@
+package com.automaster.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.util.Date;
+
+/**
+ * 批处理任务断点实体类
+ * 对应数据库batch_job_checkpoints表：记录后台批处理任务的处理进度，重启后从断点继续
+ */
+@Entity
+@Table(name = "batch_job_checkpoints")
+@Data
+public class BatchJobCheckpoint {
+
+    /** 任务名称（主键） */
+    @Id
+    @Column(name = "job_name", length = 100)
+    private String jobName;
+
+    /** 断点值（各任务自行约定格式，如最后完成的日期） */
+    @Column(name = "checkpoint", length = 200)
+    private String checkpoint;
+
+    /** 最后更新时间 */
+    @Column(name = "updated_at")
+    @UpdateTimestamp
+    private Date updatedAt;
+}
@@ -0,0 +1,34 @@
+package com.automaster.entity;
+
+/**
+ * 车辆状态（cars.status 存储枚举名）
+ */
+public enum CarStatus {
+
+    AVAILABLE("在售"), PENDING("预定"), SOLD("已售"), MAINTENANCE("整备中");
+
+    private final String desc;
+
+    CarStatus(String desc) {
+        this.desc = desc;
+    }
+
+    public String getDesc() {
+        return desc;
+    }
+
+    /**
+     * 按存储值解析，未知状态返回 null
+     */
+    public static CarStatus of(String value) {
+        if (value == null) {
+            return null;
+        }
+        for (CarStatus status : values()) {
+            if (status.name().equals(value)) {
+                return status;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,71 @@
+package com.automaster.entity;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * 车辆状态流转（状态机的边）
+ * 每种流转限定允许的起始状态、目标状态，以及是否同时清空预定信息（预定客户、定金）
+ */
+public enum CarStatusTransition {
+
+    /** 创建交易：未售出的车辆直接售出，保留预定信息（与原逻辑一致，只拒绝已售车辆，状态为空或未知的车辆同样允许） */
+    SELL("销售", CarStatus.SOLD, false, null,
+            EnumSet.of(CarStatus.AVAILABLE, CarStatus.PENDING, CarStatus.MAINTENANCE), true),
+
+    /** 完成预定：预定车辆转为已售，清空预定客户，定金置0 */
+    COMPLETE_RESERVATION("完成预定", CarStatus.SOLD, true, 0, EnumSet.of(CarStatus.PENDING), false),
+
+    /** 预定交易成交：车辆可能已在创建交易时售出，任意状态（含空或未知状态）均转为已售，清空预定客户，定金置0 */
+    SETTLE("交易成交", CarStatus.SOLD, true, 0, EnumSet.allOf(CarStatus.class), true),
+
+    /** 取消预定：预定车辆变回在售，清空预定客户和定金 */
+    BACK_TO_SALE("变回在售", CarStatus.AVAILABLE, true, null, EnumSet.of(CarStatus.PENDING), false);
+
+    private final String desc;
+    private final CarStatus target;
+    private final boolean clearReservation;
+    private final Integer clearedDeposit;
+    private final Set<CarStatus> from;
+    private final boolean fromUnrecognized;
+
+    CarStatusTransition(String desc, CarStatus target, boolean clearReservation, Integer clearedDeposit,
+                        Set<CarStatus> from, boolean fromUnrecognized) {
+        this.desc = desc;
+        this.target = target;
+        this.clearReservation = clearReservation;
+        this.clearedDeposit = clearedDeposit;
+        this.from = Collections.unmodifiableSet(from);
+        this.fromUnrecognized = fromUnrecognized;
+    }
+
+    /**
+     * 当前状态是否允许执行该流转（状态为空或不是已知枚举值时，按 fromUnrecognized 判断）
+     */
+    public boolean isAllowedFrom(String status) {
+        CarStatus current = CarStatus.of(status);
+        return current != null ? from.contains(current) : fromUnrecognized;
+    }
+
+    public String getDesc() {
+        return desc;
+    }
+
+    public CarStatus getTarget() {
+        return target;
+    }
+
+    public boolean isClearReservation() {
+        return clearReservation;
+    }
+
+    /** 清空预定信息时写入的定金（为空表示置空） */
+    public Integer getClearedDeposit() {
+        return clearedDeposit;
+    }
+
+    public Set<CarStatus> getFrom() {
+        return from;
+    }
+}
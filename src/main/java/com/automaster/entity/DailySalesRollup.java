@@ -0,0 +1,54 @@
+package com.automaster.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDate;
+import java.util.Date;
+
+/**
+ * 每日销售汇总实体类
+ * 对应数据库daily_sales_rollup表：按 日期 + 品牌 汇总 Sale 类型交易，
+ * 仪表盘趋势等按日期区间的统计只需读取少量汇总行
+ */
+@Entity
+@Table(name = "daily_sales_rollup",
+        uniqueConstraints = @UniqueConstraint(name = "uk_sales_date_make", columnNames = {"sales_date", "make"}))
+@Data
+public class DailySalesRollup {
+
+    /** 主键：自增 */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /** 销售日期（按服务器时区切分） */
+    @Column(name = "sales_date", nullable = false)
+    private LocalDate salesDate;
+
+    /** 车辆品牌（车辆已删除时为“未知”） */
+    @Column(name = "make", nullable = false, length = 50)
+    private String make;
+
+    /** 销售额合计（元） */
+    @Column(name = "revenue", nullable = false)
+    private Long revenue;
+
+    /** 利润合计（元，成本价缺失的交易按0计） */
+    @Column(name = "profit", nullable = false)
+    private Long profit;
+
+    /** 销售订单数 */
+    @Column(name = "sales_count", nullable = false)
+    private Integer salesCount;
+
+    /** 定金合计（元） */
+    @Column(name = "deposit_total", nullable = false)
+    private Long depositTotal;
+
+    /** 最后更新时间 */
+    @Column(name = "updated_at")
+    @UpdateTimestamp
+    private Date updatedAt;
+}
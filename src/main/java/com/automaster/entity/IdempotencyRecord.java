@@ -0,0 +1,41 @@
+package com.automaster.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.util.Date;
+
+/**
+ * 幂等键记录实体类
+ * 对应数据库idempotency_keys表：持久化带 Idempotency-Key 请求的响应，应用重启或多实例部署时重试请求仍可回放
+ */
+@Entity
+@Table(name = "idempotency_keys", indexes = @Index(name = "idx_expires_at", columnList = "expires_at"))
+@Data
+public class IdempotencyRecord {
+
+    /** 幂等键（接口范围 + 客户端传入的键） */
+    @Id
+    @Column(name = "idempotency_key", length = 200)
+    private String idempotencyKey;
+
+    /** 请求参数摘要（SHA-256），同一个键携带不同参数时拒绝 */
+    @Column(name = "fingerprint", nullable = false, length = 64)
+    private String fingerprint;
+
+    /** 响应状态码 */
+    @Column(name = "status_code", nullable = false)
+    private Integer statusCode;
+
+    /** 响应体（JSON） */
+    @Column(name = "response_body", columnDefinition = "MEDIUMTEXT")
+    private String responseBody;
+
+    /** 创建时间 */
+    @Column(name = "created_at", nullable = false)
+    private Date createdAt;
+
+    /** 过期时间 */
+    @Column(name = "expires_at", nullable = false)
+    private Date expiresAt;
+}
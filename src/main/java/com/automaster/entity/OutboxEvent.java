@@ -0,0 +1,72 @@
+package com.automaster.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.util.Date;
+
+/**
+ * 发件箱事件实体类
+ * 对应数据库outbox_events表：业务写入时在同一事务内为每个投影处理器写入一行，
+ * 由后台投递任务异步分批投递，失败按退避重试
+ */
+@Entity
+@Table(name = "outbox_events", indexes = {
+        @Index(name = "idx_handler_status_id", columnList = "handler, status, id"),
+        @Index(name = "idx_status_processed_at", columnList = "status, processed_at")
+})
+@Data
+public class OutboxEvent {
+
+    /** 待投递 */
+    public static final String PENDING = "PENDING";
+    /** 已投递 */
+    public static final String DONE = "DONE";
+    /** 超过最大重试次数，不再投递 */
+    public static final String FAILED = "FAILED";
+
+    /** 主键（自增，即投递顺序） */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /** 投影处理器名称 */
+    @Column(name = "handler", nullable = false, length = 50)
+    private String handler;
+
+    /** 事件类型 */
+    @Column(name = "event_type", nullable = false, length = 50)
+    private String eventType;
+
+    /** 顺序键（车辆ID），同一车辆的事件按写入顺序投递 */
+    @Column(name = "aggregate_id", length = 36)
+    private String aggregateId;
+
+    /** 事件内容（JSON） */
+    @Column(name = "payload", nullable = false, columnDefinition = "MEDIUMTEXT")
+    private String payload;
+
+    /** 状态：PENDING / DONE / FAILED */
+    @Column(name = "status", nullable = false, length = 20)
+    private String status;
+
+    /** 已失败次数 */
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts;
+
+    /** 下次可投递时间（失败后按退避推迟） */
+    @Column(name = "next_attempt_at", nullable = false)
+    private Date nextAttemptAt;
+
+    /** 最近一次失败原因 */
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    /** 写入时间 */
+    @Column(name = "created_at", nullable = false)
+    private Date createdAt;
+
+    /** 投递完成时间 */
+    @Column(name = "processed_at")
+    private Date processedAt;
+}
@@ -1,5 +1,6 @@
 package com.automaster.entity;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import jakarta.persistence.*;
 import lombok.Data;
 import org.hibernate.annotations.CreationTimestamp;
@@ -62,4 +63,7 @@ public class Transaction {
     private Car car; // 关联车辆详情
     @Transient
     private Customer customer; // 关联客户详情
+    @Transient
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean archived; // 是否为归档数据（仅查询归档数据时返回 true）
 }
\ No newline at end of file
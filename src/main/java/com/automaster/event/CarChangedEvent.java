@@ -0,0 +1,70 @@
+package com.automaster.event;
+
+import com.automaster.entity.Car;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 车辆变更事件
+ * before/after 为变更前后的车辆快照（新增时 before 为空，删除时 after 为空），
+ * 供仪表盘计数器等派生视图做增量更新
+ *
+ * @author AutoMaster Team
+ * @since 1.0.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CarChangedEvent {
+
+    /**
+     * 变更前的车辆快照（新增时为空）
+     */
+    private Car before;
+
+    /**
+     * 变更后的车辆快照（删除时为空）
+     */
+    private Car after;
+
+    public static CarChangedEvent created(Car after) {
+        return new CarChangedEvent(null, snapshot(after));
+    }
+
+    /**
+     * @param before 变更前快照（需在保存前通过 {@link #snapshot(Car)} 获取，避免被持久化上下文覆盖）
+     * @param after  变更后的车辆
+     */
+    public static CarChangedEvent updated(Car before, Car after) {
+        return new CarChangedEvent(before, snapshot(after));
+    }
+
+    public static CarChangedEvent deleted(Car before) {
+        return new CarChangedEvent(before, null);
+    }
+
+    /**
+     * 复制车辆当前状态（与持久化上下文中的实体脱离）
+     */
+    public static Car snapshot(Car car) {
+        if (car == null) {
+            return null;
+        }
+        Car copy = new Car();
+        copy.setId(car.getId());
+        copy.setMake(car.getMake());
+        copy.setModel(car.getModel());
+        copy.setYear(car.getYear());
+        copy.setPrice(car.getPrice());
+        copy.setCostPrice(car.getCostPrice());
+        copy.setDeposit(car.getDeposit());
+        copy.setCustomerId(car.getCustomerId());
+        copy.setMileage(car.getMileage());
+        copy.setColor(car.getColor());
+        copy.setVin(car.getVin());
+        copy.setStatus(car.getStatus());
+        copy.setDateAdded(car.getDateAdded());
+        return copy;
+    }
+}
@@ -0,0 +1,37 @@
+package com.automaster.event;
+
+import com.automaster.entity.Customer;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 客户变更事件
+ * 新增时 before 为空，删除时 after 为空，供仪表盘计数器增量维护客户总数
+ *
+ * @author AutoMaster Team
+ * @since 1.0.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerChangedEvent {
+
+    /**
+     * 变更前的客户（新增时为空）
+     */
+    private Customer before;
+
+    /**
+     * 变更后的客户（删除时为空）
+     */
+    private Customer after;
+
+    public static CustomerChangedEvent created(Customer after) {
+        return new CustomerChangedEvent(null, after);
+    }
+
+    public static CustomerChangedEvent deleted(Customer before) {
+        return new CustomerChangedEvent(before, null);
+    }
+}
@@ -0,0 +1,26 @@
+package com.automaster.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 交易订单批量变更事件（如批量完成预定）
+ * 派生视图一次处理整批变更：汇总表按 日期 + 品牌 合并增量后写入，内存计数器只加一次锁，缓存只失效一次
+ *
+ * @author AutoMaster Team
+ * @since 1.0.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionBatchChangedEvent {
+
+    /**
+     * 逐条变更（与单条写入发布的事件内容一致）
+     */
+    private List<TransactionChangedEvent> changes = new ArrayList<>();
+}
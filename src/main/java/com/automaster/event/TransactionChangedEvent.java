@@ -0,0 +1,88 @@
+package com.automaster.event;
+
+import com.automaster.entity.Car;
+import com.automaster.entity.Transaction;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 交易订单变更事件
+ * before/after 为变更前后的交易快照（新增时 before 为空，删除时 after 为空），
+ * 同时携带关联车辆的成本价和品牌，派生视图无需再回查车辆即可计算利润、按品牌汇总
+ *
+ * @author AutoMaster Team
+ * @since 1.0.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionChangedEvent {
+
+    /**
+     * 变更前的交易快照（新增时为空）
+     */
+    private Transaction before;
+
+    /**
+     * 变更后的交易快照（删除时为空）
+     */
+    private Transaction after;
+
+    /**
+     * 关联车辆成本价（车辆不存在时为空）
+     */
+    private Integer carCostPrice;
+
+    /**
+     * 关联车辆品牌（车辆不存在时为空）
+     */
+    private String carMake;
+
+    /**
+     * @param car 关联车辆（可为空）
+     */
+    public static TransactionChangedEvent created(Transaction after, Car car) {
+        return new TransactionChangedEvent(null, snapshot(after),
+                car != null ? car.getCostPrice() : null, car != null ? car.getMake() : null);
+    }
+
+    /**
+     * @param before 变更前快照（需在修改前通过 {@link #snapshot(Transaction)} 获取）
+     * @param after  变更后的交易
+     * @param car    关联车辆（可为空）
+     */
+    public static TransactionChangedEvent updated(Transaction before, Transaction after, Car car) {
+        return new TransactionChangedEvent(before, snapshot(after),
+                car != null ? car.getCostPrice() : null, car != null ? car.getMake() : null);
+    }
+
+    /**
+     * @param car 关联车辆（可为空）
+     */
+    public static TransactionChangedEvent deleted(Transaction before, Car car) {
+        return new TransactionChangedEvent(before, null,
+                car != null ? car.getCostPrice() : null, car != null ? car.getMake() : null);
+    }
+
+    /**
+     * 复制交易当前状态（不含 @Transient 关联的车辆/客户详情）
+     */
+    public static Transaction snapshot(Transaction transaction) {
+        if (transaction == null) {
+            return null;
+        }
+        Transaction copy = new Transaction();
+        copy.setId(transaction.getId());
+        copy.setCarId(transaction.getCarId());
+        copy.setCustomerId(transaction.getCustomerId());
+        copy.setPrice(transaction.getPrice());
+        copy.setDate(transaction.getDate());
+        copy.setType(transaction.getType());
+        copy.setHandledByUserId(transaction.getHandledByUserId());
+        copy.setStatus(transaction.getStatus());
+        copy.setDeposit(transaction.getDeposit());
+        copy.setFinalPrice(transaction.getFinalPrice());
+        return copy;
+    }
+}
@@ -0,0 +1,18 @@
+package com.automaster.exception;
+
+/**
+ * 车辆状态并发冲突：条件更新时车辆状态已被其他请求修改（如同一辆车被同时售出）
+ */
+public class CarStatusConflictException extends RuntimeException {
+
+    private final String carId;
+
+    public CarStatusConflictException(String carId) {
+        super("车辆状态已被其他操作修改，请刷新后重试");
+        this.carId = carId;
+    }
+
+    public String getCarId() {
+        return carId;
+    }
+}
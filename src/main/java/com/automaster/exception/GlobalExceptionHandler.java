@@ -47,6 +47,17 @@ public class GlobalExceptionHandler {
         return ResponseEntity.badRequest().body(error);
     }
 
+    /**
+     * 处理车辆状态并发冲突
+     */
+    @ExceptionHandler(CarStatusConflictException.class)
+    public ResponseEntity<Map<String, String>> handleCarStatusConflict(CarStatusConflictException e) {
+        Map<String, String> error = new HashMap<>();
+        error.put("code", "CAR_STATUS_CONFLICT");
+        error.put("message", e.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+
     /**
      * 处理通用异常
      */
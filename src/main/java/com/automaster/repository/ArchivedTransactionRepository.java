@@ -0,0 +1,34 @@
+package com.automaster.repository;
+
+import com.automaster.entity.ArchivedTransaction;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.Date;
+
+/**
+ * 归档交易订单数据访问层
+ * 多条件查询复用 {@link TransactionSpecifications}（字段名与交易订单一致）
+ */
+public interface ArchivedTransactionRepository extends JpaRepository<ArchivedTransaction, String>,
+        JpaSpecificationExecutor<ArchivedTransaction> {
+
+    /**
+     * 将指定交易整行复制到归档表（含实体未映射的支付方式、备注等字段，数据库内完成，不经过应用）
+     *
+     * @param ids        交易ID
+     * @param archivedAt 归档时间
+     * @return 复制行数
+     */
+    @Modifying
+    @Query(value = "INSERT INTO transactions_archive (id, car_id, customer_id, price, date, type, handled_by_user_id, " +
+            "status, deposit, final_price, payment_method, profit, notes, created_at, updated_at, archived_at) " +
+            "SELECT id, car_id, customer_id, price, date, type, handled_by_user_id, " +
+            "status, deposit, final_price, payment_method, profit, notes, created_at, updated_at, :archivedAt " +
+            "FROM transactions WHERE id IN (:ids)", nativeQuery = true)
+    int copyFromTransactions(@Param("ids") Collection<String> ids, @Param("archivedAt") Date archivedAt);
+}
@@ -0,0 +1,15 @@
+package com.automaster.repository;
+
+import com.automaster.entity.BatchJobCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * 批处理任务断点数据访问层
+ *
+ * @author AutoMaster Team
+ * @since 1.0.0
+ */
+@Repository
+public interface BatchJobCheckpointRepository extends JpaRepository<BatchJobCheckpoint, String> {
+}
@@ -1,10 +1,19 @@
 package com.automaster.repository;
 
+import com.automaster.dto.CarAgingPoint;
+import com.automaster.dto.CarStatusSummary;
 import com.automaster.entity.Car;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface CarRepository extends JpaRepository<Car, String> {
 
@@ -13,4 +22,79 @@ public interface CarRepository extends JpaRepository<Car, String> {
 
     // 按VIN查询车辆（用于校验重复）
     Optional<Car> findByVin(String vin);
+
+    /**
+     * 按状态分组统计车辆数与售价合计（仪表盘使用，只返回少量聚合行）
+     *
+     * @return 每个状态一行的聚合结果
+     */
+    @Query("SELECT c.status AS status, COUNT(c) AS carCount, COALESCE(SUM(c.price), 0L) AS totalPrice " +
+            "FROM Car c GROUP BY c.status")
+    List<CarStatusSummary> summarizeByStatus();
+
+    /**
+     * 查询在库（在售 + 预定）车辆的库龄相关字段（库龄索引启动构建使用，走 idx_status）
+     */
+    @Query("SELECT c.id AS id, c.make AS make, c.model AS model, c.year AS year, c.price AS price, " +
+            "c.costPrice AS costPrice, c.status AS status, c.dateAdded AS dateAdded " +
+            "FROM Car c WHERE c.status IN ('AVAILABLE', 'PENDING')")
+    List<CarAgingPoint> findInStockAgingPoints();
+
+    /**
+     * 流式读取全部车辆（按批次从数据库游标取数，只读不做脏检查）
+     * 必须在事务内消费，用完关闭
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT c FROM Car c")
+    Stream<Car> streamAll();
+
+    /**
+     * 条件更新车辆状态：仅当车辆仍处于期望状态时更新（走主键；期望状态为空时匹配状态为空的车辆）
+     *
+     * @return 更新行数，0 表示车辆不存在或状态已被修改
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Car c SET c.status = :target WHERE c.id = :id AND COALESCE(c.status, '') = COALESCE(:expected, '')")
+    int compareAndSetStatus(@Param("id") String id, @Param("expected") String expected,
+                            @Param("target") String target);
+
+    /**
+     * 条件更新车辆状态并清空预定信息（预定客户置空，定金置为指定值）
+     * 除状态外，预定客户和定金也须与读取时一致：已售车辆完成预定前后状态都是已售，
+     * 只比较状态无法发现同一车辆的预定已被其他请求清空
+     *
+     * @return 更新行数，0 表示车辆不存在或状态、预定信息已被修改
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Car c SET c.status = :target, c.customerId = NULL, c.deposit = :deposit " +
+            "WHERE c.id = :id AND COALESCE(c.status, '') = COALESCE(:expected, '') " +
+            "AND COALESCE(c.customerId, '') = COALESCE(:expectedCustomerId, '') " +
+            "AND COALESCE(c.deposit, -1) = COALESCE(:expectedDeposit, -1)")
+    int compareAndSetStatusClearingReservation(@Param("id") String id, @Param("expected") String expected,
+                                               @Param("expectedCustomerId") String expectedCustomerId,
+                                               @Param("expectedDeposit") Integer expectedDeposit,
+                                               @Param("target") String target, @Param("deposit") Integer deposit);
+
+    /**
+     * 条件更新车辆信息（修改接口使用）：仅当状态、预定客户和定金仍与读取时一致时整行更新，
+     * 避免用读取时的旧状态覆盖期间并发完成的状态流转（入库时间不更新）
+     *
+     * @param car 修改后的车辆（按 id 定位）
+     * @return 更新行数，0 表示车辆不存在或状态、预定信息已被修改
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Car c SET c.make = :#{#car.make}, c.model = :#{#car.model}, c.year = :#{#car.year}, " +
+            "c.price = :#{#car.price}, c.costPrice = :#{#car.costPrice}, c.deposit = :#{#car.deposit}, " +
+            "c.customerId = :#{#car.customerId}, c.mileage = :#{#car.mileage}, c.color = :#{#car.color}, " +
+            "c.vin = :#{#car.vin}, c.status = :#{#car.status}, c.description = :#{#car.description}, " +
+            "c.imageUrl = :#{#car.imageUrl} " +
+            "WHERE c.id = :#{#car.id} AND COALESCE(c.status, '') = COALESCE(:expected, '') " +
+            "AND COALESCE(c.customerId, '') = COALESCE(:expectedCustomerId, '') " +
+            "AND COALESCE(c.deposit, -1) = COALESCE(:expectedDeposit, -1)")
+    int compareAndUpdate(@Param("car") Car car, @Param("expected") String expected,
+                         @Param("expectedCustomerId") String expectedCustomerId,
+                         @Param("expectedDeposit") Integer expectedDeposit);
 }
@@ -2,12 +2,16 @@ package com.automaster.repository;
 
 import com.automaster.entity.Customer;
 import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * 客户数据访问层
@@ -75,4 +79,17 @@ public interface CustomerRepository extends JpaRepository<Customer, String> {
             ") " +
             "ORDER BY c.date_added DESC", nativeQuery = true)
     List<Customer> searchUnpurchasedBuyersByKeyword(@Param("keyword") String keyword);
-}
\ No newline at end of file
+
+    /**
+     * 流式读取所有客户（按录入时间倒序，按批次从数据库游标取数，只读不做脏检查）
+     * 必须在事务内消费，用完关闭
+     *
+     * @return 客户流
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT c FROM Customer c ORDER BY c.dateAdded DESC")
+    Stream<Customer> streamAllOrderByDateAddedDesc();
+}
@@ -0,0 +1,79 @@
+package com.automaster.repository;
+
+import com.automaster.dto.DailyRevenue;
+import com.automaster.entity.DailySalesRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 每日销售汇总数据访问层
+ *
+ * @author AutoMaster Team
+ * @since 1.0.0
+ */
+@Repository
+public interface DailySalesRollupRepository extends JpaRepository<DailySalesRollup, Long> {
+
+    /**
+     * 增量累加某日某品牌的汇总（不存在则插入）
+     * 各参数为变化量，撤销时传负数
+     */
+    @Modifying
+    @Query(value = "INSERT INTO daily_sales_rollup (sales_date, make, revenue, profit, sales_count, deposit_total, updated_at) " +
+            "VALUES (:salesDate, :make, :revenue, :profit, :salesCount, :depositTotal, NOW()) " +
+            "ON DUPLICATE KEY UPDATE " +
+            "revenue = revenue + VALUES(revenue), " +
+            "profit = profit + VALUES(profit), " +
+            "sales_count = sales_count + VALUES(sales_count), " +
+            "deposit_total = deposit_total + VALUES(deposit_total), " +
+            "updated_at = NOW()", nativeQuery = true)
+    int accumulate(@Param("salesDate") LocalDate salesDate,
+                   @Param("make") String make,
+                   @Param("revenue") long revenue,
+                   @Param("profit") long profit,
+                   @Param("salesCount") int salesCount,
+                   @Param("depositTotal") long depositTotal);
+
+    /**
+     * 删除某日的全部汇总行（重建前调用）
+     */
+    @Modifying
+    @Query("DELETE FROM DailySalesRollup r WHERE r.salesDate = :salesDate")
+    int deleteBySalesDate(@Param("salesDate") LocalDate salesDate);
+
+    /**
+     * 从交易表重建某日的汇总行（[dayStart, dayEnd) 范围两张表各走 idx_date 索引，按品牌分组；包含已归档的交易）
+     */
+    @Modifying
+    @Query(value = "INSERT INTO daily_sales_rollup (sales_date, make, revenue, profit, sales_count, deposit_total, updated_at) " +
+            "SELECT :salesDate, COALESCE(c.make, '未知'), " +
+            "COALESCE(SUM(t.price), 0), " +
+            "COALESCE(SUM(CASE WHEN c.cost_price IS NOT NULL THEN t.price - c.cost_price ELSE 0 END), 0), " +
+            "COUNT(*), " +
+            "COALESCE(SUM(t.deposit), 0), " +
+            "NOW() " +
+            "FROM (SELECT price, deposit, car_id FROM transactions " +
+            "    WHERE type = 'Sale' AND date >= :dayStart AND date < :dayEnd " +
+            "UNION ALL SELECT price, deposit, car_id FROM transactions_archive " +
+            "    WHERE type = 'Sale' AND date >= :dayStart AND date < :dayEnd) t " +
+            "LEFT JOIN cars c ON c.id = t.car_id " +
+            "GROUP BY COALESCE(c.make, '未知')", nativeQuery = true)
+    int rebuildDay(@Param("salesDate") LocalDate salesDate,
+                   @Param("dayStart") Date dayStart,
+                   @Param("dayEnd") Date dayEnd);
+
+    /**
+     * 按日期合计销售额（区间内每天一行）
+     */
+    @Query("SELECT r.salesDate AS salesDate, SUM(r.revenue) AS revenue FROM DailySalesRollup r " +
+            "WHERE r.salesDate >= :from AND r.salesDate <= :to " +
+            "GROUP BY r.salesDate ORDER BY r.salesDate")
+    List<DailyRevenue> sumRevenueByDay(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
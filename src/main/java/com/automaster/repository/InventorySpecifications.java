@@ -0,0 +1,83 @@
+package com.automaster.repository;
+
+import com.automaster.entity.Car;
+import com.automaster.entity.Customer;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 车辆、客户导出查询条件
+ * 所有条件均为精确匹配或范围条件，分别走 cars / customers 表的 idx_status、idx_make_model、idx_type、idx_date_added；
+ * 日期格式与交易订单筛选一致（yyyy-MM-dd，结束日期包含当天，格式错误时忽略）
+ *
+ * @author AutoMaster Team
+ * @since 1.0.0
+ */
+public final class InventorySpecifications {
+
+    private InventorySpecifications() {
+    }
+
+    /**
+     * 车辆查询条件（为空的条件忽略）
+     *
+     * @param status    车辆状态（精确匹配）
+     * @param make      品牌（精确匹配）
+     * @param startDate 入库开始日期
+     * @param endDate   入库结束日期
+     */
+    public static Specification<Car> cars(String status, String make, String startDate, String endDate) {
+        Date start = TransactionFilter.parseDate(startDate);
+        Date end = TransactionFilter.parseEndDate(endDate);
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            addEqual(predicates, cb, root, "status", status);
+            addEqual(predicates, cb, root, "make", make);
+            addDateRange(predicates, cb, root, start, end);
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    /**
+     * 客户查询条件（为空的条件忽略）
+     *
+     * @param status    客户状态（ACTIVE / BLACKLIST）
+     * @param type      客户类型（Buyer / Seller）
+     * @param startDate 录入开始日期
+     * @param endDate   录入结束日期
+     */
+    public static Specification<Customer> customers(String status, String type, String startDate, String endDate) {
+        Date start = TransactionFilter.parseDate(startDate);
+        Date end = TransactionFilter.parseEndDate(endDate);
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            addEqual(predicates, cb, root, "status", status);
+            addEqual(predicates, cb, root, "type", type);
+            addDateRange(predicates, cb, root, start, end);
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    private static void addEqual(List<Predicate> predicates, CriteriaBuilder cb, Root<?> root,
+                                 String field, String value) {
+        if (value != null && !value.isEmpty()) {
+            predicates.add(cb.equal(root.get(field), value));
+        }
+    }
+
+    private static void addDateRange(List<Predicate> predicates, CriteriaBuilder cb, Root<?> root,
+                                     Date start, Date end) {
+        if (start != null) {
+            predicates.add(cb.greaterThanOrEqualTo(root.get("dateAdded"), start));
+        }
+        if (end != null) {
+            predicates.add(cb.lessThanOrEqualTo(root.get("dateAdded"), end));
+        }
+    }
+}
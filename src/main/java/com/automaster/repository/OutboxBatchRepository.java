@@ -0,0 +1,50 @@
+package com.automaster.repository;
+
+import com.automaster.entity.OutboxEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 发件箱批量写入（JDBC 批处理）
+ * 自增主键的实体无法使用 Hibernate 批量插入，批量完成等场景一次写入多行时改用 JDBC 批处理，
+ * 与 JPA 共用当前事务的数据库连接
+ *
+ * @author AutoMaster Team
+ * @since 1.0.0
+ */
+@Repository
+public class OutboxBatchRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO outbox_events (handler, event_type, aggregate_id, payload, status, attempts, " +
+                    "next_attempt_at, created_at) VALUES (?, ?, ?, ?, 'PENDING', 0, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public OutboxBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * 批量写入待投递事件（取 handler、eventType、aggregateId、payload、createdAt）
+     */
+    public void insertAll(List<OutboxEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = new ArrayList<>(events.size());
+        for (OutboxEvent e : events) {
+            Timestamp createdAt = new Timestamp(e.getCreatedAt().getTime());
+            args.add(new Object[]{e.getHandler(), e.getEventType(), e.getAggregateId(), e.getPayload(), createdAt, createdAt});
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, args,
+                new int[]{Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.TIMESTAMP, Types.TIMESTAMP});
+    }
+}
@@ -0,0 +1,77 @@
+package com.automaster.repository;
+
+import com.automaster.dto.OutboxBacklog;
+import com.automaster.entity.OutboxEvent;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 发件箱事件数据访问层
+ */
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * 按写入顺序读取某个处理器已到投递时间的待投递事件并加行锁（多实例部署时同一处理器的投递串行执行）
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM OutboxEvent e WHERE e.handler = :handler AND e.status = 'PENDING' " +
+            "AND e.nextAttemptAt <= :now ORDER BY e.id")
+    List<OutboxEvent> findDueForUpdate(@Param("handler") String handler, @Param("now") Date now, Limit limit);
+
+    /**
+     * 查询某个处理器失败后等待重试的事件（同一车辆之后的事件需等其投递成功）
+     */
+    @Query("SELECT e FROM OutboxEvent e WHERE e.handler = :handler AND e.status = 'PENDING' " +
+            "AND e.nextAttemptAt > :now ORDER BY e.id")
+    List<OutboxEvent> findBackingOff(@Param("handler") String handler, @Param("now") Date now);
+
+    /**
+     * 按ID读取待投递事件并加行锁（逐条重试时使用）
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM OutboxEvent e WHERE e.id = :id AND e.status = 'PENDING'")
+    Optional<OutboxEvent> findPendingByIdForUpdate(@Param("id") Long id);
+
+    /**
+     * 批量标记为已投递
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE OutboxEvent e SET e.status = 'DONE', e.processedAt = :processedAt WHERE e.id IN :ids")
+    int markDone(@Param("ids") Collection<Long> ids, @Param("processedAt") Date processedAt);
+
+    /**
+     * 按处理器统计某个状态的事件数与最早写入时间
+     */
+    @Query("SELECT e.handler AS handler, COUNT(e) AS eventCount, MIN(e.createdAt) AS oldestCreatedAt " +
+            "FROM OutboxEvent e WHERE e.status = :status GROUP BY e.handler")
+    List<OutboxBacklog> summarizeByStatus(@Param("status") String status);
+
+    /**
+     * 某个处理器是否还有待投递事件
+     */
+    boolean existsByHandlerAndStatus(String handler, String status);
+
+    /**
+     * 加共享锁读取某个处理器的待投递事件（加锁读读取最新提交的数据，补数重建后在同一事务内复查积压使用）
+     */
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("SELECT e FROM OutboxEvent e WHERE e.handler = :handler AND e.status = 'PENDING'")
+    List<OutboxEvent> findPendingForShare(@Param("handler") String handler, Limit limit);
+
+    /**
+     * 清理已投递的历史事件
+     */
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.status = 'DONE' AND e.processedAt < :before")
+    int deleteDoneBefore(@Param("before") Date before);
+}
@@ -0,0 +1,105 @@
+package com.automaster.repository;
+
+import com.automaster.entity.Car;
+import com.automaster.entity.CarStatusTransition;
+import com.automaster.entity.Transaction;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 交易订单批量写入（JDBC 批处理）
+ * 同一条语句的多组参数一次发送给数据库，配合连接串 rewriteBatchedStatements=true 减少网络往返；
+ * 与 JPA 共用当前事务的数据库连接
+ *
+ * @author AutoMaster Team
+ * @since 1.0.0
+ */
+@Repository
+public class TransactionBatchRepository {
+
+    private static final String COMPLETE_PENDING_SQL =
+            "UPDATE transactions SET status = 'COMPLETED', final_price = ?, price = ?, date = ? " +
+                    "WHERE id = ? AND status = 'PENDING'";
+
+    private static final String SET_CAR_STATUS_SQL =
+            "UPDATE cars SET status = ? WHERE id = ? AND COALESCE(status, '') = COALESCE(?, '')";
+
+    private static final String SET_CAR_STATUS_CLEARING_RESERVATION_SQL =
+            "UPDATE cars SET status = ?, customer_id = NULL, deposit = ? " +
+                    "WHERE id = ? AND COALESCE(status, '') = COALESCE(?, '') " +
+                    "AND COALESCE(customer_id, '') = COALESCE(?, '') AND COALESCE(deposit, -1) = COALESCE(?, -1)";
+
+    private static final String REVERT_COMPLETED_SQL =
+            "UPDATE transactions SET status = 'PENDING', final_price = ?, price = ?, date = ? " +
+                    "WHERE id = ? AND status = 'COMPLETED'";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public TransactionBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * 批量条件完成预定交易（与 {@link TransactionRepository#completeIfPending} 语义一致）
+     *
+     * @param completed 完成后的交易（取 id、finalPrice、date）
+     * @return 每条交易的更新行数，0 表示已不是预定状态；驱动合并发送时可能为 {@link java.sql.Statement#SUCCESS_NO_INFO}
+     */
+    public int[] completePending(List<Transaction> completed) {
+        List<Object[]> args = new ArrayList<>(completed.size());
+        for (Transaction t : completed) {
+            args.add(new Object[]{t.getFinalPrice(), t.getFinalPrice(), new Timestamp(t.getDate().getTime()), t.getId()});
+        }
+        return jdbcTemplate.batchUpdate(COMPLETE_PENDING_SQL, args,
+                new int[]{Types.INTEGER, Types.INTEGER, Types.TIMESTAMP, Types.VARCHAR});
+    }
+
+    /**
+     * 撤销本事务内刚完成的交易，恢复为完成前的预定状态（关联车辆条件更新失败时使用；
+     * 行已被本事务的更新锁定，不会与其他请求交错）
+     *
+     * @param befores 完成前的交易快照（取 id、finalPrice、price、date）
+     */
+    public void revertCompleted(List<Transaction> befores) {
+        List<Object[]> args = new ArrayList<>(befores.size());
+        for (Transaction t : befores) {
+            args.add(new Object[]{t.getFinalPrice(), t.getPrice(),
+                    t.getDate() != null ? new Timestamp(t.getDate().getTime()) : null, t.getId()});
+        }
+        jdbcTemplate.batchUpdate(REVERT_COMPLETED_SQL, args,
+                new int[]{Types.INTEGER, Types.INTEGER, Types.TIMESTAMP, Types.VARCHAR});
+    }
+
+    /**
+     * 批量条件更新车辆状态（与 {@link CarRepository#compareAndSetStatus} /
+     * {@link CarRepository#compareAndSetStatusClearingReservation} 语义一致）
+     *
+     * @param cars       变更前的车辆（当前状态作为期望状态）
+     * @param transition 状态流转
+     * @return 每辆车的更新行数，0 表示状态已被修改
+     */
+    public int[] transitionCars(List<Car> cars, CarStatusTransition transition) {
+        String target = transition.getTarget().name();
+        List<Object[]> args = new ArrayList<>(cars.size());
+        if (transition.isClearReservation()) {
+            for (Car car : cars) {
+                args.add(new Object[]{target, transition.getClearedDeposit(), car.getId(), car.getStatus(),
+                        car.getCustomerId(), car.getDeposit()});
+            }
+            return jdbcTemplate.batchUpdate(SET_CAR_STATUS_CLEARING_RESERVATION_SQL, args,
+                    new int[]{Types.VARCHAR, Types.INTEGER, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.INTEGER});
+        }
+        for (Car car : cars) {
+            args.add(new Object[]{target, car.getId(), car.getStatus()});
+        }
+        return jdbcTemplate.batchUpdate(SET_CAR_STATUS_SQL, args,
+                new int[]{Types.VARCHAR, Types.VARCHAR, Types.VARCHAR});
+    }
+}
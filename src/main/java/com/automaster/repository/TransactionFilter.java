@@ -0,0 +1,144 @@
+package com.automaster.repository;
+
+import com.automaster.entity.ArchivedTransaction;
+import com.automaster.entity.Transaction;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+
+/**
+ * 交易订单筛选条件（多条件查询与导出共用）
+ * 创建时一次性完成参数解析与归一化（关键字转小写、日期解析为边界时间），
+ * 通过 {@link #toSpecification()} / {@link #toArchiveSpecification()} 下推到数据库执行；
+ * 不可变，可在线程间共享
+ *
+ * @author AutoMaster Team
+ * @since 1.0.0
+ */
+public final class TransactionFilter {
+
+    private static final String DATE_PATTERN = "yyyy-MM-dd";
+
+    private final String status;
+    private final String orderId;
+    private final String carName;
+    private final String customerInfo;
+    private final Integer price;
+    private final Date startDate;
+    private final Date endDate;
+
+    private TransactionFilter(String status, String orderId, String carName, String customerInfo,
+                              Integer price, Date startDate, Date endDate) {
+        this.status = status;
+        this.orderId = orderId;
+        this.carName = carName;
+        this.customerInfo = customerInfo;
+        this.price = price;
+        this.startDate = startDate;
+        this.endDate = endDate;
+    }
+
+    /**
+     * 解析筛选参数（为空的条件忽略）
+     *
+     * @param status       订单状态（精确匹配）
+     * @param orderId      订单号（模糊匹配，忽略大小写）
+     * @param carName      车辆名称（"年份 品牌 型号"模糊匹配，忽略大小写）
+     * @param customerInfo 客户信息（"姓名 电话"模糊匹配，忽略大小写）
+     * @param price        价格（预定订单匹配定金或价格，其他订单匹配成交价或价格）
+     * @param startDate    开始日期（yyyy-MM-dd，格式错误时忽略）
+     * @param endDate      结束日期（yyyy-MM-dd，包含当天，格式错误时忽略）
+     */
+    public static TransactionFilter of(String status, String orderId, String carName, String customerInfo,
+                                       Integer price, String startDate, String endDate) {
+        return new TransactionFilter(emptyToNull(status), lowerOrNull(orderId), lowerOrNull(carName),
+                lowerOrNull(customerInfo), price, parseDate(startDate), parseEndDate(endDate));
+    }
+
+    /**
+     * 数据库查询条件
+     */
+    public Specification<Transaction> toSpecification() {
+        return TransactionSpecifications.matching(this);
+    }
+
+    /**
+     * 归档表查询条件
+     */
+    public Specification<ArchivedTransaction> toArchiveSpecification() {
+        return TransactionSpecifications.matching(this);
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    /** 订单号关键字（已转小写） */
+    public String getOrderId() {
+        return orderId;
+    }
+
+    /** 车辆名称关键字（已转小写） */
+    public String getCarName() {
+        return carName;
+    }
+
+    /** 客户信息关键字（已转小写） */
+    public String getCustomerInfo() {
+        return customerInfo;
+    }
+
+    public Integer getPrice() {
+        return price;
+    }
+
+    public Date getStartDate() {
+        return startDate;
+    }
+
+    /** 结束时间（已调整到当天 23:59:59） */
+    public Date getEndDate() {
+        return endDate;
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    private static String lowerOrNull(String value) {
+        return value == null || value.isEmpty() ? null : value.toLowerCase();
+    }
+
+    /**
+     * 解析开始日期（yyyy-MM-dd，为空或格式错误时返回 null）
+     */
+    static Date parseDate(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return new SimpleDateFormat(DATE_PATTERN).parse(value);
+        } catch (ParseException e) {
+            return null; // 日期解析失败，忽略该条件
+        }
+    }
+
+    /**
+     * 解析结束日期（yyyy-MM-dd，包含当天，截止到 23:59:59；为空或格式错误时返回 null）
+     */
+    static Date parseEndDate(String value) {
+        Date end = parseDate(value);
+        if (end == null) {
+            return null;
+        }
+        Calendar cal = Calendar.getInstance();
+        cal.setTime(end);
+        cal.set(Calendar.HOUR_OF_DAY, 23);
+        cal.set(Calendar.MINUTE, 59);
+        cal.set(Calendar.SECOND, 59);
+        return cal.getTime();
+    }
+}
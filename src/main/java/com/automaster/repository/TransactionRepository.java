@@ -1,15 +1,209 @@
 package com.automaster.repository;
 
+import com.automaster.dto.CarSalePoint;
+import com.automaster.dto.ProfitSummary;
+import com.automaster.dto.SalePoint;
+import com.automaster.dto.SalespersonRanking;
+import com.automaster.dto.SaleProfitPoint;
+import com.automaster.dto.SalesSummary;
 import com.automaster.entity.Transaction;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.domain.Limit;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * 交易订单数据访问层
  * 基础CRUD由JpaRepository自动实现
  */
-public interface TransactionRepository extends JpaRepository<Transaction, String> {
+public interface TransactionRepository extends JpaRepository<Transaction, String>, JpaSpecificationExecutor<Transaction> {
     // 如需扩展查询（如按车辆/客户/日期），可添加方法：
     // List<Transaction> findByCarId(String carId);
     // List<Transaction> findByCustomerId(String customerId);
     // List<Transaction> findByDateBetween(Date start, Date end);
-}
\ No newline at end of file
+
+    /**
+     * 统计销售订单数与销售额（数据库聚合，只返回一行；包含已归档的交易，累计指标不因归档变化）
+     *
+     * @return 销售汇总
+     */
+    @Query(value = "SELECT COUNT(*) AS salesCount, COALESCE(SUM(s.price), 0) AS totalRevenue FROM (" +
+            "SELECT price FROM transactions WHERE type = 'Sale' " +
+            "UNION ALL SELECT price FROM transactions_archive WHERE type = 'Sale') s", nativeQuery = true)
+    SalesSummary summarizeSales();
+
+    /**
+     * 统计销售总利润（交易 LEFT JOIN 车辆，SUM(成交价 - 成本价)）
+     * 同一次查询中返回数据不完整的交易数，供调用方记录告警；包含已归档的交易
+     *
+     * @return 利润汇总
+     */
+    @Query(value = "SELECT " +
+            "COALESCE(SUM(CASE WHEN c.id IS NOT NULL AND c.cost_price IS NOT NULL AND t.price IS NOT NULL " +
+            "    THEN t.price - c.cost_price ELSE 0 END), 0) AS totalProfit, " +
+            "COALESCE(SUM(CASE WHEN c.id IS NULL OR c.cost_price IS NULL OR t.price IS NULL " +
+            "    THEN 1 ELSE 0 END), 0) AS incompleteCount " +
+            "FROM (SELECT id, price, car_id FROM transactions WHERE type = 'Sale' " +
+            "    UNION ALL SELECT id, price, car_id FROM transactions_archive WHERE type = 'Sale') t " +
+            "LEFT JOIN cars c ON c.id = t.car_id", nativeQuery = true)
+    ProfitSummary summarizeProfit();
+
+    /**
+     * 车辆信息不完整（车辆不存在/成本价或成交价为空）的销售交易ID，最多返回 limit 条（告警示例使用）
+     * 只在 {@link #summarizeProfit()} 返回的不完整交易数大于0时查询；包含已归档的交易
+     *
+     * @param limit 最多返回条数
+     * @return 交易ID
+     */
+    @Query(value = "SELECT t.id FROM (" +
+            "SELECT id, price, car_id FROM transactions WHERE type = 'Sale' " +
+            "    UNION ALL SELECT id, price, car_id FROM transactions_archive WHERE type = 'Sale') t " +
+            "LEFT JOIN cars c ON c.id = t.car_id " +
+            "WHERE c.id IS NULL OR c.cost_price IS NULL OR t.price IS NULL LIMIT :limit", nativeQuery = true)
+    List<String> findIncompleteProfitIds(@Param("limit") int limit);
+
+    /**
+     * 查询时间区间 [start, end) 内的销售日期与金额（两张表各走 idx_date 索引的范围扫描；包含已归档的交易）
+     *
+     * @param start 开始时间（包含）
+     * @param end   结束时间（不包含）
+     * @return 销售点列表
+     */
+    @Query(value = "SELECT date, price FROM transactions " +
+            "    WHERE type = 'Sale' AND date >= :start AND date < :end " +
+            "UNION ALL SELECT date, price FROM transactions_archive " +
+            "    WHERE type = 'Sale' AND date >= :start AND date < :end", nativeQuery = true)
+    List<SalePoint> findSalePointsBetween(@Param("start") Date start, @Param("end") Date end);
+
+    /**
+     * 最早一笔销售的交易日期（无销售时为空；包含已归档的交易）
+     */
+    @Query(value = "SELECT MIN(s.date) FROM (" +
+            "SELECT MIN(date) AS date FROM transactions WHERE type = 'Sale' " +
+            "UNION ALL SELECT MIN(date) FROM transactions_archive WHERE type = 'Sale') s", nativeQuery = true)
+    Date findEarliestSaleDate();
+
+    /**
+     * 查询全部已完成销售的日期、成交价及车辆成本价（不加载实体，区间营收索引启动构建使用）
+     * 已完成：Sale 类型且状态不是 PENDING（直接销售的状态可能为空）；包含已归档的交易
+     */
+    @Query(value = "SELECT t.date AS date, t.price AS price, c.cost_price AS costPrice FROM (" +
+            "SELECT date, price, car_id FROM transactions " +
+            "    WHERE type = 'Sale' AND (status IS NULL OR status <> 'PENDING') " +
+            "UNION ALL SELECT date, price, car_id FROM transactions_archive " +
+            "    WHERE type = 'Sale' AND (status IS NULL OR status <> 'PENDING')) t " +
+            "LEFT JOIN cars c ON c.id = t.car_id", nativeQuery = true)
+    List<SaleProfitPoint> findCompletedSaleProfitPoints();
+
+    /**
+     * 查询指定车辆的全部销售日期、金额与状态（走 idx_car_id 索引；包含已归档的交易）
+     * 车辆成本价变更或删除时，仪表盘计数器、区间营收索引与每日销售汇总（经发件箱）据此修正利润
+     *
+     * @param carId 车辆ID
+     * @return 销售点列表
+     */
+    @Query(value = "SELECT date, price, status FROM transactions WHERE car_id = :carId AND type = 'Sale' " +
+            "UNION ALL SELECT date, price, status FROM transactions_archive WHERE car_id = :carId AND type = 'Sale'",
+            nativeQuery = true)
+    List<CarSalePoint> findSalePointsByCar(@Param("carId") String carId);
+
+    /**
+     * 按经手人聚合区间 [start, end) 内已完成销售的单数、销售额与利润（一次查询关联用户与车辆；包含已归档的交易）
+     * 按 metric 指定的指标（revenue/profit/dealCount）降序，其余指标依次作为并列时的次序，最后按用户ID保证结果稳定
+     *
+     * @param start  开始时间（包含）
+     * @param end    结束时间（不包含）
+     * @param metric 主排序指标别名
+     * @param limit  最多返回条数
+     */
+    @Query(value = "SELECT r.userId AS userId, r.userName AS userName, r.dealCount AS dealCount, " +
+            "r.revenue AS revenue, r.profit AS profit FROM (" +
+            "SELECT t.handled_by_user_id AS userId, u.name AS userName, COUNT(*) AS dealCount, " +
+            "    COALESCE(SUM(t.price), 0) AS revenue, " +
+            "    COALESCE(SUM(CASE WHEN c.cost_price IS NOT NULL THEN t.price - c.cost_price ELSE 0 END), 0) AS profit " +
+            "FROM (SELECT price, car_id, handled_by_user_id FROM transactions " +
+            "        WHERE type = 'Sale' AND (status IS NULL OR status <> 'PENDING') " +
+            "        AND handled_by_user_id IS NOT NULL AND date >= :start AND date < :end " +
+            "    UNION ALL SELECT price, car_id, handled_by_user_id FROM transactions_archive " +
+            "        WHERE type = 'Sale' AND (status IS NULL OR status <> 'PENDING') " +
+            "        AND handled_by_user_id IS NOT NULL AND date >= :start AND date < :end) t " +
+            "LEFT JOIN users u ON u.id = t.handled_by_user_id LEFT JOIN cars c ON c.id = t.car_id " +
+            "GROUP BY t.handled_by_user_id, u.name) r " +
+            "ORDER BY CASE :metric WHEN 'profit' THEN r.profit WHEN 'dealCount' THEN r.dealCount ELSE r.revenue END DESC, " +
+            "r.revenue DESC, r.profit DESC, r.dealCount DESC, r.userId LIMIT :limit", nativeQuery = true)
+    List<SalespersonRanking> findSalespersonRanking(@Param("start") Date start, @Param("end") Date end,
+                                                     @Param("metric") String metric, @Param("limit") int limit);
+
+    /**
+     * 游标分页首页：按 (date, id) 倒序取前 limit 条（走 idx_date，InnoDB 二级索引隐含主键 id）
+     */
+    @Query("SELECT t FROM Transaction t ORDER BY t.date DESC, t.id DESC")
+    List<Transaction> findFirstPage(Limit limit);
+
+    /**
+     * 游标分页后续页：取排在游标 (date, id) 之后的 limit 条，耗时与翻页深度无关
+     */
+    @Query("SELECT t FROM Transaction t " +
+            "WHERE t.date < :date OR (t.date = :date AND t.id < :id) " +
+            "ORDER BY t.date DESC, t.id DESC")
+    List<Transaction> findPageAfter(@Param("date") Date date, @Param("id") String id, Limit limit);
+
+    /**
+     * 流式读取全部交易订单（按批次从数据库游标取数，只读不做脏检查）
+     * 必须在事务内消费，用完关闭
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT t FROM Transaction t")
+    Stream<Transaction> streamAll();
+
+    /**
+     * 条件完成预定交易：仅当交易仍为预定状态时更新为已完成（走主键），并发完成同一交易时只有一个成功
+     *
+     * @param id         交易ID
+     * @param finalPrice 最终成交价（同步写入 price）
+     * @param date       实际成交时间
+     * @return 更新行数，0 表示交易不存在或已不是预定状态
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Transaction t SET t.status = 'COMPLETED', t.finalPrice = :finalPrice, t.price = :finalPrice, " +
+            "t.date = :date WHERE t.id = :id AND t.status = 'PENDING'")
+    int completeIfPending(@Param("id") String id, @Param("finalPrice") Integer finalPrice, @Param("date") Date date);
+
+    /**
+     * 归档候选首批：早于 cutoff 的已完成交易，按 (date, id) 正序（走 idx_date）
+     * 已完成：状态不是 PENDING（直接销售的状态可能为空）
+     */
+    @Query("SELECT t FROM Transaction t WHERE (t.status IS NULL OR t.status <> 'PENDING') AND t.date < :cutoff " +
+            "ORDER BY t.date, t.id")
+    List<Transaction> findArchivable(@Param("cutoff") Date cutoff, Limit limit);
+
+    /**
+     * 归档候选后续批次：排在断点 (date, id) 之后
+     */
+    @Query("SELECT t FROM Transaction t WHERE (t.status IS NULL OR t.status <> 'PENDING') AND t.date < :cutoff " +
+            "AND (t.date > :date OR (t.date = :date AND t.id > :id)) ORDER BY t.date, t.id")
+    List<Transaction> findArchivableAfter(@Param("cutoff") Date cutoff, @Param("date") Date date,
+                                          @Param("id") String id, Limit limit);
+
+    /**
+     * 按ID批量删除（归档迁移后使用）
+     *
+     * @return 删除行数
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Transaction t WHERE t.id IN :ids")
+    int deleteAllByIdIn(@Param("ids") Collection<String> ids);
+}
@@ -0,0 +1,112 @@
+package com.automaster.repository;
+
+import com.automaster.entity.Car;
+import com.automaster.entity.Customer;
+import com.automaster.entity.Transaction;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 交易订单动态查询条件
+ * 状态、日期直接作用于 transactions 表（走 idx_status / idx_date），
+ * 车辆名称、客户信息通过 cars / customers 子查询匹配；
+ * 只按字段名引用，同样适用于字段一致的归档表 transactions_archive
+ *
+ * @author AutoMaster Team
+ * @since 1.0.0
+ */
+public final class TransactionSpecifications {
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    private TransactionSpecifications() {
+    }
+
+    /**
+     * 按已解析的筛选条件生成查询条件
+     *
+     * @param <T> 交易订单或归档交易订单
+     */
+    public static <T> Specification<T> matching(TransactionFilter filter) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+
+            if (filter.getStatus() != null) {
+                predicates.add(cb.equal(root.get("status"), filter.getStatus()));
+            }
+
+            if (filter.getOrderId() != null) {
+                predicates.add(cb.like(cb.lower(root.get("id")), containsPattern(filter.getOrderId()), LIKE_ESCAPE));
+            }
+
+            if (filter.getCarName() != null) {
+                Subquery<String> cars = query.subquery(String.class);
+                Root<Car> car = cars.from(Car.class);
+                Expression<String> fullCarName = concat(cb,
+                        car.get("year").as(String.class), car.get("make"), car.get("model"));
+                cars.select(car.get("id"))
+                        .where(cb.like(cb.lower(fullCarName), containsPattern(filter.getCarName()), LIKE_ESCAPE));
+                predicates.add(root.get("carId").in(cars));
+            }
+
+            if (filter.getCustomerInfo() != null) {
+                Subquery<String> customers = query.subquery(String.class);
+                Root<Customer> customer = customers.from(Customer.class);
+                Expression<String> fullCustomerInfo = concat(cb, customer.get("name"), customer.get("phone"));
+                customers.select(customer.get("id"))
+                        .where(cb.like(cb.lower(fullCustomerInfo), containsPattern(filter.getCustomerInfo()), LIKE_ESCAPE));
+                predicates.add(root.get("customerId").in(customers));
+            }
+
+            if (filter.getPrice() != null) {
+                Integer price = filter.getPrice();
+                Predicate pending = cb.equal(root.get("status"), "PENDING");
+                Predicate notPending = cb.or(cb.isNull(root.get("status")), cb.notEqual(root.get("status"), "PENDING"));
+                predicates.add(cb.or(
+                        cb.equal(root.get("price"), price),
+                        cb.and(pending, cb.equal(root.get("deposit"), price)),
+                        cb.and(notPending, cb.equal(root.get("finalPrice"), price))));
+            }
+
+            if (filter.getStartDate() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("date"), filter.getStartDate()));
+            }
+
+            if (filter.getEndDate() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("date"), filter.getEndDate()));
+            }
+
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    /**
+     * 以空格拼接多个字段
+     */
+    @SafeVarargs
+    private static Expression<String> concat(CriteriaBuilder cb, Expression<String>... parts) {
+        Expression<String> result = parts[0];
+        for (int i = 1; i < parts.length; i++) {
+            result = cb.concat(cb.concat(result, " "), parts[i]);
+        }
+        return result;
+    }
+
+    /**
+     * 生成包含匹配的 LIKE 模式（关键字已转小写；转义 % _ \，按字面匹配）
+     */
+    private static String containsPattern(String keyword) {
+        String escaped = keyword
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return "%" + escaped + "%";
+    }
+}
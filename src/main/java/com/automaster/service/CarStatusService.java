@@ -0,0 +1,27 @@
+package com.automaster.service;
+
+import com.automaster.entity.Car;
+import com.automaster.entity.CarStatusTransition;
+
+/**
+ * 车辆状态流转服务（状态机）
+ * 状态变更统一通过条件更新（UPDATE ... WHERE id = ? AND status = 读取时的状态）完成，
+ * 并发请求中只有一个能成功，无需行锁
+ *
+ * @author AutoMaster Team
+ * @since 1.0.0
+ */
+public interface CarStatusService {
+
+    /**
+     * 执行状态流转，成功后发布车辆变更事件
+     * 条件更新会先刷新并清空当前持久化上下文，调用方之前加载的实体随之脱管
+     *
+     * @param car        已读取的车辆（以其当前状态作为条件更新的期望值）
+     * @param transition 状态流转
+     * @return 流转后的车辆
+     * @throws IllegalStateException       当前状态不允许该流转
+     * @throws com.automaster.exception.CarStatusConflictException 车辆状态已被并发修改
+     */
+    Car transition(Car car, CarStatusTransition transition);
+}
@@ -4,6 +4,7 @@ import com.automaster.entity.Customer;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * 客户业务逻辑接口
@@ -20,6 +21,13 @@ public interface CustomerService {
      */
     List<Customer> getAllCustomers();
 
+    /**
+     * 流式读取所有客户（按录入时间倒序），须在事务内消费并关闭
+     * 
+     * @return 客户流
+     */
+    Stream<Customer> streamAllCustomers();
+
     /**
      * 根据ID查询客户
      * 
@@ -1,6 +1,14 @@
 package com.automaster.service;
 
 import com.automaster.dto.DashboardStats;
+import com.automaster.dto.LeaderboardMetric;
+import com.automaster.dto.SalespersonRanking;
+import com.automaster.dto.TrendGranularity;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
 
 /**
  * 仪表盘统计业务逻辑接口
@@ -24,5 +32,31 @@ public interface DashboardService {
      * 
      * @return 每月销售额列表，格式：[{"name": "1月", "value": 120000}, ...]
      */
-    java.util.List<java.util.Map<String, Object>> getSalesTrend();
+    List<Map<String, Object>> getSalesTrend();
+
+    /**
+     * 按指定粒度获取销售趋势数据
+     * 一次范围查询取出区间内的销售记录，在指定时区下按周期分桶统计
+     *
+     * @param granularity 统计粒度（日/周/月/季度）
+     * @param periods     统计周期数（含当前周期，1~366）
+     * @param zoneId      计算周期边界使用的时区
+     * @return 每个周期的销售额列表，格式：[{"name": "3月", "value": 120000}, ...]
+     * @throws IllegalArgumentException 周期数不合法时抛出
+     */
+    List<Map<String, Object>> getSalesTrend(TrendGranularity granularity, int periods, ZoneId zoneId);
+
+    /**
+     * 获取销售人员业绩排行榜
+     * 按经手人分组聚合日期区间内的已完成销售，一次查询关联用户姓名，取前 limit 名
+     *
+     * @param from   开始日期（包含）
+     * @param to     结束日期（包含）
+     * @param metric 排序指标（销售额/利润/成交单数）
+     * @param limit  返回条数（1~100）
+     * @param zoneId 计算日期边界使用的时区
+     * @return 排行列表
+     * @throws IllegalArgumentException 日期区间或条数不合法时抛出
+     */
+    List<SalespersonRanking> getLeaderboard(LocalDate from, LocalDate to, LeaderboardMetric metric, int limit, ZoneId zoneId);
 }
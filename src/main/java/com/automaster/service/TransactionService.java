@@ -1,9 +1,16 @@
 package com.automaster.service;
 
+import com.automaster.dto.BulkCompleteItem;
+import com.automaster.dto.BulkCompleteResult;
+import com.automaster.dto.CursorPage;
 import com.automaster.entity.Transaction;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * 交易订单业务逻辑层接口
@@ -14,6 +21,21 @@ public interface TransactionService {
      */
     List<Transaction> getAllTransactions();
 
+    /**
+     * 流式读取所有交易订单（不含车辆/客户信息，由调用方按批次填充），须在事务内消费并关闭
+     */
+    Stream<Transaction> streamAllTransactions();
+
+    /**
+     * 游标分页查询交易订单（按交易日期、ID倒序，关联车辆/客户信息）
+     *
+     * @param cursor 上一页返回的游标，首页传空
+     * @param size   每页条数（1~200）
+     * @return 当前页数据及下一页游标
+     * @throws IllegalArgumentException 游标或条数不合法时抛出
+     */
+    CursorPage<Transaction> getTransactionPage(String cursor, int size);
+
     /**
      * 新增交易订单（自动更新车辆状态为SOLD）
      */
@@ -29,6 +51,14 @@ public interface TransactionService {
      */
     Optional<Transaction> getTransactionById(String id);
 
+    /**
+     * 按ID查询交易订单，可选在未命中时查询归档表
+     *
+     * @param id              交易ID
+     * @param includeArchived 是否查询已归档的交易（归档数据的 archived 为 true）
+     */
+    Optional<Transaction> getTransactionById(String id, boolean includeArchived);
+
     /**
      * 完成预定交易（预定转销售）
      * 
@@ -38,6 +68,16 @@ public interface TransactionService {
      */
     Transaction completeTransaction(String id, Integer finalPrice);
 
+    /**
+     * 批量完成预定交易（月末结账等场景）
+     * 在一个事务内批量校验并更新交易与车辆，不合法的项跳过并在结果中注明原因，其余项照常完成
+     *
+     * @param items 订单ID与最终成交价（不超过500项）
+     * @return 逐项结果
+     * @throws IllegalArgumentException 请求为空或超过500项时抛出
+     */
+    BulkCompleteResult completeTransactions(List<BulkCompleteItem> items);
+
     /**
      * 多条件查询交易订单
      * 
@@ -48,9 +88,37 @@ public interface TransactionService {
      * @param price 价格
      * @param startDate 开始日期
      * @param endDate 结束日期
-     * @return 筛选后的交易订单列表
+     * @return 筛选后的交易订单列表（按数据库返回顺序，不额外排序；需要指定顺序时使用分页查询）
      */
     List<Transaction> searchTransactions(String status, String orderId, String carName, 
                                         String customerInfo, Integer price, 
                                         String startDate, String endDate);
-}
\ No newline at end of file
+
+    /**
+     * 多条件分页查询交易订单（筛选条件在数据库执行）
+     *
+     * @param status 订单状态
+     * @param orderId 订单号
+     * @param carName 车辆名称
+     * @param customerInfo 客户信息
+     * @param price 价格
+     * @param startDate 开始日期
+     * @param endDate 结束日期
+     * @param pageable 分页及排序参数
+     * @return 当前页交易订单
+     */
+    Page<Transaction> searchTransactions(String status, String orderId, String carName,
+                                         String customerInfo, Integer price,
+                                         String startDate, String endDate, Pageable pageable);
+
+    /**
+     * 多条件分页查询已归档的交易订单（筛选条件与 {@link #searchTransactions(String, String, String, String, Integer, String, String, Pageable)} 一致）
+     * 归档数据只在显式调用本方法时读取，返回的交易 archived 为 true，并关联车辆/客户信息
+     *
+     * @param pageable 分页及排序参数
+     * @return 当前页归档交易订单
+     */
+    Page<Transaction> searchArchivedTransactions(String status, String orderId, String carName,
+                                                 String customerInfo, Integer price,
+                                                 String startDate, String endDate, Pageable pageable);
+}
@@ -0,0 +1,117 @@
+package com.automaster.service.impl;
+
+import com.automaster.dto.CacheStats;
+import com.automaster.dto.DashboardStats;
+import com.automaster.dto.LeaderboardMetric;
+import com.automaster.dto.SalespersonRanking;
+import com.automaster.dto.TrendGranularity;
+import com.automaster.event.CarChangedEvent;
+import com.automaster.event.CustomerChangedEvent;
+import com.automaster.event.TransactionBatchChangedEvent;
+import com.automaster.event.TransactionChangedEvent;
+import com.automaster.service.DashboardService;
+import com.automaster.service.support.CoalescingCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 仪表盘统计缓存层（默认注入的 DashboardService）
+ * 并发的相同请求共享同一次计算，结果缓存 TTL 时长，车辆/交易写入提交后立即失效，客户写入提交后失效统计数据
+ *
+ * @author AutoMaster Team
+ * @since 1.0.0
+ */
+@Service
+@Primary
+public class CachingDashboardService implements DashboardService {
+
+    private static final String STATS_KEY = "stats";
+
+    private final DashboardService delegate;
+    private final CoalescingCache<String, Object> cache;
+
+    @Autowired
+    public CachingDashboardService(@Qualifier("dashboardServiceImpl") DashboardService delegate,
+                                   @Value("${dashboard.cache.ttl-ms:5000}") long ttlMillis,
+                                   @Value("${dashboard.cache.max-entries:1000}") int maxEntries) {
+        this.delegate = delegate;
+        this.cache = new CoalescingCache<>("dashboard", ttlMillis, maxEntries);
+    }
+
+    @Override
+    public DashboardStats getDashboardStats() {
+        // 降级结果只共享给本次并发的请求，不缓存
+        return (DashboardStats) cache.get(STATS_KEY, delegate::getDashboardStats,
+                value -> !Boolean.TRUE.equals(((DashboardStats) value).getDegraded()));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Map<String, Object>> getSalesTrend() {
+        return (List<Map<String, Object>>) cache.get("trend:default", () -> List.copyOf(delegate.getSalesTrend()));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Map<String, Object>> getSalesTrend(TrendGranularity granularity, int periods, ZoneId zoneId) {
+        String key = "trend:" + granularity + ":" + periods + ":" + zoneId;
+        return (List<Map<String, Object>>) cache.get(key,
+                () -> List.copyOf(delegate.getSalesTrend(granularity, periods, zoneId)));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<SalespersonRanking> getLeaderboard(LocalDate from, LocalDate to, LeaderboardMetric metric, int limit, ZoneId zoneId) {
+        String key = "leaderboard:" + from + ":" + to + ":" + metric + ":" + limit + ":" + zoneId;
+        return (List<SalespersonRanking>) cache.get(key,
+                () -> List.copyOf(delegate.getLeaderboard(from, to, metric, limit, zoneId)));
+    }
+
+    /**
+     * 车辆变更后失效缓存（提交后执行，未开启事务时立即执行）
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCarChanged(CarChangedEvent event) {
+        cache.invalidateAll();
+    }
+
+    /**
+     * 交易变更后失效缓存（提交后执行，未开启事务时立即执行）
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTransactionChanged(TransactionChangedEvent event) {
+        cache.invalidateAll();
+    }
+
+    /**
+     * 交易批量变更后失效缓存（提交后执行，整批只失效一次）
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTransactionsChanged(TransactionBatchChangedEvent event) {
+        cache.invalidateAll();
+    }
+
+    /**
+     * 客户新增/删除后失效统计缓存（统计中包含客户总数；提交后执行，未开启事务时立即执行）
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCustomerChanged(CustomerChangedEvent event) {
+        cache.invalidate(STATS_KEY);
+    }
+
+    /**
+     * 缓存命中/未命中/合并计数
+     */
+    public CacheStats getCacheStats() {
+        return new CacheStats(cache.getName(), cache.getHits(), cache.getMisses(), cache.getCoalesced(), cache.size());
+    }
+}
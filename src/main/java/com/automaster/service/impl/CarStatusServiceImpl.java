@@ -0,0 +1,65 @@
+package com.automaster.service.impl;
+
+import com.automaster.entity.Car;
+import com.automaster.entity.CarStatus;
+import com.automaster.entity.CarStatusTransition;
+import com.automaster.event.CarChangedEvent;
+import com.automaster.exception.CarStatusConflictException;
+import com.automaster.repository.CarRepository;
+import com.automaster.service.CarStatusService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * 车辆状态流转服务实现
+ *
+ * @author AutoMaster Team
+ * @since 1.0.0
+ */
+@Slf4j
+@Service
+public class CarStatusServiceImpl implements CarStatusService {
+
+    private final CarRepository carRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    public CarStatusServiceImpl(CarRepository carRepository, ApplicationEventPublisher eventPublisher) {
+        this.carRepository = carRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    @Transactional
+    public Car transition(Car car, CarStatusTransition transition) {
+        String expected = car.getStatus();
+        if (!transition.isAllowedFrom(expected)) {
+            CarStatus current = CarStatus.of(expected);
+            throw new IllegalStateException("车辆当前状态为" + (current != null ? current.getDesc() : expected)
+                    + "，不能" + transition.getDesc());
+        }
+
+        Car before = CarChangedEvent.snapshot(car);
+        String target = transition.getTarget().name();
+        int updated = transition.isClearReservation()
+                ? carRepository.compareAndSetStatusClearingReservation(car.getId(), expected,
+                        car.getCustomerId(), car.getDeposit(), target, transition.getClearedDeposit())
+                : carRepository.compareAndSetStatus(car.getId(), expected, target);
+        if (updated == 0) {
+            log.warn("车辆[{}]{}失败：状态已不是{}", car.getId(), transition.getDesc(), expected);
+            throw new CarStatusConflictException(car.getId());
+        }
+
+        // 实体已脱管，按条件更新写入的值同步内存中的车辆
+        car.setStatus(target);
+        if (transition.isClearReservation()) {
+            car.setCustomerId(null);
+            car.setDeposit(transition.getClearedDeposit());
+        }
+        eventPublisher.publishEvent(CarChangedEvent.updated(before, car));
+        return car;
+    }
+}
@@ -1,15 +1,18 @@
 package com.automaster.service.impl;
 
 import com.automaster.entity.Customer;
+import com.automaster.event.CustomerChangedEvent;
 import com.automaster.repository.CustomerRepository;
 import com.automaster.service.CustomerService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * 客户业务逻辑实现类
@@ -22,10 +25,12 @@ import java.util.Optional;
 public class CustomerServiceImpl implements CustomerService {
 
     private final CustomerRepository customerRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public CustomerServiceImpl(CustomerRepository customerRepository) {
+    public CustomerServiceImpl(CustomerRepository customerRepository, ApplicationEventPublisher eventPublisher) {
         this.customerRepository = customerRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
@@ -33,6 +38,11 @@ public class CustomerServiceImpl implements CustomerService {
         return customerRepository.findAllOrderByDateAddedDesc();
     }
 
+    @Override
+    public Stream<Customer> streamAllCustomers() {
+        return customerRepository.streamAllOrderByDateAddedDesc();
+    }
+
     @Override
     public Optional<Customer> getCustomerById(String id) {
         return customerRepository.findById(id);
@@ -62,7 +72,9 @@ public class CustomerServiceImpl implements CustomerService {
             customer.setStatus("ACTIVE");
         }
         
-        return customerRepository.save(customer);
+        Customer saved = customerRepository.save(customer);
+        eventPublisher.publishEvent(CustomerChangedEvent.created(saved));
+        return saved;
     }
 
     @Override
@@ -94,10 +106,12 @@ public class CustomerServiceImpl implements CustomerService {
 
     @Override
     public boolean deleteCustomer(String id) {
-        if (!customerRepository.existsById(id)) {
+        Optional<Customer> existing = customerRepository.findById(id);
+        if (existing.isEmpty()) {
             return false;
         }
-        customerRepository.deleteById(id);
+        customerRepository.delete(existing.get());
+        eventPublisher.publishEvent(CustomerChangedEvent.deleted(existing.get()));
         return true;
     }
 
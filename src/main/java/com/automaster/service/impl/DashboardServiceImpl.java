@@ -1,186 +1,387 @@
 package com.automaster.service.impl;
 
+import com.automaster.dto.CarStatusSummary;
 import com.automaster.dto.DashboardStats;
-import com.automaster.entity.Car;
-import com.automaster.entity.Transaction;
+import com.automaster.dto.LeaderboardMetric;
+import com.automaster.dto.ProfitSummary;
+import com.automaster.dto.SalePoint;
+import com.automaster.dto.SalesSummary;
+import com.automaster.dto.SalespersonRanking;
+import com.automaster.dto.TrendGranularity;
 import com.automaster.repository.CarRepository;
 import com.automaster.repository.CustomerRepository;
 import com.automaster.repository.TransactionRepository;
 import com.automaster.service.DashboardService;
+import com.automaster.service.support.DailySalesRollupService;
+import com.automaster.service.support.ParallelQueryExecutor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.IsoFields;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Service
 @Transactional(readOnly = true)
 public class DashboardServiceImpl implements DashboardService {
 
+    /** 默认趋势周期数（近6个周期） */
+    private static final int DEFAULT_TREND_PERIODS = 6;
+
+    /** 单次趋势查询允许的最大周期数 */
+    private static final int MAX_TREND_PERIODS = 366;
+
+    /** 排行榜允许返回的最大条数 */
+    private static final int MAX_LEADERBOARD_SIZE = 100;
+
+    /** 利润告警日志中列出的不完整交易ID条数 */
+    private static final int INCOMPLETE_ID_SAMPLE_SIZE = 20;
+
     private final CarRepository carRepository;
     private final TransactionRepository transactionRepository;
     private final CustomerRepository customerRepository;
+    private final DailySalesRollupService rollupService;
+    private final ParallelQueryExecutor queryExecutor;
+    private final TransactionTemplate readOnlyTransaction;
 
     @Autowired
     public DashboardServiceImpl(
             CarRepository carRepository,
             TransactionRepository transactionRepository,
-            CustomerRepository customerRepository) {
+            CustomerRepository customerRepository,
+            DailySalesRollupService rollupService,
+            ParallelQueryExecutor queryExecutor,
+            PlatformTransactionManager transactionManager) {
         this.carRepository = carRepository;
         this.transactionRepository = transactionRepository;
         this.customerRepository = customerRepository;
+        this.rollupService = rollupService;
+        this.queryExecutor = queryExecutor;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
     }
 
+    /**
+     * 不在调用线程开启事务：并行模式下调用线程只等待结果，不占用连接，
+     * 子查询在工作线程各自的事务中执行（最多占用 N 个连接，而不是 N+1 个）；串行模式显式开启只读事务
+     */
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public DashboardStats getDashboardStats() {
+        if (queryExecutor.isEnabled()) {
+            return getDashboardStatsInParallel();
+        }
+        return readOnlyTransaction.execute(status -> getDashboardStatsSerially());
+    }
+
+    private DashboardStats getDashboardStatsSerially() {
         DashboardStats stats = new DashboardStats();
 
         try {
-            // 1. 获取所有车辆数据（添加空值校验）
-            List<Car> allCars = carRepository.findAll();
-            if (allCars == null) {
-                allCars = List.of(); // 空列表，避免NPE
-            }
+            // 1. 按状态聚合车辆（数据库 GROUP BY，只返回每个状态一行，不加载车辆实体）
+            applyInventory(stats, carRepository.summarizeByStatus());
 
-            // 2. 计算库存总货值（在售 + 预定）
-            long inventoryValue = allCars.stream()
-                    .filter(car -> car != null
-                            && ("AVAILABLE".equals(car.getStatus()) || "PENDING".equals(car.getStatus())))
-                    .mapToLong(car -> car.getPrice() != null ? car.getPrice() : 0L) // 空值容错
-                    .sum();
-            stats.setTotalInventoryValue(inventoryValue);
-            stats.setTotalInventoryCount(allCars.size());
-
-            // 3. 统计各状态车辆数量（添加car != null校验）
-            stats.setAvailableCarsCount((int) allCars.stream()
-                    .filter(car -> car != null && "AVAILABLE".equals(car.getStatus()))
-                    .count());
-            stats.setPendingCarsCount((int) allCars.stream()
-                    .filter(car -> car != null && "PENDING".equals(car.getStatus()))
-                    .count());
-            stats.setMaintenanceCarsCount((int) allCars.stream()
-                    .filter(car -> car != null && "MAINTENANCE".equals(car.getStatus()))
-                    .count());
-
-            // 4. 获取所有交易记录（添加空值校验）
-            List<Transaction> allTransactions = transactionRepository.findAll();
-            if (allTransactions == null) {
-                allTransactions = List.of();
-            }
+            // 2. 销售汇总（只统计 Sale 类型的交易，数据库聚合为一行）
+            applySales(stats, transactionRepository.summarizeSales());
 
-            // 5. 计算销售相关数据（只统计 Sale 类型的交易）
-            List<Transaction> salesTransactions = allTransactions.stream()
-                    .filter(tx -> tx != null && "Sale".equals(tx.getType()))
-                    .toList();
-
-            long totalRevenue = salesTransactions.stream()
-                    .mapToLong(tx -> tx.getPrice() != null ? tx.getPrice() : 0L) // 空值容错
-                    .sum();
-            stats.setTotalRevenue(totalRevenue);
-            stats.setTotalSalesCount(salesTransactions.size());
-            stats.setSoldCarsCount(salesTransactions.size());
-
-            // 6. 计算总利润（核心修复：解决空指针）
-            long totalProfit = salesTransactions.stream()
-                    .mapToLong(tx -> {
-                        if (tx == null || tx.getCarId() == null) {
-                            return 0L;
-                        }
-                        // 避免findById返回null，用orElseThrow不如orElse(null)更容错
-                        Car car = carRepository.findById(tx.getCarId()).orElse(null);
-                        if (car == null || tx.getPrice() == null || car.getCostPrice() == null) {
-                            log.warn("交易{}的车辆信息不完整，利润计算为0", tx.getId());
-                            return 0L;
-                        }
-                        return tx.getPrice() - car.getCostPrice();
-                    })
-                    .sum();
-            stats.setTotalProfit(totalProfit);
-
-            // 7. 计算平均利润率（避免除以0）
-            if (totalRevenue > 0) {
-                double profitRate = (double) totalProfit / totalRevenue * 100;
-                stats.setAvgProfitRate(Math.round(profitRate * 10.0) / 10.0); // 保留1位小数
-            } else {
-                stats.setAvgProfitRate(0.0);
-            }
+            // 3. 计算总利润（交易关联车辆成本价，一次聚合查询，避免逐笔 findById）
+            applyProfit(stats, transactionRepository.summarizeProfit());
 
-            // 8. 统计客户总数（添加空值容错）
-            long customerCount = customerRepository.count();
-            stats.setTotalCustomersCount((int) customerCount);
+            // 4. 统计客户总数
+            stats.setTotalCustomersCount((int) customerRepository.count());
 
         } catch (Exception e) {
             log.error("计算仪表盘统计数据失败：", e);
             throw e; // 抛给Controller处理
         }
 
+        applyProfitRate(stats);
+        return stats;
+    }
+
+    /**
+     * 并行模式：4个互相独立的子查询同时执行，各自使用独立连接，总耗时取决于最慢的子查询
+     * 超时或失败的子查询对应指标按0返回，并标记为降级结果
+     */
+    private DashboardStats getDashboardStatsInParallel() {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(queryExecutor.getTimeoutMillis());
+        Future<List<CarStatusSummary>> inventory = queryExecutor.submit(carRepository::summarizeByStatus, deadline);
+        Future<SalesSummary> sales = queryExecutor.submit(transactionRepository::summarizeSales, deadline);
+        Future<ProfitSummary> profit = queryExecutor.submit(transactionRepository::summarizeProfit, deadline);
+        Future<Long> customers = queryExecutor.submit(customerRepository::count, deadline);
+
+        DashboardStats stats = new DashboardStats();
+        List<String> degradedParts = new ArrayList<>();
+        applyInventory(stats, queryExecutor.await(inventory, deadline, "inventory", degradedParts));
+        applySales(stats, queryExecutor.await(sales, deadline, "sales", degradedParts));
+        applyProfit(stats, queryExecutor.await(profit, deadline, "profit", degradedParts));
+        Long customerCount = queryExecutor.await(customers, deadline, "customers", degradedParts);
+        stats.setTotalCustomersCount(customerCount != null ? customerCount.intValue() : 0);
+
+        // 销售额或利润缺失时利润率无意义，按0返回
+        if (!degradedParts.contains("sales") && !degradedParts.contains("profit")) {
+            applyProfitRate(stats);
+        }
+        stats.setDegraded(!degradedParts.isEmpty());
+        stats.setDegradedParts(degradedParts);
         return stats;
     }
 
     @Override
-    public java.util.List<java.util.Map<String, Object>> getSalesTrend() {
-        java.util.List<java.util.Map<String, Object>> result = new java.util.ArrayList<>();
-        
+    public List<SalespersonRanking> getLeaderboard(LocalDate from, LocalDate to, LeaderboardMetric metric, int limit, ZoneId zoneId) {
+        if (from == null || to == null || from.isAfter(to)) {
+            throw new IllegalArgumentException("开始日期不能晚于结束日期");
+        }
+        if (limit < 1 || limit > MAX_LEADERBOARD_SIZE) {
+            throw new IllegalArgumentException("返回条数必须在1~" + MAX_LEADERBOARD_SIZE + "之间");
+        }
+        if (metric == null) {
+            metric = LeaderboardMetric.REVENUE;
+        }
+        if (zoneId == null) {
+            zoneId = ZoneId.systemDefault();
+        }
+
+        Date start = Date.from(from.atStartOfDay(zoneId).toInstant());
+        Date end = Date.from(to.plusDays(1).atStartOfDay(zoneId).toInstant());
+        // 主指标降序，其余指标依次作为并列时的次序，最后按用户ID保证结果稳定
+        return transactionRepository.findSalespersonRanking(start, end, metric.getAlias(), limit);
+    }
+
+    /**
+     * 根据车辆状态聚合行计算库存总货值（在售 + 预定）与各状态车辆数
+     */
+    private void applyInventory(DashboardStats stats, List<CarStatusSummary> carSummaries) {
+        if (carSummaries == null) {
+            carSummaries = List.of(); // 空列表，避免NPE
+        }
+        long inventoryValue = 0L;
+        long inventoryCount = 0L;
+        for (CarStatusSummary summary : carSummaries) {
+            long carCount = summary.getCarCount() != null ? summary.getCarCount() : 0L;
+            long totalPrice = summary.getTotalPrice() != null ? summary.getTotalPrice() : 0L;
+            inventoryCount += carCount;
+
+            String status = summary.getStatus();
+            if ("AVAILABLE".equals(status)) {
+                stats.setAvailableCarsCount((int) carCount);
+                inventoryValue += totalPrice;
+            } else if ("PENDING".equals(status)) {
+                stats.setPendingCarsCount((int) carCount);
+                inventoryValue += totalPrice;
+            } else if ("MAINTENANCE".equals(status)) {
+                stats.setMaintenanceCarsCount((int) carCount);
+            }
+        }
+        stats.setTotalInventoryValue(inventoryValue);
+        stats.setTotalInventoryCount((int) inventoryCount);
+    }
+
+    private void applySales(DashboardStats stats, SalesSummary salesSummary) {
+        long totalRevenue = 0L;
+        int salesCount = 0;
+        if (salesSummary != null) {
+            totalRevenue = salesSummary.getTotalRevenue() != null ? salesSummary.getTotalRevenue() : 0L;
+            salesCount = salesSummary.getSalesCount() != null ? salesSummary.getSalesCount().intValue() : 0;
+        }
+        stats.setTotalRevenue(totalRevenue);
+        stats.setTotalSalesCount(salesCount);
+        stats.setSoldCarsCount(salesCount);
+    }
+
+    private void applyProfit(DashboardStats stats, ProfitSummary profitSummary) {
+        long totalProfit = 0L;
+        if (profitSummary != null) {
+            totalProfit = profitSummary.getTotalProfit() != null ? profitSummary.getTotalProfit() : 0L;
+            long incompleteCount = profitSummary.getIncompleteCount() != null ? profitSummary.getIncompleteCount() : 0L;
+            if (incompleteCount > 0) {
+                // 与原逐笔计算保持一致：车辆信息不完整的交易记告警，利润按0计；ID 只取有限条数作为示例
+                log.warn("{}笔交易的车辆信息不完整，利润计算为0，示例（最多{}条）：{}", incompleteCount,
+                        INCOMPLETE_ID_SAMPLE_SIZE, sampleIncompleteIds());
+            }
+        }
+        stats.setTotalProfit(totalProfit);
+    }
+
+    /**
+     * 不完整交易的ID示例，仅用于告警日志，查询失败不影响统计结果
+     */
+    private List<String> sampleIncompleteIds() {
         try {
-            // 获取当前日期
-            java.util.Calendar calendar = java.util.Calendar.getInstance();
-            
-            // 计算近6个月的销售额
-            for (int i = 5; i >= 0; i--) {
-                // 设置为 i 个月前
-                java.util.Calendar monthCal = (java.util.Calendar) calendar.clone();
-                monthCal.add(java.util.Calendar.MONTH, -i);
-                
-                // 获取月份名称（例如：1月、2月）
-                int month = monthCal.get(java.util.Calendar.MONTH) + 1; // 0-based
-                String monthName = month + "月";
-                
-                // 计算该月的开始和结束日期
-                java.util.Calendar startOfMonth = (java.util.Calendar) monthCal.clone();
-                startOfMonth.set(java.util.Calendar.DAY_OF_MONTH, 1);
-                startOfMonth.set(java.util.Calendar.HOUR_OF_DAY, 0);
-                startOfMonth.set(java.util.Calendar.MINUTE, 0);
-                startOfMonth.set(java.util.Calendar.SECOND, 0);
-                startOfMonth.set(java.util.Calendar.MILLISECOND, 0);
-                
-                java.util.Calendar endOfMonth = (java.util.Calendar) monthCal.clone();
-                endOfMonth.set(java.util.Calendar.DAY_OF_MONTH, endOfMonth.getActualMaximum(java.util.Calendar.DAY_OF_MONTH));
-                endOfMonth.set(java.util.Calendar.HOUR_OF_DAY, 23);
-                endOfMonth.set(java.util.Calendar.MINUTE, 59);
-                endOfMonth.set(java.util.Calendar.SECOND, 59);
-                endOfMonth.set(java.util.Calendar.MILLISECOND, 999);
-                
-                java.util.Date startDate = startOfMonth.getTime();
-                java.util.Date endDate = endOfMonth.getTime();
-                
-                // 查询该月的所有销售交易
-                List<Transaction> monthTransactions = transactionRepository.findAll().stream()
-                    .filter(tx -> tx != null 
-                        && "Sale".equals(tx.getType()) 
-                        && tx.getDate() != null
-                        && !tx.getDate().before(startDate) 
-                        && !tx.getDate().after(endDate))
-                    .toList();
-                
-                // 计算该月销售额
-                long monthRevenue = monthTransactions.stream()
-                    .mapToLong(tx -> tx.getPrice() != null ? tx.getPrice() : 0L)
-                    .sum();
-                
-                // 构造结果数据
-                java.util.Map<String, Object> monthData = new java.util.HashMap<>();
-                monthData.put("name", monthName);
-                monthData.put("value", monthRevenue);
-                result.add(monthData);
+            return transactionRepository.findIncompleteProfitIds(INCOMPLETE_ID_SAMPLE_SIZE);
+        } catch (RuntimeException e) {
+            log.debug("查询不完整交易ID失败：{}", e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * 计算平均利润率（避免除以0）
+     */
+    private void applyProfitRate(DashboardStats stats) {
+        long totalRevenue = stats.getTotalRevenue();
+        if (totalRevenue > 0) {
+            double profitRate = (double) stats.getTotalProfit() / totalRevenue * 100;
+            stats.setAvgProfitRate(Math.round(profitRate * 10.0) / 10.0); // 保留1位小数
+        } else {
+            stats.setAvgProfitRate(0.0);
+        }
+    }
+
+    @Override
+    public List<Map<String, Object>> getSalesTrend() {
+        // 默认：近6个月、按月、服务器时区（与原接口行为一致）
+        return getSalesTrend(TrendGranularity.MONTH, DEFAULT_TREND_PERIODS, ZoneId.systemDefault());
+    }
+
+    @Override
+    public List<Map<String, Object>> getSalesTrend(TrendGranularity granularity, int periods, ZoneId zoneId) {
+        if (granularity == null) {
+            granularity = TrendGranularity.MONTH;
+        }
+        if (periods < 1 || periods > MAX_TREND_PERIODS) {
+            throw new IllegalArgumentException("统计周期数必须在1到" + MAX_TREND_PERIODS + "之间");
+        }
+        if (zoneId == null) {
+            zoneId = ZoneId.systemDefault();
+        }
+
+        try {
+            // 1. 计算统计区间：当前周期起点往前推 periods-1 个周期，到当前周期结束
+            LocalDate currentStart = periodStart(LocalDate.now(zoneId), granularity);
+            LocalDate firstStart = plusPeriods(currentStart, granularity, -(periods - 1));
+            LocalDate endExclusive = plusPeriods(currentStart, granularity, 1);
+            Date start = Date.from(firstStart.atStartOfDay(zoneId).toInstant());
+            Date end = Date.from(endExclusive.atStartOfDay(zoneId).toInstant());
+
+            long[] buckets = new long[periods];
+            Optional<LocalDate> rollupThrough = zoneId.equals(rollupService.getZoneId())
+                    ? rollupService.caughtUpThrough() : Optional.empty();
+            if (rollupThrough.isPresent()) {
+                // 2a. 汇总表已追平且时区一致：断点及之前的日期读取每日汇总行（每天一行），按周期累加
+                LocalDate through = rollupThrough.get();
+                if (through.isAfter(endExclusive.minusDays(1))) {
+                    through = endExclusive.minusDays(1);
+                }
+                if (!through.isBefore(firstStart)) {
+                    Map<LocalDate, Long> dailyRevenue = rollupService.getDailyRevenue(firstStart, through);
+                    for (Map.Entry<LocalDate, Long> entry : dailyRevenue.entrySet()) {
+                        int index = (int) periodsBetween(firstStart, periodStart(entry.getKey(), granularity), granularity);
+                        if (index >= 0 && index < periods) {
+                            buckets[index] += entry.getValue();
+                        }
+                    }
+                }
+                // 断点之后的日期（通常只有今天）汇总尚未重建，从交易表读取
+                LocalDate tailStart = through.plusDays(1).isAfter(firstStart) ? through.plusDays(1) : firstStart;
+                if (tailStart.isBefore(endExclusive)) {
+                    addSalePoints(buckets, Date.from(tailStart.atStartOfDay(zoneId).toInstant()), end,
+                            firstStart, granularity, zoneId);
+                }
+                return buildTrend(buckets, firstStart, granularity);
             }
-            
+
+            // 2b. 一次范围查询取出区间内的销售点（只取日期和金额），单次遍历分桶累加
+            addSalePoints(buckets, start, end, firstStart, granularity, zoneId);
+
+            return buildTrend(buckets, firstStart, granularity);
         } catch (Exception e) {
             log.error("计算销售趋势数据失败：", e);
             throw e;
         }
-        
+    }
+
+    /**
+     * 读取 [start, end) 内的销售点并按周期累加到 buckets
+     */
+    private void addSalePoints(long[] buckets, Date start, Date end, LocalDate firstStart,
+                               TrendGranularity granularity, ZoneId zoneId) {
+        List<SalePoint> points = transactionRepository.findSalePointsBetween(start, end);
+        if (points == null) {
+            return;
+        }
+        for (SalePoint point : points) {
+            if (point == null || point.getDate() == null || point.getPrice() == null) {
+                continue;
+            }
+            LocalDate day = point.getDate().toInstant().atZone(zoneId).toLocalDate();
+            int index = (int) periodsBetween(firstStart, periodStart(day, granularity), granularity);
+            if (index >= 0 && index < buckets.length) {
+                buckets[index] += point.getPrice();
+            }
+        }
+    }
+
+    /**
+     * 构造结果数据（保持 {name, value} 结构，前端图表无需改动）
+     */
+    private static List<Map<String, Object>> buildTrend(long[] buckets, LocalDate firstStart, TrendGranularity granularity) {
+        List<Map<String, Object>> result = new ArrayList<>(buckets.length);
+        for (int i = 0; i < buckets.length; i++) {
+            Map<String, Object> periodData = new HashMap<>();
+            periodData.put("name", periodLabel(plusPeriods(firstStart, granularity, i), granularity));
+            periodData.put("value", buckets[i]);
+            result.add(periodData);
+        }
         return result;
     }
-}
\ No newline at end of file
+
+    /**
+     * 日期所在统计周期的起始日（周以周一为起点）
+     */
+    private static LocalDate periodStart(LocalDate date, TrendGranularity granularity) {
+        return switch (granularity) {
+            case DAY -> date;
+            case WEEK -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH -> date.withDayOfMonth(1);
+            case QUARTER -> date.withDayOfMonth(1).withMonth((date.getMonthValue() - 1) / 3 * 3 + 1);
+        };
+    }
+
+    private static LocalDate plusPeriods(LocalDate periodStart, TrendGranularity granularity, long amount) {
+        return switch (granularity) {
+            case DAY -> periodStart.plusDays(amount);
+            case WEEK -> periodStart.plusWeeks(amount);
+            case MONTH -> periodStart.plusMonths(amount);
+            case QUARTER -> periodStart.plusMonths(amount * 3);
+        };
+    }
+
+    private static long periodsBetween(LocalDate fromStart, LocalDate toStart, TrendGranularity granularity) {
+        return switch (granularity) {
+            case DAY -> ChronoUnit.DAYS.between(fromStart, toStart);
+            case WEEK -> ChronoUnit.WEEKS.between(fromStart, toStart);
+            case MONTH -> ChronoUnit.MONTHS.between(fromStart, toStart);
+            case QUARTER -> ChronoUnit.MONTHS.between(fromStart, toStart) / 3;
+        };
+    }
+
+    /**
+     * 周期名称（例如：3月5日、第10周、3月、2024年Q1）
+     */
+    private static String periodLabel(LocalDate periodStart, TrendGranularity granularity) {
+        return switch (granularity) {
+            case DAY -> periodStart.getMonthValue() + "月" + periodStart.getDayOfMonth() + "日";
+            case WEEK -> "第" + periodStart.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR) + "周";
+            case MONTH -> periodStart.getMonthValue() + "月";
+            case QUARTER -> periodStart.getYear() + "年Q" + periodStart.get(IsoFields.QUARTER_OF_YEAR);
+        };
+    }
+}
@@ -1,19 +1,48 @@
 package com.automaster.service.impl;
 
+import com.automaster.dto.BulkCompleteItem;
+import com.automaster.dto.BulkCompleteItemResult;
+import com.automaster.dto.BulkCompleteResult;
+import com.automaster.dto.CursorPage;
+import com.automaster.entity.ArchivedTransaction;
 import com.automaster.entity.Car;
+import com.automaster.entity.CarStatus;
+import com.automaster.entity.CarStatusTransition;
 import com.automaster.entity.Customer;
 import com.automaster.entity.Transaction;
+import com.automaster.event.CarChangedEvent;
+import com.automaster.event.TransactionBatchChangedEvent;
+import com.automaster.event.TransactionChangedEvent;
+import com.automaster.repository.ArchivedTransactionRepository;
 import com.automaster.repository.CarRepository;
 import com.automaster.repository.CustomerRepository;
+import com.automaster.repository.TransactionBatchRepository;
+import com.automaster.repository.TransactionFilter;
 import com.automaster.repository.TransactionRepository;
 import com.automaster.repository.UserRepository;
+import com.automaster.service.CarStatusService;
 import com.automaster.service.TransactionService;
+import com.automaster.service.support.KeysetCursor;
+import com.automaster.service.support.TransactionEnricher;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * 交易订单业务逻辑层实现
@@ -22,37 +51,81 @@ import java.util.Optional;
 @Service
 public class TransactionServiceImpl implements TransactionService {
 
+    /** 游标分页每页最大条数 */
+    private static final int MAX_PAGE_SIZE = 200;
+
+    /** 批量完成预定交易每次最多条数 */
+    static final int MAX_BULK_SIZE = 500;
+
     private final TransactionRepository transactionRepository;
     private final CarRepository carRepository;
     private final CustomerRepository customerRepository;
     private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionEnricher transactionEnricher;
+    private final CarStatusService carStatusService;
+    private final TransactionBatchRepository transactionBatchRepository;
+    private final ArchivedTransactionRepository archivedTransactionRepository;
 
     // 构造器注入所有依赖
     @Autowired
     public TransactionServiceImpl(TransactionRepository transactionRepository,
                                   CarRepository carRepository,
-                                  CustomerRepository customerRepository, UserRepository userRepository) {
+                                  CustomerRepository customerRepository, UserRepository userRepository,
+                                  ApplicationEventPublisher eventPublisher,
+                                  TransactionEnricher transactionEnricher, CarStatusService carStatusService,
+                                  TransactionBatchRepository transactionBatchRepository,
+                                  ArchivedTransactionRepository archivedTransactionRepository) {
         this.transactionRepository = transactionRepository;
         this.carRepository = carRepository;
         this.customerRepository = customerRepository;
         this.userRepository = userRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionEnricher = transactionEnricher;
+        this.carStatusService = carStatusService;
+        this.transactionBatchRepository = transactionBatchRepository;
+        this.archivedTransactionRepository = archivedTransactionRepository;
     }
 
     @Override
     public List<Transaction> getAllTransactions() {
         // 查询所有交易，并关联车辆/客户信息（用于前端展示）
         List<Transaction> transactions = transactionRepository.findAll();
-        transactions.forEach(t -> {
-            // 关联车辆信息
-            Optional<Car> car = carRepository.findById(t.getCarId());
-            car.ifPresent(t::setCar);
-            // 关联客户信息
-            Optional<Customer> customer = customerRepository.findById(t.getCustomerId());
-            customer.ifPresent(t::setCustomer);
-        });
+        transactionEnricher.enrich(transactions); // 批量关联车辆/客户信息
         return transactions;
     }
 
+    @Override
+    public Stream<Transaction> streamAllTransactions() {
+        return transactionRepository.streamAll();
+    }
+
+    @Override
+    public CursorPage<Transaction> getTransactionPage(String cursor, int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("每页条数必须在1~" + MAX_PAGE_SIZE + "之间");
+        }
+        // 多取一条判断是否还有下一页
+        Limit limit = Limit.of(size + 1);
+        List<Transaction> rows;
+        if (cursor == null || cursor.trim().isEmpty()) {
+            rows = transactionRepository.findFirstPage(limit);
+        } else {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            rows = transactionRepository.findPageAfter(after.getDate(), after.getId(), limit);
+        }
+
+        boolean hasMore = rows.size() > size;
+        List<Transaction> items = hasMore ? new ArrayList<>(rows.subList(0, size)) : rows;
+        transactionEnricher.enrich(items);
+        String nextCursor = null;
+        if (hasMore) {
+            Transaction last = items.get(items.size() - 1);
+            nextCursor = new KeysetCursor(last.getDate(), last.getId()).encode();
+        }
+        return new CursorPage<>(items, nextCursor, hasMore);
+    }
+
     @Override
     @Transactional // 事务控制：确保创建交易+改车辆状态原子性
     public Transaction saveTransaction(Transaction transaction) {
@@ -62,7 +135,7 @@ public class TransactionServiceImpl implements TransactionService {
             throw new RuntimeException("关联车辆不存在");
         }
         Car car = carOptional.get();
-        if ("SOLD".equals(car.getStatus())) {
+        if (!CarStatusTransition.SELL.isAllowedFrom(car.getStatus())) {
             throw new RuntimeException("该车辆已售出，无法创建交易");
         }
 
@@ -87,15 +160,17 @@ public class TransactionServiceImpl implements TransactionService {
             transaction.setDate(new java.util.Date());
         }
 
-        // 4. 保存交易订单
+        // 4. 条件更新车辆状态为SOLD（并发售出同一辆车时只有一个成功，其余抛出冲突异常）
+        Car soldCar = carStatusService.transition(car, CarStatusTransition.SELL);
+
+        // 5. 保存交易订单
         Transaction saved = transactionRepository.save(transaction);
 
-        // 5. 更新车辆状态为SOLD
-        car.setStatus("SOLD");
-        carRepository.save(car);
+        // 发布变更事件（事务提交后更新仪表盘计数器等派生视图）
+        eventPublisher.publishEvent(TransactionChangedEvent.created(saved, soldCar));
 
         // 6. 关联车辆/客户信息返回给前端
-        saved.setCar(car);
+        saved.setCar(soldCar);
         Optional<Customer> customer = customerRepository.findById(transaction.getCustomerId());
         customer.ifPresent(saved::setCustomer);
 
@@ -103,11 +178,17 @@ public class TransactionServiceImpl implements TransactionService {
     }
 
     @Override
+    @Transactional
     public boolean deleteTransaction(String id) {
-        if (!transactionRepository.existsById(id)) {
+        Optional<Transaction> transaction = transactionRepository.findById(id);
+        if (transaction.isEmpty()) {
             return false;
         }
+        Transaction before = TransactionChangedEvent.snapshot(transaction.get());
         transactionRepository.deleteById(id);
+
+        Car car = carRepository.findById(before.getCarId()).orElse(null);
+        eventPublisher.publishEvent(TransactionChangedEvent.deleted(before, car));
         return true;
     }
 
@@ -116,6 +197,15 @@ public class TransactionServiceImpl implements TransactionService {
         return transactionRepository.findById(id);
     }
 
+    @Override
+    public Optional<Transaction> getTransactionById(String id, boolean includeArchived) {
+        Optional<Transaction> transaction = transactionRepository.findById(id);
+        if (transaction.isPresent() || !includeArchived) {
+            return transaction;
+        }
+        return archivedTransactionRepository.findById(id).map(ArchivedTransaction::toTransaction);
+    }
+
     @Override
     @Transactional
     public Transaction completeTransaction(String id, Integer finalPrice) {
@@ -131,136 +221,227 @@ public class TransactionServiceImpl implements TransactionService {
             throw new RuntimeException("只有预定状态的交易才能完成");
         }
 
-        // 3. 更新交易信息
+        // 3. 条件更新交易信息（并发完成同一交易时只有一个成功）
+        Transaction transactionBefore = TransactionChangedEvent.snapshot(transaction);
+        java.util.Date completedAt = new java.util.Date(); // 实际成交时间
+        if (transactionRepository.completeIfPending(id, finalPrice, completedAt) == 0) {
+            throw new RuntimeException("只有预定状态的交易才能完成");
+        }
         transaction.setStatus("COMPLETED");
         transaction.setFinalPrice(finalPrice);
         transaction.setPrice(finalPrice); // 同步更新 price 字段
-        transaction.setDate(new java.util.Date()); // 更新为实际成交时间
+        transaction.setDate(completedAt);
 
-        // 4. 更新车辆状态为 SOLD
+        // 4. 更新车辆状态为 SOLD，清空预定客户和定金
+        Car soldCar = null;
         Optional<Car> carOptional = carRepository.findById(transaction.getCarId());
         if (carOptional.isPresent()) {
-            Car car = carOptional.get();
-            car.setStatus("SOLD");
-            car.setCustomerId(null); // 清空预定客户关联
-            car.setDeposit(0); // 清空定金
-            carRepository.save(car);
-            transaction.setCar(car);
+            soldCar = carStatusService.transition(carOptional.get(), CarStatusTransition.SETTLE);
+            transaction.setCar(soldCar);
         }
 
-        // 5. 保存交易记录
-        Transaction saved = transactionRepository.save(transaction);
+        // 5. 发布交易变更事件
+        eventPublisher.publishEvent(TransactionChangedEvent.updated(transactionBefore, transaction, soldCar));
 
         // 6. 关联客户信息
         Optional<Customer> customer = customerRepository.findById(transaction.getCustomerId());
-        customer.ifPresent(saved::setCustomer);
+        customer.ifPresent(transaction::setCustomer);
 
-        return saved;
+        return transaction;
     }
 
     @Override
-    public List<Transaction> searchTransactions(String status, String orderId, String carName, 
-                                        String customerInfo, Integer price, 
+    @Transactional
+    public BulkCompleteResult completeTransactions(List<BulkCompleteItem> items) {
+        if (items == null || items.isEmpty()) {
+            throw new IllegalArgumentException("请至少提交一条交易");
+        }
+        if (items.size() > MAX_BULK_SIZE) {
+            throw new IllegalArgumentException("每次最多完成" + MAX_BULK_SIZE + "条交易");
+        }
+
+        // 1. 参数校验与去重（同一订单只处理第一次出现）
+        BulkCompleteItemResult[] results = new BulkCompleteItemResult[items.size()];
+        Map<String, Integer> indexById = new LinkedHashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            BulkCompleteItem item = items.get(i);
+            String id = item != null ? item.getId() : null;
+            if (id == null || id.trim().isEmpty() || item.getFinalPrice() == null || item.getFinalPrice() <= 0) {
+                // 与单条完成（CarController.completePending）一致，不接受0元成交
+                results[i] = BulkCompleteItemResult.failed(id, BulkCompleteItemResult.INVALID, "订单ID和最终成交价不能为空，成交价必须大于0");
+            } else if (indexById.putIfAbsent(id, i) != null) {
+                results[i] = BulkCompleteItemResult.failed(id, BulkCompleteItemResult.DUPLICATE, "订单在请求中重复出现");
+            }
+        }
+
+        // 2. 一次查询读取交易和车辆（不加锁，并发修改由后续条件更新的行数判断）
+        Map<String, Transaction> transactions = new HashMap<>();
+        if (!indexById.isEmpty()) {
+            for (Transaction t : transactionRepository.findAllById(indexById.keySet())) {
+                transactions.put(t.getId(), t);
+            }
+        }
+        Set<String> carIds = new LinkedHashSet<>();
+        for (Transaction t : transactions.values()) {
+            if ("PENDING".equals(t.getStatus()) && t.getCarId() != null) {
+                carIds.add(t.getCarId());
+            }
+        }
+        Map<String, Car> cars = new HashMap<>();
+        if (!carIds.isEmpty()) {
+            for (Car car : carRepository.findAllById(carIds)) {
+                cars.put(car.getId(), car);
+            }
+        }
+
+        // 3. 逐项校验状态，生成完成后的交易快照（同一车辆只允许本批中第一条预定交易成交）
+        Date completedAt = new Date(); // 实际成交时间
+        List<Transaction> befores = new ArrayList<>();
+        List<Transaction> afters = new ArrayList<>();
+        Set<String> claimedCars = new HashSet<>();
+        for (Map.Entry<String, Integer> entry : indexById.entrySet()) {
+            String id = entry.getKey();
+            int index = entry.getValue();
+            Transaction transaction = transactions.get(id);
+            if (transaction == null) {
+                results[index] = BulkCompleteItemResult.failed(id, BulkCompleteItemResult.NOT_FOUND, "交易记录不存在");
+                continue;
+            }
+            if (!"PENDING".equals(transaction.getStatus())) {
+                results[index] = BulkCompleteItemResult.failed(id, BulkCompleteItemResult.NOT_PENDING, "只有预定状态的交易才能完成");
+                continue;
+            }
+            Car car = cars.get(transaction.getCarId());
+            if (car != null && !CarStatusTransition.SETTLE.isAllowedFrom(car.getStatus())) {
+                CarStatus current = CarStatus.of(car.getStatus());
+                results[index] = BulkCompleteItemResult.failed(id, BulkCompleteItemResult.CAR_STATUS_INVALID,
+                        "车辆当前状态为" + (current != null ? current.getDesc() : car.getStatus())
+                                + "，不能" + CarStatusTransition.SETTLE.getDesc());
+                continue;
+            }
+            if (car != null && !claimedCars.add(car.getId())) {
+                results[index] = BulkCompleteItemResult.failed(id, BulkCompleteItemResult.CONFLICT, "同一车辆的其他预定交易已在本次请求中完成");
+                continue;
+            }
+            Transaction after = TransactionChangedEvent.snapshot(transaction);
+            Integer finalPrice = items.get(index).getFinalPrice();
+            after.setStatus("COMPLETED");
+            after.setFinalPrice(finalPrice);
+            after.setPrice(finalPrice); // 同步更新 price 字段
+            after.setDate(completedAt);
+            befores.add(TransactionChangedEvent.snapshot(transaction));
+            afters.add(after);
+        }
+
+        // 4. 批量条件更新交易（更新行数为0时按并发冲突处理）
+        List<Transaction> completedBefores = new ArrayList<>();
+        List<Transaction> completedAfters = new ArrayList<>();
+        if (!afters.isEmpty()) {
+            int[] counts = transactionBatchRepository.completePending(afters);
+            for (int i = 0; i < afters.size(); i++) {
+                String id = afters.get(i).getId();
+                if (counts[i] == 0) {
+                    results[indexById.get(id)] = BulkCompleteItemResult.failed(id, BulkCompleteItemResult.CONFLICT, "交易已被其他请求修改");
+                    continue;
+                }
+                completedBefores.add(befores.get(i));
+                completedAfters.add(afters.get(i));
+            }
+        }
+
+        // 5. 批量条件更新车辆状态为 SOLD，清空预定客户和定金（期望状态与预定信息为读取时的值）；
+        //    车辆已被其他请求修改的项撤销交易更新，按冲突返回
+        List<Car> carBefores = new ArrayList<>();
+        for (Transaction after : completedAfters) {
+            Car car = cars.get(after.getCarId());
+            if (car != null) {
+                carBefores.add(car);
+            }
+        }
+        Set<String> conflictedCars = new HashSet<>();
+        if (!carBefores.isEmpty()) {
+            int[] counts = transactionBatchRepository.transitionCars(carBefores, CarStatusTransition.SETTLE);
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] == 0) {
+                    conflictedCars.add(carBefores.get(i).getId());
+                }
+            }
+        }
+        if (!conflictedCars.isEmpty()) {
+            List<Transaction> reverted = new ArrayList<>();
+            for (int i = completedAfters.size() - 1; i >= 0; i--) {
+                Transaction after = completedAfters.get(i);
+                if (after.getCarId() != null && conflictedCars.contains(after.getCarId())) {
+                    reverted.add(completedBefores.remove(i));
+                    completedAfters.remove(i);
+                    results[indexById.get(after.getId())] = BulkCompleteItemResult.failed(after.getId(),
+                            BulkCompleteItemResult.CONFLICT, "车辆状态已被其他请求修改");
+                }
+            }
+            transactionBatchRepository.revertCompleted(reverted);
+        }
+        Map<String, Car> carAfters = new HashMap<>();
+        for (Car before : carBefores) {
+            if (conflictedCars.contains(before.getId())) {
+                continue;
+            }
+            Car after = CarChangedEvent.snapshot(before);
+            after.setStatus(CarStatusTransition.SETTLE.getTarget().name());
+            after.setCustomerId(null);
+            after.setDeposit(CarStatusTransition.SETTLE.getClearedDeposit());
+            carAfters.put(after.getId(), after);
+            eventPublisher.publishEvent(CarChangedEvent.updated(CarChangedEvent.snapshot(before), after));
+        }
+        for (Transaction after : completedAfters) {
+            results[indexById.get(after.getId())] = BulkCompleteItemResult.ok(after.getId());
+        }
+
+        // 6. 发布批量变更事件（汇总表按 日期 + 品牌 合并增量）
+        if (!completedAfters.isEmpty()) {
+            List<TransactionChangedEvent> changes = new ArrayList<>(completedAfters.size());
+            for (int i = 0; i < completedAfters.size(); i++) {
+                Transaction after = completedAfters.get(i);
+                changes.add(TransactionChangedEvent.updated(completedBefores.get(i), after, carAfters.get(after.getCarId())));
+            }
+            eventPublisher.publishEvent(new TransactionBatchChangedEvent(changes));
+        }
+
+        int succeeded = completedAfters.size();
+        return new BulkCompleteResult(items.size(), succeeded, items.size() - succeeded, List.of(results));
+    }
+
+    @Override
+    public List<Transaction> searchTransactions(String status, String orderId, String carName,
+                                        String customerInfo, Integer price,
                                         String startDate, String endDate) {
-        // 1. 查询所有交易记录
-        List<Transaction> transactions = transactionRepository.findAll();
-        
-        // 2. 关联车辆和客户信息
-        transactions.forEach(t -> {
-            Optional<Car> car = carRepository.findById(t.getCarId());
-            car.ifPresent(t::setCar);
-            Optional<Customer> customer = customerRepository.findById(t.getCustomerId());
-            customer.ifPresent(t::setCustomer);
-        });
-        
-        // 3. 筛选数据
-        return transactions.stream()
-                .filter(t -> {
-                    // 状态筛选
-                    if (status != null && !status.isEmpty() && !status.equals(t.getStatus())) {
-                        return false;
-                    }
-                    
-                    // 订单号筛选（模糊匹配）
-                    if (orderId != null && !orderId.isEmpty() && !t.getId().toLowerCase().contains(orderId.toLowerCase())) {
-                        return false;
-                    }
-                    
-                    // 车辆名称筛选（模糊匹配）
-                    if (carName != null && !carName.isEmpty()) {
-                        if (t.getCar() == null) {
-                            return false;
-                        }
-                        String fullCarName = t.getCar().getYear() + " " + t.getCar().getMake() + " " + t.getCar().getModel();
-                        if (!fullCarName.toLowerCase().contains(carName.toLowerCase())) {
-                            return false;
-                        }
-                    }
-                    
-                    // 客户信息筛选（模糊匹配姓名或电话）
-                    if (customerInfo != null && !customerInfo.isEmpty()) {
-                        if (t.getCustomer() == null) {
-                            return false;
-                        }
-                        String fullCustomerInfo = t.getCustomer().getName() + " " + t.getCustomer().getPhone();
-                        if (!fullCustomerInfo.toLowerCase().contains(customerInfo.toLowerCase())) {
-                            return false;
-                        }
-                    }
-                    
-                    // 价格筛选（精确匹配定金或成交价）
-                    if (price != null) {
-                        boolean matchPrice = false;
-                        if ("PENDING".equals(t.getStatus())) {
-                            // 预定状态：匹配定金或价格
-                            matchPrice = (t.getDeposit() != null && t.getDeposit().equals(price)) ||
-                                       (t.getPrice() != null && t.getPrice().equals(price));
-                        } else {
-                            // 已完成状态：匹配成交价或价格
-                            matchPrice = (t.getFinalPrice() != null && t.getFinalPrice().equals(price)) ||
-                                       (t.getPrice() != null && t.getPrice().equals(price));
-                        }
-                        if (!matchPrice) {
-                            return false;
-                        }
-                    }
-                    
-                    // 日期范围筛选（支持 ISO 8601 格式：yyyy-MM-dd）
-                    if (startDate != null && !startDate.isEmpty()) {
-                        try {
-                            java.text.SimpleDateFormat sdf = new java.text.SimpleDateFormat("yyyy-MM-dd");
-                            java.util.Date txDate = t.getDate();
-                            java.util.Date start = sdf.parse(startDate);
-                            if (txDate.before(start)) {
-                                return false;
-                            }
-                        } catch (Exception e) {
-                            // 日期解析失败，忽略该条件
-                        }
-                    }
-                    
-                    if (endDate != null && !endDate.isEmpty()) {
-                        try {
-                            java.text.SimpleDateFormat sdf = new java.text.SimpleDateFormat("yyyy-MM-dd");
-                            java.util.Date txDate = t.getDate();
-                            java.util.Date end = sdf.parse(endDate);
-                            // 设置结束日期为当天 23:59:59
-                            java.util.Calendar cal = java.util.Calendar.getInstance();
-                            cal.setTime(end);
-                            cal.set(java.util.Calendar.HOUR_OF_DAY, 23);
-                            cal.set(java.util.Calendar.MINUTE, 59);
-                            cal.set(java.util.Calendar.SECOND, 59);
-                            end = cal.getTime();
-                            if (txDate.after(end)) {
-                                return false;
-                            }
-                        } catch (Exception e) {
-                            // 日期解析失败，忽略该条件
-                        }
-                    }
-                    
-                    return true;
-                })
-                .toList();
+        // 1. 筛选条件下推到数据库（状态、日期走索引，车辆/客户条件走子查询）
+        TransactionFilter filter = TransactionFilter.of(status, orderId, carName, customerInfo, price, startDate, endDate);
+        // 与原内存筛选一致，按数据库返回顺序，不额外排序
+        List<Transaction> transactions = transactionRepository.findAll(filter.toSpecification());
+
+        // 2. 关联车辆和客户信息（按去重ID批量查询）
+        transactionEnricher.enrich(transactions);
+        return transactions;
+    }
+
+    @Override
+    public Page<Transaction> searchTransactions(String status, String orderId, String carName,
+                                                String customerInfo, Integer price,
+                                                String startDate, String endDate, Pageable pageable) {
+        TransactionFilter filter = TransactionFilter.of(status, orderId, carName, customerInfo, price, startDate, endDate);
+        Page<Transaction> page = transactionRepository.findAll(filter.toSpecification(), pageable);
+        transactionEnricher.enrich(page.getContent());
+        return page;
+    }
+
+    @Override
+    public Page<Transaction> searchArchivedTransactions(String status, String orderId, String carName,
+                                                        String customerInfo, Integer price,
+                                                        String startDate, String endDate, Pageable pageable) {
+        TransactionFilter filter = TransactionFilter.of(status, orderId, carName, customerInfo, price, startDate, endDate);
+        Page<Transaction> page = archivedTransactionRepository.findAll(filter.toArchiveSpecification(), pageable)
+                .map(ArchivedTransaction::toTransaction);
+        transactionEnricher.enrich(page.getContent());
+        return page;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,212 @@
+package com.automaster.service.support;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * 合并并发请求的 TTL 缓存（single-flight）
+ * 1. 同一个键同时只有一次计算在执行，并发的相同请求等待并共享这次计算的结果
+ * 2. 计算成功后结果缓存 TTL 时长；计算失败不缓存，所有等待者收到同一个异常
+ * 3. 失效时直接移除条目，正在执行的计算结果只返回给已在等待的请求，不再写回缓存
+ * 4. 写入后过期 + 容量上限：条目按写入顺序排队（TTL 相同，写入顺序即过期顺序），每次未命中时从队头清理
+ *    已过期的条目，超过 maxEntries 时再淘汰最早写入的已完成条目；带参数的键不会无限累积
+ *
+ * @param <K> 缓存键
+ * @param <V> 缓存值
+ * @author AutoMaster Team
+ * @since 1.0.0
+ */
+public class CoalescingCache<K, V> {
+
+    private final String name;
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final LongSupplier nanoClock;
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+
+    /** 按写入顺序排列的条目，用于过期清理与容量淘汰 */
+    private final Queue<Entry<V>> writeOrder = new ConcurrentLinkedQueue<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param name       缓存名称
+     * @param ttlMillis  写入后有效期（毫秒）
+     * @param maxEntries 最多保留的条目数（正在计算的条目不淘汰）
+     */
+    public CoalescingCache(String name, long ttlMillis, int maxEntries) {
+        this(name, ttlMillis, maxEntries, System::nanoTime);
+    }
+
+    CoalescingCache(String name, long ttlMillis, int maxEntries, LongSupplier nanoClock) {
+        this.name = name;
+        this.ttlNanos = Math.max(ttlMillis, 0) * 1_000_000L;
+        this.maxEntries = Math.max(maxEntries, 1);
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * 读取缓存，未命中时由当前线程执行计算，其他并发请求等待同一结果
+     *
+     * @param key    缓存键
+     * @param loader 计算函数
+     * @return 缓存值或本次计算结果
+     */
+    public V get(K key, Supplier<V> loader) {
+        return get(key, loader, value -> true);
+    }
+
+    /**
+     * 读取缓存，计算结果不满足 cacheable 时只返回给本次并发的请求，不写入缓存
+     *
+     * @param key       缓存键
+     * @param loader    计算函数
+     * @param cacheable 结果是否可缓存
+     * @return 缓存值或本次计算结果
+     */
+    public V get(K key, Supplier<V> loader, Predicate<? super V> cacheable) {
+        while (true) {
+            Entry<V> existing = entries.get(key);
+            if (existing != null) {
+                if (!existing.future.isDone()) {
+                    coalesced.incrementAndGet();
+                    return await(existing.future);
+                }
+                if (!existing.isExpired(nanoClock.getAsLong())) {
+                    hits.incrementAndGet();
+                    return await(existing.future);
+                }
+                // 已过期：移除后重新竞争计算权
+                entries.remove(key, existing);
+                continue;
+            }
+
+            Entry<V> created = new Entry<>(key);
+            if (entries.putIfAbsent(key, created) != null) {
+                continue;
+            }
+            misses.incrementAndGet();
+            writeOrder.add(created);
+            evict(nanoClock.getAsLong());
+            try {
+                V value = loader.get();
+                created.expiresAt = nanoClock.getAsLong() + ttlNanos;
+                created.future.complete(value);
+                if (!cacheable.test(value)) {
+                    entries.remove(key, created);
+                }
+                return value;
+            } catch (RuntimeException | Error e) {
+                entries.remove(key, created);
+                created.future.completeExceptionally(e);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * 失效单个缓存条目（写入顺序队列中的残留由下一次清理移除）
+     */
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * 失效全部缓存条目
+     */
+    public void invalidateAll() {
+        entries.clear();
+        writeOrder.clear();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * 从队头清理已移除、已过期的条目，超过容量时继续淘汰最早写入的已完成条目；
+     * 队头仍在计算时停止（计算完成后的未命中会继续清理）
+     */
+    private void evict(long now) {
+        Entry<V> head;
+        while ((head = writeOrder.peek()) != null) {
+            if (entries.get(head.key) != head) {
+                // 已失效、已被替换或计算失败
+                writeOrder.remove(head);
+                continue;
+            }
+            if (!head.future.isDone()) {
+                return;
+            }
+            boolean expired = head.isExpired(now);
+            if (!expired && entries.size() <= maxEntries) {
+                return;
+            }
+            writeOrder.remove(head);
+            if (entries.remove(head.key, head) && !expired) {
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    private static <V> V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    private static final class Entry<V> {
+        private final Object key;
+        private final CompletableFuture<V> future = new CompletableFuture<>();
+        /** 过期时间（nanoTime），计算完成后写入 */
+        private volatile long expiresAt;
+
+        private Entry(Object key) {
+            this.key = key;
+        }
+
+        private boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.automaster.service.support;
+
+import com.automaster.dto.DailyRevenue;
+import com.automaster.entity.BatchJobCheckpoint;
+import com.automaster.entity.Transaction;
+import com.automaster.event.TransactionChangedEvent;
+import com.automaster.repository.BatchJobCheckpointRepository;
+import com.automaster.entity.OutboxEvent;
+import com.automaster.repository.DailySalesRollupRepository;
+import com.automaster.repository.OutboxEventRepository;
+import com.automaster.repository.TransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 每日销售汇总维护
+ * 1. 写入时：交易新增/完成/删除通过发件箱异步投递（{@link ProjectionHandler}），增量累加 daily_sales_rollup；
+ *    车辆成本价变更由 {@link OutboxWriter} 写入冲正事件（原成本价撤销、新成本价重新计入），按同一途径修正利润
+ * 2. 补数：按天从交易表重建汇总，每批提交后记录断点，重启后从断点继续；
+ *    发件箱仍有待投递事件时推迟重建，每批重建后在同一事务内复查，期间有新事件待投递时回滚本批，
+ *    避免重建结果与之后投递的增量重复累加
+ * 3. 读取：只有断点及之前的日期由汇总表提供（见 {@link #caughtUpThrough()}），断点之后的日期由调用方读交易表
+ *
+ * 汇总口径与仪表盘一致：统计全部 Sale 类型交易，按服务器时区切分日期
+ *
+ * @author AutoMaster Team
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+public class DailySalesRollupService implements ProjectionHandler {
+
+    /** 补数任务断点名称，断点值为最后一个已重建的日期（yyyy-MM-dd） */
+    static final String BACKFILL_JOB = "daily_sales_rollup_backfill";
+
+    /** 发件箱投影处理器名称 */
+    static final String HANDLER_NAME = "daily_sales_rollup";
+
+    /** 车辆已删除时的品牌占位 */
+    static final String UNKNOWN_MAKE = "未知";
+
+    private final DailySalesRollupRepository rollupRepository;
+    private final TransactionRepository transactionRepository;
+    private final BatchJobCheckpointRepository checkpointRepository;
+    private final OutboxEventRepository outboxRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ZoneId zoneId = ZoneId.systemDefault();
+
+    /** 每个事务重建的天数 */
+    @Value("${rollup.backfill.days-per-batch:31}")
+    private int daysPerBatch = 31;
+
+    /** 已完成补数的最后日期（缓存断点，避免每次读取趋势都查断点表） */
+    private volatile LocalDate backfilledThrough;
+
+    private final AtomicBoolean backfillRunning = new AtomicBoolean(false);
+
+    @Autowired
+    public DailySalesRollupService(DailySalesRollupRepository rollupRepository,
+                                   TransactionRepository transactionRepository,
+                                   BatchJobCheckpointRepository checkpointRepository,
+                                   OutboxEventRepository outboxRepository,
+                                   TransactionTemplate transactionTemplate) {
+        this.rollupRepository = rollupRepository;
+        this.transactionRepository = transactionRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.outboxRepository = outboxRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Override
+    public String getName() {
+        return HANDLER_NAME;
+    }
+
+    /**
+     * 由发件箱投递交易变更，按 日期 + 品牌 合并增量后写入（与发件箱状态更新处于同一事务）
+     * 批量完成预定时成交日期相同，写入次数与品牌数相关，与交易条数无关
+     */
+    @Override
+    public void handle(List<TransactionChangedEvent> events) {
+        Map<LocalDate, Map<String, long[]>> deltas = new LinkedHashMap<>();
+        for (TransactionChangedEvent change : events) {
+            collect(change.getBefore(), change, -1, deltas);
+            collect(change.getAfter(), change, 1, deltas);
+        }
+        for (Map.Entry<LocalDate, Map<String, long[]>> day : deltas.entrySet()) {
+            for (Map.Entry<String, long[]> make : day.getValue().entrySet()) {
+                long[] d = make.getValue();
+                if (d[0] == 0 && d[1] == 0 && d[2] == 0 && d[3] == 0) {
+                    continue;
+                }
+                rollupRepository.accumulate(day.getKey(), make.getKey(), d[0], d[1], (int) d[2], d[3]);
+            }
+        }
+    }
+
+    /**
+     * 汇总表可直接读取的最后日期
+     * 只有补数断点之前（含断点当天）的日期已从交易表完整重建；断点之后的日期（通常只有今天）
+     * 缺少上线前或补数前已发生的销售，调用方应从交易表读取。
+     * 每次调用都检查发件箱是否有待投递事件（走 idx_handler_status_id），有积压时汇总表可能落后，返回空
+     *
+     * @return 补数已追平到昨天且无积压事件时返回断点日期，否则为空
+     */
+    public Optional<LocalDate> caughtUpThrough() {
+        LocalDate through = backfilledThrough;
+        if (through == null) {
+            through = loadCheckpoint();
+            backfilledThrough = through;
+        }
+        if (through == null || through.isBefore(LocalDate.now(zoneId).minusDays(1))) {
+            return Optional.empty();
+        }
+        if (outboxRepository.existsByHandlerAndStatus(HANDLER_NAME, OutboxEvent.PENDING)) {
+            log.debug("发件箱仍有待投递的交易事件，销售趋势暂不读取每日销售汇总");
+            return Optional.empty();
+        }
+        return Optional.of(through);
+    }
+
+    /**
+     * 汇总使用的日期切分时区
+     */
+    public ZoneId getZoneId() {
+        return zoneId;
+    }
+
+    /**
+     * 查询日期区间 [from, to] 内每天的销售额（无销售的日期不返回）
+     */
+    public Map<LocalDate, Long> getDailyRevenue(LocalDate from, LocalDate to) {
+        List<DailyRevenue> rows = rollupRepository.sumRevenueByDay(from, to);
+        Map<LocalDate, Long> result = new HashMap<>();
+        for (DailyRevenue row : rows) {
+            result.put(row.getSalesDate(), row.getRevenue() != null ? row.getRevenue() : 0L);
+        }
+        return result;
+    }
+
+    /**
+     * 补数任务：从断点之后逐批重建到昨天，默认每小时检查一次（已追平时只读一次断点）
+     */
+    @Scheduled(fixedDelayString = "${rollup.backfill.interval-ms:3600000}", initialDelay = 30000)
+    public void backfill() {
+        if (!backfillRunning.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            LocalDate yesterday = LocalDate.now(zoneId).minusDays(1);
+            LocalDate checkpoint = loadCheckpoint();
+            LocalDate next;
+            if (checkpoint != null) {
+                next = checkpoint.plusDays(1);
+            } else {
+                Date earliest = transactionRepository.findEarliestSaleDate();
+                next = earliest != null ? earliest.toInstant().atZone(zoneId).toLocalDate() : yesterday.plusDays(1);
+            }
+
+            if (next.isAfter(yesterday)) {
+                // 已追平（或暂无销售数据），推进断点到昨天
+                if (checkpoint == null || checkpoint.isBefore(yesterday)) {
+                    transactionTemplate.executeWithoutResult(status -> saveCheckpoint(yesterday));
+                }
+                backfilledThrough = yesterday;
+                return;
+            }
+
+            if (outboxRepository.existsByHandlerAndStatus(HANDLER_NAME, OutboxEvent.PENDING)) {
+                log.info("发件箱仍有待投递的交易事件，每日销售汇总补数推迟到下次执行");
+                return;
+            }
+            log.info("开始补数每日销售汇总：{} ~ {}", next, yesterday);
+            while (!next.isAfter(yesterday)) {
+                LocalDate batchStart = next;
+                LocalDate batchEnd = batchStart.plusDays(Math.max(daysPerBatch, 1) - 1);
+                if (batchEnd.isAfter(yesterday)) {
+                    batchEnd = yesterday;
+                }
+                LocalDate batchLast = batchEnd;
+                Boolean rebuilt = transactionTemplate.execute(status -> {
+                    for (LocalDate day = batchStart; !day.isAfter(batchLast); day = day.plusDays(1)) {
+                        rebuildDay(day);
+                    }
+                    // 重建（INSERT … SELECT 加锁读）已包含最新提交的交易，其后的写入等待本批提交；
+                    // 重建前提交的交易若仍有待投递事件，投递时会重复累加，回滚本批
+                    if (!outboxRepository.findPendingForShare(HANDLER_NAME, Limit.of(1)).isEmpty()) {
+                        status.setRollbackOnly();
+                        return false;
+                    }
+                    saveCheckpoint(batchLast);
+                    return true;
+                });
+                if (!Boolean.TRUE.equals(rebuilt)) {
+                    log.info("补数期间有新的交易事件待投递，已回滚{} ~ {}的重建，下次从断点继续", batchStart, batchLast);
+                    return;
+                }
+                backfilledThrough = batchLast;
+                next = batchLast.plusDays(1);
+            }
+            log.info("每日销售汇总补数完成，已追平至{}", yesterday);
+        } catch (Exception e) {
+            log.error("每日销售汇总补数失败，下次从断点继续：", e);
+        } finally {
+            backfillRunning.set(false);
+        }
+    }
+
+    /**
+     * 从交易表重建某一天的汇总行（幂等）
+     */
+    void rebuildDay(LocalDate day) {
+        Date dayStart = Date.from(day.atStartOfDay(zoneId).toInstant());
+        Date dayEnd = Date.from(day.plusDays(1).atStartOfDay(zoneId).toInstant());
+        rollupRepository.deleteBySalesDate(day);
+        rollupRepository.rebuildDay(day, dayStart, dayEnd);
+    }
+
+    /**
+     * 增量累加到 deltas（依次为销售额、利润、订单数、定金）
+     */
+    private void collect(Transaction tx, TransactionChangedEvent event, int sign,
+                         Map<LocalDate, Map<String, long[]>> deltas) {
+        if (tx == null || !"Sale".equals(tx.getType()) || tx.getDate() == null) {
+            return;
+        }
+        long price = tx.getPrice() != null ? tx.getPrice() : 0L;
+        long profit = (tx.getPrice() != null && event.getCarCostPrice() != null)
+                ? price - event.getCarCostPrice() : 0L;
+        long deposit = tx.getDeposit() != null ? tx.getDeposit() : 0L;
+        String make = event.getCarMake() != null ? event.getCarMake() : UNKNOWN_MAKE;
+        LocalDate salesDate = tx.getDate().toInstant().atZone(zoneId).toLocalDate();
+        long[] d = deltas.computeIfAbsent(salesDate, k -> new LinkedHashMap<>()).computeIfAbsent(make, k -> new long[4]);
+        d[0] += sign * price;
+        d[1] += sign * profit;
+        d[2] += sign;
+        d[3] += sign * deposit;
+    }
+
+    private LocalDate loadCheckpoint() {
+        return checkpointRepository.findById(BACKFILL_JOB)
+                .map(BatchJobCheckpoint::getCheckpoint)
+                .map(LocalDate::parse)
+                .orElse(null);
+    }
+
+    private void saveCheckpoint(LocalDate day) {
+        BatchJobCheckpoint checkpoint = checkpointRepository.findById(BACKFILL_JOB).orElseGet(() -> {
+            BatchJobCheckpoint created = new BatchJobCheckpoint();
+            created.setJobName(BACKFILL_JOB);
+            return created;
+        });
+        checkpoint.setCheckpoint(day.toString());
+        checkpointRepository.save(checkpoint);
+    }
+}
@@ -0,0 +1,389 @@
+package com.automaster.service.support;
+
+import com.automaster.dto.CarSalePoint;
+import com.automaster.dto.DashboardStats;
+import com.automaster.entity.Car;
+import com.automaster.entity.Transaction;
+import com.automaster.event.CarChangedEvent;
+import com.automaster.event.CustomerChangedEvent;
+import com.automaster.event.TransactionBatchChangedEvent;
+import com.automaster.event.TransactionChangedEvent;
+import com.automaster.repository.TransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * 仪表盘统计内存计数器
+ * 启动时从数据库聚合结果初始化一次，之后由车辆/交易/客户变更事件以 O(1) 增量维护，
+ * 定时对账任务（{@link DashboardStatsReconciler}）重新计算并纠正漂移。
+ * 增量在发布方事务提交后应用，提交前登记为在途变更：数据库已提交但增量尚未应用的变更可能已包含在对账结果中，
+ * 对账期间存在在途变更时放弃覆盖，避免重复计入
+ *
+ * @author AutoMaster Team
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+public class DashboardStatsAccumulator {
+
+    /** 单轮对账因并发写入放弃覆盖后的最大重算次数，超过后持有写锁重算一次 */
+    static final int MAX_RECONCILE_ATTEMPTS = 3;
+
+    /** 持有写锁重算前等待在途变更提交完成的最长时间（毫秒） */
+    static final long QUIESCE_TIMEOUT_MILLIS = 5000;
+
+    private final TransactionRepository transactionRepository;
+
+    private final AtomicLong totalCars = new AtomicLong();
+    private final AtomicLong availableCars = new AtomicLong();
+    private final AtomicLong pendingCars = new AtomicLong();
+    private final AtomicLong maintenanceCars = new AtomicLong();
+    private final AtomicLong inventoryValue = new AtomicLong();
+    private final AtomicLong salesCount = new AtomicLong();
+    private final AtomicLong revenue = new AtomicLong();
+    private final AtomicLong profit = new AtomicLong();
+    private final AtomicLong customers = new AtomicLong();
+
+    /** 增量修改计数，对账时用于判断计算期间是否有并发写入 */
+    private final AtomicLong modifications = new AtomicLong();
+
+    /** 已进入提交阶段、增量尚未应用的变更数 */
+    private final AtomicLong inFlight = new AtomicLong();
+
+    /** 增量更新共享读锁，对账覆盖时独占写锁 */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private volatile boolean seeded = false;
+
+    @Autowired
+    public DashboardStatsAccumulator(TransactionRepository transactionRepository) {
+        this.transactionRepository = transactionRepository;
+    }
+
+    /**
+     * 车辆变更（提交后执行，未开启事务时立即执行）
+     * 成本价变更或删除车辆时按该车的销售修正利润
+     */
+    @EventListener
+    public void onCarChanged(CarChangedEvent event) {
+        afterCommit(() -> {
+            long profitDelta = costProfitDelta(event.getBefore(), event.getAfter());
+            return () -> {
+                applyCar(event.getBefore(), -1);
+                applyCar(event.getAfter(), 1);
+                profit.addAndGet(profitDelta);
+            };
+        });
+    }
+
+    /**
+     * 交易变更（提交后执行，未开启事务时立即执行）
+     */
+    @EventListener
+    public void onTransactionChanged(TransactionChangedEvent event) {
+        afterCommit(() -> () -> {
+            applySale(event.getBefore(), event.getCarCostPrice(), -1);
+            applySale(event.getAfter(), event.getCarCostPrice(), 1);
+        });
+    }
+
+    /**
+     * 交易批量变更（提交后执行，整批只加一次锁）
+     */
+    @EventListener
+    public void onTransactionsChanged(TransactionBatchChangedEvent event) {
+        afterCommit(() -> () -> {
+            for (TransactionChangedEvent change : event.getChanges()) {
+                applySale(change.getBefore(), change.getCarCostPrice(), -1);
+                applySale(change.getAfter(), change.getCarCostPrice(), 1);
+            }
+        });
+    }
+
+    /**
+     * 客户新增/删除（提交后执行，未开启事务时立即执行）
+     */
+    @EventListener
+    public void onCustomerChanged(CustomerChangedEvent event) {
+        afterCommit(() -> () -> {
+            if (event.getBefore() != null) {
+                customers.decrementAndGet();
+            }
+            if (event.getAfter() != null) {
+                customers.incrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * 当前统计快照（尚未初始化时为空，调用方应回退到数据库计算）
+     */
+    public Optional<DashboardStats> snapshot() {
+        if (!seeded) {
+            return Optional.empty();
+        }
+        DashboardStats stats = new DashboardStats();
+        stats.setTotalInventoryCount((int) totalCars.get());
+        stats.setAvailableCarsCount((int) availableCars.get());
+        stats.setPendingCarsCount((int) pendingCars.get());
+        stats.setMaintenanceCarsCount((int) maintenanceCars.get());
+        stats.setTotalInventoryValue(inventoryValue.get());
+
+        long totalRevenue = revenue.get();
+        long totalProfit = profit.get();
+        stats.setTotalSalesCount((int) salesCount.get());
+        stats.setSoldCarsCount((int) salesCount.get());
+        stats.setTotalRevenue(totalRevenue);
+        stats.setTotalProfit(totalProfit);
+        if (totalRevenue > 0) {
+            double profitRate = (double) totalProfit / totalRevenue * 100;
+            stats.setAvgProfitRate(Math.round(profitRate * 10.0) / 10.0); // 保留1位小数
+        } else {
+            stats.setAvgProfitRate(0.0);
+        }
+        stats.setTotalCustomersCount((int) customers.get());
+        return Optional.of(stats);
+    }
+
+    public boolean isSeeded() {
+        return seeded;
+    }
+
+    /**
+     * 用数据库重新计算的结果覆盖内存计数
+     * 计算期间若有增量写入或在途变更则放弃本次结果（避免用旧结果覆盖新计数，或重复计入已提交未应用的变更）并重算，
+     * 最多 {@link #MAX_RECONCILE_ATTEMPTS} 次；持续有写入时等在途变更应用完后持有写锁重算一次，
+     * 期间增量更新与新的提交登记等待，保证每轮对账都能收敛。
+     * 部分子查询超时的降级结果不用于覆盖
+     *
+     * @param recompute 数据库重新计算统计数据
+     * @return 是否完成覆盖
+     */
+    public boolean reconcile(Supplier<DashboardStats> recompute) {
+        for (int attempt = 1; attempt <= MAX_RECONCILE_ATTEMPTS; attempt++) {
+            long version = modifications.get();
+            DashboardStats fresh = recompute.get();
+            if (isDegraded(fresh)) {
+                return false;
+            }
+            lock.writeLock().lock();
+            try {
+                if (modifications.get() == version && inFlight.get() == 0) {
+                    apply(fresh);
+                    return true;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.debug("仪表盘对账期间存在并发写入，放弃第{}次计算结果", attempt);
+        }
+
+        log.warn("仪表盘对账连续{}次遇到并发写入，持有写锁重新计算", MAX_RECONCILE_ATTEMPTS);
+        if (!lockQuiescent()) {
+            log.warn("等待在途变更超时，跳过本轮覆盖");
+            return false;
+        }
+        try {
+            DashboardStats fresh = recompute.get();
+            if (isDegraded(fresh)) {
+                return false;
+            }
+            apply(fresh);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 在发布方事务提交后应用增量（未开启事务时立即应用）
+     * 提交前登记为在途变更（需获取读锁，对账持有写锁重算期间等待），增量应用后、事务结束时注销
+     *
+     * @param prepare 提交后执行，返回在读锁内应用的增量（可在此读取数据库）
+     */
+    private void afterCommit(Supplier<Runnable> prepare) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            applyDelta(prepare.get());
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+            private boolean registered;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                lock.readLock().lock();
+                try {
+                    inFlight.incrementAndGet();
+                    registered = true;
+                } finally {
+                    lock.readLock().unlock();
+                }
+            }
+
+            @Override
+            public void afterCommit() {
+                try {
+                    applyDelta(prepare.get());
+                } catch (RuntimeException e) {
+                    // 增量丢失由下一轮对账纠正，不影响已提交的业务
+                    log.error("仪表盘计数器增量更新失败：", e);
+                }
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (registered) {
+                    inFlight.decrementAndGet();
+                }
+            }
+        });
+    }
+
+    private void applyDelta(Runnable delta) {
+        lock.readLock().lock();
+        try {
+            delta.run();
+            modifications.incrementAndGet();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 获取写锁，且此时没有在途变更（新的提交登记需要读锁，持有写锁期间不会出现新的在途变更）
+     *
+     * @return 是否获取成功（等待超时或被中断时返回 false，不持有写锁）
+     */
+    private boolean lockQuiescent() {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(QUIESCE_TIMEOUT_MILLIS);
+        while (true) {
+            lock.writeLock().lock();
+            if (inFlight.get() == 0) {
+                return true;
+            }
+            lock.writeLock().unlock();
+            if (System.nanoTime() >= deadline) {
+                return false;
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+
+    /**
+     * 车辆成本价变更（含删除车辆）对利润的影响：与 summarizeProfit 口径一致，
+     * 每笔有成交价的销售贡献 成交价 - 成本价，车辆不存在或成本价为空时贡献0
+     */
+    private long costProfitDelta(Car before, Car after) {
+        if (before == null) {
+            // 新增车辆尚无销售
+            return 0L;
+        }
+        Integer beforeCost = before.getCostPrice();
+        Integer afterCost = after != null ? after.getCostPrice() : null;
+        if (Objects.equals(beforeCost, afterCost)) {
+            return 0L;
+        }
+        long delta = 0L;
+        List<CarSalePoint> sales = transactionRepository.findSalePointsByCar(before.getId());
+        for (CarSalePoint sale : sales) {
+            if (sale.getPrice() == null) {
+                continue;
+            }
+            delta += profitOf(sale.getPrice(), afterCost) - profitOf(sale.getPrice(), beforeCost);
+        }
+        return delta;
+    }
+
+    private static long profitOf(int price, Integer costPrice) {
+        return costPrice != null ? (long) price - costPrice : 0L;
+    }
+
+    private static boolean isDegraded(DashboardStats fresh) {
+        if (Boolean.TRUE.equals(fresh.getDegraded())) {
+            log.warn("仪表盘统计为降级结果（{}），跳过本轮覆盖", fresh.getDegradedParts());
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 覆盖全部计数（调用方持有写锁）
+     */
+    private void apply(DashboardStats fresh) {
+        if (seeded) {
+            snapshot().filter(current -> !sameCounters(current, fresh))
+                    .ifPresent(current -> log.warn("仪表盘计数器存在漂移，已按数据库纠正：内存={}，数据库={}", current, fresh));
+        }
+        totalCars.set(fresh.getTotalInventoryCount());
+        availableCars.set(fresh.getAvailableCarsCount());
+        pendingCars.set(fresh.getPendingCarsCount());
+        maintenanceCars.set(fresh.getMaintenanceCarsCount());
+        inventoryValue.set(fresh.getTotalInventoryValue());
+        salesCount.set(fresh.getTotalSalesCount());
+        revenue.set(fresh.getTotalRevenue());
+        profit.set(fresh.getTotalProfit());
+        customers.set(fresh.getTotalCustomersCount());
+        seeded = true;
+    }
+
+    private void applyCar(Car car, int sign) {
+        if (car == null) {
+            return;
+        }
+        totalCars.addAndGet(sign);
+        String status = car.getStatus();
+        long price = car.getPrice() != null ? car.getPrice() : 0L;
+        if ("AVAILABLE".equals(status)) {
+            availableCars.addAndGet(sign);
+            inventoryValue.addAndGet(sign * price);
+        } else if ("PENDING".equals(status)) {
+            pendingCars.addAndGet(sign);
+            inventoryValue.addAndGet(sign * price);
+        } else if ("MAINTENANCE".equals(status)) {
+            maintenanceCars.addAndGet(sign);
+        }
+    }
+
+    private void applySale(Transaction tx, Integer carCostPrice, int sign) {
+        if (tx == null || !"Sale".equals(tx.getType())) {
+            return;
+        }
+        salesCount.addAndGet(sign);
+        if (tx.getPrice() != null) {
+            revenue.addAndGet(sign * (long) tx.getPrice());
+            if (carCostPrice != null) {
+                profit.addAndGet(sign * ((long) tx.getPrice() - carCostPrice));
+            }
+        }
+    }
+
+    private static boolean sameCounters(DashboardStats a, DashboardStats b) {
+        return Objects.equals(a.getTotalInventoryCount(), b.getTotalInventoryCount())
+                && Objects.equals(a.getAvailableCarsCount(), b.getAvailableCarsCount())
+                && Objects.equals(a.getPendingCarsCount(), b.getPendingCarsCount())
+                && Objects.equals(a.getMaintenanceCarsCount(), b.getMaintenanceCarsCount())
+                && Objects.equals(a.getTotalInventoryValue(), b.getTotalInventoryValue())
+                && Objects.equals(a.getTotalSalesCount(), b.getTotalSalesCount())
+                && Objects.equals(a.getTotalRevenue(), b.getTotalRevenue())
+                && Objects.equals(a.getTotalProfit(), b.getTotalProfit())
+                && Objects.equals(a.getTotalCustomersCount(), b.getTotalCustomersCount());
+    }
+}
@@ -0,0 +1,61 @@
+package com.automaster.service.support;
+
+import com.automaster.service.DashboardService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 仪表盘计数器初始化与定时对账
+ * 启动完成后从数据库聚合一次初始化计数器，之后按固定间隔重新计算纠正漂移
+ *
+ * @author AutoMaster Team
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+public class DashboardStatsReconciler {
+
+    private final DashboardService dashboardService;
+    private final DashboardStatsAccumulator accumulator;
+
+    /**
+     * 对账必须读取数据库实时结果，因此注入未经缓存的实现
+     */
+    @Autowired
+    public DashboardStatsReconciler(@Qualifier("dashboardServiceImpl") DashboardService dashboardService, DashboardStatsAccumulator accumulator) {
+        this.dashboardService = dashboardService;
+        this.accumulator = accumulator;
+    }
+
+    /**
+     * 应用启动完成后初始化计数器
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        try {
+            accumulator.reconcile(dashboardService::getDashboardStats);
+            log.info("仪表盘计数器初始化完成");
+        } catch (Exception e) {
+            // 初始化失败不影响启动，接口会回退到数据库计算，等待下一轮对账
+            log.error("仪表盘计数器初始化失败：", e);
+        }
+    }
+
+    /**
+     * 定时对账（默认每60秒）
+     */
+    @Scheduled(fixedDelayString = "${dashboard.stats.reconcile-interval-ms:60000}",
+            initialDelayString = "${dashboard.stats.reconcile-interval-ms:60000}")
+    public void reconcile() {
+        try {
+            accumulator.reconcile(dashboardService::getDashboardStats);
+        } catch (Exception e) {
+            log.error("仪表盘计数器对账失败：", e);
+        }
+    }
+}
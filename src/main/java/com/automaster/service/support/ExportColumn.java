@@ -0,0 +1,43 @@
+package com.automaster.service.support;
+
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.function.Function;
+
+/**
+ * 导出列定义：表头 + 取值函数
+ * 取值结果为 Number 时按数值写出，Date 时按 yyyy-MM-dd HH:mm:ss 格式化，null 写出空单元格，其他按字符串写出
+ *
+ * @param <T> 导出的实体类型
+ * @author AutoMaster Team
+ * @since 1.0.0
+ */
+public final class ExportColumn<T> {
+
+    /** 日期时间格式（不可变、线程安全，所有导出共用；按系统默认时区输出，与原 SimpleDateFormat 一致） */
+    public static final DateTimeFormatter DATE_TIME_FORMATTER =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+
+    private final String header;
+    private final Function<T, ?> value;
+
+    private ExportColumn(String header, Function<T, ?> value) {
+        this.header = header;
+        this.value = value;
+    }
+
+    public static <T> ExportColumn<T> of(String header, Function<T, ?> value) {
+        return new ExportColumn<>(header, value);
+    }
+
+    public String getHeader() {
+        return header;
+    }
+
+    /**
+     * 取出某一行在本列的值
+     */
+    public Object valueOf(T item) {
+        return value.apply(item);
+    }
+}
@@ -0,0 +1,62 @@
+package com.automaster.service.support;
+
+import org.springframework.http.MediaType;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 导出文件格式
+ * 1. xlsx：SXSSF 流式写出，适合人工查看
+ * 2. csv：UTF-8（无 BOM）、逗号分隔、CRLF 换行，按 RFC 4180 转义，适合 BI 工具导入
+ * 3. csv.gz：gzip 压缩的 csv，适合大数据量下载
+ *
+ * @author AutoMaster Team
+ * @since 1.0.0
+ */
+public enum ExportFormat {
+
+    XLSX("xlsx", MediaType.APPLICATION_OCTET_STREAM),
+    CSV("csv", new MediaType("text", "csv", StandardCharsets.UTF_8)),
+    CSV_GZ("csv.gz", new MediaType("application", "gzip"));
+
+    private final String extension;
+    private final MediaType mediaType;
+
+    ExportFormat(String extension, MediaType mediaType) {
+        this.extension = extension;
+        this.mediaType = mediaType;
+    }
+
+    /**
+     * 解析 format 参数（忽略大小写，为空时默认 xlsx）
+     *
+     * @throws IllegalArgumentException 不支持的格式
+     */
+    public static ExportFormat of(String format) {
+        if (format == null || format.isEmpty()) {
+            return XLSX;
+        }
+        for (ExportFormat value : values()) {
+            if (value.extension.equalsIgnoreCase(format)) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("不支持的导出格式：" + format + "，可选 xlsx、csv、csv.gz");
+    }
+
+    /** 文件扩展名（不含点） */
+    public String getExtension() {
+        return extension;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * 下载文件名：前缀_时间戳.扩展名
+     */
+    public String fileName(String prefix, long timestamp) {
+        return prefix + "_" + timestamp + "." + extension;
+    }
+}
@@ -0,0 +1,136 @@
+package com.automaster.service.support;
+
+import com.automaster.dto.ExportJobStatus;
+
+import java.nio.file.Path;
+import java.util.Date;
+
+/**
+ * 导出任务（内存中的任务状态，由工作线程更新、接口线程读取）
+ *
+ * @author AutoMaster Team
+ * @since 1.0.0
+ */
+public class ExportJob {
+
+    /** 排队中 */
+    public static final String QUEUED = "QUEUED";
+    /** 导出中 */
+    public static final String RUNNING = "RUNNING";
+    /** 已完成，可下载 */
+    public static final String COMPLETED = "COMPLETED";
+    /** 失败 */
+    public static final String FAILED = "FAILED";
+
+    private final String id;
+    private final String type;
+    private final String fileName;
+    private final long createdAt;
+
+    private volatile String status = QUEUED;
+    private volatile long rowsWritten;
+    private volatile Long totalRows;
+    private volatile Path file;
+    private volatile long fileSize;
+    private volatile String error;
+    private volatile long startedAt;
+    private volatile long finishedAt;
+
+    ExportJob(String id, String type, String fileName, long createdAt) {
+        this.id = id;
+        this.type = type;
+        this.fileName = fileName;
+        this.createdAt = createdAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    /** 下载文件名 */
+    public String getFileName() {
+        return fileName;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public boolean isCompleted() {
+        return COMPLETED.equals(status);
+    }
+
+    /** 是否已结束（完成或失败） */
+    public boolean isFinished() {
+        return COMPLETED.equals(status) || FAILED.equals(status);
+    }
+
+    /** 结果文件（完成后有值） */
+    public Path getFile() {
+        return file;
+    }
+
+    public long getFinishedAt() {
+        return finishedAt;
+    }
+
+    void start(long now) {
+        startedAt = now;
+        status = RUNNING;
+    }
+
+    void setTotalRows(long totalRows) {
+        this.totalRows = totalRows;
+    }
+
+    void setRowsWritten(long rowsWritten) {
+        this.rowsWritten = rowsWritten;
+    }
+
+    void complete(Path file, long fileSize, long now) {
+        this.file = file;
+        this.fileSize = fileSize;
+        this.finishedAt = now;
+        this.status = COMPLETED;
+    }
+
+    void fail(String error, long now) {
+        this.error = error;
+        this.finishedAt = now;
+        this.status = FAILED;
+    }
+
+    /**
+     * 转换为接口返回的状态
+     *
+     * @param downloadUrl 下载地址（完成时返回）
+     */
+    public ExportJobStatus toStatus(String downloadUrl) {
+        ExportJobStatus s = new ExportJobStatus();
+        s.setJobId(id);
+        s.setType(type);
+        s.setStatus(status);
+        s.setRowsWritten(rowsWritten);
+        Long total = totalRows;
+        s.setTotalRows(total);
+        if (isCompleted()) {
+            s.setProgress(100);
+        } else if (total != null) {
+            s.setProgress(total > 0 ? (int) Math.min(rowsWritten * 100 / total, 99) : 0);
+        }
+        s.setFileName(fileName);
+        if (isCompleted()) {
+            s.setFileSize(fileSize);
+            s.setDownloadUrl(downloadUrl);
+        }
+        s.setError(error);
+        s.setCreatedAt(new Date(createdAt));
+        s.setStartedAt(startedAt > 0 ? new Date(startedAt) : null);
+        s.setFinishedAt(finishedAt > 0 ? new Date(finishedAt) : null);
+        return s;
+    }
+}
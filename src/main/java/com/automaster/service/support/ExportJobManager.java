@@ -0,0 +1,186 @@
+package com.automaster.service.support;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * 异步导出任务队列
+ * 导出任务提交到有界线程池，在后台线程中写入本地磁盘文件（先写临时文件，完成后原子改名），
+ * 接口线程只负责提交和查询进度，不再被长时间导出占用；
+ * 结束超过保留时长的任务及其文件定时清理（重启后遗留的文件按修改时间清理）
+ * 任务状态保存在内存中，多实例部署时查询和下载需路由到提交任务的实例
+ *
+ * @author AutoMaster Team
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+public class ExportJobManager implements DisposableBean {
+
+    /** 写入中的临时文件后缀 */
+    static final String PART_SUFFIX = ".part";
+
+    /** 写文件缓冲区大小 */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path directory;
+    private final long retentionMillis;
+    private final ThreadPoolExecutor executor;
+    private final LongSupplier clock;
+    private final Map<String, ExportJob> jobs = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ExportJobManager(@Value("${export.jobs.dir:${user.home}/automaster/exports}") String directory,
+                            @Value("${export.jobs.workers:2}") int workers,
+                            @Value("${export.jobs.queue-capacity:20}") int queueCapacity,
+                            @Value("${export.jobs.retention-ms:86400000}") long retentionMillis) {
+        this(Paths.get(directory), workers, queueCapacity, retentionMillis, System::currentTimeMillis);
+    }
+
+    ExportJobManager(Path directory, int workers, int queueCapacity, long retentionMillis, LongSupplier clock) {
+        this.directory = directory;
+        this.retentionMillis = retentionMillis;
+        this.clock = clock;
+        int poolSize = Math.max(workers, 1);
+        AtomicInteger threadNo = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(queueCapacity, 1)), runnable -> {
+                    Thread thread = new Thread(runnable, "export-job-" + threadNo.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 提交导出任务
+     *
+     * @param type      导出类型（如 transactions）
+     * @param fileName  下载文件名
+     * @param totalRows 开始导出前统计总行数（用于计算进度），可为 null
+     * @param task      写出逻辑
+     * @return 任务
+     * @throws RejectedExecutionException 排队任务已满
+     */
+    public ExportJob submit(String type, String fileName, LongSupplier totalRows, ExportTask task) {
+        ExportJob job = new ExportJob(UUID.randomUUID().toString(), type, fileName, clock.getAsLong());
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> run(job, totalRows, task));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            throw e;
+        }
+        log.info("已提交导出任务{}（{}）", job.getId(), type);
+        return job;
+    }
+
+    /**
+     * 查询任务
+     */
+    public Optional<ExportJob> find(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    private void run(ExportJob job, LongSupplier totalRows, ExportTask task) {
+        long started = clock.getAsLong();
+        job.start(started);
+        Path target = directory.resolve(job.getId() + "-" + job.getFileName());
+        Path part = directory.resolve(target.getFileName() + PART_SUFFIX);
+        try {
+            Files.createDirectories(directory);
+            if (totalRows != null) {
+                job.setTotalRows(totalRows.getAsLong());
+            }
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(part), BUFFER_SIZE)) {
+                task.writeTo(out, job::setRowsWritten);
+            }
+            Files.move(part, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            job.complete(target, Files.size(target), clock.getAsLong());
+            log.info("导出任务{}完成，耗时{}毫秒", job.getId(), clock.getAsLong() - started);
+        } catch (Exception e) {
+            log.error("导出任务{}失败：", job.getId(), e);
+            deleteQuietly(part);
+            job.fail(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName(), clock.getAsLong());
+        }
+    }
+
+    /**
+     * 清理结束超过保留时长的任务和文件，默认每10分钟一次
+     */
+    @Scheduled(fixedDelayString = "${export.jobs.cleanup-interval-ms:600000}", initialDelay = 60000)
+    public void purgeExpired() {
+        long cutoff = clock.getAsLong() - retentionMillis;
+        int removed = 0;
+        Set<Path> activeFiles = new HashSet<>();
+        for (Iterator<ExportJob> it = jobs.values().iterator(); it.hasNext(); ) {
+            ExportJob job = it.next();
+            if (job.isFinished() && job.getFinishedAt() < cutoff) {
+                it.remove();
+                if (job.getFile() != null) {
+                    deleteQuietly(job.getFile());
+                }
+                removed++;
+            } else {
+                activeFiles.add(directory.resolve(job.getId() + "-" + job.getFileName()));
+                activeFiles.add(directory.resolve(job.getId() + "-" + job.getFileName() + PART_SUFFIX));
+            }
+        }
+        // 重启前遗留的文件不在任务列表中，按修改时间清理
+        if (Files.isDirectory(directory)) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+                for (Path file : files) {
+                    if (!activeFiles.contains(file) && Files.isRegularFile(file)
+                            && Files.getLastModifiedTime(file).toMillis() < cutoff) {
+                        deleteQuietly(file);
+                        removed++;
+                    }
+                }
+            } catch (IOException e) {
+                log.warn("清理导出目录失败：{}", e.getMessage());
+            }
+        }
+        if (removed > 0) {
+            log.info("已清理{}个过期导出任务/文件", removed);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("删除导出文件{}失败：{}", file, e.getMessage());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,29 @@
+package com.automaster.service.support;
+
+import java.io.IOException;
+
+/**
+ * 导出行写出器：由 {@link StreamingExporter} 在游标读取过程中逐行调用，每种导出格式一个实现
+ * 调用顺序：writeHeader → writeRow（0..n 次）→ finish → close；写出失败时跳过 finish 直接 close
+ *
+ * @param <T> 导出的实体类型
+ * @author AutoMaster Team
+ * @since 1.0.0
+ */
+interface ExportRowWriter<T> extends AutoCloseable {
+
+    void writeHeader() throws IOException;
+
+    void writeRow(T item) throws IOException;
+
+    /**
+     * 写出剩余内容（不关闭调用方的输出流）
+     */
+    void finish() throws IOException;
+
+    /**
+     * 释放临时文件、压缩器等资源
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,23 @@
+package com.automaster.service.support;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.function.LongConsumer;
+
+/**
+ * 导出任务的写出逻辑（由 {@link ExportJobManager} 在后台线程中执行，输出到磁盘文件）
+ *
+ * @author AutoMaster Team
+ * @since 1.0.0
+ */
+@FunctionalInterface
+public interface ExportTask {
+
+    /**
+     * 写出导出内容
+     *
+     * @param out      输出流（由调用方关闭）
+     * @param progress 进度回调，参数为累计已写出的数据行数
+     */
+    void writeTo(OutputStream out, LongConsumer progress) throws IOException;
+}
@@ -0,0 +1,334 @@
+package com.automaster.service.support;
+
+import com.automaster.entity.IdempotencyRecord;
+import com.automaster.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * 幂等键存储（Idempotency-Key）
+ * 1. 内存中按键的哈希分段，每段一把锁 + 一个按写入顺序排列的 LinkedHashMap；所有键的有效期相同，
+ *    过期和超出容量时都从段头淘汰，内存占用有上限
+ * 2. 同一个键的首个请求执行业务，并发的重复请求等待并共享同一个响应；完成后的重复请求直接回放响应
+ * 3. 同一个键携带不同请求参数时返回 422；5xx 响应不保存，客户端可用同一个键重试
+ * 4. 可选持久化到 idempotency_keys 表，应用重启或多实例部署时仍可回放
+ *
+ * @author AutoMaster Team
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+public class IdempotencyStore {
+
+    /** 请求头名称 */
+    public static final String HEADER = "Idempotency-Key";
+
+    /** 回放的响应带上该响应头 */
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    /** 幂等键最大长度 */
+    static final int MAX_KEY_LENGTH = 100;
+
+    private final IdempotencyRecordRepository recordRepository;
+    private final ObjectMapper objectMapper;
+    private final long ttlMillis;
+    private final boolean persistent;
+    private final LongSupplier clock;
+    private final Segment[] segments;
+    private final int segmentCapacity;
+
+    private final AtomicLong executed = new AtomicLong();
+    private final AtomicLong replayed = new AtomicLong();
+
+    @Autowired
+    public IdempotencyStore(IdempotencyRecordRepository recordRepository, ObjectMapper objectMapper,
+                            @Value("${idempotency.ttl-ms:86400000}") long ttlMillis,
+                            @Value("${idempotency.max-entries:10000}") int maxEntries,
+                            @Value("${idempotency.lock-stripes:64}") int stripes,
+                            @Value("${idempotency.persistent.enabled:false}") boolean persistent) {
+        this(recordRepository, objectMapper, ttlMillis, maxEntries, stripes, persistent, System::currentTimeMillis);
+    }
+
+    IdempotencyStore(IdempotencyRecordRepository recordRepository, ObjectMapper objectMapper, long ttlMillis,
+                     int maxEntries, int stripes, boolean persistent, LongSupplier clock) {
+        this.recordRepository = recordRepository;
+        this.objectMapper = objectMapper;
+        this.ttlMillis = Math.max(ttlMillis, 0);
+        this.persistent = persistent;
+        this.clock = clock;
+        int segmentCount = Math.max(stripes, 1);
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment();
+        }
+        this.segmentCapacity = Math.max(maxEntries / segmentCount, 1);
+    }
+
+    /**
+     * 按幂等键执行请求
+     *
+     * @param scope       接口范围（如 "POST /api/transactions"），不同接口的同名键互不影响
+     * @param key         客户端传入的幂等键，为空时直接执行
+     * @param fingerprint 请求参数摘要，见 {@link #fingerprint(Object...)}
+     * @param action      业务处理
+     * @return 业务响应或回放的响应
+     */
+    public ResponseEntity<?> execute(String scope, String key, String fingerprint,
+                                     Supplier<ResponseEntity<?>> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            return ResponseEntity.badRequest().body(Map.of("code", "PARAM_ERROR",
+                    "message", HEADER + "长度不能超过" + MAX_KEY_LENGTH));
+        }
+        String scopedKey = scope + ":" + key;
+        Segment segment = segmentFor(scopedKey);
+        Entry entry;
+        segment.lock.lock();
+        try {
+            long now = clock.getAsLong();
+            segment.purgeExpired(now);
+            Entry existing = segment.entries.get(scopedKey);
+            if (existing != null) {
+                if (!existing.fingerprint.equals(fingerprint)) {
+                    return keyReused();
+                }
+                entry = existing;
+            } else {
+                entry = new Entry(fingerprint, now + ttlMillis);
+                segment.entries.put(scopedKey, entry);
+                segment.evictOverflow(segmentCapacity);
+            }
+        } finally {
+            segment.lock.unlock();
+        }
+        if (!entry.owner.compareAndSet(0, 1)) {
+            // 其他线程已在执行或已完成，等待并回放同一个响应
+            ResponseEntity<?> response = await(entry.response);
+            replayed.incrementAndGet();
+            return markReplayed(response);
+        }
+
+        try {
+            Optional<IdempotencyRecord> record = persistent ? findRecord(scopedKey) : Optional.empty();
+            if (record.isPresent()) {
+                if (!record.get().getFingerprint().equals(fingerprint)) {
+                    remove(segment, scopedKey, entry);
+                    ResponseEntity<?> reused = keyReused();
+                    entry.response.complete(reused);
+                    return reused;
+                }
+                ResponseEntity<?> stored = toResponse(record.get());
+                entry.response.complete(stored);
+                replayed.incrementAndGet();
+                return markReplayed(stored);
+            }
+
+            executed.incrementAndGet();
+            ResponseEntity<?> response = action.get();
+            if (response.getStatusCode().is5xxServerError()) {
+                remove(segment, scopedKey, entry);
+            } else if (persistent) {
+                saveRecord(scopedKey, fingerprint, response);
+            }
+            entry.response.complete(response);
+            return response;
+        } catch (RuntimeException | Error e) {
+            remove(segment, scopedKey, entry);
+            entry.response.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * 计算请求参数摘要（按 JSON 序列化后取 SHA-256）
+     */
+    public String fingerprint(Object... parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Object part : parts) {
+                digest.update(objectMapper.writeValueAsBytes(part));
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("计算请求摘要失败", e);
+        }
+    }
+
+    /**
+     * 定期清理持久化表中已过期的记录
+     */
+    @Scheduled(fixedDelayString = "${idempotency.cleanup-interval-ms:3600000}", initialDelay = 60000)
+    public void purgeExpiredRecords() {
+        if (!persistent) {
+            return;
+        }
+        int deleted = recordRepository.deleteExpired(new Date(clock.getAsLong()));
+        if (deleted > 0) {
+            log.info("已清理{}条过期幂等键记录", deleted);
+        }
+    }
+
+    public long getExecuted() {
+        return executed.get();
+    }
+
+    public long getReplayed() {
+        return replayed.get();
+    }
+
+    int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            segment.lock.lock();
+            try {
+                size += segment.entries.size();
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    private Segment segmentFor(String scopedKey) {
+        int h = scopedKey.hashCode();
+        h ^= (h >>> 16);
+        return segments[Math.floorMod(h, segments.length)];
+    }
+
+    private static void remove(Segment segment, String scopedKey, Entry entry) {
+        segment.lock.lock();
+        try {
+            segment.entries.remove(scopedKey, entry);
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    private Optional<IdempotencyRecord> findRecord(String scopedKey) {
+        try {
+            return recordRepository.findById(scopedKey)
+                    .filter(r -> r.getExpiresAt().getTime() > clock.getAsLong());
+        } catch (RuntimeException e) {
+            log.warn("读取幂等键记录失败，按新请求处理：{}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private void saveRecord(String scopedKey, String fingerprint, ResponseEntity<?> response) {
+        try {
+            long now = clock.getAsLong();
+            IdempotencyRecord record = new IdempotencyRecord();
+            record.setIdempotencyKey(scopedKey);
+            record.setFingerprint(fingerprint);
+            record.setStatusCode(response.getStatusCode().value());
+            record.setResponseBody(response.getBody() != null ? objectMapper.writeValueAsString(response.getBody()) : null);
+            record.setCreatedAt(new Date(now));
+            record.setExpiresAt(new Date(now + ttlMillis));
+            recordRepository.save(record);
+        } catch (JsonProcessingException | RuntimeException e) {
+            // 持久化失败不影响本次响应，内存中仍可回放
+            log.warn("保存幂等键记录失败：{}", e.getMessage());
+        }
+    }
+
+    private ResponseEntity<?> toResponse(IdempotencyRecord record) {
+        try {
+            Object body = record.getResponseBody() != null
+                    ? objectMapper.readValue(record.getResponseBody(), Object.class) : null;
+            return ResponseEntity.status(record.getStatusCode()).body(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("幂等键记录响应体格式错误", e);
+        }
+    }
+
+    private static ResponseEntity<?> keyReused() {
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(Map.of("code", "IDEMPOTENCY_KEY_REUSED",
+                "message", "同一个" + HEADER + "不能用于不同的请求参数"));
+    }
+
+    private static ResponseEntity<?> markReplayed(ResponseEntity<?> response) {
+        return ResponseEntity.status(response.getStatusCode())
+                .headers(response.getHeaders())
+                .header(REPLAYED_HEADER, "true")
+                .body(response.getBody());
+    }
+
+    private static ResponseEntity<?> await(CompletableFuture<ResponseEntity<?>> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    private static final class Segment {
+        private final ReentrantLock lock = new ReentrantLock();
+        /** 按写入顺序排列，有效期相同，段头最先过期 */
+        private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+
+        private void purgeExpired(long now) {
+            Iterator<Entry> it = entries.values().iterator();
+            while (it.hasNext()) {
+                Entry entry = it.next();
+                if (entry.expiresAt > now) {
+                    return;
+                }
+                it.remove();
+            }
+        }
+
+        private void evictOverflow(int capacity) {
+            Iterator<Entry> it = entries.values().iterator();
+            while (entries.size() > capacity && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final String fingerprint;
+        private final long expiresAt;
+        private final AtomicInteger owner = new AtomicInteger();
+        private final CompletableFuture<ResponseEntity<?>> response = new CompletableFuture<>();
+
+        private Entry(String fingerprint, long expiresAt) {
+            this.fingerprint = fingerprint;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package com.automaster.service.support;
+
+import com.automaster.dto.AgingBucket;
+import com.automaster.dto.AgingCar;
+import com.automaster.dto.CarAgingPoint;
+import com.automaster.dto.InventoryAgingReport;
+import com.automaster.entity.Car;
+import com.automaster.event.CarChangedEvent;
+import com.automaster.repository.CarRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * 在库车辆库龄索引（在售 + 预定）
+ * 启动时从车辆表构建，之后由车辆变更事件增量维护，并定时全量重建纠正漂移（见 {@link RebuildableIndex}）：
+ * 1. 按入库日期汇总车辆数/成本价/标价，直方图只需遍历不同的入库日期，与车辆总数无关
+ * 2. 每个品牌维护按入库时间排序的集合，取最老的 N 辆为 O(N)
+ *
+ * @author AutoMaster Team
+ * @since 1.0.0
+ */
+@Component
+public class InventoryAgingIndex extends RebuildableIndex<List<CarAgingPoint>> {
+
+    /** 每个品牌返回的最老车辆数上限 */
+    public static final int MAX_OLDEST_PER_MAKE = 50;
+
+    /** 车辆品牌为空时的占位 */
+    static final String UNKNOWN_MAKE = "未知";
+
+    private static final Comparator<Entry> BY_AGE = Comparator
+            .comparingLong((Entry e) -> e.addedDay)
+            .thenComparingLong(e -> e.dateAdded.getTime())
+            .thenComparing(e -> e.car.getId());
+
+    private final CarRepository carRepository;
+    private final ZoneId zoneId = ZoneId.systemDefault();
+
+    /** 分段上界（天，包含），如 30,60,90,180,365 → 0-30、31-60、...、366天以上 */
+    private final long[] bucketUpperDays;
+
+    private final Map<String, Entry> byId = new HashMap<>();
+    /** 入库日期（epoch day）→ [车辆数, 成本价合计, 标价合计] */
+    private final TreeMap<Long, long[]> byDay = new TreeMap<>();
+    private final Map<String, NavigableSet<Entry>> byMake = new HashMap<>();
+
+    @Autowired
+    public InventoryAgingIndex(CarRepository carRepository,
+                               @Value("${inventory.aging.bucket-days:30,60,90,180,365}") int[] bucketDays) {
+        super("库龄索引");
+        this.carRepository = carRepository;
+        this.bucketUpperDays = Arrays.stream(bucketDays).filter(d -> d >= 0).sorted().distinct()
+                .asLongStream().toArray();
+    }
+
+    /**
+     * 应用启动完成后从车辆表构建索引（失败不影响启动，由定时任务重试）
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        rebuild();
+    }
+
+    /**
+     * 尚未构建完成时定时重试（默认每30秒）
+     */
+    @Scheduled(fixedDelayString = "${inventory.aging.retry-interval-ms:30000}",
+            initialDelayString = "${inventory.aging.retry-interval-ms:30000}")
+    public void retryBuild() {
+        if (!isReady()) {
+            rebuild();
+        }
+    }
+
+    /**
+     * 定时全量重建，纠正增量丢失或重复计入（默认每10分钟）
+     */
+    @Scheduled(fixedDelayString = "${inventory.aging.rebuild-interval-ms:600000}",
+            initialDelayString = "${inventory.aging.rebuild-interval-ms:600000}")
+    public void reconcile() {
+        rebuild();
+    }
+
+    @Override
+    protected List<CarAgingPoint> readSnapshot() {
+        return carRepository.findInStockAgingPoints();
+    }
+
+    /**
+     * 车辆变更时增量维护（提交后执行，未开启事务时立即执行）
+     */
+    @EventListener
+    public void onCarChanged(CarChangedEvent event) {
+        afterCommit(() -> () -> {
+            Car before = event.getBefore();
+            Car after = event.getAfter();
+            if (before != null) {
+                remove(before.getId());
+            }
+            if (after != null && isInStock(after.getStatus())) {
+                // 更新请求体可能不带入库时间（该列不可更新），沿用变更前的入库时间
+                Date dateAdded = after.getDateAdded() != null ? after.getDateAdded()
+                        : before != null ? before.getDateAdded() : null;
+                add(after, dateAdded);
+            }
+        });
+    }
+
+    /**
+     * 生成截至今天的库龄报告
+     *
+     * @param oldestPerMake 每个品牌返回的最老车辆数（0~50）
+     * @param make          只返回指定品牌的最老车辆（为空时返回全部品牌）
+     * @throws IllegalStateException 索引尚未构建完成
+     */
+    public InventoryAgingReport report(int oldestPerMake, String make) {
+        return report(LocalDate.now(zoneId), oldestPerMake, make);
+    }
+
+    InventoryAgingReport report(LocalDate asOf, int oldestPerMake, String make) {
+        if (!isReady()) {
+            throw new IllegalStateException("库龄索引尚未构建完成");
+        }
+        if (oldestPerMake < 0 || oldestPerMake > MAX_OLDEST_PER_MAKE) {
+            throw new IllegalArgumentException("每个品牌返回的车辆数必须在0~" + MAX_OLDEST_PER_MAKE + "之间");
+        }
+        long today = asOf.toEpochDay();
+
+        lock.readLock().lock();
+        try {
+            InventoryAgingReport report = new InventoryAgingReport();
+            report.setAsOf(asOf);
+            List<AgingBucket> buckets = newBuckets();
+            long totalCount = 0L;
+            long totalCapital = 0L;
+            for (Map.Entry<Long, long[]> day : byDay.entrySet()) {
+                long[] sums = day.getValue();
+                // 入库日期晚于统计日期（时钟偏差）时按0天计
+                AgingBucket bucket = buckets.get(bucketIndex(Math.max(today - day.getKey(), 0)));
+                bucket.setCarCount(bucket.getCarCount() + sums[0]);
+                bucket.setCapital(bucket.getCapital() + sums[1]);
+                bucket.setListValue(bucket.getListValue() + sums[2]);
+                totalCount += sums[0];
+                totalCapital += sums[1];
+            }
+            report.setBuckets(buckets);
+            report.setTotalCount(totalCount);
+            report.setTotalCapital(totalCapital);
+
+            if (oldestPerMake > 0) {
+                List<String> makes = new ArrayList<>();
+                if (make != null && !make.trim().isEmpty()) {
+                    makes.add(make.trim());
+                } else {
+                    makes.addAll(byMake.keySet());
+                    makes.sort(null);
+                }
+                for (String m : makes) {
+                    NavigableSet<Entry> cars = byMake.get(m);
+                    List<AgingCar> oldest = new ArrayList<>();
+                    if (cars != null) {
+                        Iterator<Entry> it = cars.iterator();
+                        while (it.hasNext() && oldest.size() < oldestPerMake) {
+                            oldest.add(toAgingCar(it.next(), today));
+                        }
+                    }
+                    report.getOldestByMake().put(m, oldest);
+                }
+            }
+            return report;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 用全量在库车辆重建索引（调用方持有写锁或处于单线程测试中）
+     */
+    @Override
+    protected void load(List<CarAgingPoint> points) {
+        byId.clear();
+        byDay.clear();
+        byMake.clear();
+        for (CarAgingPoint point : points) {
+            Car car = new Car();
+            car.setId(point.getId());
+            car.setMake(point.getMake());
+            car.setModel(point.getModel());
+            car.setYear(point.getYear());
+            car.setPrice(point.getPrice());
+            car.setCostPrice(point.getCostPrice());
+            car.setStatus(point.getStatus());
+            car.setDateAdded(point.getDateAdded());
+            add(car, point.getDateAdded());
+        }
+    }
+
+    private void add(Car car, Date dateAdded) {
+        if (car.getId() == null) {
+            return;
+        }
+        remove(car.getId());
+        if (dateAdded == null) {
+            dateAdded = new Date();
+        }
+        Entry entry = new Entry(car, dateAdded, dateAdded.toInstant().atZone(zoneId).toLocalDate().toEpochDay());
+        byId.put(car.getId(), entry);
+        adjustDay(entry, 1);
+        byMake.computeIfAbsent(entry.make(), k -> new TreeSet<>(BY_AGE)).add(entry);
+    }
+
+    private void remove(String carId) {
+        Entry entry = carId != null ? byId.remove(carId) : null;
+        if (entry == null) {
+            return;
+        }
+        adjustDay(entry, -1);
+        NavigableSet<Entry> cars = byMake.get(entry.make());
+        if (cars != null) {
+            cars.remove(entry);
+            if (cars.isEmpty()) {
+                byMake.remove(entry.make());
+            }
+        }
+    }
+
+    private void adjustDay(Entry entry, int sign) {
+        long[] sums = byDay.computeIfAbsent(entry.addedDay, k -> new long[3]);
+        sums[0] += sign;
+        sums[1] += sign * (entry.car.getCostPrice() != null ? (long) entry.car.getCostPrice() : 0L);
+        sums[2] += sign * (entry.car.getPrice() != null ? (long) entry.car.getPrice() : 0L);
+        if (sums[0] == 0) {
+            byDay.remove(entry.addedDay);
+        }
+    }
+
+    private List<AgingBucket> newBuckets() {
+        List<AgingBucket> buckets = new ArrayList<>();
+        long min = 0;
+        for (long upper : bucketUpperDays) {
+            buckets.add(new AgingBucket(min + "-" + upper + "天", min, upper, 0L, 0L, 0L));
+            min = upper + 1;
+        }
+        buckets.add(new AgingBucket(min + "天以上", min, null, 0L, 0L, 0L));
+        return buckets;
+    }
+
+    private int bucketIndex(long ageDays) {
+        int index = Arrays.binarySearch(bucketUpperDays, ageDays);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    private static AgingCar toAgingCar(Entry entry, long today) {
+        Car car = entry.car;
+        return new AgingCar(car.getId(), car.getMake(), car.getModel(), car.getYear(), car.getStatus(),
+                car.getPrice(), car.getCostPrice(), entry.dateAdded, Math.max(today - entry.addedDay, 0));
+    }
+
+    private static boolean isInStock(String status) {
+        return "AVAILABLE".equals(status) || "PENDING".equals(status);
+    }
+
+    private static final class Entry {
+        private final Car car;
+        private final Date dateAdded;
+        private final long addedDay;
+
+        private Entry(Car car, Date dateAdded, long addedDay) {
+            this.car = car;
+            this.dateAdded = dateAdded;
+            this.addedDay = addedDay;
+        }
+
+        private String make() {
+            return car.getMake() != null ? car.getMake() : UNKNOWN_MAKE;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.automaster.service.support;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * 大列表接口的流式 JSON 输出
+ * 在只读事务内逐行消费数据库游标，按批次序列化写出响应后清空持久化上下文并刷新输出流，
+ * 内存占用只与批次大小有关，与表的总行数无关
+ *
+ * @author AutoMaster Team
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+public class JsonArrayStreamer {
+
+    /** 每批行数（与仓库流式查询的 fetch size 一致） */
+    static final int CHUNK_SIZE = 500;
+
+    private final ObjectWriter writer;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    @Autowired
+    public JsonArrayStreamer(ObjectMapper objectMapper, EntityManager entityManager,
+                             PlatformTransactionManager transactionManager) {
+        this(objectMapper, entityManager, transactionManager, CHUNK_SIZE);
+    }
+
+    JsonArrayStreamer(ObjectMapper objectMapper, EntityManager entityManager,
+                      PlatformTransactionManager transactionManager, int chunkSize) {
+        // 由本类按批次控制刷新，不在每个元素写完后刷新
+        this.writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.chunkSize = Math.max(chunkSize, 1);
+    }
+
+    /**
+     * 生成流式输出的 JSON 数组响应体
+     *
+     * @param source   数据流（在响应写出时于只读事务内打开，写完后关闭）
+     * @param enricher 每批写出前的填充处理（如关联车辆/客户），可为 null
+     * @return 响应体
+     */
+    public <T> StreamingResponseBody jsonArray(Supplier<Stream<T>> source, Consumer<List<T>> enricher) {
+        return out -> {
+            try {
+                transactionTemplate.executeWithoutResult(status -> write(source, enricher, out));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+    }
+
+    private <T> void write(Supplier<Stream<T>> source, Consumer<List<T>> enricher, OutputStream out) {
+        long rows = 0;
+        try (Stream<T> stream = source.get();
+             JsonGenerator generator = writer.getFactory().createGenerator(out)) {
+            // 出错时不自动补全数组，客户端据此识别不完整的响应；输出流由容器关闭
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartArray();
+            List<T> chunk = new ArrayList<>(chunkSize);
+            Iterator<T> it = stream.iterator();
+            while (it.hasNext()) {
+                chunk.add(it.next());
+                if (chunk.size() == chunkSize) {
+                    rows += writeChunk(chunk, enricher, generator);
+                }
+            }
+            rows += writeChunk(chunk, enricher, generator);
+            generator.writeEndArray();
+        } catch (IOException e) {
+            // 客户端断开等写出失败，结束事务并关闭游标
+            log.warn("流式输出中断，已写出{}行：{}", rows, e.getMessage());
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private <T> int writeChunk(List<T> chunk, Consumer<List<T>> enricher, JsonGenerator generator) throws IOException {
+        if (chunk.isEmpty()) {
+            return 0;
+        }
+        if (enricher != null) {
+            enricher.accept(chunk);
+        }
+        for (T item : chunk) {
+            writer.writeValue(generator, item);
+        }
+        int written = chunk.size();
+        chunk.clear();
+        // 已写出的实体不再需要，清空持久化上下文并把缓冲区写给客户端
+        entityManager.clear();
+        generator.flush();
+        return written;
+    }
+}
@@ -0,0 +1,58 @@
+package com.automaster.service.support;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * 游标分页的不透明游标：编码最后一条记录的 (date, id)
+ * 格式为 Base64URL("毫秒时间戳:id")，客户端只需原样回传，不应解析
+ *
+ * @author AutoMaster Team
+ * @since 1.0.0
+ */
+public final class KeysetCursor {
+
+    private final Date date;
+    private final String id;
+
+    public KeysetCursor(Date date, String id) {
+        this.date = date;
+        this.id = id;
+    }
+
+    public Date getDate() {
+        return date;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * 编码为游标字符串
+     */
+    public String encode() {
+        String raw = date.getTime() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标字符串
+     *
+     * @throws IllegalArgumentException 游标格式不正确
+     */
+    public static KeysetCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            if (separator <= 0 || separator == raw.length() - 1) {
+                throw new IllegalArgumentException("游标格式不正确");
+            }
+            return new KeysetCursor(new Date(Long.parseLong(raw.substring(0, separator))), raw.substring(separator + 1));
+        } catch (IllegalArgumentException e) {
+            // Base64 解码失败与 NumberFormatException 均为 IllegalArgumentException
+            throw new IllegalArgumentException("游标格式不正确", e);
+        }
+    }
+}
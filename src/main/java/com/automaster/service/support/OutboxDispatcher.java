@@ -0,0 +1,341 @@
+package com.automaster.service.support;
+
+import com.automaster.dto.OutboxBacklog;
+import com.automaster.dto.OutboxStats;
+import com.automaster.entity.OutboxEvent;
+import com.automaster.event.TransactionChangedEvent;
+import com.automaster.repository.OutboxEventRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 发件箱投递任务
+ * 按处理器轮询 outbox_events，按写入顺序分批投递给 {@link ProjectionHandler}：
+ * 1. 每批在一个事务内完成处理与状态更新，处理失败时整批回滚，再逐条重试定位失败的事件
+ * 2. 失败的事件按指数退避推迟重试，重试期间同一车辆之后的事件暂停投递，保证单车顺序
+ * 3. 超过最大重试次数的事件标记为 FAILED 并停止投递，需人工处理后改回 PENDING
+ * 4. 记录投递、重试次数与积压延迟，供监控接口查询
+ *
+ * @author AutoMaster Team
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+public class OutboxDispatcher {
+
+    /** 失败原因最大长度（与 last_error 列一致） */
+    static final int MAX_ERROR_LENGTH = 500;
+
+    private final OutboxEventRepository outboxRepository;
+    private final Map<String, ProjectionHandler> handlers = new LinkedHashMap<>();
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final LongSupplier clock;
+    private final Map<String, HandlerMetrics> metrics = new HashMap<>();
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    /** 每批投递的事件数 */
+    @Value("${outbox.batch-size:200}")
+    private int batchSize = 200;
+
+    /** 单次轮询每个处理器最多投递的批次数 */
+    @Value("${outbox.max-batches-per-poll:20}")
+    private int maxBatchesPerPoll = 20;
+
+    /** 最大失败次数，达到后标记为 FAILED */
+    @Value("${outbox.max-attempts:10}")
+    private int maxAttempts = 10;
+
+    /** 首次重试等待时间（毫秒），之后每次翻倍 */
+    @Value("${outbox.retry.initial-backoff-ms:1000}")
+    private long initialBackoffMs = 1000;
+
+    /** 重试等待时间上限（毫秒） */
+    @Value("${outbox.retry.max-backoff-ms:300000}")
+    private long maxBackoffMs = 300000;
+
+    /** 已投递事件保留时长（毫秒） */
+    @Value("${outbox.retention-ms:86400000}")
+    private long retentionMs = 86400000;
+
+    @Autowired
+    public OutboxDispatcher(OutboxEventRepository outboxRepository,
+                            List<ProjectionHandler> handlers,
+                            ObjectMapper objectMapper,
+                            TransactionTemplate transactionTemplate) {
+        this(outboxRepository, handlers, objectMapper, transactionTemplate, System::currentTimeMillis);
+    }
+
+    OutboxDispatcher(OutboxEventRepository outboxRepository, List<ProjectionHandler> handlers,
+                     ObjectMapper objectMapper, TransactionTemplate transactionTemplate, LongSupplier clock) {
+        this.outboxRepository = outboxRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.clock = clock;
+        for (ProjectionHandler handler : handlers) {
+            if (this.handlers.put(handler.getName(), handler) != null) {
+                throw new IllegalStateException("投影处理器名称重复：" + handler.getName());
+            }
+            metrics.put(handler.getName(), new HandlerMetrics());
+        }
+    }
+
+    /**
+     * 轮询投递，默认每500毫秒一次；积压时每个处理器连续投递多批
+     */
+    @Scheduled(fixedDelayString = "${outbox.poll-interval-ms:500}", initialDelay = 10000)
+    public void poll() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            for (ProjectionHandler handler : handlers.values()) {
+                try {
+                    for (int i = 0; i < Math.max(maxBatchesPerPoll, 1); i++) {
+                        if (dispatch(handler) < batchSize) {
+                            break;
+                        }
+                    }
+                } catch (Exception e) {
+                    log.error("发件箱投递失败（{}），下次轮询重试：", handler.getName(), e);
+                }
+            }
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * 投递一批事件
+     *
+     * @return 本批成功投递的事件数
+     */
+    int dispatch(ProjectionHandler handler) {
+        try {
+            Integer delivered = transactionTemplate.execute(status -> {
+                List<OutboxEvent> due = fetchDue(handler.getName());
+                if (!due.isEmpty()) {
+                    deliver(handler, due);
+                }
+                return due.size();
+            });
+            return delivered != null ? delivered : 0;
+        } catch (RuntimeException e) {
+            log.warn("发件箱整批投递失败（{}），逐条重试：{}", handler.getName(), e.getMessage());
+            return retryIndividually(handler);
+        }
+    }
+
+    /**
+     * 逐条投递当前批次，失败的事件记录重试时间，同一车辆之后的事件本轮不再投递
+     */
+    private int retryIndividually(ProjectionHandler handler) {
+        List<OutboxEvent> due = transactionTemplate.execute(status -> fetchDue(handler.getName()));
+        if (due == null) {
+            return 0;
+        }
+        Set<String> failedKeys = new HashSet<>();
+        int delivered = 0;
+        for (OutboxEvent event : due) {
+            String key = orderingKey(event);
+            if (failedKeys.contains(key)) {
+                continue;
+            }
+            try {
+                Boolean done = transactionTemplate.execute(status -> outboxRepository.findPendingByIdForUpdate(event.getId())
+                        .map(locked -> {
+                            deliver(handler, List.of(locked));
+                            return true;
+                        })
+                        .orElse(false));
+                if (Boolean.TRUE.equals(done)) {
+                    delivered++;
+                }
+            } catch (RuntimeException e) {
+                failedKeys.add(key);
+                recordFailure(handler.getName(), event.getId(), e);
+            }
+        }
+        return delivered;
+    }
+
+    /**
+     * 读取已到投递时间的事件，跳过车辆仍有更早事件在等待重试的部分
+     */
+    private List<OutboxEvent> fetchDue(String handlerName) {
+        Date now = new Date(clock.getAsLong());
+        List<OutboxEvent> due = outboxRepository.findDueForUpdate(handlerName, now, Limit.of(Math.max(batchSize, 1)));
+        if (due.isEmpty()) {
+            return due;
+        }
+        Map<String, Long> blockedFrom = new HashMap<>();
+        for (OutboxEvent waiting : outboxRepository.findBackingOff(handlerName, now)) {
+            blockedFrom.putIfAbsent(orderingKey(waiting), waiting.getId());
+        }
+        if (blockedFrom.isEmpty()) {
+            return due;
+        }
+        List<OutboxEvent> ready = new ArrayList<>(due.size());
+        for (OutboxEvent event : due) {
+            Long blockerId = blockedFrom.get(orderingKey(event));
+            if (blockerId == null || event.getId() < blockerId) {
+                ready.add(event);
+            }
+        }
+        return ready;
+    }
+
+    /**
+     * 在当前事务内处理并标记为已投递
+     */
+    private void deliver(ProjectionHandler handler, List<OutboxEvent> events) {
+        List<TransactionChangedEvent> changes = new ArrayList<>(events.size());
+        List<Long> ids = new ArrayList<>(events.size());
+        long oldest = Long.MAX_VALUE;
+        for (OutboxEvent event : events) {
+            changes.add(deserialize(event));
+            ids.add(event.getId());
+            oldest = Math.min(oldest, event.getCreatedAt().getTime());
+        }
+        handler.handle(changes);
+        long now = clock.getAsLong();
+        outboxRepository.markDone(ids, new Date(now));
+
+        HandlerMetrics m = metrics.get(handler.getName());
+        m.dispatched.addAndGet(events.size());
+        m.lastDispatchLagMillis = Math.max(now - oldest, 0);
+    }
+
+    /**
+     * 记录一次失败：推迟下次投递时间，达到最大次数后标记为 FAILED
+     */
+    private void recordFailure(String handlerName, Long id, RuntimeException cause) {
+        metrics.get(handlerName).retries.incrementAndGet();
+        try {
+            transactionTemplate.executeWithoutResult(status -> outboxRepository.findById(id).ifPresent(event -> {
+                int attempts = (event.getAttempts() != null ? event.getAttempts() : 0) + 1;
+                event.setAttempts(attempts);
+                event.setLastError(truncate(cause.getClass().getSimpleName() + ": " + cause.getMessage()));
+                if (attempts >= maxAttempts) {
+                    event.setStatus(OutboxEvent.FAILED);
+                    log.error("发件箱事件{}（{}）已失败{}次，停止投递：", id, handlerName, attempts, cause);
+                } else {
+                    long delay = backoffMillis(attempts);
+                    event.setNextAttemptAt(new Date(clock.getAsLong() + delay));
+                    log.warn("发件箱事件{}（{}）第{}次投递失败，{}毫秒后重试：{}",
+                            id, handlerName, attempts, delay, cause.getMessage());
+                }
+                outboxRepository.save(event);
+            }));
+        } catch (RuntimeException e) {
+            log.error("记录发件箱事件{}失败状态出错：", id, e);
+        }
+    }
+
+    /**
+     * 第 n 次失败后的等待时间：initial * 2^(n-1)，不超过上限
+     */
+    long backoffMillis(int attempts) {
+        int shift = Math.min(Math.max(attempts - 1, 0), 30);
+        return Math.min(initialBackoffMs << shift, maxBackoffMs);
+    }
+
+    /**
+     * 清理已投递的历史事件，默认每小时一次
+     */
+    @Scheduled(fixedDelayString = "${outbox.cleanup-interval-ms:3600000}", initialDelay = 60000)
+    public void purgeDispatched() {
+        try {
+            Date before = new Date(clock.getAsLong() - retentionMs);
+            Integer removed = transactionTemplate.execute(status -> outboxRepository.deleteDoneBefore(before));
+            if (removed != null && removed > 0) {
+                log.info("已清理{}条已投递的发件箱事件", removed);
+            }
+        } catch (Exception e) {
+            log.error("清理发件箱事件失败：", e);
+        }
+    }
+
+    /**
+     * 各处理器的投递统计
+     */
+    public List<OutboxStats> getStats() {
+        long now = clock.getAsLong();
+        Map<String, OutboxBacklog> pending = byHandler(outboxRepository.summarizeByStatus(OutboxEvent.PENDING));
+        Map<String, OutboxBacklog> failed = byHandler(outboxRepository.summarizeByStatus(OutboxEvent.FAILED));
+        List<OutboxStats> result = new ArrayList<>(handlers.size());
+        for (String name : handlers.keySet()) {
+            HandlerMetrics m = metrics.get(name);
+            OutboxBacklog p = pending.get(name);
+            OutboxBacklog f = failed.get(name);
+            OutboxStats stats = new OutboxStats();
+            stats.setHandler(name);
+            stats.setPending(p != null && p.getEventCount() != null ? p.getEventCount() : 0L);
+            stats.setFailed(f != null && f.getEventCount() != null ? f.getEventCount() : 0L);
+            stats.setLagMillis(p != null && p.getOldestCreatedAt() != null
+                    ? Math.max(now - p.getOldestCreatedAt().getTime(), 0) : 0L);
+            stats.setLastDispatchLagMillis(m.lastDispatchLagMillis);
+            stats.setDispatched(m.dispatched.get());
+            stats.setRetries(m.retries.get());
+            result.add(stats);
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    private Map<String, OutboxBacklog> byHandler(List<OutboxBacklog> rows) {
+        Map<String, OutboxBacklog> map = new HashMap<>();
+        for (OutboxBacklog row : rows) {
+            map.put(row.getHandler(), row);
+        }
+        return map;
+    }
+
+    private TransactionChangedEvent deserialize(OutboxEvent event) {
+        try {
+            return objectMapper.readValue(event.getPayload(), TransactionChangedEvent.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("发件箱事件" + event.getId() + "内容无法解析", e);
+        }
+    }
+
+    /**
+     * 顺序键：车辆ID；无车辆的事件互不约束
+     */
+    private static String orderingKey(OutboxEvent event) {
+        return event.getAggregateId() != null ? event.getAggregateId() : "#" + event.getId();
+    }
+
+    private static String truncate(String message) {
+        return message.length() <= MAX_ERROR_LENGTH ? message : message.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    /**
+     * 单个处理器的累计计数
+     */
+    private static final class HandlerMetrics {
+        private final AtomicLong dispatched = new AtomicLong();
+        private final AtomicLong retries = new AtomicLong();
+        private volatile long lastDispatchLagMillis;
+    }
+}
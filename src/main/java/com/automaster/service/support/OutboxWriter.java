@@ -0,0 +1,147 @@
+package com.automaster.service.support;
+
+import com.automaster.dto.CarSalePoint;
+import com.automaster.entity.Car;
+import com.automaster.entity.OutboxEvent;
+import com.automaster.entity.Transaction;
+import com.automaster.event.CarChangedEvent;
+import com.automaster.event.TransactionBatchChangedEvent;
+import com.automaster.event.TransactionChangedEvent;
+import com.automaster.repository.OutboxBatchRepository;
+import com.automaster.repository.TransactionRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 发件箱写入
+ * 交易变更时在业务事务提交前为每个投影处理器写入一行待投递事件，与业务数据一起提交或回滚
+ * 同一车辆的写入由车辆行锁串行化，事件自增ID即该车辆的变更顺序；
+ * 车辆成本价变更时为该车已有的销售写入冲正事件，投影按同一顺序修正利润
+ *
+ * @author AutoMaster Team
+ * @since 1.0.0
+ */
+@Component
+public class OutboxWriter {
+
+    /** 事件类型：交易变更 */
+    static final String TRANSACTION_CHANGED = "TransactionChanged";
+
+    private final OutboxBatchRepository outboxBatchRepository;
+    private final TransactionRepository transactionRepository;
+    private final List<ProjectionHandler> handlers;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public OutboxWriter(OutboxBatchRepository outboxBatchRepository,
+                        TransactionRepository transactionRepository,
+                        List<ProjectionHandler> handlers,
+                        ObjectMapper objectMapper,
+                        TransactionTemplate transactionTemplate) {
+        this.outboxBatchRepository = outboxBatchRepository;
+        this.transactionRepository = transactionRepository;
+        this.handlers = handlers;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * 单条交易变更（提交前执行，与业务写入处于同一事务；发布方没有事务时单独开启事务写入）
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onTransactionChanged(TransactionChangedEvent event) {
+        write(List.of(event));
+    }
+
+    /**
+     * 批量交易变更，一次 JDBC 批处理写入（提交前执行，与业务写入处于同一事务；发布方没有事务时单独开启事务写入）
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onTransactionsChanged(TransactionBatchChangedEvent event) {
+        write(event.getChanges());
+    }
+
+    /**
+     * 车辆成本价变更（含删除车辆）时，为该车每笔销售写入一对冲正事件：按原成本价撤销、按新成本价重新计入
+     * 销售额、订单数、定金相互抵消，只修正利润；品牌沿用变更前的品牌，与已写入的汇总行一致。
+     * 与业务写入处于同一事务，车辆行锁保证读取到的销售正是此前以原成本价写入发件箱的销售
+     * （车辆不存在或成本价为空时不计利润，与仪表盘计数器、区间营收索引口径一致）
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onCarChanged(CarChangedEvent event) {
+        Car before = event.getBefore();
+        if (before == null || handlers.isEmpty()) {
+            // 新增车辆尚无销售
+            return;
+        }
+        Integer beforeCost = before.getCostPrice();
+        Integer afterCost = event.getAfter() != null ? event.getAfter().getCostPrice() : null;
+        if (Objects.equals(beforeCost, afterCost)) {
+            return;
+        }
+        List<TransactionChangedEvent> changes = new ArrayList<>();
+        for (CarSalePoint point : transactionRepository.findSalePointsByCar(before.getId())) {
+            if (point.getPrice() == null || point.getDate() == null) {
+                // 没有成交价的销售不计利润，无需修正
+                continue;
+            }
+            Transaction sale = new Transaction();
+            sale.setCarId(before.getId());
+            sale.setType("Sale");
+            sale.setStatus(point.getStatus());
+            sale.setPrice(point.getPrice());
+            sale.setDate(point.getDate());
+            changes.add(new TransactionChangedEvent(sale, null, beforeCost, before.getMake()));
+            changes.add(new TransactionChangedEvent(null, sale, afterCost, before.getMake()));
+        }
+        write(changes);
+    }
+
+    private void write(List<TransactionChangedEvent> changes) {
+        if (handlers.isEmpty() || changes.isEmpty()) {
+            return;
+        }
+        Date now = new Date();
+        List<OutboxEvent> rows = new ArrayList<>(changes.size() * handlers.size());
+        for (TransactionChangedEvent change : changes) {
+            String payload = serialize(change);
+            Transaction tx = change.getAfter() != null ? change.getAfter() : change.getBefore();
+            for (ProjectionHandler handler : handlers) {
+                OutboxEvent row = new OutboxEvent();
+                row.setHandler(handler.getName());
+                row.setEventType(TRANSACTION_CHANGED);
+                row.setAggregateId(tx != null ? tx.getCarId() : null);
+                row.setPayload(payload);
+                row.setCreatedAt(now);
+                rows.add(row);
+            }
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            outboxBatchRepository.insertAll(rows);
+        } else {
+            // 发布方没有事务（fallbackExecution）：单独开启事务，整批事件一起提交或回滚
+            transactionTemplate.executeWithoutResult(status -> outboxBatchRepository.insertAll(rows));
+        }
+    }
+
+    private String serialize(TransactionChangedEvent change) {
+        try {
+            return objectMapper.writeValueAsString(change);
+        } catch (JsonProcessingException e) {
+            // 快照只含基本字段，序列化失败属于程序错误，回滚业务事务
+            throw new IllegalStateException("交易事件序列化失败", e);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.automaster.service.support;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 并行子查询执行器（有界线程池）
+ * 每个子查询在独立线程的只读事务中执行，各自从连接池获取连接；调用方按统一截止时间等待结果，
+ * 超时或失败的子查询记入降级列表，由调用方返回部分结果。
+ * 事务超时取开始执行时的剩余时间（向上取整到秒），由 Hibernate 设置到 JDBC Statement#setQueryTimeout，
+ * 超时后数据库端语句被终止、连接归还连接池；仅取消 Future 无法中断阻塞在 socket 读取上的 JDBC 调用
+ *
+ * @author AutoMaster Team
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+public class ParallelQueryExecutor implements DisposableBean {
+
+    /** 等待队列长度为线程数的倍数，超出时拒绝（视为该子查询失败） */
+    private static final int QUEUE_FACTOR = 4;
+
+    private final boolean enabled;
+    private final long timeoutMillis;
+    private final PlatformTransactionManager transactionManager;
+    private final ThreadPoolExecutor executor;
+
+    @Autowired
+    public ParallelQueryExecutor(@Value("${dashboard.stats.parallel.enabled:false}") boolean enabled,
+                                 @Value("${dashboard.stats.parallel.threads:8}") int threads,
+                                 @Value("${dashboard.stats.parallel.timeout-ms:2000}") long timeoutMillis,
+                                 PlatformTransactionManager transactionManager) {
+        this.enabled = enabled;
+        this.timeoutMillis = timeoutMillis;
+        this.transactionManager = transactionManager;
+        int poolSize = Math.max(threads, 1);
+        AtomicInteger threadNo = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(poolSize * QUEUE_FACTOR), runnable -> {
+                    Thread thread = new Thread(runnable, "parallel-query-" + threadNo.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 是否启用并行模式
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 单次并行查询的整体超时（毫秒）
+     */
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    /**
+     * 提交子查询（线程池已满时返回失败的 Future）
+     * 子查询在工作线程的只读事务中执行，查询超时为开始执行时距截止时间的剩余时间；
+     * 在队列中等待到截止时间之后才开始执行的子查询直接放弃，不再占用连接
+     *
+     * @param task          子查询
+     * @param deadlineNanos 截止时间（System.nanoTime）
+     */
+    public <T> Future<T> submit(Supplier<T> task, long deadlineNanos) {
+        try {
+            return executor.submit(() -> {
+                long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+                if (remainingMillis <= 0) {
+                    throw new TimeoutException("子查询开始执行前已超过截止时间");
+                }
+                TransactionTemplate template = new TransactionTemplate(transactionManager);
+                template.setReadOnly(true);
+                // JDBC 查询超时以秒为单位，不足1秒按1秒
+                template.setTimeout((int) Math.max((remainingMillis + 999) / 1000, 1));
+                return template.execute(status -> task.get());
+            });
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * 在截止时间前等待子查询结果，超时则取消
+     *
+     * @param future        子查询
+     * @param deadlineNanos 截止时间（System.nanoTime）
+     * @param part          子查询名称
+     * @param degradedParts 超时或失败时追加子查询名称
+     * @return 查询结果，超时或失败时为 null
+     */
+    public <T> T await(Future<T> future, long deadlineNanos, String part, List<String> degradedParts) {
+        try {
+            long remaining = Math.max(deadlineNanos - System.nanoTime(), 0);
+            return future.get(remaining, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            log.warn("并行子查询[{}]超过{}ms未返回，已降级", part, timeoutMillis);
+        } catch (ExecutionException e) {
+            log.error("并行子查询[{}]执行失败，已降级：", part, e.getCause());
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            log.warn("等待并行子查询[{}]时线程被中断，已降级", part);
+        }
+        degradedParts.add(part);
+        return null;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
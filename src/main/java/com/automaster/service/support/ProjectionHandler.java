@@ -0,0 +1,28 @@
+package com.automaster.service.support;
+
+import com.automaster.event.TransactionChangedEvent;
+
+import java.util.List;
+
+/**
+ * 交易事件投影处理器
+ * 交易写入时在同一事务内为每个处理器写入一行发件箱事件，由 {@link OutboxDispatcher} 异步分批投递：
+ * 1. 同一车辆的事件按写入顺序投递，前一条失败重试期间之后的事件暂停投递
+ * 2. 处理在投递事务内执行，与发件箱状态更新一起提交；抛出异常时整批回滚，之后逐条重试
+ * 3. 同一事件只会成功提交一次，处理器写入数据库时无需再去重
+ *
+ * @author AutoMaster Team
+ * @since 1.0.0
+ */
+public interface ProjectionHandler {
+
+    /**
+     * 处理器名称（写入发件箱的 handler 列，部署后不要修改，最长50个字符）
+     */
+    String getName();
+
+    /**
+     * 处理一批交易变更事件（按写入顺序）
+     */
+    void handle(List<TransactionChangedEvent> events);
+}
@@ -0,0 +1,199 @@
+package com.automaster.service.support;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * 由全量快照构建、之后由变更事件增量维护的内存索引基类
+ * 1. 构建失败（如启动时数据库不可用）不抛出，索引保持未就绪，由子类的定时任务重试
+ * 2. 增量在发布方事务提交后应用，提交前登记为在途变更（与 {@link DashboardStatsAccumulator} 一致）
+ * 3. 定时全量重建纠正增量丢失或重复计入造成的漂移：读取期间有增量写入或在途变更时放弃结果并重读，
+ *    最多 {@link #MAX_REBUILD_ATTEMPTS} 次；持续有写入时等在途变更应用完后持有写锁读取一次，保证每轮都能收敛
+ *
+ * @param <T> 全量快照类型
+ * @author AutoMaster Team
+ * @since 1.0.0
+ */
+@Slf4j
+public abstract class RebuildableIndex<T> {
+
+    /** 单轮重建因并发写入放弃结果后的最大重读次数，超过后持有写锁读取一次 */
+    static final int MAX_REBUILD_ATTEMPTS = 3;
+
+    /** 持有写锁读取前等待在途变更提交完成的最长时间（毫秒） */
+    static final long QUIESCE_TIMEOUT_MILLIS = 5000;
+
+    /** 查询共享读锁，增量更新/重建独占写锁 */
+    protected final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** 增量修改计数，重建时用于判断读取期间是否有并发写入 */
+    private final AtomicLong modifications = new AtomicLong();
+
+    /** 已进入提交阶段、增量尚未应用的变更数 */
+    private final AtomicLong inFlight = new AtomicLong();
+
+    /** 索引名称（用于日志） */
+    private final String name;
+
+    private volatile boolean ready = false;
+
+    protected RebuildableIndex(String name) {
+        this.name = name;
+    }
+
+    /**
+     * 读取全量快照（不持有锁，持续有写入时持有写锁调用）
+     */
+    protected abstract T readSnapshot();
+
+    /**
+     * 用全量快照覆盖索引（调用方持有写锁或处于单线程测试中）
+     */
+    protected abstract void load(T snapshot);
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 从数据库全量重建索引，失败时保留现有索引（尚未构建时保持未就绪）等待下一轮
+     *
+     * @return 是否完成覆盖
+     */
+    public boolean rebuild() {
+        try {
+            boolean wasReady = ready;
+            boolean applied = doRebuild();
+            if (applied && !wasReady) {
+                log.info("{}构建完成", name);
+            }
+            return applied;
+        } catch (RuntimeException e) {
+            log.error("{}重建失败：", name, e);
+            return false;
+        }
+    }
+
+    private boolean doRebuild() {
+        for (int attempt = 1; attempt <= MAX_REBUILD_ATTEMPTS; attempt++) {
+            long version = modifications.get();
+            T snapshot = readSnapshot();
+            lock.writeLock().lock();
+            try {
+                // 读取期间有写入时，快照可能缺少或已包含这些写入；有在途变更时快照可能已包含尚未应用的增量
+                if (modifications.get() == version && inFlight.get() == 0) {
+                    replace(snapshot);
+                    return true;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.debug("{}重建期间存在并发写入，放弃第{}次读取结果", name, attempt);
+        }
+
+        log.warn("{}重建连续{}次遇到并发写入，持有写锁重新读取", name, MAX_REBUILD_ATTEMPTS);
+        if (!lockQuiescent()) {
+            log.warn("等待在途变更超时，跳过本轮{}重建", name);
+            return false;
+        }
+        try {
+            replace(readSnapshot());
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void replace(T snapshot) {
+        load(snapshot);
+        ready = true;
+    }
+
+    /**
+     * 在发布方事务提交后应用增量（未开启事务时立即应用），索引尚未就绪时丢弃增量（由构建读取）
+     * 提交前登记为在途变更（需获取读锁，重建持有写锁读取期间等待），增量应用后、事务结束时注销
+     *
+     * @param prepare 提交后执行，返回在写锁内应用的增量（可在此读取数据库）
+     */
+    protected void afterCommit(Supplier<Runnable> prepare) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            applyDelta(prepare.get());
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+            private boolean registered;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                lock.readLock().lock();
+                try {
+                    inFlight.incrementAndGet();
+                    registered = true;
+                } finally {
+                    lock.readLock().unlock();
+                }
+            }
+
+            @Override
+            public void afterCommit() {
+                try {
+                    applyDelta(prepare.get());
+                } catch (RuntimeException e) {
+                    // 增量丢失由下一轮重建纠正，不影响已提交的业务
+                    log.error("{}增量更新失败：", name, e);
+                }
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (registered) {
+                    inFlight.decrementAndGet();
+                }
+            }
+        });
+    }
+
+    private void applyDelta(Runnable delta) {
+        lock.writeLock().lock();
+        try {
+            modifications.incrementAndGet();
+            if (ready) {
+                delta.run();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 获取写锁，且此时没有在途变更（新的提交登记需要读锁，持有写锁期间不会出现新的在途变更）
+     *
+     * @return 是否获取成功（等待超时或被中断时返回 false，不持有写锁）
+     */
+    private boolean lockQuiescent() {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(QUIESCE_TIMEOUT_MILLIS);
+        while (true) {
+            lock.writeLock().lock();
+            if (inFlight.get() == 0) {
+                return true;
+            }
+            lock.writeLock().unlock();
+            if (System.nanoTime() >= deadline) {
+                return false;
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+}
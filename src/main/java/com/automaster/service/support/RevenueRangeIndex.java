@@ -0,0 +1,315 @@
+package com.automaster.service.support;
+
+import com.automaster.dto.CarSalePoint;
+import com.automaster.dto.RangeSummary;
+import com.automaster.dto.SaleProfitPoint;
+import com.automaster.entity.Car;
+import com.automaster.entity.Transaction;
+import com.automaster.event.CarChangedEvent;
+import com.automaster.event.TransactionBatchChangedEvent;
+import com.automaster.event.TransactionChangedEvent;
+import com.automaster.repository.TransactionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 按天的区间营收索引（树状数组 / Fenwick Tree）
+ * 启动时从交易表构建，之后由交易变更事件单点更新（车辆成本价变更时修正该车销售所在日期的利润），
+ * 并定时全量重建纠正漂移（见 {@link RebuildableIndex}），任意日期区间的销售额/利润/订单数查询为 O(log n)
+ *
+ * 统计口径：已完成销售（Sale 类型且状态不是 PENDING），按服务器时区切分日期
+ *
+ * @author AutoMaster Team
+ * @since 1.0.0
+ */
+@Component
+public class RevenueRangeIndex extends RebuildableIndex<List<SaleProfitPoint>> {
+
+    /** 扩容时在新日期之外预留的天数，避免逐日扩容 */
+    static final int GROW_PADDING_DAYS = 366;
+
+    private final TransactionRepository transactionRepository;
+    private final ZoneId zoneId = ZoneId.systemDefault();
+
+    /** 索引第 1 个位置对应的日期（epoch day） */
+    private long baseDay;
+
+    /** 索引覆盖的天数 */
+    private int capacity;
+
+    /** 每日原始值（扩容时据此重建树） */
+    private long[] dailyRevenue = new long[0];
+    private long[] dailyProfit = new long[0];
+    private long[] dailyCount = new long[0];
+
+    /** 树状数组（下标从 1 开始） */
+    private long[] revenueTree = new long[1];
+    private long[] profitTree = new long[1];
+    private long[] countTree = new long[1];
+
+    @Autowired
+    public RevenueRangeIndex(TransactionRepository transactionRepository) {
+        super("区间营收索引");
+        this.transactionRepository = transactionRepository;
+    }
+
+    /**
+     * 应用启动完成后从交易表构建索引（失败不影响启动，由定时任务重试）
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        rebuild();
+    }
+
+    /**
+     * 尚未构建完成时定时重试（默认每30秒）
+     */
+    @Scheduled(fixedDelayString = "${dashboard.range-index.retry-interval-ms:30000}",
+            initialDelayString = "${dashboard.range-index.retry-interval-ms:30000}")
+    public void retryBuild() {
+        if (!isReady()) {
+            rebuild();
+        }
+    }
+
+    /**
+     * 定时全量重建，纠正增量丢失或重复计入（默认每10分钟）
+     */
+    @Scheduled(fixedDelayString = "${dashboard.range-index.rebuild-interval-ms:600000}",
+            initialDelayString = "${dashboard.range-index.rebuild-interval-ms:600000}")
+    public void reconcile() {
+        rebuild();
+    }
+
+    @Override
+    protected List<SaleProfitPoint> readSnapshot() {
+        return transactionRepository.findCompletedSaleProfitPoints();
+    }
+
+    /**
+     * 交易变更时单点更新（提交后执行，未开启事务时立即执行）
+     */
+    @EventListener
+    public void onTransactionChanged(TransactionChangedEvent event) {
+        afterCommit(() -> () -> {
+            apply(event.getBefore(), event.getCarCostPrice(), -1);
+            apply(event.getAfter(), event.getCarCostPrice(), 1);
+        });
+    }
+
+    /**
+     * 交易批量变更时逐条单点更新（提交后执行，整批只加一次锁）
+     */
+    @EventListener
+    public void onTransactionsChanged(TransactionBatchChangedEvent event) {
+        afterCommit(() -> () -> {
+            for (TransactionChangedEvent change : event.getChanges()) {
+                apply(change.getBefore(), change.getCarCostPrice(), -1);
+                apply(change.getAfter(), change.getCarCostPrice(), 1);
+            }
+        });
+    }
+
+    /**
+     * 车辆成本价变更（含删除车辆）时修正该车已完成销售所在日期的利润（提交后执行，未开启事务时立即执行）
+     * 与构建口径一致：车辆不存在或成本价为空时该笔销售不计利润
+     */
+    @EventListener
+    public void onCarChanged(CarChangedEvent event) {
+        Car before = event.getBefore();
+        if (before == null) {
+            // 新增车辆尚无销售
+            return;
+        }
+        Integer beforeCost = before.getCostPrice();
+        Integer afterCost = event.getAfter() != null ? event.getAfter().getCostPrice() : null;
+        if (Objects.equals(beforeCost, afterCost)) {
+            return;
+        }
+        afterCommit(() -> {
+            List<CarSalePoint> sales = transactionRepository.findSalePointsByCar(before.getId());
+            return () -> {
+                for (CarSalePoint sale : sales) {
+                    if (sale.getPrice() == null || sale.getDate() == null || "PENDING".equals(sale.getStatus())) {
+                        continue;
+                    }
+                    long delta = profitOf(sale.getPrice(), afterCost) - profitOf(sale.getPrice(), beforeCost);
+                    long day = toEpochDay(sale.getDate());
+                    ensureCovers(day);
+                    int offset = (int) (day - baseDay);
+                    dailyProfit[offset] += delta;
+                    add(profitTree, offset + 1, delta);
+                }
+            };
+        });
+    }
+
+    public ZoneId getZoneId() {
+        return zoneId;
+    }
+
+    /**
+     * 查询日期区间 [from, to]（均包含）内的已完成销售汇总
+     *
+     * @throws IllegalStateException 索引尚未构建完成
+     */
+    public RangeSummary query(LocalDate from, LocalDate to) {
+        if (!isReady()) {
+            throw new IllegalStateException("区间营收索引尚未构建完成");
+        }
+        lock.readLock().lock();
+        try {
+            // 转换为树下标并裁剪到索引覆盖范围（超出范围的日期没有数据）
+            long lo = Math.max(from.toEpochDay() - baseDay + 1, 1);
+            long hi = Math.min(to.toEpochDay() - baseDay + 1, capacity);
+            RangeSummary summary = new RangeSummary(from, to, 0L, 0L, 0L);
+            if (lo > hi) {
+                return summary;
+            }
+            summary.setRevenue(prefixSum(revenueTree, (int) hi) - prefixSum(revenueTree, (int) lo - 1));
+            summary.setProfit(prefixSum(profitTree, (int) hi) - prefixSum(profitTree, (int) lo - 1));
+            summary.setSalesCount(prefixSum(countTree, (int) hi) - prefixSum(countTree, (int) lo - 1));
+            return summary;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 用全量销售数据重建索引（调用方持有写锁或处于单线程测试中）
+     */
+    @Override
+    protected void load(List<SaleProfitPoint> points) {
+        long minDay = Long.MAX_VALUE;
+        long maxDay = Long.MIN_VALUE;
+        for (SaleProfitPoint point : points) {
+            if (point.getDate() == null) {
+                continue;
+            }
+            long day = toEpochDay(point.getDate());
+            minDay = Math.min(minDay, day);
+            maxDay = Math.max(maxDay, day);
+        }
+        if (minDay == Long.MAX_VALUE) {
+            // 暂无销售数据，以今天为起点预留一段范围
+            minDay = LocalDate.now(zoneId).toEpochDay();
+            maxDay = minDay;
+        }
+
+        baseDay = minDay;
+        capacity = (int) (maxDay - minDay + 1) + GROW_PADDING_DAYS;
+        dailyRevenue = new long[capacity];
+        dailyProfit = new long[capacity];
+        dailyCount = new long[capacity];
+        for (SaleProfitPoint point : points) {
+            if (point.getDate() == null) {
+                continue;
+            }
+            int offset = (int) (toEpochDay(point.getDate()) - baseDay);
+            long price = point.getPrice() != null ? point.getPrice() : 0L;
+            dailyRevenue[offset] += price;
+            if (point.getPrice() != null && point.getCostPrice() != null) {
+                dailyProfit[offset] += price - point.getCostPrice();
+            }
+            dailyCount[offset]++;
+        }
+        rebuildTrees();
+    }
+
+    private void apply(Transaction tx, Integer carCostPrice, int sign) {
+        if (tx == null || !"Sale".equals(tx.getType()) || "PENDING".equals(tx.getStatus()) || tx.getDate() == null) {
+            return;
+        }
+        long day = toEpochDay(tx.getDate());
+        ensureCovers(day);
+        int offset = (int) (day - baseDay);
+        long price = tx.getPrice() != null ? tx.getPrice() : 0L;
+        long profit = (tx.getPrice() != null && carCostPrice != null) ? price - carCostPrice : 0L;
+
+        dailyRevenue[offset] += sign * price;
+        dailyProfit[offset] += sign * profit;
+        dailyCount[offset] += sign;
+        add(revenueTree, offset + 1, sign * price);
+        add(profitTree, offset + 1, sign * profit);
+        add(countTree, offset + 1, sign);
+    }
+
+    private static long profitOf(int price, Integer costPrice) {
+        return costPrice != null ? (long) price - costPrice : 0L;
+    }
+
+    /**
+     * 日期超出当前覆盖范围时扩容（按原始值 O(n) 重建树）
+     */
+    private void ensureCovers(long day) {
+        long endDay = baseDay + capacity - 1;
+        if (day >= baseDay && day <= endDay) {
+            return;
+        }
+        long newBase = day < baseDay ? day - GROW_PADDING_DAYS : baseDay;
+        long newEnd = day > endDay ? day + GROW_PADDING_DAYS : endDay;
+        int newCapacity = (int) (newEnd - newBase + 1);
+        int shift = (int) (baseDay - newBase);
+
+        dailyRevenue = regrow(dailyRevenue, newCapacity, shift);
+        dailyProfit = regrow(dailyProfit, newCapacity, shift);
+        dailyCount = regrow(dailyCount, newCapacity, shift);
+        baseDay = newBase;
+        capacity = newCapacity;
+        rebuildTrees();
+    }
+
+    private void rebuildTrees() {
+        revenueTree = buildTree(dailyRevenue);
+        profitTree = buildTree(dailyProfit);
+        countTree = buildTree(dailyCount);
+    }
+
+    private long toEpochDay(Date date) {
+        return date.toInstant().atZone(zoneId).toLocalDate().toEpochDay();
+    }
+
+    private static long[] regrow(long[] values, int newCapacity, int shift) {
+        long[] grown = new long[newCapacity];
+        System.arraycopy(values, 0, grown, shift, values.length);
+        return grown;
+    }
+
+    /**
+     * O(n) 构建树状数组：每个节点把自身累计值传递给父节点
+     */
+    static long[] buildTree(long[] values) {
+        long[] tree = new long[values.length + 1];
+        for (int i = 1; i <= values.length; i++) {
+            tree[i] += values[i - 1];
+            int parent = i + (i & -i);
+            if (parent <= values.length) {
+                tree[parent] += tree[i];
+            }
+        }
+        return tree;
+    }
+
+    static void add(long[] tree, int index, long delta) {
+        for (int i = index; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    static long prefixSum(long[] tree, int index) {
+        long sum = 0;
+        for (int i = index; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+}
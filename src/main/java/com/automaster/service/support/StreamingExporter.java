@@ -0,0 +1,137 @@
+package com.automaster.service.support;
+
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * 流式导出（xlsx / csv / csv.gz）
+ * 在只读事务内逐行消费数据库游标，按批交给对应格式的 {@link ExportRowWriter} 写出到响应或文件输出流；
+ * 每批写完后清空持久化上下文，内存占用与导出行数无关
+ *
+ * @author AutoMaster Team
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+public class StreamingExporter {
+
+    /** 每批行数（与游标 fetch size 一致） */
+    static final int CHUNK_SIZE = 500;
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    @Autowired
+    public StreamingExporter(EntityManager entityManager, PlatformTransactionManager transactionManager) {
+        this(entityManager, transactionManager, CHUNK_SIZE);
+    }
+
+    StreamingExporter(EntityManager entityManager, PlatformTransactionManager transactionManager, int chunkSize) {
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.chunkSize = Math.max(chunkSize, 1);
+    }
+
+    /**
+     * 生成流式输出的导出内容
+     *
+     * @param format   导出格式
+     * @param name     导出名称（xlsx 工作表名称，同时用于日志）
+     * @param columns  导出列
+     * @param source   数据流（在写出时于只读事务内打开，写完后关闭）
+     * @param enricher 每批写出前的填充处理（如关联车辆/客户），可为 null
+     * @param progress 进度回调（参数为累计已写出的数据行数），可为 null
+     * @return 响应体（也可直接写到文件输出流）
+     */
+    public <T> StreamingResponseBody export(ExportFormat format, String name, List<ExportColumn<T>> columns,
+                                            Supplier<Stream<T>> source, Consumer<List<T>> enricher,
+                                            LongConsumer progress) {
+        return out -> {
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                        write(format, name, columns, source, enricher, progress, out));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+    }
+
+    private <T> void write(ExportFormat format, String name, List<ExportColumn<T>> columns, Supplier<Stream<T>> source,
+                           Consumer<List<T>> enricher, LongConsumer progress, OutputStream out) {
+        long started = System.currentTimeMillis();
+        long rows = 0;
+        try (ExportRowWriter<T> writer = newWriter(format, name, columns, out);
+             Stream<T> stream = source.get()) {
+            writer.writeHeader();
+            List<T> chunk = new ArrayList<>(chunkSize);
+            Iterator<T> it = stream.iterator();
+            while (it.hasNext()) {
+                chunk.add(it.next());
+                if (chunk.size() == chunkSize) {
+                    rows += writeChunk(writer, chunk, enricher);
+                    report(progress, rows);
+                }
+            }
+            rows += writeChunk(writer, chunk, enricher);
+            report(progress, rows);
+            writer.finish();
+            log.info("导出{}（{}）完成：{}行，耗时{}毫秒", name, format.getExtension(), rows,
+                    System.currentTimeMillis() - started);
+        } catch (IOException e) {
+            // 客户端断开等写出失败，结束事务并关闭游标
+            log.warn("导出{}（{}）中断，已处理{}行：{}", name, format.getExtension(), rows, e.getMessage());
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private <T> ExportRowWriter<T> newWriter(ExportFormat format, String name, List<ExportColumn<T>> columns,
+                                             OutputStream out) throws IOException {
+        return switch (format) {
+            case XLSX -> new XlsxRowWriter<>(name, columns, out);
+            case CSV -> new CsvRowWriter<>(columns, out, false);
+            case CSV_GZ -> new CsvRowWriter<>(columns, out, true);
+        };
+    }
+
+    private <T> int writeChunk(ExportRowWriter<T> writer, List<T> chunk, Consumer<List<T>> enricher)
+            throws IOException {
+        if (chunk.isEmpty()) {
+            return 0;
+        }
+        if (enricher != null) {
+            enricher.accept(chunk);
+        }
+        for (T item : chunk) {
+            writer.writeRow(item);
+        }
+        int written = chunk.size();
+        chunk.clear();
+        // 已写出的实体不再需要，清空持久化上下文
+        entityManager.clear();
+        return written;
+    }
+
+    private static void report(LongConsumer progress, long rows) {
+        if (progress != null) {
+            progress.accept(rows);
+        }
+    }
+}
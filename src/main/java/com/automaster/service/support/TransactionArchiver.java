@@ -0,0 +1,176 @@
+package com.automaster.service.support;
+
+import com.automaster.entity.BatchJobCheckpoint;
+import com.automaster.entity.Transaction;
+import com.automaster.repository.ArchivedTransactionRepository;
+import com.automaster.repository.BatchJobCheckpointRepository;
+import com.automaster.repository.TransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 历史交易归档任务
+ * 将早于保留期限的已完成交易从 transactions 表迁入 transactions_archive 表，控制在用表的规模：
+ * 1. 按 (date, id) 正序分批，每批在一个事务内 复制 → 删除 → 记录断点，中断后从断点继续
+ * 2. 批次之间暂停，单次运行的批次数有上限，避免长时间占用数据库
+ * 3. 一轮扫描到末尾后清除断点，下次运行从头扫描（已迁走的行不会再出现，补录的旧交易也能被归档）
+ *
+ * 仪表盘累计指标（销售额、利润、区间营收）同时统计归档表，归档不改变统计结果；
+ * 多条件查询、导出、列表默认只读在用数据，归档数据需显式查询
+ *
+ * @author AutoMaster Team
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+public class TransactionArchiver {
+
+    /** 断点名称，断点值为最后一条已归档交易的 (date, id) 游标 */
+    static final String ARCHIVE_JOB = "transaction_archive";
+
+    private final TransactionRepository transactionRepository;
+    private final ArchivedTransactionRepository archivedTransactionRepository;
+    private final BatchJobCheckpointRepository checkpointRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    /** 是否启用归档 */
+    @Value("${archive.enabled:false}")
+    private boolean enabled = false;
+
+    /** 保留期限（天），早于该期限的已完成交易会被归档 */
+    @Value("${archive.horizon-days:730}")
+    private int horizonDays = 730;
+
+    /** 每批迁移条数 */
+    @Value("${archive.batch-size:500}")
+    private int batchSize = 500;
+
+    /** 批次之间暂停（毫秒） */
+    @Value("${archive.pause-ms:200}")
+    private long pauseMillis = 200;
+
+    /** 单次运行最多批次数，其余留到下次运行 */
+    @Value("${archive.max-batches-per-run:200}")
+    private int maxBatchesPerRun = 200;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    @Autowired
+    public TransactionArchiver(TransactionRepository transactionRepository,
+                               ArchivedTransactionRepository archivedTransactionRepository,
+                               BatchJobCheckpointRepository checkpointRepository,
+                               TransactionTemplate transactionTemplate) {
+        this.transactionRepository = transactionRepository;
+        this.archivedTransactionRepository = archivedTransactionRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * 定时归档（默认每小时检查一次）
+     */
+    @Scheduled(fixedDelayString = "${archive.interval-ms:3600000}", initialDelay = 120000)
+    public void scheduledArchive() {
+        if (enabled) {
+            archive();
+        }
+    }
+
+    /**
+     * 执行一次归档（已有归档在运行时直接返回）
+     *
+     * @return 本次归档的交易数
+     */
+    public int archive() {
+        if (!running.compareAndSet(false, true)) {
+            return 0;
+        }
+        int archived = 0;
+        try {
+            Date cutoff = new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(horizonDays));
+            KeysetCursor cursor = loadCheckpoint();
+            for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+                KeysetCursor after = cursor;
+                List<Transaction> rows = transactionTemplate.execute(status -> moveBatch(cutoff, after));
+                int moved = rows != null ? rows.size() : 0;
+                archived += moved;
+                if (moved < Math.max(batchSize, 1)) {
+                    // 扫描到末尾，下次运行从头开始
+                    transactionTemplate.executeWithoutResult(status -> saveCheckpoint(null));
+                    break;
+                }
+                Transaction last = rows.get(moved - 1);
+                cursor = new KeysetCursor(last.getDate(), last.getId());
+                if (pauseMillis > 0) {
+                    Thread.sleep(pauseMillis);
+                }
+            }
+            if (archived > 0) {
+                log.info("已归档{}条早于{}的交易", archived, cutoff);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("交易归档被中断，已归档{}条，下次从断点继续", archived);
+        } catch (Exception e) {
+            log.error("交易归档失败，已归档{}条，下次从断点继续：", archived, e);
+        } finally {
+            running.set(false);
+        }
+        return archived;
+    }
+
+    /**
+     * 迁移一批（在事务内执行）：复制到归档表、从交易表删除、记录断点
+     */
+    private List<Transaction> moveBatch(Date cutoff, KeysetCursor after) {
+        Limit limit = Limit.of(Math.max(batchSize, 1));
+        List<Transaction> rows = after == null
+                ? transactionRepository.findArchivable(cutoff, limit)
+                : transactionRepository.findArchivableAfter(cutoff, after.getDate(), after.getId(), limit);
+        if (rows.isEmpty()) {
+            return rows;
+        }
+        List<String> ids = new ArrayList<>(rows.size());
+        for (Transaction row : rows) {
+            ids.add(row.getId());
+        }
+        int copied = archivedTransactionRepository.copyFromTransactions(ids, new Date());
+        int deleted = transactionRepository.deleteAllByIdIn(ids);
+        if (copied != ids.size() || deleted != ids.size()) {
+            // 期间有交易被并发删除，整批回滚，下次重试
+            throw new IllegalStateException("归档行数不一致：待归档" + ids.size() + "条，复制" + copied + "条，删除" + deleted + "条");
+        }
+        Transaction last = rows.get(rows.size() - 1);
+        saveCheckpoint(new KeysetCursor(last.getDate(), last.getId()));
+        return rows;
+    }
+
+    private KeysetCursor loadCheckpoint() {
+        return checkpointRepository.findById(ARCHIVE_JOB)
+                .map(BatchJobCheckpoint::getCheckpoint)
+                .filter(value -> !value.isEmpty())
+                .map(KeysetCursor::decode)
+                .orElse(null);
+    }
+
+    private void saveCheckpoint(KeysetCursor cursor) {
+        BatchJobCheckpoint checkpoint = checkpointRepository.findById(ARCHIVE_JOB).orElseGet(() -> {
+            BatchJobCheckpoint created = new BatchJobCheckpoint();
+            created.setJobName(ARCHIVE_JOB);
+            return created;
+        });
+        checkpoint.setCheckpoint(cursor != null ? cursor.encode() : null);
+        checkpointRepository.save(checkpoint);
+    }
+}
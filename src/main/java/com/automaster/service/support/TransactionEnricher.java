@@ -0,0 +1,89 @@
+package com.automaster.service.support;
+
+import com.automaster.entity.Car;
+import com.automaster.entity.Customer;
+import com.automaster.entity.Transaction;
+import com.automaster.repository.CarRepository;
+import com.automaster.repository.CustomerRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * 交易订单关联信息批量填充
+ * 收集去重后的车辆ID/客户ID，按批次 IN 查询后从 Map 回填 @Transient 的 car/customer 字段，
+ * 查询次数为 2 × ⌈去重ID数 / 批次大小⌉，与交易条数无关
+ *
+ * @author AutoMaster Team
+ * @since 1.0.0
+ */
+@Component
+public class TransactionEnricher {
+
+    /** 单次 IN 查询的最大ID数 */
+    static final int BATCH_SIZE = 500;
+
+    private final CarRepository carRepository;
+    private final CustomerRepository customerRepository;
+
+    @Autowired
+    public TransactionEnricher(CarRepository carRepository, CustomerRepository customerRepository) {
+        this.carRepository = carRepository;
+        this.customerRepository = customerRepository;
+    }
+
+    /**
+     * 为交易列表填充车辆和客户信息（关联记录不存在时保持为空）
+     */
+    public void enrich(Collection<Transaction> transactions) {
+        if (transactions == null || transactions.isEmpty()) {
+            return;
+        }
+        Set<String> carIds = new LinkedHashSet<>();
+        Set<String> customerIds = new LinkedHashSet<>();
+        for (Transaction t : transactions) {
+            if (t.getCarId() != null) {
+                carIds.add(t.getCarId());
+            }
+            if (t.getCustomerId() != null) {
+                customerIds.add(t.getCustomerId());
+            }
+        }
+
+        Map<String, Car> cars = loadInBatches(carIds, carRepository::findAllById, Car::getId);
+        Map<String, Customer> customers = loadInBatches(customerIds, customerRepository::findAllById, Customer::getId);
+        for (Transaction t : transactions) {
+            if (t.getCarId() != null) {
+                t.setCar(cars.get(t.getCarId()));
+            }
+            if (t.getCustomerId() != null) {
+                t.setCustomer(customers.get(t.getCustomerId()));
+            }
+        }
+    }
+
+    private static <T> Map<String, T> loadInBatches(Set<String> ids, Function<List<String>, List<T>> loader,
+                                                    Function<T, String> idGetter) {
+        Map<String, T> result = new HashMap<>();
+        List<String> batch = new ArrayList<>(Math.min(ids.size(), BATCH_SIZE));
+        for (String id : ids) {
+            batch.add(id);
+            if (batch.size() == BATCH_SIZE) {
+                loader.apply(batch).forEach(entity -> result.put(idGetter.apply(entity), entity));
+                batch = new ArrayList<>(BATCH_SIZE);
+            }
+        }
+        if (!batch.isEmpty()) {
+            loader.apply(batch).forEach(entity -> result.put(idGetter.apply(entity), entity));
+        }
+        return result;
+    }
+}
@@ -160,6 +160,116 @@ CREATE TABLE `system_logs` (
     KEY `idx_created_at` (`created_at`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='系统日志表';
 
+-- ============================================
+-- 6. 每日销售汇总表（daily_sales_rollup）
+-- 用途：按 日期 + 品牌 汇总 Sale 类型交易，供仪表盘趋势、日期区间统计读取
+-- 维护方式：
+-- - 交易新增/完成/删除时写入发件箱（outbox_events），由后台投递任务增量累加
+-- - 后台补数任务按天从 transactions 表重建，断点记录在 batch_job_checkpoints
+-- ============================================
+DROP TABLE IF EXISTS `daily_sales_rollup`;
+CREATE TABLE `daily_sales_rollup` (
+    `id` BIGINT NOT NULL AUTO_INCREMENT COMMENT '主键（自增）',
+    `sales_date` DATE NOT NULL COMMENT '销售日期（服务器时区）',
+    `make` VARCHAR(50) NOT NULL COMMENT '车辆品牌（车辆已删除时为“未知”）',
+    `revenue` BIGINT NOT NULL DEFAULT 0 COMMENT '销售额合计（单位：元）',
+    `profit` BIGINT NOT NULL DEFAULT 0 COMMENT '利润合计（单位：元）',
+    `sales_count` INT NOT NULL DEFAULT 0 COMMENT '销售订单数',
+    `deposit_total` BIGINT NOT NULL DEFAULT 0 COMMENT '定金合计（单位：元）',
+    `updated_at` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    PRIMARY KEY (`id`),
+    UNIQUE KEY `uk_sales_date_make` (`sales_date`, `make`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='每日销售汇总表';
+
+-- ============================================
+-- 7. 批处理任务断点表（batch_job_checkpoints）
+-- 用途：记录后台批处理任务进度，任务中断后从断点继续
+-- ============================================
+DROP TABLE IF EXISTS `batch_job_checkpoints`;
+CREATE TABLE `batch_job_checkpoints` (
+    `job_name` VARCHAR(100) NOT NULL COMMENT '任务名称',
+    `checkpoint` VARCHAR(200) DEFAULT NULL COMMENT '断点值（如最后完成的日期）',
+    `updated_at` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    PRIMARY KEY (`job_name`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='批处理任务断点表';
+
+-- ============================================
+-- 8. 幂等键表（idempotency_keys）
+-- 用途：保存带 Idempotency-Key 请求头的写接口响应，重试请求直接回放（idempotency.persistent.enabled=true 时使用）
+-- 过期记录由应用定时清理
+-- ============================================
+DROP TABLE IF EXISTS `idempotency_keys`;
+CREATE TABLE `idempotency_keys` (
+    `idempotency_key` VARCHAR(200) NOT NULL COMMENT '幂等键（接口范围 + 客户端传入的键）',
+    `fingerprint` VARCHAR(64) NOT NULL COMMENT '请求参数摘要（SHA-256）',
+    `status_code` INT NOT NULL COMMENT '响应状态码',
+    `response_body` MEDIUMTEXT DEFAULT NULL COMMENT '响应体（JSON）',
+    `created_at` DATETIME NOT NULL COMMENT '创建时间',
+    `expires_at` DATETIME NOT NULL COMMENT '过期时间',
+    PRIMARY KEY (`idempotency_key`),
+    KEY `idx_expires_at` (`expires_at`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='幂等键表';
+
+-- ============================================
+-- 9. 交易订单归档表（transactions_archive）
+-- 用途：保存早于保留期限（archive.horizon-days）的已完成交易，字段与 transactions 一致
+-- 维护方式：归档任务按 (date, id) 分批从 transactions 整行迁入，断点记录在 batch_job_checkpoints
+-- 说明：
+-- - 未使用按 date 的分区表：MySQL 分区表不支持外键，而 transactions 依赖外键约束
+-- - 不设外键，车辆/客户删除后归档记录保留原ID
+-- - 仪表盘累计指标同时统计本表；列表、多条件查询、导出默认不读取本表
+-- ============================================
+DROP TABLE IF EXISTS `transactions_archive`;
+CREATE TABLE `transactions_archive` (
+    `id` VARCHAR(36) NOT NULL COMMENT '交易ID（沿用原交易ID）',
+    `car_id` VARCHAR(36) NOT NULL COMMENT '关联车辆ID',
+    `customer_id` VARCHAR(36) NOT NULL COMMENT '关联客户ID',
+    `price` INT NOT NULL COMMENT '成交价（单位：元）',
+    `date` DATETIME NOT NULL COMMENT '交易日期',
+    `type` VARCHAR(20) NOT NULL COMMENT '交易类型：Sale-销售，Purchase-收购',
+    `handled_by_user_id` VARCHAR(36) DEFAULT NULL COMMENT '经手人ID',
+    `status` VARCHAR(20) DEFAULT NULL COMMENT '交易状态',
+    `deposit` INT DEFAULT NULL COMMENT '定金金额（单位：元）',
+    `final_price` INT DEFAULT NULL COMMENT '最终成交价（单位：元）',
+    `payment_method` VARCHAR(50) DEFAULT NULL COMMENT '支付方式',
+    `profit` INT DEFAULT NULL COMMENT '利润（单位：元）',
+    `notes` TEXT DEFAULT NULL COMMENT '交易备注',
+    `created_at` DATETIME DEFAULT NULL COMMENT '创建时间',
+    `updated_at` DATETIME DEFAULT NULL COMMENT '更新时间',
+    `archived_at` DATETIME NOT NULL COMMENT '归档时间',
+    PRIMARY KEY (`id`),
+    KEY `idx_car_id` (`car_id`),
+    KEY `idx_customer_id` (`customer_id`),
+    KEY `idx_status` (`status`),
+    KEY `idx_date` (`date`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='交易订单归档表';
+
+-- ============================================
+-- 10. 交易事件发件箱表（outbox_events）
+-- 用途：交易写入时在同一事务内为每个投影处理器写入一行事件，后台任务按 id 顺序异步分批投递
+-- 说明：
+-- - 同一车辆（aggregate_id）的事件按写入顺序投递，前一条失败重试期间之后的事件暂停投递
+-- - 失败按指数退避重试，超过 outbox.max-attempts 次标记为 FAILED，人工处理后改回 PENDING 即可重新投递
+-- - 已投递（DONE）的事件保留 outbox.retention-ms 后由应用定时清理
+-- ============================================
+DROP TABLE IF EXISTS `outbox_events`;
+CREATE TABLE `outbox_events` (
+    `id` BIGINT NOT NULL AUTO_INCREMENT COMMENT '主键（自增，即投递顺序）',
+    `handler` VARCHAR(50) NOT NULL COMMENT '投影处理器名称',
+    `event_type` VARCHAR(50) NOT NULL COMMENT '事件类型',
+    `aggregate_id` VARCHAR(36) DEFAULT NULL COMMENT '顺序键（车辆ID）',
+    `payload` MEDIUMTEXT NOT NULL COMMENT '事件内容（JSON）',
+    `status` VARCHAR(20) NOT NULL COMMENT '状态：PENDING-待投递，DONE-已投递，FAILED-停止投递',
+    `attempts` INT NOT NULL DEFAULT 0 COMMENT '已失败次数',
+    `next_attempt_at` DATETIME NOT NULL COMMENT '下次可投递时间',
+    `last_error` VARCHAR(500) DEFAULT NULL COMMENT '最近一次失败原因',
+    `created_at` DATETIME NOT NULL COMMENT '写入时间',
+    `processed_at` DATETIME DEFAULT NULL COMMENT '投递完成时间',
+    PRIMARY KEY (`id`),
+    KEY `idx_handler_status_id` (`handler`, `status`, `id`),
+    KEY `idx_status_processed_at` (`status`, `processed_at`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='交易事件发件箱表';
+
 -- ============================================
 -- 初始化数据
 -- ============================================
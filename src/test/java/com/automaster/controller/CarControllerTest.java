@@ -0,0 +1,248 @@
+package com.automaster.controller;
+
+import com.automaster.entity.Car;
+import com.automaster.entity.CarStatusTransition;
+import com.automaster.entity.Transaction;
+import com.automaster.exception.CarStatusConflictException;
+import com.automaster.exception.GlobalExceptionHandler;
+import com.automaster.repository.CarRepository;
+import com.automaster.repository.TransactionRepository;
+import com.automaster.service.CarStatusService;
+import com.automaster.service.support.JsonArrayStreamer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import org.springframework.transaction.interceptor.TransactionInterceptor;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.SmartTransactionObject;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * CarController 单元测试
+ * 测试完成预定、修改车辆接口在车辆状态冲突时的事务与响应
+ */
+@ExtendWith(MockitoExtension.class)
+class CarControllerTest {
+
+    @Mock
+    private CarRepository carRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private JsonArrayStreamer jsonArrayStreamer;
+
+    @Mock
+    private CarStatusService carStatusService;
+
+    private RecordingTransactionManager transactionManager;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        // 通过事务拦截器代理控制器，与运行时 @Transactional 行为一致
+        transactionManager = new RecordingTransactionManager();
+        ProxyFactory proxyFactory = new ProxyFactory(new CarController(carRepository, transactionRepository,
+                eventPublisher, jsonArrayStreamer, carStatusService));
+        proxyFactory.setProxyTargetClass(true);
+        TransactionInterceptor transactionInterceptor = new TransactionInterceptor();
+        transactionInterceptor.setTransactionManager(transactionManager);
+        transactionInterceptor.setTransactionAttributeSource(new AnnotationTransactionAttributeSource());
+        proxyFactory.addAdvice(transactionInterceptor);
+        mockMvc = MockMvcBuilders.standaloneSetup(proxyFactory.getProxy())
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void testCompletePendingConflictReturns409AndRollsBack() throws Exception {
+        // Given：读取后车辆已被其他请求处理，内层条件更新失败并将共享事务标记为只能回滚
+        Car car = new Car();
+        car.setId("car1");
+        car.setStatus("PENDING");
+        car.setCustomerId("customer1");
+        car.setDeposit(10000);
+        when(carRepository.findById("car1")).thenReturn(Optional.of(car));
+        when(carStatusService.transition(car, CarStatusTransition.COMPLETE_RESERVATION)).thenAnswer(invocation -> {
+            // 参与外层事务的内层 @Transactional 抛出异常时，标记的是共享的事务对象（全局只能回滚）
+            DefaultTransactionStatus outer = (DefaultTransactionStatus) TransactionAspectSupport.currentTransactionStatus();
+            ((RecordingTransaction) outer.getTransaction()).rollbackOnly = true;
+            throw new CarStatusConflictException("car1");
+        });
+
+        // When / Then：返回 409 而不是提交时的 UnexpectedRollbackException
+        mockMvc.perform(put("/api/cars/car1/complete-pending").param("finalPrice", "200000"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.code").value("CAR_STATUS_CONFLICT"));
+
+        assertTrue(transactionManager.rolledBack);
+        assertFalse(transactionManager.committed);
+        verify(transactionRepository, never()).save(any(Transaction.class));
+    }
+
+    @Test
+    void testCompletePendingCommits() throws Exception {
+        Car car = new Car();
+        car.setId("car1");
+        car.setStatus("PENDING");
+        car.setCustomerId("customer1");
+        when(carRepository.findById("car1")).thenReturn(Optional.of(car));
+        when(carStatusService.transition(car, CarStatusTransition.COMPLETE_RESERVATION)).thenReturn(car);
+
+        mockMvc.perform(put("/api/cars/car1/complete-pending").param("finalPrice", "200000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.customerId").value("customer1"));
+
+        assertTrue(transactionManager.committed);
+        verify(transactionRepository).save(any(Transaction.class));
+    }
+
+    @Test
+    void testUpdateRejectsChangeFromSold() throws Exception {
+        // Given：已售车辆
+        when(carRepository.findById("car1")).thenReturn(Optional.of(storedCar("SOLD")));
+        when(carRepository.findByVin("VIN001")).thenReturn(Optional.empty());
+
+        // When / Then：已售改回在售须通过交易流转，修改接口返回 409 且不更新
+        mockMvc.perform(put("/api/cars/car1").contentType(MediaType.APPLICATION_JSON).content(carJson("AVAILABLE")))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.code").value("STATUS_CHANGE_NOT_ALLOWED"));
+
+        verify(carRepository, never()).compareAndUpdate(any(), any(), any(), any());
+        verify(carRepository, never()).save(any(Car.class));
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void testUpdateRejectsChangeToSold() throws Exception {
+        when(carRepository.findById("car1")).thenReturn(Optional.of(storedCar("AVAILABLE")));
+        when(carRepository.findByVin("VIN001")).thenReturn(Optional.empty());
+
+        mockMvc.perform(put("/api/cars/car1").contentType(MediaType.APPLICATION_JSON).content(carJson("SOLD")))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.code").value("STATUS_CHANGE_NOT_ALLOWED"));
+
+        verify(carRepository, never()).compareAndUpdate(any(), any(), any(), any());
+    }
+
+    @Test
+    void testUpdateKeepsStoredStatusWhenOmitted() throws Exception {
+        // Given：请求未提交状态
+        when(carRepository.findById("car1")).thenReturn(Optional.of(storedCar("SOLD")));
+        when(carRepository.findByVin("VIN001")).thenReturn(Optional.empty());
+        when(carRepository.compareAndUpdate(any(Car.class), eq("SOLD"), eq(null), eq(null))).thenReturn(1);
+
+        // When / Then：保留原状态，按读取时的状态条件更新
+        mockMvc.perform(put("/api/cars/car1").contentType(MediaType.APPLICATION_JSON).content(carJson(null)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("SOLD"))
+                .andExpect(jsonPath("$.price").value(120000));
+
+        assertTrue(transactionManager.committed);
+        verify(eventPublisher).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void testUpdateConcurrentStatusChangeReturns409AndRollsBack() throws Exception {
+        // Given：读取后车辆已被并发售出，条件更新未命中
+        when(carRepository.findById("car1")).thenReturn(Optional.of(storedCar("AVAILABLE")));
+        when(carRepository.findByVin(anyString())).thenReturn(Optional.empty());
+        when(carRepository.compareAndUpdate(any(Car.class), eq("AVAILABLE"), eq(null), eq(null))).thenReturn(0);
+
+        // When / Then：不覆盖并发的状态流转
+        mockMvc.perform(put("/api/cars/car1").contentType(MediaType.APPLICATION_JSON).content(carJson("MAINTENANCE")))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.code").value("CAR_STATUS_CONFLICT"));
+
+        assertTrue(transactionManager.rolledBack);
+        assertFalse(transactionManager.committed);
+        verifyNoInteractions(eventPublisher);
+    }
+
+    private static Car storedCar(String status) {
+        Car car = new Car();
+        car.setId("car1");
+        car.setVin("VIN001");
+        car.setPrice(100000);
+        car.setCostPrice(80000);
+        car.setStatus(status);
+        return car;
+    }
+
+    private static String carJson(String status) {
+        return "{\"make\":\"Toyota\",\"model\":\"Camry\",\"year\":2022,\"price\":120000,\"costPrice\":80000,"
+                + "\"vin\":\"VIN001\"" + (status == null ? "" : ",\"status\":\"" + status + "\"") + "}";
+    }
+
+    /**
+     * 记录提交/回滚的事务管理器（与 JPA 事务管理器一致，全局只能回滚标记记录在事务对象上）
+     */
+    private static final class RecordingTransactionManager extends AbstractPlatformTransactionManager {
+
+        private boolean committed;
+        private boolean rolledBack;
+
+        @Override
+        protected Object doGetTransaction() {
+            return new RecordingTransaction();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+            committed = true;
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+            rolledBack = true;
+        }
+
+        @Override
+        protected void doSetRollbackOnly(DefaultTransactionStatus status) {
+            ((RecordingTransaction) status.getTransaction()).rollbackOnly = true;
+        }
+    }
+
+    private static final class RecordingTransaction implements SmartTransactionObject {
+
+        private boolean rollbackOnly;
+
+        @Override
+        public boolean isRollbackOnly() {
+            return rollbackOnly;
+        }
+
+        @Override
+        public void flush() {
+        }
+    }
+}
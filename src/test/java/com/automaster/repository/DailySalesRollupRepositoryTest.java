@@ -0,0 +1,159 @@
+package com.automaster.repository;
+
+import com.automaster.dto.DailyRevenue;
+import com.automaster.entity.ArchivedTransaction;
+import com.automaster.entity.Car;
+import com.automaster.entity.DailySalesRollup;
+import com.automaster.entity.Transaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.sql.Timestamp;
+import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * DailySalesRollupRepository 数据库测试（H2，MySQL 兼容模式）
+ * 验证按天重建汇总与补数起始日期包含已归档的交易，归档不改变汇总结果
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:daily_sales_rollup;MODE=MySQL;NON_KEYWORDS=YEAR,VALUE,USER",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(classes = DailySalesRollupRepositoryTest.TestConfig.class)
+class DailySalesRollupRepositoryTest {
+
+    /**
+     * 只声明实体与仓库扫描，不能标注 @SpringBootConfiguration / @Configuration（原因见 TransactionSpecificationsTest）
+     */
+    @EntityScan("com.automaster.entity")
+    @EnableJpaRepositories("com.automaster.repository")
+    static class TestConfig {
+    }
+
+    private static final LocalDate DAY = LocalDate.of(2024, 1, 15);
+
+    @Autowired
+    private DailySalesRollupRepository rollupRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private ArchivedTransactionRepository archivedTransactionRepository;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    private final SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm");
+
+    private Transaction camrySale;
+    private Transaction earlierSale;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Car camry = saveCar("Toyota", "VIN-CAMRY");
+        Car accord = saveCar("Honda", "VIN-ACCORD");
+        Car corolla = saveCar("Toyota", "VIN-COROLLA");
+
+        // 同一天两笔销售：Camry 200000（待归档）、Accord 150000
+        camrySale = saveSale(camry, 200000, sdf.parse("2024-01-15 09:00"));
+        saveSale(accord, 150000, sdf.parse("2024-01-15 15:30"));
+        // 更早的一笔销售（待归档），决定补数起始日期
+        earlierSale = saveSale(corolla, 120000, sdf.parse("2024-01-10 10:00"));
+    }
+
+    @Test
+    void testRebuildDayIncludesArchivedSales() {
+        // Given：Camry 的销售已归档
+        archive(camrySale);
+
+        // When：重建当天汇总
+        rollupRepository.deleteBySalesDate(DAY);
+        rollupRepository.rebuildDay(DAY, Timestamp.valueOf(DAY.atStartOfDay()),
+                Timestamp.valueOf(DAY.plusDays(1).atStartOfDay()));
+
+        // Then：销售额与按品牌汇总的利润均包含已归档的交易
+        List<DailyRevenue> revenue = rollupRepository.sumRevenueByDay(DAY, DAY);
+        assertEquals(1, revenue.size());
+        assertEquals(350000L, revenue.get(0).getRevenue());
+
+        List<DailySalesRollup> rows = rollupRepository.findAll();
+        rows.sort(Comparator.comparing(DailySalesRollup::getMake));
+        assertEquals(2, rows.size());
+        assertEquals("Toyota", rows.get(1).getMake());
+        assertEquals(200000L, rows.get(1).getRevenue());
+        assertEquals(120000L, rows.get(1).getProfit());
+        assertEquals(1, rows.get(1).getSalesCount());
+    }
+
+    @Test
+    void testEarliestSaleDateIncludesArchivedSales() throws Exception {
+        // Given：最早的一笔销售已归档
+        archive(earlierSale);
+
+        // When / Then：补数仍从归档交易的日期开始
+        Date earliest = transactionRepository.findEarliestSaleDate();
+        assertEquals(sdf.parse("2024-01-10 10:00").getTime(), earliest.getTime());
+    }
+
+    /**
+     * 与归档任务相同：整行迁入归档表后从交易表删除
+     * （H2 表结构由实体生成，没有 copyFromTransactions 复制的 payment_method 等列，这里按实体字段迁移）
+     */
+    private void archive(Transaction transaction) {
+        ArchivedTransaction archived = new ArchivedTransaction();
+        archived.setId(transaction.getId());
+        archived.setCarId(transaction.getCarId());
+        archived.setCustomerId(transaction.getCustomerId());
+        archived.setPrice(transaction.getPrice());
+        archived.setDate(transaction.getDate());
+        archived.setType(transaction.getType());
+        archived.setStatus(transaction.getStatus());
+        archived.setDeposit(transaction.getDeposit());
+        archived.setFinalPrice(transaction.getFinalPrice());
+        archived.setArchivedAt(new Date());
+        archivedTransactionRepository.saveAndFlush(archived);
+        assertEquals(1, transactionRepository.deleteAllByIdIn(List.of(transaction.getId())));
+        assertFalse(transactionRepository.existsById(transaction.getId()));
+    }
+
+    private Transaction saveSale(Car car, int price, Date date) {
+        Transaction sale = new Transaction();
+        sale.setCarId(car.getId());
+        sale.setCustomerId("customer1");
+        sale.setType("Sale");
+        sale.setStatus("COMPLETED");
+        sale.setPrice(price);
+        sale.setFinalPrice(price);
+        sale.setDate(date);
+        return transactionRepository.saveAndFlush(sale);
+    }
+
+    private Car saveCar(String make, String vin) {
+        Car car = new Car();
+        car.setYear(2020);
+        car.setMake(make);
+        car.setModel("Model");
+        car.setPrice(100000);
+        car.setCostPrice(80000);
+        car.setMileage(1000);
+        car.setColor("白色");
+        car.setVin(vin);
+        car.setStatus("AVAILABLE");
+        return carRepository.saveAndFlush(car);
+    }
+}
@@ -0,0 +1,119 @@
+package com.automaster.repository;
+
+import com.automaster.entity.Car;
+import com.automaster.entity.Customer;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * InventorySpecifications 单元测试
+ * 测试车辆、客户导出条件的组装：空条件忽略，结束日期包含当天，格式错误的日期忽略
+ */
+@ExtendWith(MockitoExtension.class)
+@SuppressWarnings({"unchecked", "rawtypes"})
+class InventorySpecificationsTest {
+
+    @Mock
+    private Root root;
+
+    @Mock
+    private CriteriaQuery<?> query;
+
+    @Mock
+    private CriteriaBuilder cb;
+
+    @Mock
+    private Path statusPath;
+
+    @Mock
+    private Path makePath;
+
+    @Mock
+    private Path typePath;
+
+    @Mock
+    private Path dateAddedPath;
+
+    @Mock
+    private Predicate statusPredicate;
+
+    @Mock
+    private Predicate makePredicate;
+
+    @Mock
+    private Predicate typePredicate;
+
+    @Mock
+    private Predicate startPredicate;
+
+    @Mock
+    private Predicate endPredicate;
+
+    private final SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(root.get("status")).thenReturn(statusPath);
+        lenient().when(root.get("make")).thenReturn(makePath);
+        lenient().when(root.get("type")).thenReturn(typePath);
+        lenient().when(root.get("dateAdded")).thenReturn(dateAddedPath);
+    }
+
+    @Test
+    void testCarsWithAllConditions() throws Exception {
+        // Given
+        Date start = sdf.parse("2024-01-10 00:00:00");
+        Date end = sdf.parse("2024-02-01 23:59:59");
+        when(cb.equal(statusPath, "AVAILABLE")).thenReturn(statusPredicate);
+        when(cb.equal(makePath, "Toyota")).thenReturn(makePredicate);
+        when(cb.greaterThanOrEqualTo(dateAddedPath, start)).thenReturn(startPredicate);
+        when(cb.lessThanOrEqualTo(dateAddedPath, end)).thenReturn(endPredicate);
+
+        // When
+        InventorySpecifications.cars("AVAILABLE", "Toyota", "2024-01-10", "2024-02-01").toPredicate(root, query, cb);
+
+        // Then：精确匹配 + 入库时间范围（结束日期包含当天）
+        verify(cb).and(statusPredicate, makePredicate, startPredicate, endPredicate);
+    }
+
+    @Test
+    void testCarsIgnoresEmptyAndInvalidConditions() {
+        // When：状态为空串、品牌为空、日期格式错误
+        InventorySpecifications.cars("", null, "bad-date", null).toPredicate(root, query, cb);
+
+        // Then：不生成任何条件
+        verify(cb).and();
+        verify(cb, never()).equal(any(), any(Object.class));
+        verify(root, never()).get(anyString());
+    }
+
+    @Test
+    void testCustomers() throws Exception {
+        // Given
+        Date start = sdf.parse("2024-02-01 00:00:00");
+        when(cb.equal(statusPath, "ACTIVE")).thenReturn(statusPredicate);
+        when(cb.equal(typePath, "Seller")).thenReturn(typePredicate);
+        when(cb.greaterThanOrEqualTo(dateAddedPath, start)).thenReturn(startPredicate);
+
+        // When
+        InventorySpecifications.customers("ACTIVE", "Seller", "2024-02-01", "").toPredicate(root, query, cb);
+
+        // Then：客户按状态、类型精确匹配，只有开始日期
+        verify(cb).and(statusPredicate, typePredicate, startPredicate);
+        verify(cb, never()).lessThanOrEqualTo(any(), any(Date.class));
+    }
+}
@@ -0,0 +1,34 @@
+package com.automaster.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.text.SimpleDateFormat;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TransactionFilter 单元测试
+ * 测试参数归一化
+ */
+class TransactionFilterTest {
+
+    @Test
+    void testNormalizesOnce() throws Exception {
+        TransactionFilter filter = TransactionFilter.of("", "TX-ABC", "Camry", null, null, "2024-02-01", "bad-date");
+
+        assertNull(filter.getStatus());
+        assertEquals("tx-abc", filter.getOrderId());
+        assertEquals("camry", filter.getCarName());
+        assertEquals(new SimpleDateFormat("yyyy-MM-dd").parse("2024-02-01"), filter.getStartDate());
+        // 日期格式错误时忽略该条件
+        assertNull(filter.getEndDate());
+    }
+
+    @Test
+    void testEndDateIncludesWholeDay() throws Exception {
+        TransactionFilter filter = TransactionFilter.of(null, null, null, null, null, null, "2024-02-20");
+
+        assertEquals(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").parse("2024-02-20 23:59:59"), filter.getEndDate());
+        assertNull(filter.getStartDate());
+    }
+}
@@ -0,0 +1,226 @@
+package com.automaster.repository;
+
+import com.automaster.entity.Car;
+import com.automaster.entity.Customer;
+import com.automaster.entity.Transaction;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.text.SimpleDateFormat;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TransactionSpecifications 数据库测试（H2，MySQL 兼容模式）
+ * 经由生产代码使用的 TransactionFilter.toSpecification() 构建查询条件，验证多条件查询下推到数据库后与原内存筛选语义一致
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:transaction_spec;MODE=MySQL;NON_KEYWORDS=YEAR,VALUE,USER",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(classes = TransactionSpecificationsTest.TestConfig.class)
+class TransactionSpecificationsTest {
+
+    /**
+     * 只声明实体与仓库扫描，JPA 相关自动配置由 @DataJpaTest 导入；
+     * 不能标注 @SpringBootConfiguration / @Configuration，否则会被启动类的 @ComponentScan("com.automaster")
+     * 扫描到，仓库被重复注册导致应用上下文启动失败
+     */
+    @EntityScan("com.automaster.entity")
+    @EnableJpaRepositories("com.automaster.repository")
+    static class TestConfig {
+    }
+
+    private static final Sort BY_DATE_DESC = Sort.by(Sort.Order.desc("date"), Sort.Order.desc("id"));
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private final SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
+
+    private Car camry;
+    private Car accord;
+    private Customer zhangSan;
+    private Customer liSi;
+    private Transaction completed;
+    private Transaction pending;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        camry = saveCar(2020, "Toyota", "Camry", "VIN-CAMRY");
+        accord = saveCar(2021, "Honda", "Accord", "VIN-ACCORD");
+        zhangSan = saveCustomer("张三", "13800138000");
+        liSi = saveCustomer("李四", "13900139000");
+
+        // 已完成订单：2024-01-15，成交价200000
+        completed = new Transaction();
+        completed.setCarId(camry.getId());
+        completed.setCustomerId(zhangSan.getId());
+        completed.setType("Sale");
+        completed.setStatus("COMPLETED");
+        completed.setPrice(200000);
+        completed.setFinalPrice(200000);
+        completed.setDate(sdf.parse("2024-01-15"));
+        completed = transactionRepository.saveAndFlush(completed);
+
+        // 预定订单：2024-02-20 18:30，定金10000
+        pending = new Transaction();
+        pending.setCarId(accord.getId());
+        pending.setCustomerId(liSi.getId());
+        pending.setType("Sale");
+        pending.setStatus("PENDING");
+        pending.setPrice(10000);
+        pending.setDeposit(10000);
+        pending.setDate(new SimpleDateFormat("yyyy-MM-dd HH:mm").parse("2024-02-20 18:30"));
+        pending = transactionRepository.saveAndFlush(pending);
+    }
+
+    @Test
+    void testWithStatus() {
+        List<Transaction> result = search("COMPLETED", null, null, null, null, null, null);
+        assertEquals(1, result.size());
+        assertEquals(completed.getId(), result.get(0).getId());
+    }
+
+    @Test
+    void testWithOrderId() {
+        // 订单号为UUID，取已完成订单ID的末尾片段并改为大写，验证忽略大小写的模糊匹配
+        String fragment = completed.getId().substring(completed.getId().length() - 12).toUpperCase();
+        List<Transaction> result = search(null, fragment, null, null, null, null, null);
+        assertEquals(1, result.size());
+        assertEquals(completed.getId(), result.get(0).getId());
+    }
+
+    @Test
+    void testWithCarName() {
+        List<Transaction> result = search(null, null, "Camry", null, null, null, null);
+        assertEquals(1, result.size());
+        assertEquals(camry.getId(), result.get(0).getCarId());
+
+        // 按"年份 品牌 型号"整体匹配
+        assertEquals(1, search(null, null, "2021 honda", null, null, null, null).size());
+    }
+
+    @Test
+    void testWithCustomerInfo() {
+        List<Transaction> result = search(null, null, null, "张三", null, null, null);
+        assertEquals(1, result.size());
+        assertEquals(zhangSan.getId(), result.get(0).getCustomerId());
+
+        // 按电话匹配
+        assertEquals(liSi.getId(), search(null, null, null, "139001", null, null, null).get(0).getCustomerId());
+    }
+
+    @Test
+    void testWithPrice() {
+        // 预定状态匹配定金
+        List<Transaction> result = search(null, null, null, null, 10000, null, null);
+        assertEquals(1, result.size());
+        assertEquals(pending.getId(), result.get(0).getId());
+
+        // 已完成状态匹配最终价
+        assertEquals(completed.getId(), search(null, null, null, null, 200000, null, null).get(0).getId());
+    }
+
+    @Test
+    void testWithDateRange() {
+        // 结束日期包含当天全天
+        List<Transaction> result = search(null, null, null, null, null, "2024-02-01", "2024-02-20");
+        assertEquals(1, result.size());
+        assertEquals(pending.getId(), result.get(0).getId());
+    }
+
+    @Test
+    void testNoResults() {
+        assertTrue(search(null, "tx-999", null, null, null, null, null).isEmpty());
+        // 通配符按字面匹配
+        assertTrue(search(null, null, null, "%", null, null, null).isEmpty());
+    }
+
+    @Test
+    void testAllConditionsNull() {
+        List<Transaction> result = search(null, null, null, null, null, null, null);
+        assertEquals(2, result.size());
+        // 按交易日期倒序
+        assertEquals(pending.getId(), result.get(0).getId());
+    }
+
+    @Test
+    void testPagination() {
+        Page<Transaction> page = transactionRepository.findAll(
+                TransactionFilter.of(null, null, null, null, null, null, null).toSpecification(),
+                PageRequest.of(0, 1, Sort.by(Sort.Order.asc("price"), Sort.Order.asc("id"))));
+        assertEquals(2, page.getTotalElements());
+        assertEquals(1, page.getContent().size());
+        assertEquals(pending.getId(), page.getContent().get(0).getId());
+    }
+
+    @Test
+    void testCursorStreamMatchesSearch() {
+        SpecificationCursorRepository cursorRepository = new SpecificationCursorRepository(entityManager);
+        TransactionFilter filter = TransactionFilter.of(null, null, null, null, null, null, null);
+
+        try (Stream<Transaction> stream = cursorRepository.stream(Transaction.class, filter.toSpecification(), BY_DATE_DESC)) {
+            List<String> ids = stream.map(Transaction::getId).collect(Collectors.toList());
+            assertEquals(List.of(pending.getId(), completed.getId()), ids);
+        }
+        try (Stream<Transaction> stream = cursorRepository.stream(Transaction.class,
+                TransactionFilter.of(null, null, "camry", null, null, null, null).toSpecification(), BY_DATE_DESC)) {
+            assertEquals(List.of(completed.getId()), stream.map(Transaction::getId).collect(Collectors.toList()));
+        }
+    }
+
+    private List<Transaction> search(String status, String orderId, String carName, String customerInfo,
+                                     Integer price, String startDate, String endDate) {
+        return transactionRepository.findAll(
+                TransactionFilter.of(status, orderId, carName, customerInfo, price, startDate, endDate).toSpecification(),
+                BY_DATE_DESC);
+    }
+
+    private Car saveCar(int year, String make, String model, String vin) {
+        Car car = new Car();
+        car.setYear(year);
+        car.setMake(make);
+        car.setModel(model);
+        car.setPrice(100000);
+        car.setCostPrice(80000);
+        car.setMileage(1000);
+        car.setColor("白色");
+        car.setVin(vin);
+        car.setStatus("AVAILABLE");
+        return carRepository.saveAndFlush(car);
+    }
+
+    private Customer saveCustomer(String name, String phone) {
+        Customer customer = new Customer();
+        customer.setName(name);
+        customer.setPhone(phone);
+        customer.setType("Buyer");
+        customer.setStatus("ACTIVE");
+        return customerRepository.saveAndFlush(customer);
+    }
+}
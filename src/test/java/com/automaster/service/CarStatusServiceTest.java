@@ -0,0 +1,117 @@
+package com.automaster.service;
+
+import com.automaster.entity.Car;
+import com.automaster.entity.CarStatusTransition;
+import com.automaster.event.CarChangedEvent;
+import com.automaster.exception.CarStatusConflictException;
+import com.automaster.repository.CarRepository;
+import com.automaster.service.impl.CarStatusServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * CarStatusService 单元测试
+ * 测试状态机校验、条件更新与冲突处理
+ */
+@ExtendWith(MockitoExtension.class)
+class CarStatusServiceTest {
+
+    @Mock
+    private CarRepository carRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private CarStatusServiceImpl carStatusService;
+
+    private Car car;
+
+    @BeforeEach
+    void setUp() {
+        car = new Car();
+        car.setId("car1");
+        car.setStatus("PENDING");
+        car.setCustomerId("customer1");
+        car.setDeposit(10000);
+    }
+
+    @Test
+    void testSell_KeepsReservation() {
+        when(carRepository.compareAndSetStatus("car1", "PENDING", "SOLD")).thenReturn(1);
+
+        Car sold = carStatusService.transition(car, CarStatusTransition.SELL);
+
+        assertEquals("SOLD", sold.getStatus());
+        assertEquals("customer1", sold.getCustomerId());
+        ArgumentCaptor<CarChangedEvent> event = ArgumentCaptor.forClass(CarChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals("PENDING", event.getValue().getBefore().getStatus());
+        assertEquals("SOLD", event.getValue().getAfter().getStatus());
+    }
+
+    @Test
+    void testCompleteReservation_ClearsReservation() {
+        when(carRepository.compareAndSetStatusClearingReservation("car1", "PENDING", "customer1", 10000, "SOLD", 0)).thenReturn(1);
+
+        Car sold = carStatusService.transition(car, CarStatusTransition.COMPLETE_RESERVATION);
+
+        assertEquals("SOLD", sold.getStatus());
+        assertNull(sold.getCustomerId());
+        assertEquals(0, sold.getDeposit());
+    }
+
+    @Test
+    void testBackToSale_ClearsDeposit() {
+        when(carRepository.compareAndSetStatusClearingReservation("car1", "PENDING", "customer1", 10000, "AVAILABLE", null)).thenReturn(1);
+
+        Car available = carStatusService.transition(car, CarStatusTransition.BACK_TO_SALE);
+
+        assertEquals("AVAILABLE", available.getStatus());
+        assertNull(available.getDeposit());
+    }
+
+    @Test
+    void testDisallowedTransition() {
+        car.setStatus("SOLD");
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> carStatusService.transition(car, CarStatusTransition.SELL));
+
+        assertEquals("车辆当前状态为已售，不能销售", exception.getMessage());
+        verify(carRepository, never()).compareAndSetStatus(anyString(), anyString(), anyString());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void testSell_AllowsUnrecognizedStatus() {
+        // 与原逻辑一致：只拒绝已售车辆，状态为空的车辆可以销售
+        car.setStatus(null);
+        when(carRepository.compareAndSetStatus("car1", null, "SOLD")).thenReturn(1);
+
+        assertEquals("SOLD", carStatusService.transition(car, CarStatusTransition.SELL).getStatus());
+        assertFalse(CarStatusTransition.COMPLETE_RESERVATION.isAllowedFrom(null));
+        assertTrue(CarStatusTransition.SELL.isAllowedFrom("RESERVED"));
+    }
+
+    @Test
+    void testConcurrentModification() {
+        // 读取后车辆已被其他请求售出，条件更新影响0行
+        when(carRepository.compareAndSetStatus("car1", "PENDING", "SOLD")).thenReturn(0);
+
+        assertThrows(CarStatusConflictException.class, () -> carStatusService.transition(car, CarStatusTransition.SELL));
+        assertEquals("PENDING", car.getStatus());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+}
@@ -1,24 +1,41 @@
 package com.automaster.service;
 
+import com.automaster.dto.CarStatusSummary;
 import com.automaster.dto.DashboardStats;
+import com.automaster.dto.LeaderboardMetric;
+import com.automaster.dto.ProfitSummary;
+import com.automaster.dto.SalePoint;
+import com.automaster.dto.SalesSummary;
+import com.automaster.dto.SalespersonRanking;
+import com.automaster.dto.TrendGranularity;
 import com.automaster.entity.Car;
 import com.automaster.entity.Transaction;
 import com.automaster.repository.CarRepository;
 import com.automaster.repository.CustomerRepository;
 import com.automaster.repository.TransactionRepository;
 import com.automaster.service.impl.DashboardServiceImpl;
+import com.automaster.service.support.DailySalesRollupService;
+import com.automaster.service.support.ParallelQueryExecutor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 /**
@@ -37,6 +54,15 @@ class DashboardServiceTest {
     @Mock
     private CustomerRepository customerRepository;
 
+    @Mock
+    private DailySalesRollupService rollupService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ParallelQueryExecutor queryExecutor;
+
     @InjectMocks
     private DashboardServiceImpl dashboardService;
 
@@ -78,10 +104,13 @@ class DashboardServiceTest {
     @Test
     void testGetDashboardStats() {
         // Given
-        when(carRepository.findAll()).thenReturn(mockCars);
-        when(transactionRepository.findAll()).thenReturn(mockTransactions);
+        when(carRepository.summarizeByStatus()).thenReturn(Arrays.asList(
+                carSummary("AVAILABLE", 1L, 100000L),
+                carSummary("PENDING", 1L, 150000L),
+                carSummary("SOLD", 1L, 200000L)));
+        when(transactionRepository.summarizeSales()).thenReturn(salesSummary(1L, 200000L));
+        when(transactionRepository.summarizeProfit()).thenReturn(profitSummary(40000L, 0L));
         when(customerRepository.count()).thenReturn(10L);
-        when(carRepository.findById("car3")).thenReturn(Optional.of(mockCars.get(2)));
 
         // When
         DashboardStats stats = dashboardService.getDashboardStats();
@@ -99,18 +128,25 @@ class DashboardServiceTest {
         assertEquals(1, stats.getSoldCarsCount());
         assertEquals(1, stats.getPendingCarsCount());
         assertEquals(0, stats.getMaintenanceCarsCount());
+        assertFalse(stats.getDegraded());
 
-        // Verify
-        verify(carRepository, times(1)).findAll();
-        verify(transactionRepository, times(1)).findAll();
+        // Verify：只走聚合查询，不再全表加载
+        verify(carRepository, times(1)).summarizeByStatus();
+        verify(transactionRepository, times(1)).summarizeSales();
+        verify(carRepository, never()).findAll();
+        verify(transactionRepository, never()).findAll();
+        verify(transactionRepository, times(1)).summarizeProfit();
+        verify(carRepository, never()).findById(anyString());
         verify(customerRepository, times(1)).count();
+        verify(transactionRepository, never()).findIncompleteProfitIds(anyInt());
     }
 
     @Test
     void testGetDashboardStatsWithNoData() {
         // Given
-        when(carRepository.findAll()).thenReturn(Arrays.asList());
-        when(transactionRepository.findAll()).thenReturn(Arrays.asList());
+        when(carRepository.summarizeByStatus()).thenReturn(Arrays.asList());
+        when(transactionRepository.summarizeSales()).thenReturn(salesSummary(0L, 0L));
+        when(transactionRepository.summarizeProfit()).thenReturn(profitSummary(0L, 0L));
         when(customerRepository.count()).thenReturn(0L);
 
         // When
@@ -126,4 +162,242 @@ class DashboardServiceTest {
         assertEquals(0.0, stats.getAvgProfitRate());
         assertEquals(0, stats.getTotalCustomersCount());
     }
+
+    @Test
+    void testGetDashboardStatsWithIncompleteCarData() {
+        // Given：一笔销售的车辆已被删除，利润按0计
+        when(carRepository.summarizeByStatus()).thenReturn(Arrays.asList());
+        when(transactionRepository.summarizeSales()).thenReturn(salesSummary(2L, 300000L));
+        when(transactionRepository.summarizeProfit()).thenReturn(profitSummary(40000L, 1L));
+        when(customerRepository.count()).thenReturn(2L);
+        when(transactionRepository.findIncompleteProfitIds(anyInt()))
+                .thenReturn(List.of("tx2"));
+
+        // When
+        DashboardStats stats = dashboardService.getDashboardStats();
+
+        // Then
+        assertEquals(300000, stats.getTotalRevenue());
+        assertEquals(40000, stats.getTotalProfit());
+        assertEquals(13.3, stats.getAvgProfitRate()); // 40000 / 300000 * 100
+        // 不完整交易ID单独按条数上限查询，不随交易量增长
+        verify(transactionRepository, times(1)).findIncompleteProfitIds(anyInt());
+    }
+
+    @Test
+    void testGetDashboardStatsParallelDegraded() {
+        // Given：并行模式，客户数查询超过超时时间
+        ParallelQueryExecutor parallel = new ParallelQueryExecutor(true, 4, 300, transactionManager);
+        DashboardServiceImpl service = new DashboardServiceImpl(
+                carRepository, transactionRepository, customerRepository, rollupService, parallel, transactionManager);
+        when(carRepository.summarizeByStatus()).thenReturn(Arrays.asList(carSummary("AVAILABLE", 1L, 100000L)));
+        when(transactionRepository.summarizeSales()).thenReturn(salesSummary(1L, 200000L));
+        when(transactionRepository.summarizeProfit()).thenReturn(profitSummary(40000L, 0L));
+        when(customerRepository.count()).thenAnswer(invocation -> {
+            Thread.sleep(5000);
+            return 10L;
+        });
+
+        try {
+            // When
+            long start = System.nanoTime();
+            DashboardStats stats = service.getDashboardStats();
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+            // Then：其余指标正常返回，客户数降级为0
+            assertTrue(elapsedMillis < 3000);
+            assertTrue(stats.getDegraded());
+            assertEquals(List.of("customers"), stats.getDegradedParts());
+            assertEquals(100000, stats.getTotalInventoryValue());
+            assertEquals(200000, stats.getTotalRevenue());
+            assertEquals(20.0, stats.getAvgProfitRate());
+            assertEquals(0, stats.getTotalCustomersCount());
+            // 每个子查询在工作线程的只读事务中执行，查询超时取剩余时间（不足1秒按1秒）
+            verify(transactionManager, times(4)).getTransaction(
+                    argThat(definition -> definition.isReadOnly() && definition.getTimeout() == 1));
+        } finally {
+            parallel.destroy();
+        }
+    }
+
+    @Test
+    void testGetSalesTrendMonthly() {
+        // Given：本月两笔、两个月前一笔、超出区间的一笔（应被忽略）
+        ZoneId zone = ZoneId.of("Asia/Shanghai");
+        LocalDate today = LocalDate.now(zone);
+        when(transactionRepository.findSalePointsBetween(any(Date.class), any(Date.class))).thenReturn(Arrays.asList(
+                salePoint(today.withDayOfMonth(1), zone, 100000),
+                salePoint(today, zone, 50000),
+                salePoint(today.withDayOfMonth(1).minusMonths(2), zone, 80000),
+                salePoint(today.withDayOfMonth(1).minusMonths(8), zone, 99999)));
+
+        // When
+        List<Map<String, Object>> trend = dashboardService.getSalesTrend(TrendGranularity.MONTH, 6, zone);
+
+        // Then
+        assertEquals(6, trend.size());
+        assertEquals(today.getMonthValue() + "月", trend.get(5).get("name"));
+        assertEquals(150000L, trend.get(5).get("value"));
+        assertEquals(80000L, trend.get(3).get("value"));
+        assertEquals(0L, trend.get(0).get("value"));
+        verify(transactionRepository, times(1)).findSalePointsBetween(any(Date.class), any(Date.class));
+        verify(transactionRepository, never()).findAll();
+    }
+
+    @Test
+    void testGetSalesTrendDaily() {
+        // Given
+        ZoneId zone = ZoneId.of("UTC");
+        LocalDate today = LocalDate.now(zone);
+        when(transactionRepository.findSalePointsBetween(any(Date.class), any(Date.class))).thenReturn(Arrays.asList(
+                salePoint(today, zone, 30000),
+                salePoint(today.minusDays(6), zone, 20000)));
+
+        // When
+        List<Map<String, Object>> trend = dashboardService.getSalesTrend(TrendGranularity.DAY, 7, zone);
+
+        // Then
+        assertEquals(7, trend.size());
+        assertEquals(20000L, trend.get(0).get("value"));
+        assertEquals(30000L, trend.get(6).get("value"));
+    }
+
+    @Test
+    void testGetSalesTrendFromRollup() {
+        // Given：汇总表已追平到昨天，昨天及之前从每日汇总读取，今天从交易表读取
+        ZoneId zone = ZoneId.systemDefault();
+        LocalDate today = LocalDate.now(zone);
+        LocalDate monthStart = today.withDayOfMonth(1);
+        Date todayStart = Date.from(today.atStartOfDay(zone).toInstant());
+        when(rollupService.getZoneId()).thenReturn(zone);
+        when(rollupService.caughtUpThrough()).thenReturn(Optional.of(today.minusDays(1)));
+        when(rollupService.getDailyRevenue(monthStart.minusMonths(5), today.minusDays(1)))
+                .thenReturn(Map.of(monthStart.minusMonths(1), 60000L));
+        when(transactionRepository.findSalePointsBetween(eq(todayStart), any(Date.class)))
+                .thenReturn(List.of(salePoint(today, zone, 120000)));
+
+        // When
+        List<Map<String, Object>> trend = dashboardService.getSalesTrend();
+
+        // Then
+        assertEquals(6, trend.size());
+        assertEquals(120000L, trend.get(5).get("value"));
+        assertEquals(60000L, trend.get(4).get("value"));
+        verify(transactionRepository, times(1)).findSalePointsBetween(any(Date.class), any(Date.class));
+    }
+
+    @Test
+    void testGetSalesTrendSkipsRollupWhenNotCaughtUp() {
+        // Given：汇总表落后（如发件箱有积压事件），整个区间从交易表读取
+        when(rollupService.getZoneId()).thenReturn(ZoneId.systemDefault());
+        when(rollupService.caughtUpThrough()).thenReturn(Optional.empty());
+        when(transactionRepository.findSalePointsBetween(any(Date.class), any(Date.class)))
+                .thenReturn(List.of(salePoint(LocalDate.now(), ZoneId.systemDefault(), 50000)));
+
+        // When
+        List<Map<String, Object>> trend = dashboardService.getSalesTrend();
+
+        // Then
+        assertEquals(50000L, trend.get(5).get("value"));
+        verify(rollupService, never()).getDailyRevenue(any(LocalDate.class), any(LocalDate.class));
+    }
+
+    @Test
+    void testGetSalesTrendInvalidPeriods() {
+        assertThrows(IllegalArgumentException.class,
+                () -> dashboardService.getSalesTrend(TrendGranularity.WEEK, 0, ZoneId.systemDefault()));
+        verify(transactionRepository, never()).findSalePointsBetween(any(Date.class), any(Date.class));
+    }
+
+    @Test
+    void testGetLeaderboard() {
+        // Given
+        ZoneId zone = ZoneId.of("Asia/Shanghai");
+        LocalDate from = LocalDate.of(2025, 3, 1);
+        LocalDate to = LocalDate.of(2025, 3, 31);
+        SalespersonRanking ranking = mock(SalespersonRanking.class);
+        when(transactionRepository.findSalespersonRanking(any(Date.class), any(Date.class), anyString(), eq(5)))
+                .thenReturn(List.of(ranking));
+
+        // When
+        List<SalespersonRanking> result = dashboardService.getLeaderboard(from, to, LeaderboardMetric.PROFIT, 5, zone);
+
+        // Then：一次分组查询，按利润降序，区间为 [3月1日, 4月1日)
+        assertEquals(1, result.size());
+        Date start = Date.from(from.atStartOfDay(zone).toInstant());
+        Date end = Date.from(LocalDate.of(2025, 4, 1).atStartOfDay(zone).toInstant());
+        verify(transactionRepository).findSalespersonRanking(start, end, "profit", 5);
+        verify(transactionRepository, never()).findAll();
+    }
+
+    @Test
+    void testGetLeaderboardInvalidParams() {
+        LocalDate today = LocalDate.now();
+        assertThrows(IllegalArgumentException.class,
+                () -> dashboardService.getLeaderboard(today, today, LeaderboardMetric.REVENUE, 0, ZoneId.systemDefault()));
+        assertThrows(IllegalArgumentException.class,
+                () -> dashboardService.getLeaderboard(today, today.minusDays(1), LeaderboardMetric.REVENUE, 10, ZoneId.systemDefault()));
+    }
+
+    private static SalePoint salePoint(LocalDate day, ZoneId zone, Integer price) {
+        Date date = Date.from(day.atTime(12, 0).atZone(zone).toInstant());
+        return new SalePoint() {
+            @Override
+            public Date getDate() {
+                return date;
+            }
+
+            @Override
+            public Integer getPrice() {
+                return price;
+            }
+        };
+    }
+
+    private static CarStatusSummary carSummary(String status, Long carCount, Long totalPrice) {
+        return new CarStatusSummary() {
+            @Override
+            public String getStatus() {
+                return status;
+            }
+
+            @Override
+            public Long getCarCount() {
+                return carCount;
+            }
+
+            @Override
+            public Long getTotalPrice() {
+                return totalPrice;
+            }
+        };
+    }
+
+    private static SalesSummary salesSummary(Long salesCount, Long totalRevenue) {
+        return new SalesSummary() {
+            @Override
+            public Long getSalesCount() {
+                return salesCount;
+            }
+
+            @Override
+            public Long getTotalRevenue() {
+                return totalRevenue;
+            }
+        };
+    }
+
+    private static ProfitSummary profitSummary(Long totalProfit, Long incompleteCount) {
+        return new ProfitSummary() {
+            @Override
+            public Long getTotalProfit() {
+                return totalProfit;
+            }
+
+            @Override
+            public Long getIncompleteCount() {
+                return incompleteCount;
+            }
+        };
+    }
 }
@@ -1,23 +1,52 @@
 package com.automaster.service;
 
+import com.automaster.dto.BulkCompleteItem;
+import com.automaster.dto.BulkCompleteItemResult;
+import com.automaster.dto.BulkCompleteResult;
+import com.automaster.dto.CursorPage;
+import com.automaster.entity.ArchivedTransaction;
 import com.automaster.entity.Car;
+import com.automaster.entity.CarStatusTransition;
 import com.automaster.entity.Customer;
 import com.automaster.entity.Transaction;
+import com.automaster.event.CarChangedEvent;
+import com.automaster.event.TransactionBatchChangedEvent;
+import com.automaster.event.TransactionChangedEvent;
+import com.automaster.exception.CarStatusConflictException;
+import com.automaster.repository.ArchivedTransactionRepository;
 import com.automaster.repository.CarRepository;
 import com.automaster.repository.CustomerRepository;
+import com.automaster.repository.TransactionBatchRepository;
 import com.automaster.repository.TransactionRepository;
+import com.automaster.repository.UserRepository;
 import com.automaster.service.impl.TransactionServiceImpl;
+import com.automaster.service.support.KeysetCursor;
+import com.automaster.service.support.TransactionEnricher;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 /**
@@ -36,7 +65,21 @@ class TransactionServiceTest {
     @Mock
     private CustomerRepository customerRepository;
 
-    @InjectMocks
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private CarStatusService carStatusService;
+
+    @Mock
+    private TransactionBatchRepository transactionBatchRepository;
+
+    @Mock
+    private ArchivedTransactionRepository archivedTransactionRepository;
+
     private TransactionServiceImpl transactionService;
 
     private Car mockCar;
@@ -45,6 +88,11 @@ class TransactionServiceTest {
 
     @BeforeEach
     void setUp() {
+        // 使用真实的批量填充组件，车辆/客户仍由仓库 mock 提供
+        transactionService = new TransactionServiceImpl(transactionRepository, carRepository, customerRepository,
+                userRepository, eventPublisher, new TransactionEnricher(carRepository, customerRepository),
+                carStatusService, transactionBatchRepository, archivedTransactionRepository);
+
         mockCar = new Car();
         mockCar.setId("car1");
         mockCar.setStatus("PENDING");
@@ -68,10 +116,10 @@ class TransactionServiceTest {
     void testCompleteTransaction_Success() {
         // Given
         when(transactionRepository.findById("tx1")).thenReturn(Optional.of(mockTransaction));
+        when(transactionRepository.completeIfPending(eq("tx1"), eq(160000), any())).thenReturn(1);
         when(carRepository.findById("car1")).thenReturn(Optional.of(mockCar));
+        when(carStatusService.transition(mockCar, CarStatusTransition.SETTLE)).thenReturn(mockCar);
         when(customerRepository.findById("customer1")).thenReturn(Optional.of(mockCustomer));
-        when(transactionRepository.save(any(Transaction.class))).thenReturn(mockTransaction);
-        when(carRepository.save(any(Car.class))).thenReturn(mockCar);
 
         // When
         Transaction completed = transactionService.completeTransaction("tx1", 160000);
@@ -81,12 +129,31 @@ class TransactionServiceTest {
         assertEquals("COMPLETED", completed.getStatus());
         assertEquals(160000, completed.getFinalPrice());
         assertEquals(160000, completed.getPrice());
+        assertEquals(mockCar, completed.getCar());
 
-        // Verify
+        // Verify：交易和车辆均通过条件更新修改，不再整行保存
         verify(transactionRepository, times(1)).findById("tx1");
         verify(carRepository, times(1)).findById("car1");
-        verify(transactionRepository, times(1)).save(any(Transaction.class));
-        verify(carRepository, times(1)).save(any(Car.class));
+        verify(carStatusService, times(1)).transition(mockCar, CarStatusTransition.SETTLE);
+        verify(transactionRepository, never()).save(any(Transaction.class));
+        verify(carRepository, never()).save(any(Car.class));
+        verify(eventPublisher, times(1)).publishEvent(any(TransactionChangedEvent.class));
+    }
+
+    @Test
+    void testCompleteTransaction_ConcurrentlyCompleted() {
+        // Given：读取时为预定状态，条件更新时已被其他请求完成
+        when(transactionRepository.findById("tx1")).thenReturn(Optional.of(mockTransaction));
+        when(transactionRepository.completeIfPending(eq("tx1"), eq(160000), any())).thenReturn(0);
+
+        // When & Then
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
+            transactionService.completeTransaction("tx1", 160000);
+        });
+
+        assertEquals("只有预定状态的交易才能完成", exception.getMessage());
+        verify(carStatusService, never()).transition(any(), any());
+        verify(eventPublisher, never()).publishEvent(any());
     }
 
     @Test
@@ -120,6 +187,167 @@ class TransactionServiceTest {
         verify(transactionRepository, never()).save(any(Transaction.class));
     }
 
+    @Test
+    void testCompleteTransactions_PerItemResults() {
+        // Given：tx1 可完成，tx2 已完成，tx3 不存在，tx1 重复提交，第5项缺少成交价，第6项成交价为0
+        Transaction done = new Transaction();
+        done.setId("tx2");
+        done.setCarId("car2");
+        done.setStatus("COMPLETED");
+        when(transactionRepository.findAllById(anyCollection())).thenReturn(List.of(mockTransaction, done));
+        when(carRepository.findAllById(Set.of("car1"))).thenReturn(List.of(mockCar));
+        when(transactionBatchRepository.completePending(anyList())).thenReturn(new int[]{1});
+        when(transactionBatchRepository.transitionCars(anyList(), eq(CarStatusTransition.SETTLE))).thenReturn(new int[]{1});
+
+        // When
+        BulkCompleteResult result = transactionService.completeTransactions(List.of(
+                new BulkCompleteItem("tx1", 160000), new BulkCompleteItem("tx2", 100000),
+                new BulkCompleteItem("tx3", 100000), new BulkCompleteItem("tx1", 170000),
+                new BulkCompleteItem("tx4", null), new BulkCompleteItem("tx5", 0)));
+
+        // Then：结果与请求顺序一致
+        assertEquals(6, result.getTotal());
+        assertEquals(1, result.getSucceeded());
+        assertEquals(5, result.getFailed());
+        assertEquals(List.of(BulkCompleteItemResult.OK, BulkCompleteItemResult.NOT_PENDING, BulkCompleteItemResult.NOT_FOUND,
+                        BulkCompleteItemResult.DUPLICATE, BulkCompleteItemResult.INVALID, BulkCompleteItemResult.INVALID),
+                result.getResults().stream().map(BulkCompleteItemResult::getCode).collect(Collectors.toList()));
+
+        // 只提交一次交易批量更新和一次车辆批量更新，不逐条查询或保存
+        ArgumentCaptor<List<Transaction>> completed = ArgumentCaptor.forClass(List.class);
+        verify(transactionBatchRepository).completePending(completed.capture());
+        assertEquals(1, completed.getValue().size());
+        assertEquals("COMPLETED", completed.getValue().get(0).getStatus());
+        assertEquals(160000, completed.getValue().get(0).getFinalPrice());
+        assertEquals(160000, completed.getValue().get(0).getPrice());
+        verify(transactionBatchRepository).transitionCars(List.of(mockCar), CarStatusTransition.SETTLE);
+        verify(transactionRepository, never()).findById(any());
+        verify(transactionRepository, never()).save(any(Transaction.class));
+
+        // 交易变更按批发布，事件中的快照为完成后的状态
+        ArgumentCaptor<Object> events = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher, times(2)).publishEvent(events.capture());
+        CarChangedEvent carEvent = (CarChangedEvent) events.getAllValues().get(0);
+        assertEquals("PENDING", carEvent.getBefore().getStatus());
+        assertEquals("SOLD", carEvent.getAfter().getStatus());
+        assertNull(carEvent.getAfter().getCustomerId());
+        TransactionBatchChangedEvent batch = (TransactionBatchChangedEvent) events.getAllValues().get(1);
+        assertEquals(1, batch.getChanges().size());
+        assertEquals("PENDING", batch.getChanges().get(0).getBefore().getStatus());
+        assertEquals(120000, batch.getChanges().get(0).getCarCostPrice());
+        // 已加载的交易实体未被修改
+        assertEquals("PENDING", mockTransaction.getStatus());
+    }
+
+    @Test
+    void testCompleteTransactions_ConcurrentlyCompleted() {
+        // Given：条件更新行数为0
+        when(transactionRepository.findAllById(anyCollection())).thenReturn(List.of(mockTransaction));
+        when(carRepository.findAllById(Set.of("car1"))).thenReturn(List.of(mockCar));
+        when(transactionBatchRepository.completePending(anyList())).thenReturn(new int[]{0});
+
+        BulkCompleteResult result = transactionService.completeTransactions(List.of(new BulkCompleteItem("tx1", 160000)));
+
+        assertEquals(BulkCompleteItemResult.CONFLICT, result.getResults().get(0).getCode());
+        verify(transactionBatchRepository, never()).transitionCars(anyList(), any());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void testCompleteTransactions_CarConflictReverted() {
+        // Given：交易条件更新成功，但车辆已被其他请求修改
+        when(transactionRepository.findAllById(anyCollection())).thenReturn(List.of(mockTransaction));
+        when(carRepository.findAllById(Set.of("car1"))).thenReturn(List.of(mockCar));
+        when(transactionBatchRepository.completePending(anyList())).thenReturn(new int[]{1});
+        when(transactionBatchRepository.transitionCars(anyList(), any())).thenReturn(new int[]{0});
+
+        BulkCompleteResult result = transactionService.completeTransactions(List.of(new BulkCompleteItem("tx1", 160000)));
+
+        // Then：按项返回冲突，交易恢复为读取时的快照，不发布事件
+        assertEquals(0, result.getSucceeded());
+        assertEquals(BulkCompleteItemResult.CONFLICT, result.getResults().get(0).getCode());
+        ArgumentCaptor<List<Transaction>> reverted = ArgumentCaptor.forClass(List.class);
+        verify(transactionBatchRepository).revertCompleted(reverted.capture());
+        assertEquals(1, reverted.getValue().size());
+        assertEquals("PENDING", reverted.getValue().get(0).getStatus());
+        assertEquals(150000, reverted.getValue().get(0).getPrice());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void testCompleteTransactions_SameCarInBatch() {
+        // Given：同一车辆的两条预定交易
+        Transaction other = new Transaction();
+        other.setId("tx2");
+        other.setCarId("car1");
+        other.setCustomerId("customer2");
+        other.setStatus("PENDING");
+        when(transactionRepository.findAllById(anyCollection())).thenReturn(List.of(mockTransaction, other));
+        when(carRepository.findAllById(Set.of("car1"))).thenReturn(List.of(mockCar));
+        when(transactionBatchRepository.completePending(anyList())).thenReturn(new int[]{1});
+        when(transactionBatchRepository.transitionCars(anyList(), any())).thenReturn(new int[]{1});
+
+        BulkCompleteResult result = transactionService.completeTransactions(List.of(
+                new BulkCompleteItem("tx1", 160000), new BulkCompleteItem("tx2", 170000)));
+
+        // Then：只有第一条成交，第二条按冲突返回，车辆只更新一次
+        assertEquals(List.of(BulkCompleteItemResult.OK, BulkCompleteItemResult.CONFLICT),
+                result.getResults().stream().map(BulkCompleteItemResult::getCode).collect(Collectors.toList()));
+        ArgumentCaptor<List<Transaction>> completed = ArgumentCaptor.forClass(List.class);
+        verify(transactionBatchRepository).completePending(completed.capture());
+        assertEquals(List.of("tx1"), completed.getValue().stream().map(Transaction::getId).collect(Collectors.toList()));
+        verify(transactionBatchRepository).transitionCars(List.of(mockCar), CarStatusTransition.SETTLE);
+        verify(transactionBatchRepository, never()).revertCompleted(anyList());
+    }
+
+    @Test
+    void testCompleteTransactions_InvalidRequest() {
+        assertThrows(IllegalArgumentException.class, () -> transactionService.completeTransactions(List.of()));
+        List<BulkCompleteItem> tooMany = IntStream.range(0, 501)
+                .mapToObj(i -> new BulkCompleteItem("tx" + i, 100000)).collect(Collectors.toList());
+        assertThrows(IllegalArgumentException.class, () -> transactionService.completeTransactions(tooMany));
+        verifyNoInteractions(transactionBatchRepository);
+    }
+
+    @Test
+    void testGetTransactionById_IncludeArchived() {
+        ArchivedTransaction archived = new ArchivedTransaction();
+        archived.setId("tx-old");
+        archived.setStatus("COMPLETED");
+        when(transactionRepository.findById("tx-old")).thenReturn(Optional.empty());
+        when(archivedTransactionRepository.findById("tx-old")).thenReturn(Optional.of(archived));
+
+        // 默认不查询归档表
+        assertTrue(transactionService.getTransactionById("tx-old", false).isEmpty());
+        verify(archivedTransactionRepository, never()).findById(any());
+
+        Transaction found = transactionService.getTransactionById("tx-old", true).orElseThrow();
+        assertEquals("tx-old", found.getId());
+        assertTrue(found.getArchived());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testSearchArchivedTransactions() {
+        ArchivedTransaction archived = new ArchivedTransaction();
+        archived.setId("tx-old");
+        archived.setCarId("car1");
+        archived.setCustomerId("customer1");
+        PageRequest pageable = PageRequest.of(0, 20, Sort.by(Sort.Order.desc("date")));
+        when(archivedTransactionRepository.findAll(any(Specification.class), eq(pageable)))
+                .thenReturn(new PageImpl<>(List.of(archived), pageable, 1));
+        when(carRepository.findAllById(any())).thenReturn(List.of(mockCar));
+        when(customerRepository.findAllById(any())).thenReturn(List.of(mockCustomer));
+
+        Page<Transaction> page = transactionService.searchArchivedTransactions("COMPLETED", null, null, null,
+                null, null, null, pageable);
+
+        assertEquals(1, page.getTotalElements());
+        assertTrue(page.getContent().get(0).getArchived());
+        assertEquals(mockCar, page.getContent().get(0).getCar());
+        verify(transactionRepository, never()).findAll(any(Specification.class), any(PageRequest.class));
+    }
+
     @Test
     void testSaveTransaction_CarNotFound() {
         // Given
@@ -151,280 +379,119 @@ class TransactionServiceTest {
         verify(transactionRepository, never()).save(any(Transaction.class));
     }
 
-    // ========== 查询功能测试 ==========
-
     @Test
-    void testSearchTransactions_WithStatus() throws Exception {
-        // 准备测试数据
-        Transaction tx1 = new Transaction();
-        tx1.setId("tx-001");
-        tx1.setCarId("car1");
-        tx1.setCustomerId("customer1");
-        tx1.setStatus("COMPLETED");
-        tx1.setPrice(200000);
-        tx1.setFinalPrice(200000);
-        tx1.setDate(new java.text.SimpleDateFormat("yyyy-MM-dd").parse("2024-01-15"));
-
-        Transaction tx2 = new Transaction();
-        tx2.setId("tx-002");
-        tx2.setCarId("car1");
-        tx2.setCustomerId("customer1");
-        tx2.setStatus("PENDING");
-        tx2.setPrice(10000);
-        tx2.setDeposit(10000);
-        tx2.setDate(new java.text.SimpleDateFormat("yyyy-MM-dd").parse("2024-02-20"));
-
-        when(transactionRepository.findAll()).thenReturn(java.util.Arrays.asList(tx1, tx2));
+    void testSaveTransaction_ConcurrentSale() {
+        // Given：两个请求同时售出同一辆车，本请求的条件更新落空
+        mockCar.setStatus("AVAILABLE");
         when(carRepository.findById("car1")).thenReturn(Optional.of(mockCar));
-        when(customerRepository.findById("customer1")).thenReturn(Optional.of(mockCustomer));
+        when(customerRepository.existsById("customer1")).thenReturn(true);
+        when(carStatusService.transition(mockCar, CarStatusTransition.SELL))
+                .thenThrow(new CarStatusConflictException("car1"));
 
-        // 执行查询：只查询已完成的订单
-        java.util.List<Transaction> result = transactionService.searchTransactions(
-            "COMPLETED", null, null, null, null, null, null
-        );
-
-        // 验证结果
-        assertEquals(1, result.size());
-        assertEquals("tx-001", result.get(0).getId());
-        assertEquals("COMPLETED", result.get(0).getStatus());
+        // When & Then
+        assertThrows(CarStatusConflictException.class, () -> transactionService.saveTransaction(mockTransaction));
+        verify(transactionRepository, never()).save(any(Transaction.class));
     }
 
+    // ========== 查询功能测试 ==========
+
     @Test
-    void testSearchTransactions_WithOrderId() throws Exception {
-        // 准备测试数据
+    void testSearchTransactions_DelegatesToDatabase() {
+        // 筛选语义由 TransactionSpecificationsTest 在数据库中验证，这里只验证下推查询与关联填充
         Transaction tx1 = new Transaction();
         tx1.setId("tx-001");
         tx1.setCarId("car1");
         tx1.setCustomerId("customer1");
         tx1.setStatus("COMPLETED");
-        tx1.setDate(new java.util.Date());
 
-        Transaction tx2 = new Transaction();
-        tx2.setId("tx-002");
-        tx2.setCarId("car1");
-        tx2.setCustomerId("customer1");
-        tx2.setStatus("PENDING");
-        tx2.setDate(new java.util.Date());
+        when(transactionRepository.findAll(any(Specification.class)))
+                .thenReturn(new java.util.ArrayList<>(java.util.List.of(tx1)));
+        when(carRepository.findAllById(any())).thenReturn(java.util.List.of(mockCar));
+        when(customerRepository.findAllById(any())).thenReturn(java.util.List.of(mockCustomer));
 
-        when(transactionRepository.findAll()).thenReturn(java.util.Arrays.asList(tx1, tx2));
-        when(carRepository.findById("car1")).thenReturn(Optional.of(mockCar));
-        when(customerRepository.findById("customer1")).thenReturn(Optional.of(mockCustomer));
-
-        // 执行查询：模糊匹配订单号
         java.util.List<Transaction> result = transactionService.searchTransactions(
-            null, "001", null, null, null, null, null
-        );
-
-        // 验证结果
-        assertEquals(1, result.size());
-        assertEquals("tx-001", result.get(0).getId());
-    }
-
-    @Test
-    void testSearchTransactions_WithCarName() throws Exception {
-        // 准备测试数据
-        Car car1 = new Car();
-        car1.setId("car-1");
-        car1.setYear(2020);
-        car1.setMake("Toyota");
-        car1.setModel("Camry");
-
-        Car car2 = new Car();
-        car2.setId("car-2");
-        car2.setYear(2021);
-        car2.setMake("Honda");
-        car2.setModel("Accord");
-
-        Transaction tx1 = new Transaction();
-        tx1.setId("tx-001");
-        tx1.setCarId("car-1");
-        tx1.setCustomerId("customer1");
-        tx1.setStatus("COMPLETED");
-        tx1.setDate(new java.util.Date());
-
-        Transaction tx2 = new Transaction();
-        tx2.setId("tx-002");
-        tx2.setCarId("car-2");
-        tx2.setCustomerId("customer1");
-        tx2.setStatus("PENDING");
-        tx2.setDate(new java.util.Date());
-
-        when(transactionRepository.findAll()).thenReturn(java.util.Arrays.asList(tx1, tx2));
-        when(carRepository.findById("car-1")).thenReturn(Optional.of(car1));
-        when(carRepository.findById("car-2")).thenReturn(Optional.of(car2));
-        when(customerRepository.findById("customer1")).thenReturn(Optional.of(mockCustomer));
-
-        // 执行查询：模糊匹配车辆名称
-        java.util.List<Transaction> result = transactionService.searchTransactions(
-            null, null, "Camry", null, null, null, null
+            "COMPLETED", null, null, null, null, null, null
         );
 
-        // 验证结果
         assertEquals(1, result.size());
-        assertEquals("car-1", result.get(0).getCarId());
+        assertEquals(mockCar, result.get(0).getCar());
+        assertEquals(mockCustomer, result.get(0).getCustomer());
+        verify(transactionRepository, never()).findAll();
     }
 
     @Test
-    void testSearchTransactions_WithCustomerInfo() throws Exception {
-        // 准备测试数据
-        Customer cust1 = new Customer();
-        cust1.setId("cust-1");
-        cust1.setName("张三");
-        cust1.setPhone("13800138000");
-
-        Customer cust2 = new Customer();
-        cust2.setId("cust-2");
-        cust2.setName("李四");
-        cust2.setPhone("13900139000");
-
+    void testSearchTransactions_Paged() {
         Transaction tx1 = new Transaction();
         tx1.setId("tx-001");
         tx1.setCarId("car1");
-        tx1.setCustomerId("cust-1");
-        tx1.setStatus("COMPLETED");
-        tx1.setDate(new java.util.Date());
-
-        Transaction tx2 = new Transaction();
-        tx2.setId("tx-002");
-        tx2.setCarId("car1");
-        tx2.setCustomerId("cust-2");
-        tx2.setStatus("PENDING");
-        tx2.setDate(new java.util.Date());
+        tx1.setCustomerId("customer1");
+        PageRequest pageable = PageRequest.of(1, 1, Sort.by(Sort.Direction.DESC, "price"));
 
-        when(transactionRepository.findAll()).thenReturn(java.util.Arrays.asList(tx1, tx2));
-        when(carRepository.findById("car1")).thenReturn(Optional.of(mockCar));
-        when(customerRepository.findById("cust-1")).thenReturn(Optional.of(cust1));
-        when(customerRepository.findById("cust-2")).thenReturn(Optional.of(cust2));
+        when(transactionRepository.findAll(any(Specification.class), eq(pageable)))
+                .thenReturn(new PageImpl<>(java.util.List.of(tx1), pageable, 5));
+        when(carRepository.findAllById(any())).thenReturn(java.util.List.of(mockCar));
+        when(customerRepository.findAllById(any())).thenReturn(java.util.List.of(mockCustomer));
 
-        // 执行查询：模糊匹配客户姓名
-        java.util.List<Transaction> result = transactionService.searchTransactions(
-            null, null, null, "张三", null, null, null
+        Page<Transaction> page = transactionService.searchTransactions(
+            null, null, null, null, null, null, null, pageable
         );
 
-        // 验证结果
-        assertEquals(1, result.size());
-        assertEquals("cust-1", result.get(0).getCustomerId());
+        assertEquals(5, page.getTotalElements());
+        assertEquals(mockCar, page.getContent().get(0).getCar());
     }
 
     @Test
-    void testSearchTransactions_WithPrice() throws Exception {
-        // 准备测试数据
-        Transaction tx1 = new Transaction();
-        tx1.setId("tx-001");
-        tx1.setCarId("car1");
-        tx1.setCustomerId("customer1");
-        tx1.setStatus("COMPLETED");
-        tx1.setPrice(200000);
-        tx1.setFinalPrice(200000);
-        tx1.setDate(new java.util.Date());
-
-        Transaction tx2 = new Transaction();
-        tx2.setId("tx-002");
-        tx2.setCarId("car1");
-        tx2.setCustomerId("customer1");
-        tx2.setStatus("PENDING");
-        tx2.setPrice(10000);
-        tx2.setDeposit(10000);
-        tx2.setDate(new java.util.Date());
-
-        when(transactionRepository.findAll()).thenReturn(java.util.Arrays.asList(tx1, tx2));
-        when(carRepository.findById("car1")).thenReturn(Optional.of(mockCar));
-        when(customerRepository.findById("customer1")).thenReturn(Optional.of(mockCustomer));
-
-        // 执行查询：精确匹配价格（预定状态的定金）
-        java.util.List<Transaction> result = transactionService.searchTransactions(
-            null, null, null, null, 10000, null, null
-        );
-
-        // 验证结果
-        assertEquals(1, result.size());
-        assertEquals("tx-002", result.get(0).getId());
-        assertEquals(10000, result.get(0).getDeposit());
+    void testGetTransactionPage_FirstPage() {
+        // 准备测试数据：每页2条，仓库多返回1条表示还有下一页
+        java.util.Date now = new java.util.Date();
+        Transaction tx1 = pageRow("tx-003", now);
+        Transaction tx2 = pageRow("tx-002", now);
+        Transaction tx3 = pageRow("tx-001", new java.util.Date(now.getTime() - 1000));
+        when(transactionRepository.findFirstPage(Limit.of(3))).thenReturn(java.util.Arrays.asList(tx1, tx2, tx3));
+        when(carRepository.findAllById(any())).thenReturn(java.util.List.of(mockCar));
+        when(customerRepository.findAllById(any())).thenReturn(java.util.List.of(mockCustomer));
+
+        CursorPage<Transaction> page = transactionService.getTransactionPage(null, 2);
+
+        assertEquals(2, page.getItems().size());
+        assertTrue(page.getHasMore());
+        assertEquals(mockCar, page.getItems().get(0).getCar());
+        KeysetCursor cursor = KeysetCursor.decode(page.getNextCursor());
+        assertEquals("tx-002", cursor.getId());
+        assertEquals(now.getTime(), cursor.getDate().getTime());
     }
 
     @Test
-    void testSearchTransactions_WithDateRange() throws Exception {
-        // 准备测试数据
-        java.text.SimpleDateFormat sdf = new java.text.SimpleDateFormat("yyyy-MM-dd");
-        
-        Transaction tx1 = new Transaction();
-        tx1.setId("tx-001");
-        tx1.setCarId("car1");
-        tx1.setCustomerId("customer1");
-        tx1.setStatus("COMPLETED");
-        tx1.setDate(sdf.parse("2024-01-15"));
-
-        Transaction tx2 = new Transaction();
-        tx2.setId("tx-002");
-        tx2.setCarId("car1");
-        tx2.setCustomerId("customer1");
-        tx2.setStatus("PENDING");
-        tx2.setDate(sdf.parse("2024-02-20"));
-
-        when(transactionRepository.findAll()).thenReturn(java.util.Arrays.asList(tx1, tx2));
-        when(carRepository.findById("car1")).thenReturn(Optional.of(mockCar));
-        when(customerRepository.findById("customer1")).thenReturn(Optional.of(mockCustomer));
-
-        // 执行查询：日期范围筛选
-        java.util.List<Transaction> result = transactionService.searchTransactions(
-            null, null, null, null, null, "2024-02-01", "2024-02-28"
-        );
-
-        // 验证结果
-        assertEquals(1, result.size());
-        assertEquals("tx-002", result.get(0).getId());
+    void testGetTransactionPage_WithCursor() {
+        java.util.Date date = new java.util.Date();
+        String cursor = new KeysetCursor(date, "tx-002").encode();
+        Transaction tx1 = pageRow("tx-001", date);
+        when(transactionRepository.findPageAfter(date, "tx-002", Limit.of(3))).thenReturn(java.util.List.of(tx1));
+        when(carRepository.findAllById(any())).thenReturn(java.util.List.of(mockCar));
+        when(customerRepository.findAllById(any())).thenReturn(java.util.List.of(mockCustomer));
+
+        CursorPage<Transaction> page = transactionService.getTransactionPage(cursor, 2);
+
+        // 最后一页：没有下一页游标，且不做全表查询
+        assertEquals(1, page.getItems().size());
+        assertFalse(page.getHasMore());
+        assertNull(page.getNextCursor());
+        verify(transactionRepository, never()).findAll();
     }
 
     @Test
-    void testSearchTransactions_NoResults() throws Exception {
-        // 准备测试数据
-        Transaction tx1 = new Transaction();
-        tx1.setId("tx-001");
-        tx1.setCarId("car1");
-        tx1.setCustomerId("customer1");
-        tx1.setStatus("COMPLETED");
-        tx1.setDate(new java.util.Date());
-
-        when(transactionRepository.findAll()).thenReturn(java.util.Arrays.asList(tx1));
-        when(carRepository.findById("car1")).thenReturn(Optional.of(mockCar));
-        when(customerRepository.findById("customer1")).thenReturn(Optional.of(mockCustomer));
-
-        // 执行查询：不存在的订单号
-        java.util.List<Transaction> result = transactionService.searchTransactions(
-            null, "tx-999", null, null, null, null, null
-        );
-
-        // 验证结果
-        assertEquals(0, result.size());
+    void testGetTransactionPage_InvalidParams() {
+        assertThrows(IllegalArgumentException.class, () -> transactionService.getTransactionPage("not-a-cursor", 20));
+        assertThrows(IllegalArgumentException.class, () -> transactionService.getTransactionPage(null, 0));
+        assertThrows(IllegalArgumentException.class, () -> transactionService.getTransactionPage(null, 201));
     }
 
-    @Test
-    void testSearchTransactions_AllConditionsNull() throws Exception {
-        // 准备测试数据
-        Transaction tx1 = new Transaction();
-        tx1.setId("tx-001");
-        tx1.setCarId("car1");
-        tx1.setCustomerId("customer1");
-        tx1.setStatus("COMPLETED");
-        tx1.setDate(new java.util.Date());
-
-        Transaction tx2 = new Transaction();
-        tx2.setId("tx-002");
-        tx2.setCarId("car1");
-        tx2.setCustomerId("customer1");
-        tx2.setStatus("PENDING");
-        tx2.setDate(new java.util.Date());
-
-        when(transactionRepository.findAll()).thenReturn(java.util.Arrays.asList(tx1, tx2));
-        when(carRepository.findById("car1")).thenReturn(Optional.of(mockCar));
-        when(customerRepository.findById("customer1")).thenReturn(Optional.of(mockCustomer));
-
-        // 执行查询：所有条件为空，应返回所有记录
-        java.util.List<Transaction> result = transactionService.searchTransactions(
-            null, null, null, null, null, null, null
-        );
-
-        // 验证结果
-        assertEquals(2, result.size());
+    private Transaction pageRow(String id, java.util.Date date) {
+        Transaction tx = new Transaction();
+        tx.setId(id);
+        tx.setCarId("car1");
+        tx.setCustomerId("customer1");
+        tx.setDate(date);
+        return tx;
     }
 }
@@ -0,0 +1,139 @@
+package com.automaster.service.support;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CoalescingCache 单元测试
+ * 测试 TTL 缓存、并发请求合并与失效
+ */
+class CoalescingCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    private final CoalescingCache<String, Integer> cache = new CoalescingCache<>("test", 1000, 3, now::get);
+
+    @Test
+    void testHitAndExpire() {
+        AtomicInteger calls = new AtomicInteger();
+        assertEquals(1, cache.get("k", calls::incrementAndGet));
+        assertEquals(1, cache.get("k", calls::incrementAndGet));
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+
+        // 超过 TTL 后重新计算
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+        assertEquals(2, cache.get("k", calls::incrementAndGet));
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    void testExpiredEntriesEvictedOnMiss() {
+        cache.get("a", () -> 1);
+        cache.get("b", () -> 2);
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+
+        // 任意键未命中时清理已过期的条目，不依赖再次读取同一个键
+        cache.get("c", () -> 3);
+        assertEquals(1, cache.size());
+        assertEquals(0, cache.getEvictions());
+    }
+
+    @Test
+    void testSizeBoundEvictsOldestEntry() {
+        AtomicInteger calls = new AtomicInteger();
+        for (String key : List.of("a", "b", "c", "d")) {
+            cache.get(key, calls::incrementAndGet);
+        }
+        assertEquals(3, cache.size());
+        assertEquals(1, cache.getEvictions());
+
+        // 最早写入的 a 已淘汰，其余仍命中
+        assertEquals(4, cache.get("d", calls::incrementAndGet));
+        assertEquals(5, cache.get("a", calls::incrementAndGet));
+    }
+
+    @Test
+    void testInvalidateAll() {
+        AtomicInteger calls = new AtomicInteger();
+        cache.get("k", calls::incrementAndGet);
+        cache.invalidateAll();
+        assertEquals(2, cache.get("k", calls::incrementAndGet));
+        assertEquals(0, cache.getHits());
+    }
+
+    @Test
+    void testInvalidateSingleKey() {
+        AtomicInteger calls = new AtomicInteger();
+        cache.get("a", calls::incrementAndGet);
+        cache.get("b", calls::incrementAndGet);
+        cache.invalidate("a");
+        assertEquals(3, cache.get("a", calls::incrementAndGet));
+        assertEquals(2, cache.get("b", calls::incrementAndGet));
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    void testFailureIsNotCached() {
+        assertThrows(IllegalStateException.class, () -> cache.get("k", () -> {
+            throw new IllegalStateException("db down");
+        }));
+        assertEquals(0, cache.size());
+        assertEquals(7, cache.get("k", () -> 7));
+    }
+
+    @Test
+    void testConcurrentRequestsShareOneComputation() throws Exception {
+        int threads = 8;
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            results.add(executor.submit(() -> cache.get("k", () -> {
+                started.countDown();
+                awaitQuietly(release);
+                return calls.incrementAndGet();
+            })));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            for (int i = 1; i < threads; i++) {
+                results.add(executor.submit(() -> cache.get("k", calls::incrementAndGet)));
+            }
+            // 等待其余请求进入合并等待后再放行计算
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (cache.getCoalesced() < threads - 1 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            for (Future<Integer> result : results) {
+                assertEquals(1, result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, calls.get());
+            assertEquals(1, cache.getMisses());
+            assertEquals(threads - 1, cache.getCoalesced());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
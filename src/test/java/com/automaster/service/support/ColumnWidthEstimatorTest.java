@@ -0,0 +1,53 @@
+package com.automaster.service.support;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ColumnWidthEstimator 单元测试
+ * 测试中日韩文字双倍宽度、数值位数、表头加宽与上下限
+ */
+class ColumnWidthEstimatorTest {
+
+    @Test
+    void testDisplayWidth() {
+        assertEquals(0, ColumnWidthEstimator.displayWidth(null));
+        assertEquals(11, ColumnWidthEstimator.displayWidth("13800138000"));
+        assertEquals(4, ColumnWidthEstimator.displayWidth("张三"));
+        // 中英文混排
+        assertEquals(12, ColumnWidthEstimator.displayWidth("2020 宝马 X5"));
+        // 全角标点、日文假名、韩文
+        assertEquals(6, ColumnWidthEstimator.displayWidth("（カ한"));
+        // 扩展 B 区汉字（代理对）按一个双倍宽度字符计
+        assertEquals(2, ColumnWidthEstimator.displayWidth("𠀀"));
+    }
+
+    @Test
+    void testTracksMaximumPerColumn() {
+        ColumnWidthEstimator widths = new ColumnWidthEstimator(3, 0);
+        widths.accept(0, "ab");
+        widths.accept(0, "张三丰");
+        widths.accept(0, "abc");
+        widths.accept(1, 1234567.0);
+        widths.accept(1, -5);
+        widths.accept(2, 1.5);
+
+        assertEquals((6 + 1) * 256, widths.widthOf(0));
+        assertEquals((7 + 1) * 256, widths.widthOf(1));
+        assertEquals((3 + 1) * 256, widths.widthOf(2));
+    }
+
+    @Test
+    void testHeaderAndBounds() {
+        ColumnWidthEstimator widths = new ColumnWidthEstimator(3, 3000);
+        // 加粗表头按 1.2 倍计：10 → 12
+        widths.acceptHeader(0, "0123456789");
+        widths.accept(1, "a");
+        widths.accept(2, "x".repeat(1000));
+
+        assertEquals((12 + 1) * 256, widths.widthOf(0));
+        assertEquals(3000, widths.widthOf(1));
+        assertEquals(ColumnWidthEstimator.MAX_WIDTH, widths.widthOf(2));
+    }
+}
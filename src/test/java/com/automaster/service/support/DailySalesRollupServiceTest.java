@@ -0,0 +1,107 @@
+package com.automaster.service.support;
+
+import com.automaster.entity.BatchJobCheckpoint;
+import com.automaster.entity.OutboxEvent;
+import com.automaster.entity.Transaction;
+import com.automaster.event.TransactionChangedEvent;
+import com.automaster.repository.BatchJobCheckpointRepository;
+import com.automaster.repository.DailySalesRollupRepository;
+import com.automaster.repository.OutboxEventRepository;
+import com.automaster.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * DailySalesRollupService 单元测试
+ * 测试补数按批重建、断点推进，重建期间出现待投递事件时回滚本批，以及成本价冲正事件只修正利润
+ */
+class DailySalesRollupServiceTest {
+
+    private DailySalesRollupRepository rollupRepository;
+    private BatchJobCheckpointRepository checkpointRepository;
+    private OutboxEventRepository outboxRepository;
+    private SimpleTransactionStatus transactionStatus;
+    private DailySalesRollupService service;
+
+    @BeforeEach
+    void setUp() {
+        rollupRepository = mock(DailySalesRollupRepository.class);
+        checkpointRepository = mock(BatchJobCheckpointRepository.class);
+        outboxRepository = mock(OutboxEventRepository.class);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        transactionStatus = new SimpleTransactionStatus();
+        when(transactionManager.getTransaction(any())).thenReturn(transactionStatus);
+        service = new DailySalesRollupService(rollupRepository, mock(TransactionRepository.class), checkpointRepository,
+                outboxRepository, new TransactionTemplate(transactionManager));
+
+        // 断点为三天前，需要重建前天和昨天
+        BatchJobCheckpoint checkpoint = new BatchJobCheckpoint();
+        checkpoint.setJobName(DailySalesRollupService.BACKFILL_JOB);
+        checkpoint.setCheckpoint(LocalDate.now(service.getZoneId()).minusDays(3).toString());
+        when(checkpointRepository.findById(DailySalesRollupService.BACKFILL_JOB)).thenReturn(Optional.of(checkpoint));
+    }
+
+    @Test
+    void testCostRevisionAdjustsProfitOnly() {
+        // Given：成本价 80000 → 70000 的冲正事件对（OutboxWriter.onCarChanged 写入）
+        Transaction sale = new Transaction();
+        sale.setCarId("car1");
+        sale.setType("Sale");
+        sale.setPrice(100000);
+        sale.setDate(new Date());
+        LocalDate salesDate = LocalDate.now(service.getZoneId());
+
+        // When
+        service.handle(List.of(
+                new TransactionChangedEvent(sale, null, 80000, "Toyota"),
+                new TransactionChangedEvent(null, sale, 70000, "Toyota")));
+
+        // Then：销售额、订单数、定金抵消，利润增加 10000
+        verify(rollupRepository).accumulate(salesDate, "Toyota", 0L, 10000L, 0, 0L);
+        verifyNoMoreInteractions(rollupRepository);
+    }
+
+    @Test
+    void testBackfillRebuildsAndAdvancesCheckpoint() {
+        when(outboxRepository.findPendingForShare(DailySalesRollupService.HANDLER_NAME, Limit.of(1))).thenReturn(List.of());
+
+        service.backfill();
+
+        LocalDate yesterday = LocalDate.now(service.getZoneId()).minusDays(1);
+        verify(rollupRepository).rebuildDay(eq(yesterday.minusDays(1)), any(), any());
+        verify(rollupRepository).rebuildDay(eq(yesterday), any(), any());
+        verify(checkpointRepository).save(argThat(c -> yesterday.toString().equals(c.getCheckpoint())));
+        assertFalse(transactionStatus.isRollbackOnly());
+        assertEquals(Optional.of(yesterday), service.caughtUpThrough());
+    }
+
+    @Test
+    void testBackfillRollsBackWhenEventsArriveDuringRebuild() {
+        // Given：开始补数时没有积压，重建期间有交易提交并写入待投递事件
+        when(outboxRepository.existsByHandlerAndStatus(DailySalesRollupService.HANDLER_NAME, OutboxEvent.PENDING))
+                .thenReturn(false);
+        when(outboxRepository.findPendingForShare(DailySalesRollupService.HANDLER_NAME, Limit.of(1)))
+                .thenReturn(List.of(new OutboxEvent()));
+
+        // When
+        service.backfill();
+
+        // Then：本批回滚，断点不推进
+        assertTrue(transactionStatus.isRollbackOnly());
+        verify(checkpointRepository, never()).save(any());
+    }
+}
@@ -0,0 +1,266 @@
+package com.automaster.service.support;
+
+import com.automaster.dto.CarSalePoint;
+import com.automaster.dto.DashboardStats;
+import com.automaster.entity.Car;
+import com.automaster.entity.Transaction;
+import com.automaster.entity.Customer;
+import com.automaster.event.CarChangedEvent;
+import com.automaster.event.CustomerChangedEvent;
+import com.automaster.event.TransactionChangedEvent;
+import com.automaster.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * DashboardStatsAccumulator 单元测试
+ * 测试仪表盘计数器的增量维护与对账
+ */
+class DashboardStatsAccumulatorTest {
+
+    private TransactionRepository transactionRepository;
+    private DashboardStatsAccumulator accumulator;
+
+    @BeforeEach
+    void setUp() {
+        transactionRepository = mock(TransactionRepository.class);
+        accumulator = new DashboardStatsAccumulator(transactionRepository);
+        DashboardStats seed = new DashboardStats();
+        seed.setTotalInventoryCount(2);
+        seed.setAvailableCarsCount(1);
+        seed.setPendingCarsCount(1);
+        seed.setTotalInventoryValue(250000L);
+        seed.setTotalCustomersCount(5);
+        accumulator.reconcile(() -> seed);
+    }
+
+    @Test
+    void testSnapshotEmptyBeforeSeed() {
+        assertTrue(new DashboardStatsAccumulator(transactionRepository).snapshot().isEmpty());
+    }
+
+    @Test
+    void testCarLifecycle() {
+        // 新增在售车辆
+        Car car = car("car3", "AVAILABLE", 100000, 80000);
+        accumulator.onCarChanged(CarChangedEvent.created(car));
+        DashboardStats stats = accumulator.snapshot().orElseThrow();
+        assertEquals(3, stats.getTotalInventoryCount());
+        assertEquals(2, stats.getAvailableCarsCount());
+        assertEquals(350000L, stats.getTotalInventoryValue());
+
+        // 在售 → 整备中：不再计入库存货值
+        Car before = CarChangedEvent.snapshot(car);
+        car.setStatus("MAINTENANCE");
+        accumulator.onCarChanged(CarChangedEvent.updated(before, car));
+        stats = accumulator.snapshot().orElseThrow();
+        assertEquals(1, stats.getAvailableCarsCount());
+        assertEquals(1, stats.getMaintenanceCarsCount());
+        assertEquals(250000L, stats.getTotalInventoryValue());
+
+        // 删除
+        accumulator.onCarChanged(CarChangedEvent.deleted(CarChangedEvent.snapshot(car)));
+        stats = accumulator.snapshot().orElseThrow();
+        assertEquals(2, stats.getTotalInventoryCount());
+        assertEquals(0, stats.getMaintenanceCarsCount());
+    }
+
+    @Test
+    void testSaleLifecycle() {
+        // 创建预定交易（按 Sale 计入销售额）
+        Transaction tx = new Transaction();
+        tx.setId("tx1");
+        tx.setType("Sale");
+        tx.setStatus("PENDING");
+        tx.setPrice(10000);
+        Car soldCar = car("car1", "SOLD", 100000, 80000);
+        accumulator.onTransactionChanged(TransactionChangedEvent.created(tx, soldCar));
+
+        // 完成交易：价格改为最终成交价
+        Transaction before = TransactionChangedEvent.snapshot(tx);
+        tx.setStatus("COMPLETED");
+        tx.setPrice(100000);
+        accumulator.onTransactionChanged(TransactionChangedEvent.updated(before, tx, soldCar));
+
+        DashboardStats stats = accumulator.snapshot().orElseThrow();
+        assertEquals(1, stats.getTotalSalesCount());
+        assertEquals(100000L, stats.getTotalRevenue());
+        assertEquals(20000L, stats.getTotalProfit());
+        assertEquals(20.0, stats.getAvgProfitRate());
+
+        // 删除交易
+        accumulator.onTransactionChanged(TransactionChangedEvent.deleted(TransactionChangedEvent.snapshot(tx), soldCar));
+        stats = accumulator.snapshot().orElseThrow();
+        assertEquals(0, stats.getTotalSalesCount());
+        assertEquals(0L, stats.getTotalRevenue());
+        assertEquals(0L, stats.getTotalProfit());
+    }
+
+    @Test
+    void testCustomerLifecycle() {
+        Customer customer = new Customer();
+        customer.setId("c6");
+        accumulator.onCustomerChanged(CustomerChangedEvent.created(customer));
+        assertEquals(6, accumulator.snapshot().orElseThrow().getTotalCustomersCount());
+
+        accumulator.onCustomerChanged(CustomerChangedEvent.deleted(customer));
+        assertEquals(5, accumulator.snapshot().orElseThrow().getTotalCustomersCount());
+    }
+
+    @Test
+    void testCostPriceChangeAdjustsProfit() {
+        // Given：car1 有两笔销售（一笔缺少成交价），成本价 80000 → 70000
+        CarSalePoint first = sale(100000);
+        CarSalePoint second = sale(90000);
+        CarSalePoint unpriced = sale(null);
+        when(transactionRepository.findSalePointsByCar("car1")).thenReturn(List.of(first, second, unpriced));
+        Car car = car("car1", "SOLD", 100000, 80000);
+        Car before = CarChangedEvent.snapshot(car);
+        car.setCostPrice(70000);
+
+        // When
+        accumulator.onCarChanged(CarChangedEvent.updated(before, car));
+
+        // Then：每笔有成交价的销售利润增加 10000
+        assertEquals(20000L, accumulator.snapshot().orElseThrow().getTotalProfit());
+
+        // 删除车辆后与数据库口径一致，这些销售不再计入利润（扣除 30000 + 20000）
+        accumulator.onCarChanged(CarChangedEvent.deleted(CarChangedEvent.snapshot(car)));
+        assertEquals(-30000L, accumulator.snapshot().orElseThrow().getTotalProfit());
+    }
+
+    @Test
+    void testUnchangedCostPriceSkipsQuery() {
+        Car car = car("car1", "AVAILABLE", 100000, 80000);
+        Car before = CarChangedEvent.snapshot(car);
+        car.setStatus("MAINTENANCE");
+
+        accumulator.onCarChanged(CarChangedEvent.updated(before, car));
+
+        verifyNoInteractions(transactionRepository);
+    }
+
+    @Test
+    void testReconcileSkipsCommittedButUnappliedChange() {
+        // Given：发布方事务已进入提交阶段（数据库中已包含新车辆），提交后增量尚未应用
+        TransactionSynchronizationManager.initSynchronization();
+        List<TransactionSynchronization> synchronizations;
+        try {
+            accumulator.onCarChanged(CarChangedEvent.created(car("car3", "AVAILABLE", 100000, 80000)));
+            synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        synchronizations.forEach(s -> s.beforeCommit(false));
+
+        DashboardStats fresh = new DashboardStats();
+        fresh.setTotalInventoryCount(3);
+        fresh.setAvailableCarsCount(2);
+        fresh.setPendingCarsCount(1);
+        fresh.setTotalInventoryValue(350000L);
+        fresh.setTotalCustomersCount(5);
+        AtomicInteger calls = new AtomicInteger();
+        boolean applied = accumulator.reconcile(() -> {
+            if (calls.incrementAndGet() == 2) {
+                // 第二次计算期间增量应用完成
+                synchronizations.forEach(TransactionSynchronization::afterCommit);
+                synchronizations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+            }
+            return fresh;
+        });
+
+        // Then：存在在途变更与并发写入的结果均被放弃，最终结果不重复计入新车辆
+        assertTrue(applied);
+        assertEquals(3, calls.get());
+        DashboardStats stats = accumulator.snapshot().orElseThrow();
+        assertEquals(3, stats.getTotalInventoryCount());
+        assertEquals(350000L, stats.getTotalInventoryValue());
+    }
+
+    @Test
+    void testRolledBackChangeNotApplied() {
+        TransactionSynchronizationManager.initSynchronization();
+        List<TransactionSynchronization> synchronizations;
+        try {
+            accumulator.onCarChanged(CarChangedEvent.created(car("car3", "AVAILABLE", 100000, 80000)));
+            synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        synchronizations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertEquals(2, accumulator.snapshot().orElseThrow().getTotalInventoryCount());
+    }
+
+    @Test
+    void testReconcileRecomputesWhenWriteHappensDuringRecompute() {
+        AtomicInteger calls = new AtomicInteger();
+        boolean applied = accumulator.reconcile(() -> {
+            if (calls.incrementAndGet() == 1) {
+                // 模拟第一次计算期间发生写入，该结果应被放弃
+                accumulator.onCarChanged(CarChangedEvent.created(car("car9", "AVAILABLE", 50000, 40000)));
+                return new DashboardStats();
+            }
+            DashboardStats fresh = new DashboardStats();
+            fresh.setTotalInventoryCount(3);
+            fresh.setTotalCustomersCount(5);
+            return fresh;
+        });
+
+        assertTrue(applied);
+        assertEquals(2, calls.get());
+        assertEquals(3, accumulator.snapshot().orElseThrow().getTotalInventoryCount());
+    }
+
+    @Test
+    void testReconcileBoundedUnderContinuousWrites() {
+        AtomicInteger calls = new AtomicInteger();
+        DashboardStats fresh = new DashboardStats();
+        fresh.setTotalInventoryCount(7);
+        fresh.setTotalCustomersCount(4);
+        boolean applied = accumulator.reconcile(() -> {
+            calls.incrementAndGet();
+            accumulator.onCarChanged(CarChangedEvent.created(car("car9", "AVAILABLE", 50000, 40000)));
+            return fresh;
+        });
+
+        // 乐观重算次数用尽后持有写锁重算一次并覆盖
+        assertTrue(applied);
+        assertEquals(DashboardStatsAccumulator.MAX_RECONCILE_ATTEMPTS + 1, calls.get());
+        DashboardStats stats = accumulator.snapshot().orElseThrow();
+        assertEquals(7, stats.getTotalInventoryCount());
+        assertEquals(4, stats.getTotalCustomersCount());
+    }
+
+    @Test
+    void testReconcileSkipsDegradedResult() {
+        DashboardStats degraded = new DashboardStats();
+        degraded.setDegraded(true);
+
+        assertFalse(accumulator.reconcile(() -> degraded));
+        assertEquals(2, accumulator.snapshot().orElseThrow().getTotalInventoryCount());
+    }
+
+    private static CarSalePoint sale(Integer price) {
+        CarSalePoint sale = mock(CarSalePoint.class);
+        when(sale.getPrice()).thenReturn(price);
+        return sale;
+    }
+
+    private static Car car(String id, String status, Integer price, Integer costPrice) {
+        Car car = new Car();
+        car.setId(id);
+        car.setStatus(status);
+        car.setPrice(price);
+        car.setCostPrice(costPrice);
+        return car;
+    }
+}
@@ -0,0 +1,148 @@
+package com.automaster.service.support;
+
+import com.automaster.dto.ExportJobStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ExportJobManager 单元测试
+ * 测试后台写文件、进度、失败清理、排队上限与过期清理
+ */
+class ExportJobManagerTest {
+
+    @TempDir
+    Path dir;
+
+    private final AtomicLong clock = new AtomicLong(1_000_000L);
+    private ExportJobManager manager;
+
+    @AfterEach
+    void tearDown() {
+        if (manager != null) {
+            manager.destroy();
+        }
+    }
+
+    @Test
+    void testCompletesAndReportsProgress() throws Exception {
+        manager = new ExportJobManager(dir, 1, 5, 60_000, clock::get);
+        CountDownLatch halfway = new CountDownLatch(1);
+        CountDownLatch resume = new CountDownLatch(1);
+
+        ExportJob job = manager.submit("transactions", "t.xlsx", () -> 4, (out, progress) -> {
+            out.write("ab".getBytes(StandardCharsets.UTF_8));
+            progress.accept(2);
+            halfway.countDown();
+            await(resume);
+            out.write("cd".getBytes(StandardCharsets.UTF_8));
+            progress.accept(4);
+        });
+
+        await(halfway);
+        ExportJobStatus running = manager.find(job.getId()).orElseThrow().toStatus(null);
+        assertEquals(ExportJob.RUNNING, running.getStatus());
+        assertEquals(4L, running.getTotalRows());
+        assertEquals(50, running.getProgress());
+        resume.countDown();
+
+        waitFinished(job);
+        ExportJobStatus done = job.toStatus("/download");
+        assertEquals(ExportJob.COMPLETED, done.getStatus());
+        assertEquals(100, done.getProgress());
+        assertEquals(4L, done.getFileSize());
+        assertEquals("/download", done.getDownloadUrl());
+        assertEquals("abcd", Files.readString(job.getFile()));
+        assertFalse(Files.exists(dir.resolve(job.getFile().getFileName() + ExportJobManager.PART_SUFFIX)));
+    }
+
+    @Test
+    void testFailureRemovesPartialFile() throws Exception {
+        manager = new ExportJobManager(dir, 1, 5, 60_000, clock::get);
+        ExportJob job = manager.submit("transactions", "t.xlsx", null, (out, progress) -> {
+            out.write(1);
+            throw new IOException("磁盘已满");
+        });
+
+        waitFinished(job);
+        ExportJobStatus status = job.toStatus(null);
+        assertEquals(ExportJob.FAILED, status.getStatus());
+        assertEquals("磁盘已满", status.getError());
+        assertNull(status.getProgress());
+        try (var files = Files.list(dir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void testRejectsWhenQueueFull() throws Exception {
+        manager = new ExportJobManager(dir, 1, 1, 60_000, clock::get);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExportTask blocking = (out, progress) -> {
+            started.countDown();
+            await(release);
+        };
+
+        ExportJob first = manager.submit("transactions", "1.xlsx", null, blocking);
+        await(started);
+        ExportJob queued = manager.submit("transactions", "2.xlsx", null, blocking);
+        assertEquals(ExportJob.QUEUED, queued.getStatus());
+        assertThrows(RejectedExecutionException.class, () -> manager.submit("transactions", "3.xlsx", null, blocking));
+
+        release.countDown();
+        waitFinished(first);
+        waitFinished(queued);
+    }
+
+    @Test
+    void testPurgesExpiredJobsAndOrphanFiles() throws Exception {
+        // 遗留文件按文件修改时间判断，时钟与系统时间一致
+        clock.set(System.currentTimeMillis());
+        manager = new ExportJobManager(dir, 1, 5, 60_000, clock::get);
+        ExportJob job = manager.submit("transactions", "t.xlsx", null, (out, progress) -> out.write(1));
+        waitFinished(job);
+        // 重启前遗留的文件
+        Path orphan = Files.writeString(dir.resolve("old-t.xlsx"), "x");
+        Files.setLastModifiedTime(orphan, FileTime.fromMillis(clock.get() - 120_000));
+
+        manager.purgeExpired();
+        assertTrue(manager.find(job.getId()).isPresent());
+        assertTrue(Files.exists(job.getFile()));
+        assertFalse(Files.exists(orphan));
+
+        clock.addAndGet(120_000);
+        manager.purgeExpired();
+        assertTrue(manager.find(job.getId()).isEmpty());
+        assertFalse(Files.exists(job.getFile()));
+    }
+
+    private void waitFinished(ExportJob job) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!job.isFinished() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(job.isFinished());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
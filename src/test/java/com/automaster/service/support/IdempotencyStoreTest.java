@@ -0,0 +1,221 @@
+package com.automaster.service.support;
+
+import com.automaster.entity.IdempotencyRecord;
+import com.automaster.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * IdempotencyStore 单元测试
+ * 测试重复请求回放、参数不一致拒绝、并发去重、过期与容量淘汰、持久化回放
+ */
+class IdempotencyStoreTest {
+
+    private static final String SCOPE = "POST /api/transactions";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicLong now = new AtomicLong(1_000_000L);
+    private IdempotencyRecordRepository recordRepository;
+    private IdempotencyStore store;
+
+    @BeforeEach
+    void setUp() {
+        recordRepository = mock(IdempotencyRecordRepository.class);
+        store = new IdempotencyStore(recordRepository, objectMapper, 1000, 100, 4, false, now::get);
+    }
+
+    @Test
+    void testReplayRunsActionOnce() {
+        AtomicInteger calls = new AtomicInteger();
+        String fp = store.fingerprint(Map.of("carId", "car-1"));
+
+        ResponseEntity<?> first = store.execute(SCOPE, "key-1", fp, () -> created(calls));
+        ResponseEntity<?> second = store.execute(SCOPE, "key-1", fp, () -> created(calls));
+
+        assertEquals(1, calls.get());
+        assertEquals(HttpStatus.CREATED, second.getStatusCode());
+        assertEquals(first.getBody(), second.getBody());
+        assertNull(first.getHeaders().getFirst(IdempotencyStore.REPLAYED_HEADER));
+        assertEquals("true", second.getHeaders().getFirst(IdempotencyStore.REPLAYED_HEADER));
+        // 不同接口范围的同名键互不影响
+        store.execute("PUT /api/transactions/tx-1/complete", "key-1", fp, () -> created(calls));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void testWithoutKeyAlwaysExecutes() {
+        AtomicInteger calls = new AtomicInteger();
+        store.execute(SCOPE, null, null, () -> created(calls));
+        store.execute(SCOPE, " ", null, () -> created(calls));
+        assertEquals(2, calls.get());
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void testKeyTooLong() {
+        ResponseEntity<?> response = store.execute(SCOPE, "k".repeat(101), "fp", () -> created(new AtomicInteger()));
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    @Test
+    void testFingerprintMismatch() {
+        AtomicInteger calls = new AtomicInteger();
+        store.execute(SCOPE, "key-1", store.fingerprint(100000), () -> created(calls));
+        ResponseEntity<?> response = store.execute(SCOPE, "key-1", store.fingerprint(90000), () -> created(calls));
+
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertEquals("IDEMPOTENCY_KEY_REUSED", ((Map<?, ?>) response.getBody()).get("code"));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void testServerErrorAndExceptionNotCached() {
+        AtomicInteger calls = new AtomicInteger();
+        store.execute(SCOPE, "key-1", "fp", () -> {
+            calls.incrementAndGet();
+            return ResponseEntity.internalServerError().build();
+        });
+        assertThrows(IllegalStateException.class, () -> store.execute(SCOPE, "key-1", "fp", () -> {
+            calls.incrementAndGet();
+            throw new IllegalStateException("db down");
+        }));
+        ResponseEntity<?> response = store.execute(SCOPE, "key-1", "fp", () -> created(calls));
+
+        assertEquals(3, calls.get());
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+    }
+
+    @Test
+    void testClientErrorIsCached() {
+        AtomicInteger calls = new AtomicInteger();
+        store.execute(SCOPE, "key-1", "fp", () -> {
+            calls.incrementAndGet();
+            return ResponseEntity.badRequest().body("交易不是预定状态");
+        });
+        ResponseEntity<?> replay = store.execute(SCOPE, "key-1", "fp", () -> created(calls));
+
+        assertEquals(1, calls.get());
+        assertEquals(HttpStatus.BAD_REQUEST, replay.getStatusCode());
+    }
+
+    @Test
+    void testConcurrentDuplicatesShareOneExecution() throws Exception {
+        int threads = 8;
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            Future<ResponseEntity<?>> owner = pool.submit(() -> store.execute(SCOPE, "key-1", "fp", () -> {
+                started.countDown();
+                await(release);
+                return created(calls);
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<?>[] duplicates = new Future<?>[threads - 1];
+            for (int i = 0; i < duplicates.length; i++) {
+                duplicates[i] = pool.submit(() -> store.execute(SCOPE, "key-1", "fp", () -> created(calls)));
+            }
+            release.countDown();
+
+            Object body = owner.get(5, TimeUnit.SECONDS).getBody();
+            for (Future<?> duplicate : duplicates) {
+                assertEquals(body, ((ResponseEntity<?>) duplicate.get(5, TimeUnit.SECONDS)).getBody());
+            }
+            assertEquals(1, calls.get());
+            assertEquals(threads - 1, store.getReplayed());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void testExpiredKeyExecutesAgain() {
+        AtomicInteger calls = new AtomicInteger();
+        store.execute(SCOPE, "key-1", "fp", () -> created(calls));
+        now.addAndGet(1001);
+        store.execute(SCOPE, "key-1", "fp", () -> created(calls));
+        assertEquals(2, calls.get());
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void testCapacityIsBounded() {
+        AtomicInteger calls = new AtomicInteger();
+        for (int i = 0; i < 1000; i++) {
+            store.execute(SCOPE, "key-" + i, "fp", () -> created(calls));
+        }
+        // 100 个键平均分到 4 段，每段最多 25 个
+        assertTrue(store.size() <= 100);
+    }
+
+    @Test
+    void testPersistentReplay() throws Exception {
+        store = new IdempotencyStore(recordRepository, objectMapper, 1000, 100, 4, true, now::get);
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setIdempotencyKey(SCOPE + ":key-1");
+        record.setFingerprint("fp");
+        record.setStatusCode(201);
+        record.setResponseBody(objectMapper.writeValueAsString(Map.of("id", "tx-1")));
+        record.setExpiresAt(new Date(now.get() + 500));
+        when(recordRepository.findById(SCOPE + ":key-1")).thenReturn(Optional.of(record));
+        AtomicInteger calls = new AtomicInteger();
+
+        ResponseEntity<?> replay = store.execute(SCOPE, "key-1", "fp", () -> created(calls));
+        assertEquals(0, calls.get());
+        assertEquals(HttpStatus.CREATED, replay.getStatusCode());
+        assertEquals("tx-1", ((Map<?, ?>) replay.getBody()).get("id"));
+
+        // 未命中时执行并持久化
+        when(recordRepository.findById(SCOPE + ":key-2")).thenReturn(Optional.empty());
+        store.execute(SCOPE, "key-2", "fp", () -> created(calls));
+        assertEquals(1, calls.get());
+        verify(recordRepository).save(argThat(r -> r.getIdempotencyKey().equals(SCOPE + ":key-2")
+                && r.getStatusCode() == 201 && r.getExpiresAt().getTime() == now.get() + 1000));
+    }
+
+    @Test
+    void testPersistFailureDoesNotFailRequest() {
+        store = new IdempotencyStore(recordRepository, objectMapper, 1000, 100, 4, true, now::get);
+        when(recordRepository.findById(anyString())).thenReturn(Optional.empty());
+        when(recordRepository.save(any())).thenThrow(new RuntimeException("db down"));
+        AtomicInteger calls = new AtomicInteger();
+
+        assertEquals(HttpStatus.CREATED, store.execute(SCOPE, "key-1", "fp", () -> created(calls)).getStatusCode());
+        // 内存中仍可回放
+        store.execute(SCOPE, "key-1", "fp", () -> created(calls));
+        assertEquals(1, calls.get());
+    }
+
+    private ResponseEntity<?> created(AtomicInteger calls) {
+        int n = calls.incrementAndGet();
+        return ResponseEntity.status(HttpStatus.CREATED).body(Map.of("id", "tx-" + n));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.automaster.service.support;
+
+import com.automaster.dto.AgingBucket;
+import com.automaster.dto.CarAgingPoint;
+import com.automaster.dto.InventoryAgingReport;
+import com.automaster.entity.Car;
+import com.automaster.event.CarChangedEvent;
+import com.automaster.repository.CarRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * InventoryAgingIndex 单元测试
+ * 测试库龄直方图、各品牌最老车辆、增量维护与定时重建
+ */
+class InventoryAgingIndexTest {
+
+    private final LocalDate today = LocalDate.of(2025, 6, 30);
+
+    private CarRepository carRepository;
+    private InventoryAgingIndex index;
+
+    @BeforeEach
+    void setUp() {
+        carRepository = mock(CarRepository.class);
+        when(carRepository.findInStockAgingPoints()).thenReturn(Arrays.asList(
+                point("c1", "丰田", 10, 100000, 80000, "AVAILABLE"),
+                point("c2", "丰田", 45, 120000, 90000, "PENDING"),
+                point("c3", "本田", 200, 90000, 70000, "AVAILABLE"),
+                point("c4", "本田", 400, 60000, 50000, "AVAILABLE")
+        ));
+        index = new InventoryAgingIndex(carRepository, new int[]{30, 60, 90, 180, 365});
+        index.build();
+    }
+
+    @Test
+    void testHistogram() {
+        InventoryAgingReport report = index.report(today, 5, null);
+
+        assertEquals(4L, report.getTotalCount());
+        assertEquals(290000L, report.getTotalCapital());
+        List<AgingBucket> buckets = report.getBuckets();
+        assertEquals(6, buckets.size());
+        assertEquals("0-30天", buckets.get(0).getLabel());
+        assertEquals(1L, buckets.get(0).getCarCount());
+        assertEquals(80000L, buckets.get(0).getCapital());
+        assertEquals(1L, buckets.get(1).getCarCount()); // 45天
+        assertEquals(0L, buckets.get(2).getCarCount());
+        assertEquals(1L, buckets.get(4).getCarCount()); // 200天
+        assertEquals("366天以上", buckets.get(5).getLabel());
+        assertEquals(1L, buckets.get(5).getCarCount()); // 400天
+        assertEquals(60000L, buckets.get(5).getListValue());
+    }
+
+    @Test
+    void testOldestByMake() {
+        InventoryAgingReport report = index.report(today, 1, null);
+        assertEquals(List.of("丰田", "本田"), List.copyOf(report.getOldestByMake().keySet()));
+        assertEquals("c2", report.getOldestByMake().get("丰田").get(0).getId());
+        assertEquals(45L, report.getOldestByMake().get("丰田").get(0).getAgeDays());
+        assertEquals("c4", report.getOldestByMake().get("本田").get(0).getId());
+
+        InventoryAgingReport single = index.report(today, 5, "本田");
+        assertEquals(1, single.getOldestByMake().size());
+        assertEquals(2, single.getOldestByMake().get("本田").size());
+    }
+
+    @Test
+    void testCarChangesUpdateIndex() {
+        // 售出后移出库存
+        Car sold = car("c4", "本田", 400, "SOLD");
+        index.onCarChanged(CarChangedEvent.updated(car("c4", "本田", 400, "AVAILABLE"), sold));
+        // 新入库车辆
+        index.onCarChanged(CarChangedEvent.created(car("c5", "宝马", 0, "AVAILABLE")));
+        // 修改售价，请求体不带入库时间时沿用原入库时间
+        Car repriced = car("c3", "本田", 200, "AVAILABLE");
+        repriced.setDateAdded(null);
+        repriced.setPrice(85000);
+        index.onCarChanged(CarChangedEvent.updated(car("c3", "本田", 200, "AVAILABLE"), repriced));
+
+        InventoryAgingReport report = index.report(today, 5, null);
+        assertEquals(4L, report.getTotalCount());
+        assertEquals(0L, report.getBuckets().get(5).getCarCount());
+        assertEquals(2L, report.getBuckets().get(0).getCarCount());
+        assertEquals(85000L, report.getBuckets().get(4).getListValue());
+        assertFalse(report.getOldestByMake().get("本田").stream().anyMatch(c -> "c4".equals(c.getId())));
+    }
+
+    @Test
+    void testBuildFailureLeavesIndexNotReady() {
+        InventoryAgingIndex fresh = new InventoryAgingIndex(carRepository, new int[]{30});
+        when(carRepository.findInStockAgingPoints())
+                .thenThrow(new RuntimeException("数据库不可用"))
+                .thenReturn(List.of(point("c1", "丰田", 10, 100000, 80000, "AVAILABLE")));
+
+        // 构建失败不抛出，索引保持未就绪
+        assertDoesNotThrow(fresh::build);
+        assertFalse(fresh.isReady());
+        assertThrows(IllegalStateException.class, () -> fresh.report(today, 1, null));
+
+        // 定时重试成功后就绪
+        fresh.retryBuild();
+        assertTrue(fresh.isReady());
+        assertEquals(1L, fresh.report(today, 1, null).getTotalCount());
+    }
+
+    @Test
+    void testReconcileCorrectsDrift() {
+        // 售出事件丢失，定时重建按数据库纠正
+        when(carRepository.findInStockAgingPoints()).thenReturn(Arrays.asList(
+                point("c1", "丰田", 10, 100000, 80000, "AVAILABLE"),
+                point("c2", "丰田", 45, 120000, 90000, "PENDING")
+        ));
+        index.reconcile();
+
+        InventoryAgingReport report = index.report(today, 5, null);
+        assertEquals(2L, report.getTotalCount());
+        assertEquals(170000L, report.getTotalCapital());
+        assertFalse(report.getOldestByMake().containsKey("本田"));
+    }
+
+    @Test
+    void testInvalidOldest() {
+        assertThrows(IllegalArgumentException.class, () -> index.report(today, 51, null));
+    }
+
+    private Date daysAgo(int days) {
+        return Date.from(today.minusDays(days).atStartOfDay(ZoneId.systemDefault()).toInstant().plusSeconds(3600));
+    }
+
+    private Car car(String id, String make, int ageDays, String status) {
+        Car car = new Car();
+        car.setId(id);
+        car.setMake(make);
+        car.setPrice(100000);
+        car.setCostPrice(50000);
+        car.setStatus(status);
+        car.setDateAdded(daysAgo(ageDays));
+        return car;
+    }
+
+    private CarAgingPoint point(String id, String make, int ageDays, Integer price, Integer costPrice, String status) {
+        Date dateAdded = daysAgo(ageDays);
+        return new CarAgingPoint() {
+            public String getId() { return id; }
+            public String getMake() { return make; }
+            public String getModel() { return "M"; }
+            public Integer getYear() { return 2020; }
+            public Integer getPrice() { return price; }
+            public Integer getCostPrice() { return costPrice; }
+            public String getStatus() { return status; }
+            public Date getDateAdded() { return dateAdded; }
+        };
+    }
+}
@@ -0,0 +1,101 @@
+package com.automaster.service.support;
+
+import com.automaster.entity.Transaction;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * JsonArrayStreamer 单元测试
+ * 测试分批写出、持久化上下文清理与游标关闭
+ */
+class JsonArrayStreamerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private EntityManager entityManager;
+    private PlatformTransactionManager transactionManager;
+    private JsonArrayStreamer streamer;
+
+    @BeforeEach
+    void setUp() {
+        entityManager = mock(EntityManager.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        streamer = new JsonArrayStreamer(objectMapper, entityManager, transactionManager, 2);
+    }
+
+    @Test
+    void testWritesChunksAndClearsContext() throws Exception {
+        AtomicBoolean closed = new AtomicBoolean();
+        List<Integer> chunkSizes = new ArrayList<>();
+        Stream<Transaction> source = IntStream.rangeClosed(1, 5).mapToObj(this::transaction)
+                .onClose(() -> closed.set(true));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        streamer.<Transaction>jsonArray(() -> source, chunk -> {
+            chunkSizes.add(chunk.size());
+            chunk.forEach(t -> t.setStatus("FILLED"));
+        }).writeTo(out);
+
+        Transaction[] written = objectMapper.readValue(out.toByteArray(), Transaction[].class);
+        assertEquals(5, written.length);
+        assertEquals("tx-1", written[0].getId());
+        assertEquals("FILLED", written[4].getStatus());
+        assertEquals(List.of(2, 2, 1), chunkSizes);
+        verify(entityManager, times(3)).clear();
+        verify(transactionManager).commit(any());
+        assertTrue(closed.get());
+    }
+
+    @Test
+    void testEmptySource() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        streamer.jsonArray(Stream::empty, null).writeTo(out);
+        assertEquals("[]", out.toString());
+    }
+
+    @Test
+    void testClientDisconnectRollsBackAndClosesCursor() {
+        AtomicBoolean closed = new AtomicBoolean();
+        Stream<Transaction> source = IntStream.rangeClosed(1, 5).mapToObj(this::transaction)
+                .onClose(() -> closed.set(true));
+        OutputStream broken = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+
+        assertThrows(IOException.class, () -> streamer.jsonArray(() -> source, null).writeTo(broken));
+        verify(transactionManager).rollback(any());
+        assertTrue(closed.get());
+    }
+
+    private Transaction transaction(int i) {
+        Transaction t = new Transaction();
+        t.setId("tx-" + i);
+        t.setPrice(i * 1000);
+        return t;
+    }
+}
@@ -0,0 +1,250 @@
+package com.automaster.service.support;
+
+import com.automaster.dto.OutboxBacklog;
+import com.automaster.dto.OutboxStats;
+import com.automaster.entity.OutboxEvent;
+import com.automaster.entity.Transaction;
+import com.automaster.event.TransactionChangedEvent;
+import com.automaster.repository.OutboxEventRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * OutboxDispatcher 单元测试
+ * 测试按序投递、失败重试时的单车顺序、退避与停止投递、积压统计
+ */
+class OutboxDispatcherTest {
+
+    private static final String HANDLER = "test_projection";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicLong clock = new AtomicLong(1_000_000L);
+
+    /** 发件箱表（内存模拟，事务回滚不撤销修改，与测试场景无关） */
+    private final List<OutboxEvent> table = new ArrayList<>();
+
+    /** 处理器收到的交易ID（按投递顺序） */
+    private final List<String> handled = new ArrayList<>();
+
+    /** 处理时抛出异常的交易ID */
+    private final Set<String> failing = new HashSet<>();
+
+    private OutboxDispatcher dispatcher;
+    private ProjectionHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        OutboxEventRepository repository = mock(OutboxEventRepository.class);
+        when(repository.findDueForUpdate(anyString(), any(), any())).thenAnswer(inv -> {
+            Date now = inv.getArgument(1);
+            Limit limit = inv.getArgument(2);
+            return pending().filter(e -> !e.getNextAttemptAt().after(now))
+                    .limit(limit.max()).collect(Collectors.toList());
+        });
+        when(repository.findBackingOff(anyString(), any())).thenAnswer(inv -> {
+            Date now = inv.getArgument(1);
+            return pending().filter(e -> e.getNextAttemptAt().after(now)).collect(Collectors.toList());
+        });
+        when(repository.findPendingByIdForUpdate(anyLong())).thenAnswer(inv ->
+                pending().filter(e -> e.getId().equals(inv.getArgument(0))).findFirst());
+        when(repository.findById(anyLong())).thenAnswer(inv ->
+                table.stream().filter(e -> e.getId().equals(inv.getArgument(0))).findFirst());
+        when(repository.markDone(anyCollection(), any())).thenAnswer(inv -> {
+            Collection<Long> ids = inv.getArgument(0);
+            table.stream().filter(e -> ids.contains(e.getId())).forEach(e -> {
+                e.setStatus(OutboxEvent.DONE);
+                e.setProcessedAt(inv.getArgument(1));
+            });
+            return ids.size();
+        });
+        when(repository.summarizeByStatus(anyString())).thenAnswer(inv -> {
+            String status = inv.getArgument(0);
+            List<OutboxEvent> rows = table.stream().filter(e -> status.equals(e.getStatus())).collect(Collectors.toList());
+            if (rows.isEmpty()) {
+                return List.of();
+            }
+            Date oldest = rows.stream().map(OutboxEvent::getCreatedAt).min(Comparator.naturalOrder()).orElse(null);
+            return List.of(backlog((long) rows.size(), oldest));
+        });
+
+        handler = new ProjectionHandler() {
+            @Override
+            public String getName() {
+                return HANDLER;
+            }
+
+            @Override
+            public void handle(List<TransactionChangedEvent> events) {
+                for (TransactionChangedEvent event : events) {
+                    if (failing.contains(event.getAfter().getId())) {
+                        throw new IllegalStateException("处理失败：" + event.getAfter().getId());
+                    }
+                }
+                events.forEach(e -> handled.add(e.getAfter().getId()));
+            }
+        };
+
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        dispatcher = new OutboxDispatcher(repository, List.of(handler), objectMapper,
+                new TransactionTemplate(transactionManager), clock::get);
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 10);
+        ReflectionTestUtils.setField(dispatcher, "maxAttempts", 3);
+        ReflectionTestUtils.setField(dispatcher, "initialBackoffMs", 1000L);
+        ReflectionTestUtils.setField(dispatcher, "maxBackoffMs", 5000L);
+    }
+
+    @Test
+    void testDispatchesInOrderAndMarksDone() throws Exception {
+        add("tx-1", "car-a");
+        add("tx-2", "car-b");
+        add("tx-3", "car-a");
+
+        assertEquals(3, dispatcher.dispatch(handler));
+        assertEquals(List.of("tx-1", "tx-2", "tx-3"), handled);
+        assertTrue(table.stream().allMatch(e -> OutboxEvent.DONE.equals(e.getStatus())));
+        assertEquals(0, dispatcher.dispatch(handler));
+        assertEquals(3L, dispatcher.getStats().get(0).getDispatched());
+    }
+
+    @Test
+    void testFailureBlocksSameCarOnly() throws Exception {
+        add("tx-1", "car-a");
+        add("tx-2", "car-b");
+        add("tx-3", "car-a");
+        failing.add("tx-1");
+
+        // 整批失败后逐条重试：tx-1 失败，同车的 tx-3 暂停，其他车辆照常投递
+        assertEquals(1, dispatcher.dispatch(handler));
+        assertEquals(List.of("tx-2"), handled);
+        OutboxEvent first = table.get(0);
+        assertEquals(1, first.getAttempts());
+        assertEquals(clock.get() + 1000, first.getNextAttemptAt().getTime());
+        assertTrue(first.getLastError().contains("tx-1"));
+
+        // 退避期间 tx-3 虽已到投递时间，仍等待 tx-1
+        assertEquals(0, dispatcher.dispatch(handler));
+        assertEquals(List.of("tx-2"), handled);
+
+        failing.clear();
+        clock.addAndGet(1000);
+        assertEquals(2, dispatcher.dispatch(handler));
+        assertEquals(List.of("tx-2", "tx-1", "tx-3"), handled);
+        assertEquals(1L, dispatcher.getStats().get(0).getRetries());
+    }
+
+    @Test
+    void testStopsAfterMaxAttempts() throws Exception {
+        add("tx-1", "car-a");
+        failing.add("tx-1");
+
+        for (int i = 0; i < 3; i++) {
+            dispatcher.dispatch(handler);
+            clock.addAndGet(10_000);
+        }
+        OutboxEvent event = table.get(0);
+        assertEquals(OutboxEvent.FAILED, event.getStatus());
+        assertEquals(3, event.getAttempts());
+
+        // 已停止投递的事件不再阻塞同一车辆之后的事件
+        failing.clear();
+        add("tx-2", "car-a");
+        assertEquals(1, dispatcher.dispatch(handler));
+        assertEquals(List.of("tx-2"), handled);
+
+        OutboxStats stats = dispatcher.getStats().get(0);
+        assertEquals(1L, stats.getFailed());
+        assertEquals(3L, stats.getRetries());
+    }
+
+    @Test
+    void testBackoffDoublesUpToMax() {
+        assertEquals(1000, dispatcher.backoffMillis(1));
+        assertEquals(2000, dispatcher.backoffMillis(2));
+        assertEquals(4000, dispatcher.backoffMillis(3));
+        assertEquals(5000, dispatcher.backoffMillis(4));
+        assertEquals(5000, dispatcher.backoffMillis(100));
+    }
+
+    @Test
+    void testLagStats() throws Exception {
+        add("tx-1", "car-a");
+        clock.addAndGet(5000);
+
+        OutboxStats stats = dispatcher.getStats().get(0);
+        assertEquals(HANDLER, stats.getHandler());
+        assertEquals(1L, stats.getPending());
+        assertEquals(5000L, stats.getLagMillis());
+
+        dispatcher.dispatch(handler);
+        stats = dispatcher.getStats().get(0);
+        assertEquals(0L, stats.getPending());
+        assertEquals(0L, stats.getLagMillis());
+        assertEquals(5000L, stats.getLastDispatchLagMillis());
+    }
+
+    private Stream<OutboxEvent> pending() {
+        return table.stream().filter(e -> OutboxEvent.PENDING.equals(e.getStatus()))
+                .sorted(Comparator.comparing(OutboxEvent::getId));
+    }
+
+    private void add(String transactionId, String carId) throws Exception {
+        Transaction tx = new Transaction();
+        tx.setId(transactionId);
+        tx.setCarId(carId);
+        OutboxEvent event = new OutboxEvent();
+        event.setId((long) table.size() + 1);
+        event.setHandler(HANDLER);
+        event.setEventType("TransactionChanged");
+        event.setAggregateId(carId);
+        event.setPayload(objectMapper.writeValueAsString(TransactionChangedEvent.created(tx, null)));
+        event.setStatus(OutboxEvent.PENDING);
+        event.setAttempts(0);
+        event.setCreatedAt(new Date(clock.get()));
+        event.setNextAttemptAt(new Date(clock.get()));
+        table.add(event);
+    }
+
+    private OutboxBacklog backlog(Long count, Date oldest) {
+        return new OutboxBacklog() {
+            @Override
+            public String getHandler() {
+                return HANDLER;
+            }
+
+            @Override
+            public Long getEventCount() {
+                return count;
+            }
+
+            @Override
+            public Date getOldestCreatedAt() {
+                return oldest;
+            }
+        };
+    }
+}
@@ -0,0 +1,143 @@
+package com.automaster.service.support;
+
+import com.automaster.dto.CarSalePoint;
+import com.automaster.entity.Car;
+import com.automaster.entity.OutboxEvent;
+import com.automaster.entity.Transaction;
+import com.automaster.event.CarChangedEvent;
+import com.automaster.event.TransactionChangedEvent;
+import com.automaster.repository.OutboxBatchRepository;
+import com.automaster.repository.TransactionRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * OutboxWriter 单元测试
+ * 测试发件箱事件随业务事务写入，发布方没有事务时单独开启事务写入，以及车辆成本价变更的冲正事件
+ */
+class OutboxWriterTest {
+
+    private OutboxBatchRepository outboxBatchRepository;
+    private TransactionRepository transactionRepository;
+    private PlatformTransactionManager transactionManager;
+    private OutboxWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        outboxBatchRepository = mock(OutboxBatchRepository.class);
+        transactionRepository = mock(TransactionRepository.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        ProjectionHandler handler = mock(ProjectionHandler.class);
+        when(handler.getName()).thenReturn("test_projection");
+        writer = new OutboxWriter(outboxBatchRepository, transactionRepository, List.of(handler), new ObjectMapper(),
+                new TransactionTemplate(transactionManager));
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+
+    @Test
+    void testWritesInPublisherTransaction() {
+        // Given：发布方事务提交前回调
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+
+        // When
+        writer.onTransactionChanged(TransactionChangedEvent.created(transaction(), null));
+
+        // Then：直接写入，不另开事务
+        ArgumentCaptor<List<OutboxEvent>> rows = ArgumentCaptor.forClass(List.class);
+        verify(outboxBatchRepository).insertAll(rows.capture());
+        assertEquals(1, rows.getValue().size());
+        assertEquals("test_projection", rows.getValue().get(0).getHandler());
+        assertEquals("car1", rows.getValue().get(0).getAggregateId());
+        verifyNoInteractions(transactionManager);
+    }
+
+    @Test
+    void testOpensTransactionWithoutPublisherTransaction() {
+        // When：发布方没有事务（fallbackExecution）
+        writer.onTransactionChanged(TransactionChangedEvent.created(transaction(), null));
+
+        // Then：在单独开启的事务内写入并提交
+        verify(transactionManager).getTransaction(any());
+        verify(outboxBatchRepository).insertAll(anyList());
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void testCostPriceChangeWritesReversingPair() throws Exception {
+        // Given：car1 有一笔已成交销售和一笔没有成交价的销售
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        Date soldAt = new Date();
+        CarSalePoint sold = mock(CarSalePoint.class);
+        when(sold.getDate()).thenReturn(soldAt);
+        when(sold.getPrice()).thenReturn(100000);
+        when(sold.getStatus()).thenReturn("COMPLETED");
+        CarSalePoint unpriced = mock(CarSalePoint.class);
+        when(transactionRepository.findSalePointsByCar("car1")).thenReturn(List.of(sold, unpriced));
+
+        // When：成本价 80000 → 70000
+        writer.onCarChanged(CarChangedEvent.updated(car(80000), car(70000)));
+
+        // Then：按原成本价撤销、按新成本价重新计入，归属同一车辆
+        ArgumentCaptor<List<OutboxEvent>> rows = ArgumentCaptor.forClass(List.class);
+        verify(outboxBatchRepository).insertAll(rows.capture());
+        assertEquals(2, rows.getValue().size());
+        ObjectMapper objectMapper = new ObjectMapper();
+        TransactionChangedEvent revert = objectMapper.readValue(rows.getValue().get(0).getPayload(), TransactionChangedEvent.class);
+        TransactionChangedEvent reapply = objectMapper.readValue(rows.getValue().get(1).getPayload(), TransactionChangedEvent.class);
+        assertEquals(80000, revert.getCarCostPrice());
+        assertNull(revert.getAfter());
+        assertEquals(100000, revert.getBefore().getPrice());
+        assertEquals(70000, reapply.getCarCostPrice());
+        assertNull(reapply.getBefore());
+        assertEquals(soldAt, reapply.getAfter().getDate());
+        assertEquals("Toyota", reapply.getCarMake());
+        assertEquals("car1", rows.getValue().get(1).getAggregateId());
+    }
+
+    @Test
+    void testUnchangedCostPriceWritesNothing() {
+        Car after = car(80000);
+        after.setStatus("MAINTENANCE");
+
+        writer.onCarChanged(CarChangedEvent.updated(car(80000), after));
+        writer.onCarChanged(CarChangedEvent.created(car(80000)));
+
+        verifyNoInteractions(transactionRepository, outboxBatchRepository);
+    }
+
+    private static Car car(Integer costPrice) {
+        Car car = new Car();
+        car.setId("car1");
+        car.setMake("Toyota");
+        car.setCostPrice(costPrice);
+        return car;
+    }
+
+    private static Transaction transaction() {
+        Transaction transaction = new Transaction();
+        transaction.setId("tx1");
+        transaction.setCarId("car1");
+        transaction.setType("Sale");
+        transaction.setPrice(100000);
+        return transaction;
+    }
+}
@@ -0,0 +1,277 @@
+package com.automaster.service.support;
+
+import com.automaster.dto.CarSalePoint;
+import com.automaster.dto.RangeSummary;
+import com.automaster.dto.SaleProfitPoint;
+import com.automaster.entity.Car;
+import com.automaster.entity.Transaction;
+import com.automaster.event.CarChangedEvent;
+import com.automaster.event.TransactionChangedEvent;
+import com.automaster.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * RevenueRangeIndex 单元测试
+ * 测试区间营收索引的构建、区间查询、增量更新与定时重建
+ */
+@ExtendWith(MockitoExtension.class)
+class RevenueRangeIndexTest {
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @InjectMocks
+    private RevenueRangeIndex index;
+
+    private final LocalDate base = LocalDate.of(2025, 1, 1);
+
+    @BeforeEach
+    void setUp() {
+        when(transactionRepository.findCompletedSaleProfitPoints()).thenReturn(Arrays.asList(
+                point(base, 100000, 80000),
+                point(base.plusDays(10), 200000, 150000),
+                point(base.plusDays(10), 50000, null),
+                point(base.plusDays(40), 300000, 250000)
+        ));
+        index.build();
+    }
+
+    @Test
+    void testRangeQuery() {
+        RangeSummary all = index.query(base.minusYears(1), base.plusYears(1));
+        assertEquals(650000L, all.getRevenue());
+        assertEquals(120000L, all.getProfit()); // 成本价缺失的销售不计利润
+        assertEquals(4L, all.getSalesCount());
+
+        RangeSummary day = index.query(base.plusDays(10), base.plusDays(10));
+        assertEquals(250000L, day.getRevenue());
+        assertEquals(2L, day.getSalesCount());
+
+        RangeSummary empty = index.query(base.plusDays(1), base.plusDays(9));
+        assertEquals(0L, empty.getRevenue());
+        assertEquals(0L, empty.getSalesCount());
+    }
+
+    @Test
+    void testQueryBeforeBuildFails() {
+        RevenueRangeIndex fresh = new RevenueRangeIndex(transactionRepository);
+        assertFalse(fresh.isReady());
+        assertThrows(IllegalStateException.class, () -> fresh.query(base, base));
+    }
+
+    @Test
+    void testBuildFailureLeavesIndexNotReady() {
+        RevenueRangeIndex fresh = new RevenueRangeIndex(transactionRepository);
+        when(transactionRepository.findCompletedSaleProfitPoints())
+                .thenThrow(new RuntimeException("数据库不可用"))
+                .thenReturn(List.of(point(base, 100000, 80000)));
+
+        // 构建失败不抛出，索引保持未就绪
+        assertDoesNotThrow(fresh::build);
+        assertFalse(fresh.isReady());
+
+        // 定时重试成功后就绪
+        fresh.retryBuild();
+        assertTrue(fresh.isReady());
+        assertEquals(100000L, fresh.query(base, base).getRevenue());
+    }
+
+    @Test
+    void testRebuildSkipsCommittedButUnappliedSale() {
+        // Given：发布方事务已进入提交阶段（数据库中已包含新销售），提交后增量尚未应用
+        Transaction completed = sale(base.plusDays(5), 120000, "COMPLETED");
+        TransactionSynchronizationManager.initSynchronization();
+        List<TransactionSynchronization> synchronizations;
+        try {
+            index.onTransactionChanged(new TransactionChangedEvent(null, completed, 100000, "Toyota"));
+            synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        synchronizations.forEach(s -> s.beforeCommit(false));
+
+        AtomicInteger calls = new AtomicInteger();
+        when(transactionRepository.findCompletedSaleProfitPoints()).thenAnswer(invocation -> {
+            if (calls.incrementAndGet() == 2) {
+                // 第二次读取期间增量应用完成
+                synchronizations.forEach(TransactionSynchronization::afterCommit);
+                synchronizations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+            }
+            return List.of(point(base, 100000, 80000), point(base.plusDays(5), 120000, 100000));
+        });
+
+        // Then：存在在途变更与并发写入的读取结果均被放弃，新销售只计入一次
+        assertTrue(index.rebuild());
+        assertEquals(3, calls.get());
+        RangeSummary day = index.query(base.plusDays(5), base.plusDays(5));
+        assertEquals(120000L, day.getRevenue());
+        assertEquals(1L, day.getSalesCount());
+        assertEquals(220000L, index.query(base, base.plusDays(40)).getRevenue());
+    }
+
+    @Test
+    void testReconcileCorrectsDrift() {
+        // 增量重复计入后，定时重建按数据库纠正
+        Transaction completed = sale(base, 100000, "COMPLETED");
+        index.onTransactionChanged(new TransactionChangedEvent(null, completed, 80000, "Toyota"));
+        assertEquals(2L, index.query(base, base).getSalesCount());
+
+        when(transactionRepository.findCompletedSaleProfitPoints()).thenReturn(List.of(point(base, 100000, 80000)));
+        index.reconcile();
+        assertEquals(1L, index.query(base, base).getSalesCount());
+        assertEquals(20000L, index.query(base, base).getProfit());
+    }
+
+    @Test
+    void testRebuildFailureKeepsExistingIndex() {
+        when(transactionRepository.findCompletedSaleProfitPoints()).thenThrow(new RuntimeException("数据库不可用"));
+
+        assertFalse(index.rebuild());
+        assertTrue(index.isReady());
+        assertEquals(650000L, index.query(base.minusYears(1), base.plusYears(1)).getRevenue());
+    }
+
+    @Test
+    void testCompleteAndDeleteUpdateIndex() {
+        // 定金交易不计入，完成后计入
+        Transaction pending = sale(base.plusDays(5), 120000, "PENDING");
+        index.onTransactionChanged(TransactionChangedEvent.created(pending, null));
+        assertEquals(0L, index.query(base.plusDays(5), base.plusDays(5)).getSalesCount());
+
+        Transaction completed = sale(base.plusDays(5), 120000, "COMPLETED");
+        index.onTransactionChanged(new TransactionChangedEvent(pending, completed, 100000, "Toyota"));
+        RangeSummary day = index.query(base.plusDays(5), base.plusDays(5));
+        assertEquals(120000L, day.getRevenue());
+        assertEquals(20000L, day.getProfit());
+        assertEquals(1L, day.getSalesCount());
+
+        index.onTransactionChanged(new TransactionChangedEvent(completed, null, 100000, "Toyota"));
+        assertEquals(0L, index.query(base.plusDays(5), base.plusDays(5)).getRevenue());
+    }
+
+    @Test
+    void testUpdateOutsideRangeGrowsIndex() {
+        LocalDate past = base.minusYears(3);
+        LocalDate future = base.plusYears(5);
+        index.onTransactionChanged(new TransactionChangedEvent(null, sale(past, 10000, null), 8000, "Honda"));
+        index.onTransactionChanged(new TransactionChangedEvent(null, sale(future, 20000, "COMPLETED"), 15000, "Honda"));
+
+        assertEquals(10000L, index.query(past, past).getRevenue());
+        assertEquals(20000L, index.query(future, future).getRevenue());
+        assertEquals(680000L, index.query(past, future).getRevenue());
+        assertEquals(650000L, index.query(base, base.plusDays(40)).getRevenue());
+    }
+
+    @Test
+    void testCostPriceChangeAdjustsProfit() {
+        // Given：car1 在第0天有一笔已完成销售（成本价 80000），另有一笔预定交易（不计入）
+        when(transactionRepository.findSalePointsByCar("car1")).thenReturn(List.of(
+                carSale(base, 100000, "COMPLETED"),
+                carSale(base.plusDays(5), 10000, "PENDING")));
+        Car before = car("car1", 80000);
+
+        // When：成本价 80000 → 70000
+        index.onCarChanged(CarChangedEvent.updated(before, car("car1", 70000)));
+
+        // Then：该笔销售所在日期利润增加 10000，其他日期与销售额不变
+        assertEquals(30000L, index.query(base, base).getProfit());
+        assertEquals(0L, index.query(base.plusDays(5), base.plusDays(5)).getProfit());
+        assertEquals(130000L, index.query(base, base.plusDays(40)).getProfit());
+        assertEquals(650000L, index.query(base, base.plusDays(40)).getRevenue());
+
+        // 删除车辆后该笔销售不再计利润
+        index.onCarChanged(CarChangedEvent.deleted(car("car1", 70000)));
+        assertEquals(0L, index.query(base, base).getProfit());
+        assertEquals(100000L, index.query(base, base.plusDays(40)).getProfit());
+    }
+
+    @Test
+    void testUnchangedCostPriceSkipsQuery() {
+        Car before = car("car1", 80000);
+        Car after = car("car1", 80000);
+        after.setStatus("MAINTENANCE");
+
+        index.onCarChanged(CarChangedEvent.updated(before, after));
+
+        verify(transactionRepository, never()).findSalePointsByCar(anyString());
+    }
+
+    @Test
+    void testMatchesBruteForce() {
+        Random random = new Random(42);
+        List<SaleProfitPoint> points = new ArrayList<>();
+        long[] revenueByDay = new long[200];
+        for (int i = 0; i < 500; i++) {
+            int offset = random.nextInt(200);
+            int price = random.nextInt(100000);
+            points.add(point(base.plusDays(offset), price, 0));
+            revenueByDay[offset] += price;
+        }
+        index.load(points);
+
+        for (int q = 0; q < 200; q++) {
+            int from = random.nextInt(200);
+            int to = from + random.nextInt(200 - from);
+            long expected = 0;
+            for (int d = from; d <= to; d++) {
+                expected += revenueByDay[d];
+            }
+            assertEquals(expected, index.query(base.plusDays(from), base.plusDays(to)).getRevenue());
+        }
+    }
+
+    private static Date toDate(LocalDate day) {
+        return Date.from(day.atStartOfDay(ZoneId.systemDefault()).toInstant().plusSeconds(3600));
+    }
+
+    private static Transaction sale(LocalDate day, int price, String status) {
+        Transaction tx = new Transaction();
+        tx.setType("Sale");
+        tx.setDate(toDate(day));
+        tx.setPrice(price);
+        tx.setStatus(status);
+        return tx;
+    }
+
+    private static Car car(String id, Integer costPrice) {
+        Car car = new Car();
+        car.setId(id);
+        car.setCostPrice(costPrice);
+        return car;
+    }
+
+    private static CarSalePoint carSale(LocalDate day, Integer price, String status) {
+        return new CarSalePoint() {
+            public Date getDate() { return toDate(day); }
+            public Integer getPrice() { return price; }
+            public String getStatus() { return status; }
+        };
+    }
+
+    private static SaleProfitPoint point(LocalDate day, Integer price, Integer costPrice) {
+        return new SaleProfitPoint() {
+            public Date getDate() { return toDate(day); }
+            public Integer getPrice() { return price; }
+            public Integer getCostPrice() { return costPrice; }
+        };
+    }
+}
@@ -0,0 +1,194 @@
+package com.automaster.service.support;
+
+import com.automaster.entity.Transaction;
+import jakarta.persistence.EntityManager;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * StreamingExporter 单元测试
+ * 测试分批写出、单元格类型、csv 转义与压缩、持久化上下文清理与游标关闭
+ */
+class StreamingExporterTest {
+
+    private static final List<ExportColumn<Transaction>> COLUMNS = List.of(
+            ExportColumn.of("订单号", Transaction::getId),
+            ExportColumn.of("成交价", Transaction::getPrice),
+            ExportColumn.of("交易日期", Transaction::getDate),
+            ExportColumn.of("状态", Transaction::getStatus)
+    );
+
+    private EntityManager entityManager;
+    private PlatformTransactionManager transactionManager;
+    private StreamingExporter exporter;
+
+    @BeforeEach
+    void setUp() {
+        entityManager = mock(EntityManager.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        exporter = new StreamingExporter(entityManager, transactionManager, 2);
+    }
+
+    @Test
+    void testWritesRowsInChunks() throws Exception {
+        AtomicBoolean closed = new AtomicBoolean();
+        List<Integer> chunkSizes = new ArrayList<>();
+        // 超过内存窗口的行数，验证已刷到临时文件的行也能完整写出
+        int total = XlsxRowWriter.ROW_WINDOW + 5;
+        Stream<Transaction> source = IntStream.rangeClosed(1, total).mapToObj(this::transaction)
+                .onClose(() -> closed.set(true));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exporter.export(ExportFormat.XLSX, "交易订单", COLUMNS, () -> source, chunk -> {
+            chunkSizes.add(chunk.size());
+            chunk.forEach(t -> t.setStatus("FILLED"));
+        }, null).writeTo(out);
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            Sheet sheet = workbook.getSheet("交易订单");
+            assertEquals(total, sheet.getLastRowNum());
+            assertEquals("订单号", sheet.getRow(0).getCell(0).getStringCellValue());
+
+            Row first = sheet.getRow(1);
+            assertEquals("tx-1", first.getCell(0).getStringCellValue());
+            assertEquals(1000, first.getCell(1).getNumericCellValue());
+            assertEquals("FILLED", first.getCell(3).getStringCellValue());
+            // 日期为空时不写单元格
+            assertNull(first.getCell(2));
+            assertEquals(19, sheet.getRow(2).getCell(2).getStringCellValue().length());
+
+            assertEquals("tx-" + total, sheet.getRow(total).getCell(0).getStringCellValue());
+            // 列宽按最长内容估算，短内容列取最小宽度
+            assertEquals(XlsxRowWriter.MIN_COLUMN_WIDTH, sheet.getColumnWidth(0));
+            assertEquals((19 + 1) * 256, sheet.getColumnWidth(2));
+        }
+        assertEquals(total / 2 + 1, chunkSizes.size());
+        verify(entityManager, times(total / 2 + 1)).clear();
+        verify(transactionManager).commit(any());
+        assertTrue(closed.get());
+    }
+
+    @Test
+    void testEmptySourceWritesHeaderOnly() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exporter.export(ExportFormat.XLSX, "交易订单", COLUMNS, Stream::empty, null, null).writeTo(out);
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            Sheet sheet = workbook.getSheetAt(0);
+            assertEquals(0, sheet.getLastRowNum());
+            assertEquals("状态", sheet.getRow(0).getCell(3).getStringCellValue());
+        }
+    }
+
+    @Test
+    void testClientDisconnectRollsBackAndClosesCursor() {
+        AtomicBoolean closed = new AtomicBoolean();
+        Stream<Transaction> source = IntStream.rangeClosed(1, 5).mapToObj(this::transaction)
+                .onClose(() -> closed.set(true));
+        OutputStream broken = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+
+        assertThrows(IOException.class, () -> exporter.export(ExportFormat.XLSX, "交易订单", COLUMNS, () -> source, null, null).writeTo(broken));
+        verify(transactionManager).rollback(any());
+        assertTrue(closed.get());
+    }
+
+    @Test
+    void testCsvEscapesAndFormatsValues() throws Exception {
+        Transaction plain = transaction(1);
+        Transaction quoted = transaction(2);
+        quoted.setId("tx,\"2\"");
+        quoted.setPrice(-42);
+        quoted.setDate(new Date(0));
+        quoted.setStatus("第一行\n第二行");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        List<Long> progress = new ArrayList<>();
+        exporter.export(ExportFormat.CSV, "交易订单", COLUMNS, () -> Stream.of(plain, quoted), null, progress::add)
+                .writeTo(out);
+
+        String expectedDate = ExportColumn.DATE_TIME_FORMATTER.format(Instant.ofEpochMilli(0));
+        assertEquals("订单号,成交价,交易日期,状态\r\n"
+                        + "tx-1,1000,,\r\n"
+                        + "\"tx,\"\"2\"\"\",-42," + expectedDate + ",\"第一行\n第二行\"\r\n",
+                out.toString(StandardCharsets.UTF_8));
+        assertEquals(List.of(2L, 2L), progress);
+    }
+
+    @Test
+    void testCsvGzipRoundTripKeepsOutputOpen() throws Exception {
+        int total = 7;
+        AtomicBoolean outClosed = new AtomicBoolean();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        OutputStream out = new FilterOutputStream(bytes) {
+            @Override
+            public void close() {
+                outClosed.set(true);
+            }
+        };
+
+        exporter.export(ExportFormat.CSV_GZ, "交易订单", COLUMNS,
+                () -> IntStream.rangeClosed(1, total).mapToObj(this::transaction), null, null).writeTo(out);
+
+        // 输出流由调用方关闭
+        assertFalse(outClosed.get());
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new ByteArrayInputStream(bytes.toByteArray())), StandardCharsets.UTF_8))) {
+            List<String> lines = reader.lines().toList();
+            assertEquals(total + 1, lines.size());
+            assertTrue(lines.get(total).startsWith("tx-" + total + "," + total * 1000 + ","));
+        }
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void testUnknownFormatRejected() {
+        assertEquals(ExportFormat.XLSX, ExportFormat.of(null));
+        assertEquals(ExportFormat.CSV_GZ, ExportFormat.of("CSV.GZ"));
+        assertThrows(IllegalArgumentException.class, () -> ExportFormat.of("pdf"));
+    }
+
+    private Transaction transaction(int i) {
+        Transaction t = new Transaction();
+        t.setId("tx-" + i);
+        t.setPrice(i * 1000);
+        t.setDate(i == 1 ? null : new Date());
+        return t;
+    }
+}
@@ -0,0 +1,125 @@
+package com.automaster.service.support;
+
+import com.automaster.entity.BatchJobCheckpoint;
+import com.automaster.entity.Transaction;
+import com.automaster.repository.ArchivedTransactionRepository;
+import com.automaster.repository.BatchJobCheckpointRepository;
+import com.automaster.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * TransactionArchiver 单元测试
+ * 测试分批迁移、断点续跑与行数不一致时回滚
+ */
+class TransactionArchiverTest {
+
+    private TransactionRepository transactionRepository;
+    private ArchivedTransactionRepository archivedTransactionRepository;
+    private PlatformTransactionManager transactionManager;
+    private TransactionArchiver archiver;
+
+    /** 断点表（内存模拟） */
+    private final Map<String, BatchJobCheckpoint> checkpoints = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        transactionRepository = mock(TransactionRepository.class);
+        archivedTransactionRepository = mock(ArchivedTransactionRepository.class);
+        BatchJobCheckpointRepository checkpointRepository = mock(BatchJobCheckpointRepository.class);
+        when(checkpointRepository.findById(any())).thenAnswer(inv -> Optional.ofNullable(checkpoints.get(inv.<String>getArgument(0))));
+        when(checkpointRepository.save(any())).thenAnswer(inv -> {
+            BatchJobCheckpoint c = inv.getArgument(0);
+            checkpoints.put(c.getJobName(), c);
+            return c;
+        });
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+
+        archiver = new TransactionArchiver(transactionRepository, archivedTransactionRepository, checkpointRepository,
+                new TransactionTemplate(transactionManager));
+        ReflectionTestUtils.setField(archiver, "batchSize", 2);
+        ReflectionTestUtils.setField(archiver, "pauseMillis", 0L);
+        ReflectionTestUtils.setField(archiver, "maxBatchesPerRun", 10);
+        when(archivedTransactionRepository.copyFromTransactions(anyCollection(), any()))
+                .thenAnswer(inv -> inv.<List<?>>getArgument(0).size());
+        when(transactionRepository.deleteAllByIdIn(anyCollection())).thenAnswer(inv -> inv.<List<?>>getArgument(0).size());
+    }
+
+    @Test
+    void testMovesInBatchesAndClearsCheckpointAtEnd() {
+        List<Transaction> first = List.of(tx("tx1", 1000), tx("tx2", 2000));
+        List<Transaction> second = List.of(tx("tx3", 3000));
+        when(transactionRepository.findArchivable(any(), any())).thenReturn(first);
+        when(transactionRepository.findArchivableAfter(any(), eq(new Date(2000)), eq("tx2"), any())).thenReturn(second);
+
+        assertEquals(3, archiver.archive());
+
+        verify(archivedTransactionRepository).copyFromTransactions(eq(List.of("tx1", "tx2")), any());
+        verify(archivedTransactionRepository).copyFromTransactions(eq(List.of("tx3")), any());
+        verify(transactionRepository).deleteAllByIdIn(List.of("tx3"));
+        verify(transactionManager, atLeast(2)).commit(any());
+        // 扫描到末尾后清除断点
+        assertNull(checkpoints.get(TransactionArchiver.ARCHIVE_JOB).getCheckpoint());
+    }
+
+    @Test
+    void testResumesFromCheckpoint() {
+        BatchJobCheckpoint saved = new BatchJobCheckpoint();
+        saved.setJobName(TransactionArchiver.ARCHIVE_JOB);
+        saved.setCheckpoint(new KeysetCursor(new Date(5000), "tx5").encode());
+        checkpoints.put(saved.getJobName(), saved);
+        when(transactionRepository.findArchivableAfter(any(), eq(new Date(5000)), eq("tx5"), any()))
+                .thenReturn(List.of(tx("tx6", 6000)));
+
+        assertEquals(1, archiver.archive());
+        verify(transactionRepository, never()).findArchivable(any(), any());
+    }
+
+    @Test
+    void testStopsAtBatchLimitAndKeepsCheckpoint() {
+        ReflectionTestUtils.setField(archiver, "maxBatchesPerRun", 1);
+        when(transactionRepository.findArchivable(any(), any())).thenReturn(List.of(tx("tx1", 1000), tx("tx2", 2000)));
+
+        assertEquals(2, archiver.archive());
+
+        KeysetCursor cursor = KeysetCursor.decode(checkpoints.get(TransactionArchiver.ARCHIVE_JOB).getCheckpoint());
+        assertEquals("tx2", cursor.getId());
+        assertEquals(new Date(2000), cursor.getDate());
+    }
+
+    @Test
+    void testRollsBackWhenRowsChangedConcurrently() {
+        when(transactionRepository.findArchivable(any(), any())).thenReturn(new ArrayList<>(List.of(tx("tx1", 1000))));
+        when(transactionRepository.deleteAllByIdIn(anyCollection())).thenReturn(0);
+
+        assertEquals(0, archiver.archive());
+        verify(transactionManager).rollback(any());
+        assertFalse(checkpoints.containsKey(TransactionArchiver.ARCHIVE_JOB));
+    }
+
+    private Transaction tx(String id, long millis) {
+        Transaction t = new Transaction();
+        t.setId(id);
+        t.setDate(new Date(millis));
+        t.setStatus("COMPLETED");
+        return t;
+    }
+}
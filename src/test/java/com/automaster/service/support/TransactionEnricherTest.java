@@ -0,0 +1,86 @@
+package com.automaster.service.support;
+
+import com.automaster.entity.Car;
+import com.automaster.entity.Customer;
+import com.automaster.entity.Transaction;
+import com.automaster.repository.CarRepository;
+import com.automaster.repository.CustomerRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * TransactionEnricher 单元测试
+ * 测试按去重ID分批查询并回填车辆/客户信息
+ */
+@ExtendWith(MockitoExtension.class)
+class TransactionEnricherTest {
+
+    @Mock
+    private CarRepository carRepository;
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    @InjectMocks
+    private TransactionEnricher enricher;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testEnrichInBatches() {
+        // 1200 笔交易关联 1200 辆车，但只属于 2 个客户
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < 1200; i++) {
+            Transaction t = new Transaction();
+            t.setId("tx" + i);
+            t.setCarId("car" + i);
+            t.setCustomerId(i % 2 == 0 ? "cust-a" : "cust-b");
+            transactions.add(t);
+        }
+        when(carRepository.findAllById(any())).thenAnswer(invocation -> {
+            List<Car> cars = new ArrayList<>();
+            for (String id : (Iterable<String>) invocation.getArgument(0)) {
+                // car7 已被删除
+                if (!"car7".equals(id)) {
+                    Car car = new Car();
+                    car.setId(id);
+                    cars.add(car);
+                }
+            }
+            return cars;
+        });
+        Customer customer = new Customer();
+        customer.setId("cust-a");
+        when(customerRepository.findAllById(any())).thenReturn(List.of(customer));
+
+        enricher.enrich(transactions);
+
+        // 车辆按 500 一批查询 3 次，客户去重后查询 1 次，不再逐笔 findById
+        verify(carRepository, times(3)).findAllById(any());
+        verify(customerRepository, times(1)).findAllById(any());
+        verify(carRepository, never()).findById(anyString());
+        verify(customerRepository, never()).findById(anyString());
+
+        assertEquals("car0", transactions.get(0).getCar().getId());
+        assertEquals("car1199", transactions.get(1199).getCar().getId());
+        assertNull(transactions.get(7).getCar());
+        assertSame(customer, transactions.get(0).getCustomer());
+        assertNull(transactions.get(1).getCustomer());
+    }
+
+    @Test
+    void testEnrichEmpty() {
+        enricher.enrich(List.of());
+        verifyNoInteractions(carRepository, customerRepository);
+    }
+}